@@ -115,6 +115,24 @@ public class DiagnosisKey {
     return new DiagnosisKeyBuilder();
   }
 
+  /**
+   * Returns a copy of this key with the specified key data, e.g. for padding a submission with keys that carry random
+   * key data. The copy shares all other values, including the set of visited countries, with this key. It is neither
+   * normalized nor validated again.
+   *
+   * @param keyData The key data of the copy.
+   * @return The copy of this key.
+   * @throws IllegalArgumentException if the key data does not have a length of {@link #KEY_DATA_LENGTH}.
+   */
+  public DiagnosisKey copyWithKeyData(byte[] keyData) {
+    if (keyData == null || keyData.length != KEY_DATA_LENGTH) {
+      throw new IllegalArgumentException("Key data must be a byte array of length " + KEY_DATA_LENGTH + ".");
+    }
+    return new DiagnosisKey(keyData, submissionType, rollingStartIntervalNumber, rollingPeriod, transmissionRiskLevel,
+        submissionTimestamp, consentToFederation, originCountry, visitedCountries, reportType,
+        daysSinceOnsetOfSymptoms);
+  }
+
   /**
    * Returns the diagnosis key.
    *
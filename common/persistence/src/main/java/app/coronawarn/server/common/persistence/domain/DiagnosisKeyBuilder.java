@@ -8,6 +8,7 @@ import static app.coronawarn.server.common.persistence.domain.validation.ValidSu
 
 import app.coronawarn.server.common.persistence.domain.normalization.DiagnosisKeyNormalizer;
 import app.coronawarn.server.common.persistence.domain.normalization.NormalizableFields;
+import app.coronawarn.server.common.persistence.domain.validation.DiagnosisKeyValidator;
 import app.coronawarn.server.common.persistence.exception.InvalidDiagnosisKeyException;
 import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
 import app.coronawarn.server.common.protocols.external.exposurenotification.TemporaryExposureKey;
@@ -179,6 +180,9 @@ public class DiagnosisKeyBuilder implements
   }
 
   private DiagnosisKey throwIfValidationFails(DiagnosisKey diagnosisKey) {
+    if (DiagnosisKeyValidator.atCurrentTime().isValid(diagnosisKey)) {
+      return diagnosisKey;
+    }
     Set<ConstraintViolation<DiagnosisKey>> violations = diagnosisKey.validate();
 
     if (!violations.isEmpty()) {
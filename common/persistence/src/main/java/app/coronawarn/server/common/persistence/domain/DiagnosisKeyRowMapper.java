@@ -0,0 +1,47 @@
+package app.coronawarn.server.common.persistence.domain;
+
+import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
+import app.coronawarn.server.common.protocols.internal.SubmissionPayload.SubmissionType;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Maps a row of the {@code diagnosis_key} table to a {@link DiagnosisKey}. Just like the entity mapping of Spring Data
+ * JDBC, the key is instantiated as it was persisted, i.e. without applying normalization or validation.
+ */
+public class DiagnosisKeyRowMapper implements RowMapper<DiagnosisKey> {
+
+  @Override
+  public DiagnosisKey mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+    String reportType = resultSet.getString("report_type");
+    String submissionType = resultSet.getString("submission_type");
+
+    return new DiagnosisKey(
+        resultSet.getBytes("key_data"),
+        submissionType == null ? null : SubmissionType.valueOf(submissionType),
+        resultSet.getInt("rolling_start_interval_number"),
+        resultSet.getInt("rolling_period"),
+        resultSet.getInt("transmission_risk_level"),
+        resultSet.getLong("submission_timestamp"),
+        resultSet.getBoolean("consent_to_federation"),
+        resultSet.getString("origin_country"),
+        toVisitedCountries(resultSet.getArray("visited_countries")),
+        reportType == null ? null : ReportType.valueOf(reportType),
+        (Integer) resultSet.getObject("days_since_onset_of_symptoms"));
+  }
+
+  private static Set<String> toVisitedCountries(Array visitedCountries) throws SQLException {
+    Set<String> result = new HashSet<>();
+    if (visitedCountries != null) {
+      for (Object visitedCountry : (Object[]) visitedCountries.getArray()) {
+        result.add((String) visitedCountry);
+      }
+      visitedCountries.free();
+    }
+    return result;
+  }
+}
@@ -1,12 +1,23 @@
 package app.coronawarn.server.common.persistence.domain.validation;
 
-import java.util.List;
+import java.util.BitSet;
 import java.util.Locale;
 import java.util.Set;
 
 public class CountryValidator {
 
-  private static final List<String> ISO_COUNTRIES = List.of(Locale.getISOCountries());
+  private static final int LETTERS = 26;
+
+  /**
+   * The ISO country codes, which consist of two upper case letters, indexed by {@link #indexOf(String)}.
+   */
+  private static final BitSet ISO_COUNTRIES = new BitSet(LETTERS * LETTERS);
+
+  static {
+    for (String country : Locale.getISOCountries()) {
+      ISO_COUNTRIES.set(indexOf(country));
+    }
+  }
 
   private CountryValidator() {
   }
@@ -18,7 +29,8 @@ public class CountryValidator {
    * @return true if the country code is valid
    */
   public static boolean isValidCountryCode(String country) {
-    return ISO_COUNTRIES.contains(country);
+    int index = indexOf(country);
+    return index >= 0 && ISO_COUNTRIES.get(index);
   }
 
   /**
@@ -28,6 +40,26 @@ public class CountryValidator {
    * @return true if the country codes are valid
    */
   public static boolean isValidCountryCodes(Set<String> countries) {
-    return ISO_COUNTRIES.containsAll(countries);
+    for (String country : countries) {
+      if (!isValidCountryCode(country)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the index of a country code that consists of two upper case letters, or -1 for any other string.
+   */
+  private static int indexOf(String country) {
+    if (country == null || country.length() != 2) {
+      return -1;
+    }
+    int first = country.charAt(0) - 'A';
+    int second = country.charAt(1) - 'A';
+    if (first < 0 || first >= LETTERS || second < 0 || second >= LETTERS) {
+      return -1;
+    }
+    return first * LETTERS + second;
   }
 }
@@ -0,0 +1,89 @@
+package app.coronawarn.server.common.persistence.domain.validation;
+
+import static app.coronawarn.server.common.persistence.domain.DiagnosisKey.KEY_DATA_LENGTH;
+import static app.coronawarn.server.common.persistence.domain.DiagnosisKey.MAX_DAYS_SINCE_ONSET_OF_SYMPTOMS;
+import static app.coronawarn.server.common.persistence.domain.DiagnosisKey.MAX_ROLLING_PERIOD;
+import static app.coronawarn.server.common.persistence.domain.DiagnosisKey.MAX_TRANSMISSION_RISK_LEVEL;
+import static app.coronawarn.server.common.persistence.domain.DiagnosisKey.MIN_DAYS_SINCE_ONSET_OF_SYMPTOMS;
+import static app.coronawarn.server.common.persistence.domain.DiagnosisKey.MIN_ROLLING_PERIOD;
+import static app.coronawarn.server.common.persistence.domain.DiagnosisKey.MIN_TRANSMISSION_RISK_LEVEL;
+import static app.coronawarn.server.common.persistence.domain.validation.ValidSubmissionTimestampValidator.SECONDS_PER_HOUR;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.common.protocols.internal.SubmissionPayload.SubmissionType;
+import java.time.Instant;
+
+/**
+ * Checks the constraints of a {@link DiagnosisKey} without the Bean Validation engine. The current time is captured
+ * once when the validator is created, so that a single validator can check a whole batch of keys.
+ * <br>
+ * A key that passes {@link DiagnosisKeyValidator#isValid} also passes {@link DiagnosisKey#validate()}. If it fails, the
+ * key shall be validated by {@link DiagnosisKey#validate()}, which provides the violation messages and uses the time of
+ * its invocation.
+ */
+public final class DiagnosisKeyValidator {
+
+  private static final long SECONDS_PER_ROLLING_INTERVAL = 600L;
+
+  private final long currentRollingInterval;
+  private final long currentHoursSinceEpoch;
+
+  private DiagnosisKeyValidator(Instant now) {
+    this.currentRollingInterval = now.getEpochSecond() / SECONDS_PER_ROLLING_INTERVAL;
+    this.currentHoursSinceEpoch = now.getEpochSecond() / SECONDS_PER_HOUR;
+  }
+
+  /**
+   * Creates a validator that checks the keys against the current time.
+   *
+   * @return The validator.
+   */
+  public static DiagnosisKeyValidator atCurrentTime() {
+    return atTime(Instant.now());
+  }
+
+  /**
+   * Creates a validator that checks the keys against the specified time.
+   *
+   * @param now The time that rolling start interval numbers and submission timestamps must not be after.
+   * @return The validator.
+   */
+  public static DiagnosisKeyValidator atTime(Instant now) {
+    return new DiagnosisKeyValidator(now);
+  }
+
+  /**
+   * Returns true if the specified key satisfies all constraints of {@link DiagnosisKey}.
+   *
+   * @param diagnosisKey The key to check.
+   * @return true if the key is valid.
+   */
+  public boolean isValid(DiagnosisKey diagnosisKey) {
+    return hasValidKeyData(diagnosisKey.getKeyData())
+        && isValidSubmissionType(diagnosisKey.getSubmissionType())
+        && diagnosisKey.getRollingStartIntervalNumber() > 0
+        && diagnosisKey.getRollingStartIntervalNumber() <= currentRollingInterval
+        && isInRange(diagnosisKey.getRollingPeriod(), MIN_ROLLING_PERIOD, MAX_ROLLING_PERIOD)
+        && isInRange(diagnosisKey.getTransmissionRiskLevel(), MIN_TRANSMISSION_RISK_LEVEL, MAX_TRANSMISSION_RISK_LEVEL)
+        && diagnosisKey.getSubmissionTimestamp() >= 0L
+        && diagnosisKey.getSubmissionTimestamp() <= currentHoursSinceEpoch
+        && CountryValidator.isValidCountryCode(diagnosisKey.getOriginCountry())
+        && diagnosisKey.getVisitedCountries() != null
+        && CountryValidator.isValidCountryCodes(diagnosisKey.getVisitedCountries())
+        && isInRange(diagnosisKey.getDaysSinceOnsetOfSymptoms(), MIN_DAYS_SINCE_ONSET_OF_SYMPTOMS,
+        MAX_DAYS_SINCE_ONSET_OF_SYMPTOMS);
+  }
+
+  private static boolean hasValidKeyData(byte[] keyData) {
+    return keyData != null && keyData.length == KEY_DATA_LENGTH;
+  }
+
+  private static boolean isValidSubmissionType(SubmissionType submissionType) {
+    return submissionType == SubmissionType.SUBMISSION_TYPE_PCR_TEST
+        || submissionType == SubmissionType.SUBMISSION_TYPE_RAPID_TEST;
+  }
+
+  private static boolean isInRange(int value, int min, int max) {
+    return value >= min && value <= max;
+  }
+}
@@ -0,0 +1,47 @@
+package app.coronawarn.server.common.persistence.repository;
+
+import app.coronawarn.server.common.persistence.domain.FederationUploadKey;
+import java.sql.Statement;
+import java.util.Collection;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+/**
+ * JDBC batch based implementation of {@link FederationUploadKeyBatchRepository} for an upload key table. All keys of
+ * an upload payload are sent with a single prepared statement, so that marking a payload costs one round trip.
+ * <br>
+ * If the driver reports {@link Statement#SUCCESS_NO_INFO} for a statement, the key is counted as updated.
+ */
+abstract class AbstractFederationUploadKeyBatchRepository implements FederationUploadKeyBatchRepository {
+
+  private final NamedParameterJdbcOperations jdbcTemplate;
+  private final String updateBatchTagStatement;
+
+  AbstractFederationUploadKeyBatchRepository(NamedParameterJdbcOperations jdbcTemplate, String tableName) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.updateBatchTagStatement = "UPDATE " + tableName + " SET batch_tag = :batchTag WHERE key_data = :keyData";
+  }
+
+  @Override
+  public int updateBatchTags(Collection<FederationUploadKey> uploadKeys, String batchTag) {
+    if (uploadKeys.isEmpty()) {
+      return 0;
+    }
+    SqlParameterSource[] batch = uploadKeys.stream()
+        .map(uploadKey -> new MapSqlParameterSource()
+            .addValue("keyData", uploadKey.getKeyData())
+            .addValue("batchTag", batchTag))
+        .toArray(SqlParameterSource[]::new);
+
+    int numberOfUpdatedKeys = 0;
+    for (int updateCount : jdbcTemplate.batchUpdate(updateBatchTagStatement, batch)) {
+      if (updateCount == Statement.SUCCESS_NO_INFO) {
+        numberOfUpdatedKeys++;
+      } else if (updateCount > 0) {
+        numberOfUpdatedKeys += updateCount;
+      }
+    }
+    return numberOfUpdatedKeys;
+  }
+}
@@ -0,0 +1,8 @@
+package app.coronawarn.server.common.persistence.repository;
+
+/**
+ * Repository fragment of {@link ChgsUploadKeyRepository}, which marks keys uploaded to the Swiss Gateway in JDBC
+ * batches.
+ */
+public interface ChgsUploadKeyBatchRepository extends FederationUploadKeyBatchRepository {
+}
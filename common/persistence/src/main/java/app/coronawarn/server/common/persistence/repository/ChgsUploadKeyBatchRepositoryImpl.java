@@ -0,0 +1,14 @@
+package app.coronawarn.server.common.persistence.repository;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+
+/**
+ * Implementation of {@link ChgsUploadKeyBatchRepository}, which updates the {@code chgs_upload_key} table.
+ */
+public class ChgsUploadKeyBatchRepositoryImpl extends AbstractFederationUploadKeyBatchRepository
+    implements ChgsUploadKeyBatchRepository {
+
+  public ChgsUploadKeyBatchRepositoryImpl(NamedParameterJdbcOperations jdbcTemplate) {
+    super(jdbcTemplate, "chgs_upload_key");
+  }
+}
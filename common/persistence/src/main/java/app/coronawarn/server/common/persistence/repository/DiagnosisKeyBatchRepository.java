@@ -0,0 +1,24 @@
+package app.coronawarn.server.common.persistence.repository;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import java.util.Collection;
+
+/**
+ * Repository fragment of {@link DiagnosisKeyRepository}, which writes diagnosis keys in JDBC batches instead of one
+ * round trip per key.
+ */
+public interface DiagnosisKeyBatchRepository {
+
+  /**
+   * Attempts to write the specified diagnosis keys into the database. A diagnosis key is not inserted if a row with the
+   * same key data and submission type already exists, or if a row with the same key data and the specified blocking
+   * submission type exists (e.g. overwriting PCR with RAPID is not possible).
+   *
+   * @param diagnosisKeys          The diagnosis keys to insert.
+   * @param blockingSubmissionType The submission type that prevents keys with the same key data from being inserted.
+   * @return The exact number of inserted diagnosis keys.
+   * @throws org.springframework.dao.IncorrectUpdateSemanticsDataAccessException if the database driver does not report
+   *                                                                            the number of inserted rows.
+   */
+  int saveAllDoNothingOnConflict(Collection<DiagnosisKey> diagnosisKeys, String blockingSubmissionType);
+}
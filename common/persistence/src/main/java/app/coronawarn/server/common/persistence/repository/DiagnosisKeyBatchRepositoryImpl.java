@@ -0,0 +1,90 @@
+package app.coronawarn.server.common.persistence.repository;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+/**
+ * JDBC batch based implementation of {@link DiagnosisKeyBatchRepository}. The check for existing keys of the blocking
+ * submission type and the insert are combined into a single statement, so that each batch of up to
+ * {@value #BATCH_SIZE} keys costs one round trip.
+ * <br>
+ * If the driver reports {@link Statement#SUCCESS_NO_INFO} for a statement, the exact number of inserted keys cannot be
+ * determined, because the insert is skipped for conflicting keys. The batch is then rejected with an
+ * {@link IncorrectUpdateSemanticsDataAccessException}, so that the surrounding transaction is rolled back.
+ */
+public class DiagnosisKeyBatchRepositoryImpl implements DiagnosisKeyBatchRepository {
+
+  static final int BATCH_SIZE = 1000;
+
+  private static final String INSERT_IF_NOT_BLOCKED = "INSERT INTO diagnosis_key "
+      + "(key_data, rolling_start_interval_number, rolling_period, submission_timestamp, transmission_risk_level, "
+      + "origin_country, visited_countries, report_type, days_since_onset_of_symptoms, consent_to_federation, "
+      + "submission_type) "
+      + "SELECT :keyData, :rollingStartIntervalNumber, :rollingPeriod, :submissionTimestamp, :transmissionRisk, "
+      + ":origin_country, :visited_countries, :report_type, :days_since_onset_of_symptoms, :consent_to_federation, "
+      + ":submission_type "
+      + "WHERE NOT EXISTS (SELECT 1 FROM diagnosis_key "
+      + "WHERE key_data=:keyData AND submission_type=:blocking_submission_type) "
+      + "ON CONFLICT DO NOTHING";
+
+  private final NamedParameterJdbcOperations jdbcTemplate;
+
+  public DiagnosisKeyBatchRepositoryImpl(NamedParameterJdbcOperations jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public int saveAllDoNothingOnConflict(Collection<DiagnosisKey> diagnosisKeys, String blockingSubmissionType) {
+    int numberOfInsertedKeys = 0;
+    List<SqlParameterSource> batch = new ArrayList<>(Math.min(diagnosisKeys.size(), BATCH_SIZE));
+
+    for (DiagnosisKey diagnosisKey : diagnosisKeys) {
+      batch.add(toParameters(diagnosisKey, blockingSubmissionType));
+      if (batch.size() == BATCH_SIZE) {
+        numberOfInsertedKeys += executeBatch(batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      numberOfInsertedKeys += executeBatch(batch);
+    }
+    return numberOfInsertedKeys;
+  }
+
+  private int executeBatch(List<SqlParameterSource> batch) {
+    int numberOfInsertedKeys = 0;
+    for (int updateCount : jdbcTemplate.batchUpdate(INSERT_IF_NOT_BLOCKED, batch.toArray(new SqlParameterSource[0]))) {
+      if (updateCount == Statement.SUCCESS_NO_INFO) {
+        throw new IncorrectUpdateSemanticsDataAccessException(
+            "The database driver did not report the number of inserted diagnosis keys.");
+      }
+      if (updateCount > 0) {
+        numberOfInsertedKeys += updateCount;
+      }
+    }
+    return numberOfInsertedKeys;
+  }
+
+  private static SqlParameterSource toParameters(DiagnosisKey diagnosisKey, String blockingSubmissionType) {
+    return new MapSqlParameterSource()
+        .addValue("keyData", diagnosisKey.getKeyData())
+        .addValue("rollingStartIntervalNumber", diagnosisKey.getRollingStartIntervalNumber())
+        .addValue("rollingPeriod", diagnosisKey.getRollingPeriod())
+        .addValue("submissionTimestamp", diagnosisKey.getSubmissionTimestamp())
+        .addValue("transmissionRisk", diagnosisKey.getTransmissionRiskLevel())
+        .addValue("origin_country", diagnosisKey.getOriginCountry())
+        .addValue("visited_countries", diagnosisKey.getVisitedCountries().toArray(new String[0]))
+        .addValue("report_type", diagnosisKey.getReportType().name())
+        .addValue("days_since_onset_of_symptoms", diagnosisKey.getDaysSinceOnsetOfSymptoms())
+        .addValue("consent_to_federation", diagnosisKey.isConsentToFederation())
+        .addValue("submission_type", diagnosisKey.getSubmissionType().name())
+        .addValue("blocking_submission_type", blockingSubmissionType);
+  }
+}
@@ -0,0 +1,21 @@
+package app.coronawarn.server.common.persistence.repository;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import java.util.function.Consumer;
+
+/**
+ * Repository fragment of {@link DiagnosisKeyRepository}, which reads diagnosis keys through a database cursor instead
+ * of materializing the complete result set.
+ */
+public interface DiagnosisKeyStreamingRepository {
+
+  /**
+   * Passes all persisted diagnosis keys, sorted by their submission timestamp, one by one to the specified consumer.
+   * The rows are fetched in chunks of the configured JDBC fetch size, thus this method must be called within a
+   * transaction. Otherwise the driver falls back to loading the complete result set.
+   *
+   * @param consumer The consumer that receives the diagnosis keys.
+   * @return The number of rows that have been read.
+   */
+  long streamAllOrderedBySubmissionTimestamp(Consumer<DiagnosisKey> consumer);
+}
@@ -0,0 +1,46 @@
+package app.coronawarn.server.common.persistence.repository;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.common.persistence.domain.DiagnosisKeyRowMapper;
+import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Cursor based implementation of {@link DiagnosisKeyStreamingRepository}. The fetch size is taken from the
+ * {@code spring.jdbc.template.fetch-size} property and defaults to {@value #DEFAULT_FETCH_SIZE} rows.
+ */
+public class DiagnosisKeyStreamingRepositoryImpl implements DiagnosisKeyStreamingRepository {
+
+  static final int DEFAULT_FETCH_SIZE = 1000;
+
+  private static final String SELECT_ALL_ORDERED_BY_SUBMISSION_TIMESTAMP = "SELECT key_data, "
+      + "rolling_start_interval_number, rolling_period, submission_timestamp, transmission_risk_level, "
+      + "origin_country, visited_countries, report_type, days_since_onset_of_symptoms, consent_to_federation, "
+      + "submission_type FROM diagnosis_key ORDER BY submission_timestamp ASC";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final RowMapper<DiagnosisKey> rowMapper = new DiagnosisKeyRowMapper();
+  private final int fetchSize;
+
+  public DiagnosisKeyStreamingRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.fetchSize = jdbcTemplate.getFetchSize() > 0 ? jdbcTemplate.getFetchSize() : DEFAULT_FETCH_SIZE;
+  }
+
+  @Override
+  public long streamAllOrderedBySubmissionTimestamp(Consumer<DiagnosisKey> consumer) {
+    AtomicLong numberOfRows = new AtomicLong();
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(SELECT_ALL_ORDERED_BY_SUBMISSION_TIMESTAMP);
+      statement.setFetchSize(fetchSize);
+      return statement;
+    }, resultSet -> {
+      consumer.accept(rowMapper.mapRow(resultSet, (int) numberOfRows.get()));
+      numberOfRows.incrementAndGet();
+    });
+    return numberOfRows.get();
+  }
+}
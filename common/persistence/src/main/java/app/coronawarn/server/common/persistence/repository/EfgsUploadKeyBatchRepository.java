@@ -0,0 +1,8 @@
+package app.coronawarn.server.common.persistence.repository;
+
+/**
+ * Repository fragment of {@link EfgsUploadKeyRepository}, which marks keys uploaded to the European Federation
+ * Gateway in JDBC batches.
+ */
+public interface EfgsUploadKeyBatchRepository extends FederationUploadKeyBatchRepository {
+}
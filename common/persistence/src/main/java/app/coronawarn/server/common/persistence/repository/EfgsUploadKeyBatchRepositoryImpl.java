@@ -0,0 +1,14 @@
+package app.coronawarn.server.common.persistence.repository;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+
+/**
+ * Implementation of {@link EfgsUploadKeyBatchRepository}, which updates the {@code federation_upload_key} table.
+ */
+public class EfgsUploadKeyBatchRepositoryImpl extends AbstractFederationUploadKeyBatchRepository
+    implements EfgsUploadKeyBatchRepository {
+
+  public EfgsUploadKeyBatchRepositoryImpl(NamedParameterJdbcOperations jdbcTemplate) {
+    super(jdbcTemplate, "federation_upload_key");
+  }
+}
@@ -0,0 +1,20 @@
+package app.coronawarn.server.common.persistence.repository;
+
+import app.coronawarn.server.common.persistence.domain.FederationUploadKey;
+import java.util.Collection;
+
+/**
+ * Repository fragment of {@link FederationUploadKeyRepository}, which marks uploaded keys in a JDBC batch instead of
+ * one round trip per key.
+ */
+public interface FederationUploadKeyBatchRepository {
+
+  /**
+   * Sets the batch tag of all upload keys with the key data of the specified keys. No other column is updated.
+   *
+   * @param uploadKeys The keys that have been uploaded.
+   * @param batchTag   The batch tag to set.
+   * @return The number of updated rows.
+   */
+  int updateBatchTags(Collection<FederationUploadKey> uploadKeys, String batchTag);
+}
@@ -3,11 +3,9 @@ package app.coronawarn.server.common.persistence.repository;
 import app.coronawarn.server.common.persistence.domain.FederationUploadKey;
 import java.util.List;
 
-public interface FederationUploadKeyRepository {
+public interface FederationUploadKeyRepository extends FederationUploadKeyBatchRepository {
 
   List<FederationUploadKey> findAllUploadableKeys();
 
   Iterable<FederationUploadKey> findAll();
-
-  void updateBatchTag(byte[] keyData, String batchTag);
 }
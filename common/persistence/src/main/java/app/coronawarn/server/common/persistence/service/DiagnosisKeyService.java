@@ -7,6 +7,7 @@ import static java.time.ZoneOffset.UTC;
 import static org.springframework.data.util.StreamUtils.createStreamFromIterator;
 
 import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.common.persistence.domain.validation.DiagnosisKeyValidator;
 import app.coronawarn.server.common.persistence.repository.DiagnosisKeyRepository;
 import app.coronawarn.server.common.persistence.service.common.ValidDiagnosisKeyFilter;
 import app.coronawarn.server.common.protocols.internal.SubmissionPayload.SubmissionType;
@@ -15,6 +16,8 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,25 +51,8 @@ public class DiagnosisKeyService {
   @Timed
   @Transactional
   public int saveDiagnosisKeys(Collection<DiagnosisKey> diagnosisKeys) {
-    int numberOfInsertedKeys = 0;
-
-    for (DiagnosisKey diagnosisKey : diagnosisKeys) {
-
-      if (keyRepository.exists(diagnosisKey.getKeyData(), SubmissionType.SUBMISSION_TYPE_PCR_TEST.name())) {
-        continue;
-      }
-
-      boolean keyInsertedSuccessfully = keyRepository.saveDoNothingOnConflict(
-          diagnosisKey.getKeyData(), diagnosisKey.getRollingStartIntervalNumber(), diagnosisKey.getRollingPeriod(),
-          diagnosisKey.getSubmissionTimestamp(), diagnosisKey.getTransmissionRiskLevel(),
-          diagnosisKey.getOriginCountry(), diagnosisKey.getVisitedCountries().toArray(new String[0]),
-          diagnosisKey.getReportType().name(), diagnosisKey.getDaysSinceOnsetOfSymptoms(),
-          diagnosisKey.isConsentToFederation(), diagnosisKey.getSubmissionType().name());
-
-      if (keyInsertedSuccessfully) {
-        numberOfInsertedKeys++;
-      }
-    }
+    int numberOfInsertedKeys = keyRepository.saveAllDoNothingOnConflict(diagnosisKeys,
+        SubmissionType.SUBMISSION_TYPE_PCR_TEST.name());
 
     int conflictingKeys = diagnosisKeys.size() - numberOfInsertedKeys;
     if (conflictingKeys > 0) {
@@ -88,6 +74,34 @@ public class DiagnosisKeyService {
     return validationFilter.filter(diagnosisKeys);
   }
 
+  /**
+   * Passes all valid persisted diagnosis keys, sorted by their submission timestamp, one by one to the specified
+   * consumer. In contrast to {@link #getDiagnosisKeys()}, the keys are read through a database cursor and validated
+   * while they are read, so that the complete table never has to be held in memory at once.
+   *
+   * @param consumer The consumer that receives the valid diagnosis keys.
+   * @return Number of valid diagnosis keys that have been passed to the consumer.
+   */
+  @Timed
+  @Transactional(readOnly = true)
+  public long streamDiagnosisKeys(Consumer<DiagnosisKey> consumer) {
+    long startTime = System.currentTimeMillis();
+    AtomicLong numberOfValidKeys = new AtomicLong();
+    DiagnosisKeyValidator validator = DiagnosisKeyValidator.atCurrentTime();
+
+    long numberOfKeys = keyRepository.streamAllOrderedBySubmissionTimestamp(diagnosisKey -> {
+      if (validationFilter.isDiagnosisKeyValid(diagnosisKey, validator)) {
+        numberOfValidKeys.incrementAndGet();
+        consumer.accept(diagnosisKey);
+      }
+    });
+
+    long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+    logger.info("Streamed {} diagnosis key(s) in {} ms ({} rows/s). Discarded {} diagnosis key(s) as invalid.",
+        numberOfKeys, duration, numberOfKeys * 1000 / duration, numberOfKeys - numberOfValidKeys.get());
+    return numberOfValidKeys.get();
+  }
+
   /**
    * Deletes all diagnosis key entries which have a submission timestamp that is older than the specified number of
    * days.
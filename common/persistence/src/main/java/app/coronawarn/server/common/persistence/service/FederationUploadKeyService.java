@@ -2,15 +2,18 @@
 
 package app.coronawarn.server.common.persistence.service;
 
+import static app.coronawarn.server.common.persistence.service.common.KeySharingPoliciesChecker.ONE_HOUR_INTERVAL_SECONDS;
 import static java.time.ZoneOffset.UTC;
 import static org.springframework.data.util.StreamUtils.createStreamFromIterator;
 
 import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
 import app.coronawarn.server.common.persistence.domain.FederationUploadKey;
+import app.coronawarn.server.common.persistence.domain.validation.DiagnosisKeyValidator;
 import app.coronawarn.server.common.persistence.repository.FederationUploadKeyRepository;
 import app.coronawarn.server.common.persistence.service.common.ExpirationPolicy;
 import app.coronawarn.server.common.persistence.service.common.KeySharingPoliciesChecker;
 import app.coronawarn.server.common.persistence.service.common.ValidDiagnosisKeyFilter;
+import io.micrometer.core.annotation.Timed;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
@@ -63,14 +66,16 @@ public class FederationUploadKeyService {
     AtomicInteger keysPickedAfterValidity = new AtomicInteger();
     AtomicInteger keysPickedAfterSharePolicy = new AtomicInteger();
     AtomicInteger keysPickedAfterRetentionPolicy = new AtomicInteger();
+    DiagnosisKeyValidator validator = DiagnosisKeyValidator.atCurrentTime();
+    long currentHour = LocalDateTime.now(UTC).toEpochSecond(UTC) / ONE_HOUR_INTERVAL_SECONDS;
 
     var listOfKeys = createStreamFromIterator(keyRepository.findAllUploadableKeys().iterator())
         .peek(k -> keysPicked.addAndGet(1))
         .filter(DiagnosisKey::isConsentToFederation)
         .peek(k -> keysPickedAfterConsent.addAndGet(1))
-        .filter(validationFilter::isDiagnosisKeyValid)
+        .filter(key -> validationFilter.isDiagnosisKeyValid(key, validator))
         .peek(k -> keysPickedAfterValidity.addAndGet(1))
-        .filter(key -> sharingPoliciesChecker.canShareKeyAtTime(key, policy, LocalDateTime.now(UTC)))
+        .filter(key -> sharingPoliciesChecker.canShareKeyAtHour(key, policy, currentHour))
         .peek(k -> keysPickedAfterSharePolicy.addAndGet(1))
         .filter(key -> key.isYoungerThanRetentionThreshold(daysToRetain))
         .peek(k -> keysPickedAfterRetentionPolicy.addAndGet(1))
@@ -90,13 +95,20 @@ public class FederationUploadKeyService {
 
   /**
    * Updates only the batchTagId field of all given upload keys. The entities are not merged with the persisted ones,
-   * thus no other side effects are to be expected.
+   * thus no other side effects are to be expected. All keys are updated with a single JDBC batch.
    *
    * @param originalKeys a collection of FederationUploadKey
    * @param batchTagId the id for the keys
    */
+  @Timed(value = "federation.upload.keys.batch-tag.update", description = "Time to mark the keys of an upload batch")
   @Transactional
   public void updateBatchTagForKeys(Collection<FederationUploadKey> originalKeys, String batchTagId) {
-    originalKeys.forEach(key -> keyRepository.updateBatchTag(key.getKeyData(), batchTagId));
+    if (originalKeys.isEmpty()) {
+      return;
+    }
+    long startTime = System.currentTimeMillis();
+    int numberOfUpdatedKeys = keyRepository.updateBatchTags(originalKeys, batchTagId);
+    logger.info("Marked {} of {} uploaded key(s) with batch tag {} in {} ms.", numberOfUpdatedKeys,
+        originalKeys.size(), batchTagId, System.currentTimeMillis() - startTime);
   }
 }
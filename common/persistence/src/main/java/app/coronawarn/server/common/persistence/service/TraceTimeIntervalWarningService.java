@@ -32,9 +32,14 @@ public class TraceTimeIntervalWarningService {
   private static final Logger logger =
       LoggerFactory.getLogger(TraceTimeIntervalWarningService.class);
 
+  private static final String HASH_ALGORITHM = "SHA-256";
+
   private final TraceTimeIntervalWarningRepository traceTimeIntervalWarningRepo;
   private final FakeCheckinsGenerator fakeCheckinsGenerator;
-  private final MessageDigest hashAlgorithm;
+  /**
+   * {@link MessageDigest} is not thread-safe, so each thread that saves checkins uses its own instance.
+   */
+  private final ThreadLocal<MessageDigest> hashAlgorithm;
 
   /**
    * Constructs the service instance.
@@ -49,7 +54,9 @@ public class TraceTimeIntervalWarningService {
       FakeCheckinsGenerator fakeCheckinsGenerator) throws NoSuchAlgorithmException {
     this.traceTimeIntervalWarningRepo = traceTimeIntervalWarningRepo;
     this.fakeCheckinsGenerator = fakeCheckinsGenerator;
-    this.hashAlgorithm = MessageDigest.getInstance("SHA-256");
+    // fail on startup rather than on the first submission if the algorithm is not available
+    MessageDigest.getInstance(HASH_ALGORITHM);
+    this.hashAlgorithm = ThreadLocal.withInitial(TraceTimeIntervalWarningService::createHashAlgorithm);
   }
 
   /**
@@ -115,8 +122,22 @@ public class TraceTimeIntervalWarningService {
         .collect(Collectors.toList());
   }
 
+  private static MessageDigest createHashAlgorithm() {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Hashes the buffers of the location id without copying them, since the location ids of fake checkins are
+   * concatenations of several {@link ByteString}s.
+   */
   private byte[] hashLocationId(ByteString locationId) {
-    return hashAlgorithm.digest(locationId.toByteArray());
+    MessageDigest digest = hashAlgorithm.get();
+    locationId.asReadOnlyByteBufferList().forEach(digest::update);
+    return digest.digest();
   }
 
   /**
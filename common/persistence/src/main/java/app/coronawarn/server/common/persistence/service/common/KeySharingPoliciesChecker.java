@@ -6,12 +6,9 @@ package app.coronawarn.server.common.persistence.service.common;
 import static java.time.ZoneOffset.UTC;
 
 import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
 import org.springframework.stereotype.Component;
 
 
@@ -35,11 +32,6 @@ public class KeySharingPoliciesChecker {
   public static final long TEN_MINUTES_INTERVAL_SECONDS = TimeUnit.MINUTES
       .toSeconds(DiagnosisKey.ROLLING_PERIOD_MINUTES_INTERVAL);
 
-  private static final Map<ChronoUnit, Function<Duration, Long>> TIME_CONVERTERS
-      = Map.of(ChronoUnit.SECONDS, Duration::toSeconds,
-      ChronoUnit.MINUTES, Duration::toMinutes,
-      ChronoUnit.HOURS, Duration::toHours);
-
   /**
    * Returns true if the given diagnosis key can be shared at the given time taking into account
    * the expiration policy.
@@ -54,6 +46,20 @@ public class KeySharingPoliciesChecker {
     return timeToShare.isAfter(earliestTimeToShare) || timeToShare.isEqual(earliestTimeToShare);
   }
 
+  /**
+   * Returns true if the given diagnosis key can be shared in the given hour taking into account the expiration policy.
+   * As the earliest time to share a key is always a full hour, this is equivalent to
+   * {@link #canShareKeyAtTime(DiagnosisKey, ExpirationPolicy, LocalDateTime)} for any time within the given hour.
+   *
+   * @param key the {@link DiagnosisKey}
+   * @param policy when the key expires {@link ExpirationPolicy}
+   * @param hourToShare the hour since epoch in which the key is shared
+   * @return boolean value which is true if the hourToShare is after or equal to the earliest hour to share
+   */
+  public boolean canShareKeyAtHour(DiagnosisKey key, ExpirationPolicy policy, long hourToShare) {
+    return hourToShare >= getEarliestHourForSharingKey(key, policy);
+  }
+
   /**
    * Calculates the earliest point in time at which the specified {@link DiagnosisKey} can be shared with external
    * systems, while respecting the expiry policy and the submission timestamp.
@@ -63,35 +69,59 @@ public class KeySharingPoliciesChecker {
    * @return {@link LocalDateTime} at which the specified {@link DiagnosisKey} can be shared.
    */
   public LocalDateTime getEarliestTimeForSharingKey(DiagnosisKey diagnosisKey, ExpirationPolicy policy) {
-    LocalDateTime submissionDateTime = getSubmissionDateTime(diagnosisKey);
-    LocalDateTime expiryDateTime = getRollingPeriodExpiryTime(diagnosisKey);
-    long timeBetweenExpiryAndSubmission = TIME_CONVERTERS.get(policy.getTimeUnit())
-        .apply(Duration.between(expiryDateTime, submissionDateTime));
-    if (timeBetweenExpiryAndSubmission <= policy.getExpirationTime()) {
-      // truncatedTo floors the value, so we need to add an hour to the DISTRIBUTION_PADDING to compensate that.
-      return expiryDateTime.plusMinutes(policy.getExpirationTime() + 60).truncatedTo(ChronoUnit.HOURS);
-    } else {
-      return submissionDateTime;
-    }
+    return LocalDateTime.ofEpochSecond(
+        getEarliestHourForSharingKey(diagnosisKey, policy) * ONE_HOUR_INTERVAL_SECONDS, 0, UTC);
   }
 
   /**
-   * Returns the end of the rolling time window that a {@link DiagnosisKey} was active for as a {@link LocalDateTime}.
-   * The ".plusDays(1L)" is used as there can be now diagnosis keys with rollingPeriod set to less than 1 day.
+   * Calculates the earliest hour at which the specified {@link DiagnosisKey} can be shared with external systems,
+   * while respecting the expiry policy and the submission timestamp.
    *
    * @param diagnosisKey key {@link DiagnosisKey}
-   * @return when the period expires {@link LocalDateTime}
+   * @param policy when the key expires {@link ExpirationPolicy}
+   * @return the hour since epoch at which the specified {@link DiagnosisKey} can be shared.
    */
-  private LocalDateTime getRollingPeriodExpiryTime(DiagnosisKey diagnosisKey) {
-    return LocalDateTime
-        .ofEpochSecond(diagnosisKey.getRollingStartIntervalNumber() * TEN_MINUTES_INTERVAL_SECONDS, 0, UTC)
-        .plusMinutes(diagnosisKey.getRollingPeriod() * DiagnosisKey.ROLLING_PERIOD_MINUTES_INTERVAL);
+  public long getEarliestHourForSharingKey(DiagnosisKey diagnosisKey, ExpirationPolicy policy) {
+    return getEarliestHourForSharingKey(diagnosisKey.getRollingStartIntervalNumber(),
+        diagnosisKey.getRollingPeriod(), diagnosisKey.getSubmissionTimestamp(), policy);
   }
 
   /**
-   * Returns the submission timestamp of a {@link DiagnosisKey} as a {@link LocalDateTime}.
+   * Calculates the earliest hour at which a key with the specified attributes can be shared with external systems,
+   * while respecting the expiry policy and the submission timestamp. If the key was submitted within the expiration
+   * time after the end of its rolling period, it can be shared in the hour after the expiration time has passed.
+   * Otherwise, it can be shared from its submission hour on.
+   *
+   * @param rollingStartIntervalNumber the start of the key's rolling period in 10 minute intervals since epoch
+   * @param rollingPeriod the length of the key's rolling period in 10 minute intervals
+   * @param submissionTimestamp the submission time in hours since epoch
+   * @param policy when the key expires {@link ExpirationPolicy}
+   * @return the hour since epoch at which the key can be shared.
    */
-  private LocalDateTime getSubmissionDateTime(DiagnosisKey diagnosisKey) {
-    return LocalDateTime.ofEpochSecond(diagnosisKey.getSubmissionTimestamp() * ONE_HOUR_INTERVAL_SECONDS, 0, UTC);
+  public long getEarliestHourForSharingKey(int rollingStartIntervalNumber, int rollingPeriod,
+      long submissionTimestamp, ExpirationPolicy policy) {
+    long expirySeconds = rollingStartIntervalNumber * TEN_MINUTES_INTERVAL_SECONDS
+        + rollingPeriod * TEN_MINUTES_INTERVAL_SECONDS;
+    long submissionSeconds = submissionTimestamp * ONE_HOUR_INTERVAL_SECONDS;
+    // like Duration.toMinutes() and Duration.toHours(), the division truncates towards zero
+    long timeBetweenExpiryAndSubmission = (submissionSeconds - expirySeconds) / getSeconds(policy.getTimeUnit());
+    if (timeBetweenExpiryAndSubmission <= policy.getExpirationTime()) {
+      // the expiration time is applied in minutes, and flooring to the hour requires an additional hour
+      long expiredSeconds = expirySeconds + TimeUnit.MINUTES.toSeconds(policy.getExpirationTime() + 60);
+      return Math.floorDiv(expiredSeconds, ONE_HOUR_INTERVAL_SECONDS);
+    } else {
+      return submissionTimestamp;
+    }
+  }
+
+  private static long getSeconds(ChronoUnit timeUnit) {
+    switch (timeUnit) {
+      case SECONDS:
+      case MINUTES:
+      case HOURS:
+        return timeUnit.getDuration().getSeconds();
+      default:
+        throw new IllegalArgumentException("Unsupported time unit of expiration policy: " + timeUnit);
+    }
   }
 }
@@ -4,6 +4,7 @@ package app.coronawarn.server.common.persistence.service.common;
 
 
 import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.common.persistence.domain.validation.DiagnosisKeyValidator;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -25,8 +26,10 @@ public class ValidDiagnosisKeyFilter {
    * @return list of valid DiagnosisKey
    */
   public List<DiagnosisKey> filter(List<DiagnosisKey> diagnosisKeys) {
-    List<DiagnosisKey> validDiagnosisKeys =
-        diagnosisKeys.stream().filter(this::isDiagnosisKeyValid).collect(Collectors.toList());
+    DiagnosisKeyValidator validator = DiagnosisKeyValidator.atCurrentTime();
+    List<DiagnosisKey> validDiagnosisKeys = diagnosisKeys.stream()
+        .filter(diagnosisKey -> isDiagnosisKeyValid(diagnosisKey, validator))
+        .collect(Collectors.toList());
 
     int numberOfDiscardedKeys = diagnosisKeys.size() - validDiagnosisKeys.size();
     logger.info("Retrieved {} diagnosis key(s). Discarded {} diagnosis key(s) from the result as invalid.",
@@ -42,6 +45,22 @@ public class ValidDiagnosisKeyFilter {
    * @return boolean value to indicate if the DiagnosisKey is valid
    */
   public boolean isDiagnosisKeyValid(DiagnosisKey diagnosisKey) {
+    return isDiagnosisKeyValid(diagnosisKey, DiagnosisKeyValidator.atCurrentTime());
+  }
+
+  /**
+   * Returns true if the given diagnosis key has passed the default entity validation. The key is checked by the
+   * specified {@link DiagnosisKeyValidator} first, so that the entity validation only runs for keys that are likely
+   * invalid, to determine the violation messages.
+   *
+   * @param diagnosisKey a DiagnosisKey
+   * @param validator    the validator that is shared by a batch of keys
+   * @return boolean value to indicate if the DiagnosisKey is valid
+   */
+  public boolean isDiagnosisKeyValid(DiagnosisKey diagnosisKey, DiagnosisKeyValidator validator) {
+    if (validator.isValid(diagnosisKey)) {
+      return true;
+    }
     Collection<ConstraintViolation<DiagnosisKey>> violations = diagnosisKey.validate();
     boolean isValid = violations.isEmpty();
 
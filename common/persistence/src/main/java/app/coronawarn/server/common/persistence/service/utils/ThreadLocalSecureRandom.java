@@ -0,0 +1,35 @@
+package app.coronawarn.server.common.persistence.service.utils;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Provides a {@link SecureRandom} per thread, so that threads generating random padding data do not contend for a
+ * shared instance. Each instance is a DRBG that is seeded from the default entropy source of the platform.
+ */
+public final class ThreadLocalSecureRandom {
+
+  private static final String ALGORITHM = "DRBG";
+
+  private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(ThreadLocalSecureRandom::create);
+
+  private ThreadLocalSecureRandom() {
+  }
+
+  /**
+   * Returns the {@link SecureRandom} of the current thread. It must not be passed on to other threads.
+   *
+   * @return The {@link SecureRandom} of the current thread.
+   */
+  public static SecureRandom current() {
+    return RANDOM.get();
+  }
+
+  private static SecureRandom create() {
+    try {
+      return SecureRandom.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      return new SecureRandom();
+    }
+  }
+}
@@ -1,14 +1,12 @@
 package app.coronawarn.server.common.persistence.service.utils.checkins;
 
+import app.coronawarn.server.common.persistence.service.utils.ThreadLocalSecureRandom;
 import app.coronawarn.server.common.protocols.internal.pt.CheckIn;
-import java.security.SecureRandom;
 import java.util.Random;
 import java.util.function.Function;
 
 public class FakeCheckinIntervalSpecification {
 
-  private static final Random RANDOM = new SecureRandom();
-
   /**
    * https://github.com/corona-warn-app/cwa-app-tech-spec/blob/proposal/event-registration-mvp
    * /docs/spec/event-registration-server.md#generating-fake-tracetimeintervalwarnings
@@ -18,8 +16,9 @@ public class FakeCheckinIntervalSpecification {
     if (period == 144) {
       return checkin.getEndIntervalNumber();
     } else {
-      int sign = RANDOM.nextDouble() > 0.5 ? 1 : -1;
-      int offset = RANDOM.nextInt(3);
+      Random random = ThreadLocalSecureRandom.current();
+      int sign = random.nextDouble() > 0.5 ? 1 : -1;
+      int offset = random.nextInt(3);
       return checkin.getStartIntervalNumber() + Math.max(2, period + sign * offset);
     }
   };
@@ -34,8 +33,9 @@ public class FakeCheckinIntervalSpecification {
     if (minStartIntervalNumber == startIntervalNumber) {
       return startIntervalNumber;
     } else {
-      int sign = RANDOM.nextDouble() > 0.5d ? 1 : -1;
-      int offset = RANDOM.nextInt(6);
+      Random random = ThreadLocalSecureRandom.current();
+      int sign = random.nextDouble() > 0.5d ? 1 : -1;
+      int offset = random.nextInt(6);
       return Math.max(minStartIntervalNumber, startIntervalNumber + sign * offset);
     }
   };
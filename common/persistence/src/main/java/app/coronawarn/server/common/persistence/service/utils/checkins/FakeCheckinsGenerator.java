@@ -2,49 +2,62 @@ package app.coronawarn.server.common.persistence.service.utils.checkins;
 
 import static app.coronawarn.server.common.persistence.service.utils.checkins.FakeCheckinIntervalSpecification.*;
 
+import app.coronawarn.server.common.persistence.service.utils.ThreadLocalSecureRandom;
 import app.coronawarn.server.common.protocols.internal.pt.CheckIn;
 import com.google.protobuf.ByteString;
-import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.function.IntFunction;
 import org.springframework.stereotype.Component;
 
 @Component
 public class FakeCheckinsGenerator {
 
-  private final Random random = new SecureRandom();
+  private static final int PEPPER_LENGTH = 16;
 
   /**
    * For each checkin in the original list, create X amount of fake checkins and collect to one
    * single list which is returned. X is equal to the method's second parameter.
    *
+   * <p>If no pepper is given, the random peppers of all fake checkins are generated with a single call to the
+   * {@link ThreadLocalSecureRandom} of the current thread.
+   *
    * @param pepper Optional element used to compute the hashes of the fake checkins.
    */
   public List<CheckIn> generateFakeCheckins(List<CheckIn> checkins, int numberOfFakesToCreate,
       final byte[] pepper) {
-    return checkins.stream()
-        .flatMap(original -> IntStream.range(0, numberOfFakesToCreate)
-            .mapToObj(counter -> buildFakeCheckin(original, String.valueOf(counter),
-                (pepper == null || pepper.length == 0) ? randomHashPepper() : pepper)))
-        .collect(Collectors.toList());
+    int numberOfFakes = checkins.size() * numberOfFakesToCreate;
+    IntFunction<ByteString> pepperProvider = (pepper == null || pepper.length == 0)
+        ? randomHashPeppers(numberOfFakes)
+        : fixedHashPepper(pepper);
+    List<CheckIn> fakes = new ArrayList<>(numberOfFakes);
+    for (CheckIn original : checkins) {
+      for (int counter = 0; counter < numberOfFakesToCreate; counter++) {
+        fakes.add(buildFakeCheckin(original, String.valueOf(counter), pepperProvider.apply(fakes.size())));
+      }
+    }
+    return fakes;
+  }
+
+  private static IntFunction<ByteString> randomHashPeppers(int numberOfPeppers) {
+    byte[] peppers = new byte[numberOfPeppers * PEPPER_LENGTH];
+    ThreadLocalSecureRandom.current().nextBytes(peppers);
+    return index -> ByteString.copyFrom(peppers, index * PEPPER_LENGTH, PEPPER_LENGTH);
   }
 
-  private byte[] randomHashPepper() {
-    byte[] pepper = new byte[16];
-    random.nextBytes(pepper);
-    return pepper;
+  private static IntFunction<ByteString> fixedHashPepper(byte[] pepper) {
+    ByteString fixedPepper = ByteString.copyFrom(pepper);
+    return index -> fixedPepper;
   }
 
-  private CheckIn buildFakeCheckin(CheckIn original, String counter, byte[] pepper) {
+  private CheckIn buildFakeCheckin(CheckIn original, String counter, ByteString pepper) {
     return CheckIn.newBuilder()
         .setLocationId(original.getLocationId()
-            .concat(ByteString.copyFrom(pepper).concat(ByteString.copyFromUtf8(counter))))
+            .concat(pepper.concat(ByteString.copyFromUtf8(counter))))
         .setTransmissionRiskLevel(original.getTransmissionRiskLevel())
         .setStartIntervalNumber(START_INTERVAL_GENERATION.apply(original))
         .setEndIntervalNumber(END_INTERVAL_GENERATION.apply(original))
         .build();
   }
 
-}
\ No newline at end of file
+}
@@ -86,4 +86,19 @@ class DiagnosisKeyTest {
     assertThatIllegalArgumentException()
         .isThrownBy(() -> diagnosisKey.isYoungerThanRetentionThreshold(daysToRetain));
   }
+
+  @Test
+  void testCopyWithKeyDataKeepsAllOtherFields() {
+    byte[] keyData = "testKey222222222".getBytes(StandardCharsets.US_ASCII);
+    DiagnosisKey copy = diagnosisKey.copyWithKeyData(keyData);
+
+    assertThat(copy.getKeyData()).isEqualTo(keyData);
+    assertThat(copy).usingRecursiveComparison().ignoringFields("keyData").isEqualTo(diagnosisKey);
+  }
+
+  @ValueSource(ints = {0, 15, 17})
+  @ParameterizedTest
+  void testCopyWithKeyDataRejectsInvalidLength(int length) {
+    assertThatIllegalArgumentException().isThrownBy(() -> diagnosisKey.copyWithKeyData(new byte[length]));
+  }
 }
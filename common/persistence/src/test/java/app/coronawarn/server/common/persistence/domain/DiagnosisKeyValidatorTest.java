@@ -0,0 +1,79 @@
+package app.coronawarn.server.common.persistence.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.server.common.persistence.domain.validation.DiagnosisKeyValidator;
+import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
+import app.coronawarn.server.common.protocols.internal.SubmissionPayload.SubmissionType;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class DiagnosisKeyValidatorTest {
+
+  private static final byte[] KEY_DATA = "testKey111111111".getBytes(StandardCharsets.US_ASCII);
+  private static final long NOW_SECONDS = 1_600_000_000L;
+  private static final int CURRENT_ROLLING_INTERVAL = (int) (NOW_SECONDS / 600);
+  private static final long CURRENT_HOUR = NOW_SECONDS / 3600;
+
+  private final DiagnosisKeyValidator validator = DiagnosisKeyValidator.atTime(Instant.ofEpochSecond(NOW_SECONDS));
+
+  @Test
+  void validKeyPassesBothValidations() {
+    DiagnosisKey diagnosisKey = buildKey(KEY_DATA, SubmissionType.SUBMISSION_TYPE_PCR_TEST, CURRENT_ROLLING_INTERVAL,
+        144, 8, CURRENT_HOUR, "DE", Set.of("DE", "FR"), 4000);
+
+    assertThat(validator.isValid(diagnosisKey)).isTrue();
+    assertThat(diagnosisKey.validate()).isEmpty();
+  }
+
+  @ParameterizedTest
+  @MethodSource("createInvalidKeys")
+  void invalidKeyFailsBothValidations(DiagnosisKey diagnosisKey) {
+    assertThat(validator.isValid(diagnosisKey)).isFalse();
+    assertThat(diagnosisKey.validate()).isNotEmpty();
+  }
+
+  @Test
+  void keysAfterCapturedTimeAreRejected() {
+    DiagnosisKey diagnosisKey = buildKey(KEY_DATA, SubmissionType.SUBMISSION_TYPE_RAPID_TEST,
+        CURRENT_ROLLING_INTERVAL, 144, 1, CURRENT_HOUR, "DE", Set.of("DE"), 0);
+    DiagnosisKeyValidator earlierValidator = DiagnosisKeyValidator.atTime(Instant.ofEpochSecond(NOW_SECONDS - 600));
+
+    assertThat(validator.isValid(diagnosisKey)).isTrue();
+    assertThat(earlierValidator.isValid(diagnosisKey)).isFalse();
+  }
+
+  private static Stream<Arguments> createInvalidKeys() {
+    SubmissionType pcr = SubmissionType.SUBMISSION_TYPE_PCR_TEST;
+    return Stream.of(
+        buildKey(new byte[15], pcr, CURRENT_ROLLING_INTERVAL, 144, 1, CURRENT_HOUR, "DE", Set.of("DE"), 0),
+        buildKey(KEY_DATA, null, CURRENT_ROLLING_INTERVAL, 144, 1, CURRENT_HOUR, "DE", Set.of("DE"), 0),
+        buildKey(KEY_DATA, pcr, 0, 144, 1, CURRENT_HOUR, "DE", Set.of("DE"), 0),
+        buildKey(KEY_DATA, pcr, Integer.MAX_VALUE, 144, 1, CURRENT_HOUR, "DE", Set.of("DE"), 0),
+        buildKey(KEY_DATA, pcr, CURRENT_ROLLING_INTERVAL, 145, 1, CURRENT_HOUR, "DE", Set.of("DE"), 0),
+        buildKey(KEY_DATA, pcr, CURRENT_ROLLING_INTERVAL, 144, 0, CURRENT_HOUR, "DE", Set.of("DE"), 0),
+        buildKey(KEY_DATA, pcr, CURRENT_ROLLING_INTERVAL, 144, 9, CURRENT_HOUR, "DE", Set.of("DE"), 0),
+        buildKey(KEY_DATA, pcr, CURRENT_ROLLING_INTERVAL, 144, 1, -1L, "DE", Set.of("DE"), 0),
+        buildKey(KEY_DATA, pcr, CURRENT_ROLLING_INTERVAL, 144, 1, Long.MAX_VALUE, "DE", Set.of("DE"), 0),
+        buildKey(KEY_DATA, pcr, CURRENT_ROLLING_INTERVAL, 144, 1, CURRENT_HOUR, "XY", Set.of("DE"), 0),
+        buildKey(KEY_DATA, pcr, CURRENT_ROLLING_INTERVAL, 144, 1, CURRENT_HOUR, "de", Set.of("DE"), 0),
+        buildKey(KEY_DATA, pcr, CURRENT_ROLLING_INTERVAL, 144, 1, CURRENT_HOUR, "DE", Set.of("DE", "DEU"), 0),
+        buildKey(KEY_DATA, pcr, CURRENT_ROLLING_INTERVAL, 144, 1, CURRENT_HOUR, "DE", Set.of("DE"), -15),
+        buildKey(KEY_DATA, pcr, CURRENT_ROLLING_INTERVAL, 144, 1, CURRENT_HOUR, "DE", Set.of("DE"), 4001))
+        .map(Arguments::of);
+  }
+
+  private static DiagnosisKey buildKey(byte[] keyData, SubmissionType submissionType, int rollingStartIntervalNumber,
+      int rollingPeriod, int transmissionRiskLevel, long submissionTimestamp, String originCountry,
+      Set<String> visitedCountries, int daysSinceOnsetOfSymptoms) {
+    return new DiagnosisKey(keyData, submissionType, rollingStartIntervalNumber, rollingPeriod,
+        transmissionRiskLevel, submissionTimestamp, false, originCountry, visitedCountries,
+        ReportType.CONFIRMED_TEST, daysSinceOnsetOfSymptoms);
+  }
+}
@@ -0,0 +1,57 @@
+package app.coronawarn.server.common.persistence.repository;
+
+import static app.coronawarn.server.common.persistence.service.DiagnosisKeyServiceTestHelper.buildDiagnosisKeyForSubmissionTimestamp;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+class DiagnosisKeyBatchRepositoryImplTest {
+
+  private static final long SUBMISSION_TIMESTAMP = 448_000L;
+
+  private final NamedParameterJdbcOperations jdbcTemplate = mock(NamedParameterJdbcOperations.class);
+
+  private final DiagnosisKeyBatchRepositoryImpl repository = new DiagnosisKeyBatchRepositoryImpl(jdbcTemplate);
+
+  @Test
+  void onlyInsertedKeysAreCounted() {
+    when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+        .thenReturn(new int[] {1, 0, 1, 0});
+
+    assertThat(repository.saveAllDoNothingOnConflict(buildDiagnosisKeys(4), "SUBMISSION_TYPE_HOST_WARNING"))
+        .isEqualTo(2);
+  }
+
+  @Test
+  void keysReportedWithoutUpdateCountAreRejected() {
+    when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+        .thenReturn(new int[] {1, 0, Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+    List<DiagnosisKey> diagnosisKeys = buildDiagnosisKeys(4);
+
+    assertThatExceptionOfType(IncorrectUpdateSemanticsDataAccessException.class)
+        .isThrownBy(() -> repository.saveAllDoNothingOnConflict(diagnosisKeys, "SUBMISSION_TYPE_HOST_WARNING"));
+  }
+
+  private static List<DiagnosisKey> buildDiagnosisKeys(int numberOfKeys) {
+    return IntStream.range(0, numberOfKeys)
+        .mapToObj(DiagnosisKeyBatchRepositoryImplTest::buildDiagnosisKey)
+        .collect(Collectors.toList());
+  }
+
+  private static DiagnosisKey buildDiagnosisKey(int offset) {
+    return buildDiagnosisKeyForSubmissionTimestamp(SUBMISSION_TIMESTAMP + offset);
+  }
+}
@@ -0,0 +1,34 @@
+package app.coronawarn.server.common.persistence.repository;
+
+import static app.coronawarn.server.common.persistence.service.DiagnosisKeyServiceTestHelper.buildDiagnosisKeyForSubmissionTimestamp;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import app.coronawarn.server.common.persistence.domain.FederationUploadKey;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+class EfgsUploadKeyBatchRepositoryImplTest {
+
+  private final NamedParameterJdbcOperations jdbcTemplate = mock(NamedParameterJdbcOperations.class);
+
+  private final EfgsUploadKeyBatchRepositoryImpl repository = new EfgsUploadKeyBatchRepositoryImpl(jdbcTemplate);
+
+  @Test
+  void keysReportedWithoutUpdateCountAreCountedAsUpdated() {
+    when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class)))
+        .thenReturn(new int[] {1, 0, Statement.SUCCESS_NO_INFO});
+    List<FederationUploadKey> uploadKeys = List.of(
+        FederationUploadKey.from(buildDiagnosisKeyForSubmissionTimestamp(1000L)),
+        FederationUploadKey.from(buildDiagnosisKeyForSubmissionTimestamp(2000L)),
+        FederationUploadKey.from(buildDiagnosisKeyForSubmissionTimestamp(3000L)));
+
+    assertThat(repository.updateBatchTags(uploadKeys, "batchTag")).isEqualTo(2);
+  }
+}
@@ -19,10 +19,13 @@ import app.coronawarn.server.common.persistence.repository.DiagnosisKeyRepositor
 import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
 import app.coronawarn.server.common.protocols.internal.SubmissionPayload.SubmissionType;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.assertj.core.util.Lists;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
@@ -83,6 +86,21 @@ class DiagnosisKeyServiceTest {
     assertDiagnosisKeysEqual(expKeys, actKeys);
   }
 
+  @Test
+  void testStreamedRetrievalMatchesListRetrieval() {
+    var expKeys = list(
+        buildDiagnosisKeyForSubmissionTimestamp(3L),
+        buildDiagnosisKeyForSubmissionTimestamp(1L),
+        buildDiagnosisKeyForSubmissionTimestamp(2L));
+    diagnosisKeyService.saveDiagnosisKeys(expKeys);
+
+    List<DiagnosisKey> actKeys = new ArrayList<>();
+    long numberOfStreamedKeys = diagnosisKeyService.streamDiagnosisKeys(actKeys::add);
+
+    assertEquals(3, numberOfStreamedKeys);
+    assertDiagnosisKeysEqual(diagnosisKeyService.getDiagnosisKeys(), actKeys);
+  }
+
   @DisplayName("Assert a positive retention period is accepted.")
   @ValueSource(ints = {0, 1, Integer.MAX_VALUE})
   @ParameterizedTest
@@ -171,6 +189,18 @@ class DiagnosisKeyServiceTest {
     assertThat(actKeys).hasSize(2);
   }
 
+  @Test
+  void testReturnedNumberOfInsertedKeysSpanningMultipleBatches() {
+    var keys = IntStream.range(0, 2500)
+        .mapToObj(i -> DiagnosisKeyServiceTestHelper
+            .generateRandomDiagnosisKey(false, 1, SubmissionType.SUBMISSION_TYPE_PCR_TEST))
+        .collect(Collectors.toList());
+
+    assertThat(diagnosisKeyService.saveDiagnosisKeys(keys)).isEqualTo(2500);
+    assertThat(diagnosisKeyService.saveDiagnosisKeys(keys.subList(1000, 1500))).isZero();
+    assertThat(diagnosisKeyService.getDiagnosisKeys()).hasSize(2500);
+  }
+
   @Test
   void insertsPcrTestDiagnosisKeysWhenRapidTestIsPresent() {
     DiagnosisKey pcrKey = DiagnosisKeyServiceTestHelper
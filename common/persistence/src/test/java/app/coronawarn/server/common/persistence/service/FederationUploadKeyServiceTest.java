@@ -5,7 +5,9 @@ package app.coronawarn.server.common.persistence.service;
 import static app.coronawarn.server.common.persistence.service.DiagnosisKeyServiceTestHelper.assertDiagnosisKeysEqual;
 import static app.coronawarn.server.common.persistence.service.DiagnosisKeyServiceTestHelper.buildDiagnosisKeyForSubmissionTimestamp;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -59,7 +61,7 @@ class FederationUploadKeyServiceTest {
         FederationUploadKey.from(buildDiagnosisKeyForSubmissionTimestamp(2000L, false)));
 
     when(uploadKeyRepository.findAllUploadableKeys()).thenReturn(testKeys);
-    when(keySharingPoliciesChecker.canShareKeyAtTime(any(), any(), any())).thenReturn(true);
+    when(keySharingPoliciesChecker.canShareKeyAtHour(any(), any(), anyLong())).thenReturn(true);
 
     var actKeys = uploadKeyService.getPendingUploadKeys(ExpirationPolicy.of(0, ChronoUnit.MINUTES), Integer.MAX_VALUE);
     Assertions.assertThat(actKeys).hasSize(1);
@@ -73,8 +75,8 @@ class FederationUploadKeyServiceTest {
     var testKeys = List.of(key1, key2);
 
     when(uploadKeyRepository.findAllUploadableKeys()).thenReturn(testKeys);
-    when(keySharingPoliciesChecker.canShareKeyAtTime(eq(key1), any(), any())).thenReturn(true);
-    when(keySharingPoliciesChecker.canShareKeyAtTime(eq(key2), any(), any())).thenReturn(false);
+    when(keySharingPoliciesChecker.canShareKeyAtHour(eq(key1), any(), anyLong())).thenReturn(true);
+    when(keySharingPoliciesChecker.canShareKeyAtHour(eq(key2), any(), anyLong())).thenReturn(false);
 
     var actKeys = uploadKeyService.getPendingUploadKeys(ExpirationPolicy.of(120, ChronoUnit.MINUTES), Integer.MAX_VALUE);
     Assertions.assertThat(actKeys).hasSize(1);
@@ -100,7 +102,7 @@ class FederationUploadKeyServiceTest {
         toSubmissionTimestamp(today.minusDays(1)), toRollingInterval(today.minusDays(15)), true));
     var testKeys = List.of(recentKey, oldKey);
     when(uploadKeyRepository.findAllUploadableKeys()).thenReturn(testKeys);
-    when(keySharingPoliciesChecker.canShareKeyAtTime(any(), any(), any())).thenReturn(true);
+    when(keySharingPoliciesChecker.canShareKeyAtHour(any(), any(), anyLong())).thenReturn(true);
 
     var actKeys = uploadKeyService.getPendingUploadKeys(ExpirationPolicy.of(0, ChronoUnit.MINUTES), DAYS_TO_RETAIN);
     Assertions.assertThat(actKeys)
@@ -115,7 +117,12 @@ class FederationUploadKeyServiceTest {
     var testKeys = List.of(key1, key2);
 
     uploadKeyService.updateBatchTagForKeys(testKeys, BATCH_TAG_ID);
-    verify(uploadKeyRepository, times(1)).updateBatchTag(key1.getKeyData(), BATCH_TAG_ID);
-    verify(uploadKeyRepository, times(1)).updateBatchTag(key2.getKeyData(), BATCH_TAG_ID);
+    verify(uploadKeyRepository, times(1)).updateBatchTags(testKeys, BATCH_TAG_ID);
+  }
+
+  @Test
+  void shouldNotUpdateBatchTagIdWithoutKeys() {
+    uploadKeyService.updateBatchTagForKeys(List.of(), BATCH_TAG_ID);
+    verify(uploadKeyRepository, never()).updateBatchTags(any(), any());
   }
 }
@@ -3,9 +3,11 @@
 package app.coronawarn.server.common.persistence.service.common;
 
 import static app.coronawarn.server.common.persistence.service.DiagnosisKeyServiceTestHelper.getKeySubmittedHoursAfterMidnightExpiration;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -27,12 +29,59 @@ class DiagnosisKeyExpirationCheckerTest {
   @MethodSource("notExpiredKeysDataset")
   void shouldComputeThatKeyIsNotExpired(DiagnosisKey key, ExpirationPolicy expirationPolicy, LocalDateTime shareTime) {
     assertFalse(sharingPoliciesChecker.canShareKeyAtTime(key, expirationPolicy, shareTime));
+    assertFalse(sharingPoliciesChecker.canShareKeyAtHour(key, expirationPolicy, toHoursSinceEpoch(shareTime)));
   }
 
   @ParameterizedTest
   @MethodSource("expiredKeysDataset")
   void shouldComputeThatKeyIsExpired(DiagnosisKey key, ExpirationPolicy expirationPolicy, LocalDateTime shareTime) {
     assertTrue(sharingPoliciesChecker.canShareKeyAtTime(key, expirationPolicy, shareTime));
+    assertTrue(sharingPoliciesChecker.canShareKeyAtHour(key, expirationPolicy, toHoursSinceEpoch(shareTime)));
+  }
+
+  @ParameterizedTest
+  @MethodSource("expirationPolicies")
+  void shouldComputeSameEarliestHourAsDateTimeArithmetic(ExpirationPolicy expirationPolicy) {
+    int rollingStartIntervalNumber = 2_700_000;
+    for (int rollingPeriod = 0; rollingPeriod <= 144; rollingPeriod += 6) {
+      for (long submissionTimestamp = 449_990; submissionTimestamp <= 450_030; submissionTimestamp++) {
+        long earliestHour = sharingPoliciesChecker.getEarliestHourForSharingKey(rollingStartIntervalNumber,
+            rollingPeriod, submissionTimestamp, expirationPolicy);
+
+        assertEquals(toHoursSinceEpoch(getEarliestTimeByDateTimeArithmetic(rollingStartIntervalNumber, rollingPeriod,
+            submissionTimestamp, expirationPolicy)), earliestHour);
+      }
+    }
+  }
+
+  /**
+   * Calculates the earliest time for sharing a key with {@link LocalDateTime} and {@link Duration} arithmetic.
+   */
+  private static LocalDateTime getEarliestTimeByDateTimeArithmetic(int rollingStartIntervalNumber, int rollingPeriod,
+      long submissionTimestamp, ExpirationPolicy policy) {
+    LocalDateTime submissionDateTime = LocalDateTime.ofEpochSecond(submissionTimestamp * 3600, 0, ZoneOffset.UTC);
+    LocalDateTime expiryDateTime = LocalDateTime.ofEpochSecond(rollingStartIntervalNumber * 600L, 0, ZoneOffset.UTC)
+        .plusMinutes(rollingPeriod * 10L);
+    Duration timeBetweenExpiryAndSubmission = Duration.between(expiryDateTime, submissionDateTime);
+    long timeBetween = policy.getTimeUnit() == ChronoUnit.SECONDS ? timeBetweenExpiryAndSubmission.toSeconds()
+        : policy.getTimeUnit() == ChronoUnit.MINUTES ? timeBetweenExpiryAndSubmission.toMinutes()
+        : timeBetweenExpiryAndSubmission.toHours();
+    if (timeBetween <= policy.getExpirationTime()) {
+      return expiryDateTime.plusMinutes(policy.getExpirationTime() + 60).truncatedTo(ChronoUnit.HOURS);
+    }
+    return submissionDateTime;
+  }
+
+  private static long toHoursSinceEpoch(LocalDateTime dateTime) {
+    return dateTime.toEpochSecond(ZoneOffset.UTC) / 3600;
+  }
+
+  private static Stream<Arguments> expirationPolicies() {
+    return Stream.of(
+        Arguments.of(ExpirationPolicy.of(0, ChronoUnit.MINUTES)),
+        Arguments.of(ExpirationPolicy.of(120, ChronoUnit.MINUTES)),
+        Arguments.of(ExpirationPolicy.of(7200, ChronoUnit.SECONDS)),
+        Arguments.of(ExpirationPolicy.of(2, ChronoUnit.HOURS)));
   }
 
   private static Stream<Arguments> expiredKeysDataset() {
@@ -43,6 +43,18 @@ public class FakeCheckinsGeneratorTest {
     assertContentDerivedCorrectly(originalList.iterator().next(), fakes.iterator().next(), pepper);
   }
 
+  @Test
+  public void should_generate_distinct_random_peppers_if_no_pepper_is_given() {
+    FakeCheckinsGenerator underTest = new FakeCheckinsGenerator();
+    CheckIn original = randomCheckin();
+    List<CheckIn> fakes = underTest.generateFakeCheckins(List.of(original, original), 3, null);
+
+    assertThat(fakes).hasSize(6);
+    assertThat(fakes.stream().map(CheckIn::getLocationId).distinct()).hasSize(6);
+    assertThat(fakes).allSatisfy(fake -> assertThat(fake.getLocationId().size())
+        .isEqualTo(original.getLocationId().size() + 16 + 1));
+  }
+
   private void assertContentDerivedCorrectly(CheckIn original, CheckIn fake, byte[] pepper) {
     assertThat(fake.getLocationId()).isNotEmpty();
     assertThat(fake.getLocationId()).isNotEqualTo(original.getLocationId());
@@ -2,16 +2,15 @@
 
 package app.coronawarn.server.services.distribution.assembly.component;
 
-import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
 import app.coronawarn.server.common.persistence.service.DiagnosisKeyService;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyBundler;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeysFingerprintManifest;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.structure.directory.DiagnosisKeysDirectory;
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
 import app.coronawarn.server.services.distribution.assembly.structure.util.TimeUtils;
 import app.coronawarn.server.services.distribution.assembly.transformation.EnfParameterAdapter;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
-import java.util.Collection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -30,18 +29,20 @@ public class DiagnosisKeysStructureProvider {
   private final CryptoProvider cryptoProvider;
   private final DistributionServiceConfig distributionServiceConfig;
   private final EnfParameterAdapter enfParameterEncoder;
+  private final DiagnosisKeysFingerprintManifest fingerprintManifest;
 
   /**
    * Creates a new DiagnosisKeysStructureProvider.
    */
   DiagnosisKeysStructureProvider(DiagnosisKeyService diagnosisKeyService, CryptoProvider cryptoProvider,
       DistributionServiceConfig distributionServiceConfig, DiagnosisKeyBundler diagnosisKeyBundler,
-      EnfParameterAdapter enfParameterEncoder) {
+      EnfParameterAdapter enfParameterEncoder, DiagnosisKeysFingerprintManifest fingerprintManifest) {
     this.diagnosisKeyService = diagnosisKeyService;
     this.cryptoProvider = cryptoProvider;
     this.distributionServiceConfig = distributionServiceConfig;
     this.diagnosisKeyBundler = diagnosisKeyBundler;
     this.enfParameterEncoder = enfParameterEncoder;
+    this.fingerprintManifest = fingerprintManifest;
   }
 
   /**
@@ -50,9 +51,11 @@ public class DiagnosisKeysStructureProvider {
    * @return the directory
    */
   public Directory<WritableOnDisk> getDiagnosisKeys() {
-    logger.debug("Querying diagnosis keys from the database...");
-    Collection<DiagnosisKey> diagnosisKeys = diagnosisKeyService.getDiagnosisKeys();
-    diagnosisKeyBundler.setDiagnosisKeys(enfParameterEncoder.adaptKeys(diagnosisKeys), TimeUtils.getCurrentUtcHour());
-    return new DiagnosisKeysDirectory(diagnosisKeyBundler, cryptoProvider, distributionServiceConfig);
+    logger.debug("Streaming diagnosis keys from the database...");
+    diagnosisKeyBundler.loadDiagnosisKeys(bundlerConsumer -> diagnosisKeyService.streamDiagnosisKeys(
+        diagnosisKey -> bundlerConsumer.accept(enfParameterEncoder.adaptKey(diagnosisKey))),
+        TimeUtils.getCurrentUtcHour());
+    return new DiagnosisKeysDirectory(diagnosisKeyBundler, cryptoProvider, distributionServiceConfig,
+        fingerprintManifest);
   }
 }
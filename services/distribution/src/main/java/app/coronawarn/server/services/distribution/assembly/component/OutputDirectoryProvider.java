@@ -5,6 +5,7 @@ package app.coronawarn.server.services.distribution.assembly.component;
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.DirectoryOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
 import java.io.IOException;
 import org.apache.commons.io.FileUtils;
@@ -29,6 +30,16 @@ public class OutputDirectoryProvider {
     return new DirectoryOnDisk(getFileOnDisk());
   }
 
+  /**
+   * Returns the output directory, which is prepared and written with the specified {@link WritableTraversal}.
+   *
+   * @param traversal The traversal of the assembly run.
+   * @return The output directory.
+   */
+  public Directory<WritableOnDisk> getDirectory(WritableTraversal traversal) {
+    return new DirectoryOnDisk(getFileOnDisk(), traversal);
+  }
+
   public java.io.File getFileOnDisk() {
     return new java.io.File(outputPath);
   }
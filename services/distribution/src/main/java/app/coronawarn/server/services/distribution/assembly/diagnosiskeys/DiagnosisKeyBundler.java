@@ -4,14 +4,16 @@ package app.coronawarn.server.services.distribution.assembly.diagnosiskeys;
 
 import static java.time.ZoneOffset.UTC;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
 
 import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyStore.Keys;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.Temporal;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -19,7 +21,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntToLongFunction;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,16 +59,29 @@ public abstract class DiagnosisKeyBundler {
    */
   protected LocalDateTime distributionTime;
 
+  /**
+   * The compact store holding the attributes of all diagnosis keys that are resident in memory. The maps below only
+   * reference the keys by their index in this store.
+   */
+  protected DiagnosisKeyStore diagnosisKeyStore = new DiagnosisKeyStore();
+
   /**
    * A map containing diagnosis keys, grouped by country and mapped by the LocalDateTime on which they may be
    * distributed.
    */
-  protected final Map<String, Map<LocalDateTime, List<DiagnosisKey>>> distributableDiagnosisKeys = new HashMap<>();
+  protected final Map<String, Map<LocalDateTime, Keys>> distributableDiagnosisKeys = new HashMap<>();
 
   /**
    * A map containing diagnosis keys, grouped by country code.
    */
-  protected Map<String, List<DiagnosisKey>> groupedDiagnosisKeys = new HashMap<>();
+  protected Map<String, Keys> groupedDiagnosisKeys = new HashMap<>();
+
+  /**
+   * An index of {@code distributableDiagnosisKeys}, grouped by country and by the date on which the keys may be
+   * distributed. It is built once the distribution map has been created, so that looking up the hours and keys of a
+   * date does not require iterating over all hours of a country.
+   */
+  private final Map<String, Map<LocalDate, DistributableDate>> distributableDates = new HashMap<>();
 
   /**
    * Constructs a DiagnosisKeyBundler based on the specified service configuration.
@@ -86,8 +105,29 @@ public abstract class DiagnosisKeyBundler {
    * @param distributionTime The {@link LocalDateTime} at which the distribution runs.
    */
   public void setDiagnosisKeys(Collection<DiagnosisKey> diagnosisKeys, LocalDateTime distributionTime) {
+    this.loadDiagnosisKeys(diagnosisKeys::forEach, distributionTime);
+  }
+
+  /**
+   * Streaming variant of {@link DiagnosisKeyBundler#setDiagnosisKeys}. The specified key source is invoked once with a
+   * consumer, to which it shall pass the {@link DiagnosisKey DiagnosisKeys} one by one. Each key is grouped by its
+   * visited countries as soon as it is received and copied into the {@link DiagnosisKeyStore}, so that neither the
+   * source nor the bundler need to retain the {@link DiagnosisKey} objects.
+   *
+   * @param diagnosisKeySource The source of the {@link DiagnosisKey DiagnosisKeys} contained by this
+   *                           {@link DiagnosisKeyBundler}.
+   * @param distributionTime   The {@link LocalDateTime} at which the distribution runs.
+   */
+  public void loadDiagnosisKeys(Consumer<Consumer<DiagnosisKey>> diagnosisKeySource,
+      LocalDateTime distributionTime) {
     this.distributionTime = distributionTime;
-    this.createDiagnosisKeyDistributionMap(diagnosisKeys);
+    initializeMappings();
+
+    diagnosisKeySource.accept(this::addKeyToMap);
+    logger.info("Bundling {} diagnosis key(s) resident in memory.", diagnosisKeyStore.size());
+
+    this.createDiagnosisKeyDistributionMap();
+    this.indexDistributableDiagnosisKeys();
   }
 
   /**
@@ -107,19 +147,19 @@ public abstract class DiagnosisKeyBundler {
    */
   public List<DiagnosisKey> getAllDiagnosisKeys(String country) {
     if (isCountrySupported(country)) {
-      return this.distributableDiagnosisKeys.get(country).values()
-          .stream().flatMap(Collection::stream).collect(Collectors.toList());
+      Keys allDiagnosisKeys = diagnosisKeyStore.newKeys();
+      this.distributableDiagnosisKeys.get(country).values().forEach(allDiagnosisKeys::addAll);
+      return allDiagnosisKeys;
     }
     return emptyList();
   }
 
   /**
    * Initializes the internal {@code distributableDiagnosisKeys} map, which should contain all diagnosis keys, grouped
-   * by the LocalDateTime on which they may be distributed.
-   *
-   * @param diagnosisKeys collection of DiagnosisKey entries
+   * by the LocalDateTime on which they may be distributed. At this point, {@code groupedDiagnosisKeys} already
+   * contains all diagnosis keys, grouped by country code.
    */
-  protected abstract void createDiagnosisKeyDistributionMap(Collection<DiagnosisKey> diagnosisKeys);
+  protected abstract void createDiagnosisKeyDistributionMap();
 
   /**
    * Returns a set of all {@link LocalDate dates} on which {@link DiagnosisKey diagnosis keys} shall be distributed
@@ -130,16 +170,16 @@ public abstract class DiagnosisKeyBundler {
    */
   public Set<LocalDate> getDatesWithDistributableDiagnosisKeys(String country) {
     if (isCountrySupported(country)) {
-      return this.distributableDiagnosisKeys.get(country).keySet().stream()
-          .map(LocalDateTime::toLocalDate)
-          .filter(date -> numberOfKeysForDateBelowMaximum(date, country))
+      return this.distributableDates.getOrDefault(country, emptyMap()).entrySet().stream()
+          .filter(distributableDate -> distributableDate.getValue().isBelowMaximum())
+          .map(Map.Entry::getKey)
           .collect(Collectors.toSet());
     }
     return emptySet();
   }
 
   public boolean numberOfKeysForDateBelowMaximum(LocalDate date, String country) {
-    return numberOfKeysBelowMaximum(getDiagnosisKeysForDate(date, country).size(), date);
+    return getDistributableDate(date, country).map(DistributableDate::isBelowMaximum).orElse(true);
   }
 
   /**
@@ -151,14 +191,9 @@ public abstract class DiagnosisKeyBundler {
    * @return Set of LocalDateTime entries for specified Country at specified time
    */
   public Set<LocalDateTime> getHoursWithDistributableDiagnosisKeys(LocalDate currentDate, String country) {
-    return this.distributableDiagnosisKeys.get(country).keySet().stream()
-        .filter(dateTime -> dateTime.toLocalDate().equals(currentDate))
-        .filter(dateTime -> numberOfKeysForHourBelowMaximum(dateTime, country))
-        .collect(Collectors.toSet());
-  }
-
-  private boolean numberOfKeysForHourBelowMaximum(LocalDateTime hour, String country) {
-    return numberOfKeysBelowMaximum(getDiagnosisKeysForHour(hour, country).size(), hour);
+    return getDistributableDate(currentDate, country)
+        .map(DistributableDate::getHoursBelowMaximum)
+        .orElse(emptySet());
   }
 
   private boolean numberOfKeysBelowMaximum(int numberOfKeys, Temporal time) {
@@ -171,13 +206,34 @@ public abstract class DiagnosisKeyBundler {
   }
 
   /**
-   * Returns the submission timestamp of a {@link DiagnosisKey} as a {@link LocalDateTime}.
+   * Returns the earliest hour at which the specified {@link DiagnosisKey} may be distributed, which is recorded in the
+   * {@link DiagnosisKeyStore} when the key is loaded. By default, this is the submission hour.
+   *
+   * @param diagnosisKey key to calculate the distribution hour for
+   * @return the hour since epoch from which on the key may be distributed
+   */
+  protected long getDistributionTimestamp(DiagnosisKey diagnosisKey) {
+    return diagnosisKey.getSubmissionTimestamp();
+  }
+
+  /**
+   * Groups the specified keys by the hour returned for their index in the {@link DiagnosisKeyStore}.
    *
-   * @param diagnosisKey key to search
-   * @return time the specified key was submitted
+   * @param diagnosisKeys the keys to group
+   * @param hourOfKey     function returning the hour since epoch for the index of a key
+   * @return map of the keys per hour
    */
-  protected LocalDateTime getSubmissionDateTime(DiagnosisKey diagnosisKey) {
-    return LocalDateTime.ofEpochSecond(diagnosisKey.getSubmissionTimestamp() * ONE_HOUR_INTERVAL_SECONDS, 0, UTC);
+  protected Map<LocalDateTime, Keys> groupByHour(Keys diagnosisKeys, IntToLongFunction hourOfKey) {
+    Map<Long, Keys> diagnosisKeysPerHour = new HashMap<>();
+    for (int position = 0; position < diagnosisKeys.size(); position++) {
+      int index = diagnosisKeys.getIndex(position);
+      diagnosisKeysPerHour.computeIfAbsent(hourOfKey.applyAsLong(index), ignoredHour -> diagnosisKeyStore.newKeys())
+          .addIndex(index);
+    }
+    Map<LocalDateTime, Keys> result = new HashMap<>();
+    diagnosisKeysPerHour.forEach((hour, keysOfHour) ->
+        result.put(LocalDateTime.ofEpochSecond(hour * ONE_HOUR_INTERVAL_SECONDS, 0, UTC), keysOfHour));
+    return result;
   }
 
   /**
@@ -188,14 +244,9 @@ public abstract class DiagnosisKeyBundler {
    * @return list of DiagnosisKey entires submitted from specified Country on the specified day
    */
   public List<DiagnosisKey> getDiagnosisKeysForDate(LocalDate date, String country) {
-    if (isCountrySupported(country)) {
-      return this.distributableDiagnosisKeys.get(country).keySet().stream()
-          .filter(dateTime -> dateTime.toLocalDate().equals(date))
-          .map(dateTime -> getDiagnosisKeysForHour(dateTime, country))
-          .flatMap(List::stream)
-          .collect(Collectors.toList());
-    }
-    return emptyList();
+    return getDistributableDate(date, country)
+        .<List<DiagnosisKey>>map(DistributableDate::getDiagnosisKeys)
+        .orElse(emptyList());
   }
 
   /**
@@ -207,13 +258,19 @@ public abstract class DiagnosisKeyBundler {
    */
   public List<DiagnosisKey> getDiagnosisKeysForHour(LocalDateTime hour, String country) {
     if (isCountrySupported(country)) {
-      return Optional
-          .ofNullable(this.distributableDiagnosisKeys.get(country).get(hour))
-          .orElse(emptyList());
+      Keys diagnosisKeysForHour = this.distributableDiagnosisKeys.get(country).get(hour);
+      return diagnosisKeysForHour == null ? emptyList() : diagnosisKeysForHour;
     }
     return emptyList();
   }
 
+  private Optional<DistributableDate> getDistributableDate(LocalDate date, String country) {
+    if (isCountrySupported(country)) {
+      return Optional.ofNullable(this.distributableDates.getOrDefault(country, emptyMap()).get(date));
+    }
+    return Optional.empty();
+  }
+
   private boolean isCountrySupported(String country) {
     if (!supportedCountries.contains(country) && !country.equals(euPackageName)) {
       logger.warn("The country {} received is not included in the list of supported countries", country);
@@ -222,23 +279,28 @@ public abstract class DiagnosisKeyBundler {
     return true;
   }
 
-  private void addKeyToMap(DiagnosisKey key, Map<String, List<DiagnosisKey>> keysByCountry) {
+  /**
+   * Adds the specified key to the bucket of each supported country that it shall be distributed for. The key is only
+   * copied into the {@link DiagnosisKeyStore} if it is added to at least one bucket.
+   */
+  private void addKeyToMap(DiagnosisKey key) {
     // Prior to 1.5 version the already stored keys have no visited countries, thus we default the target bucket
     // to origin country, as these keys were originated in CWA and should still be distributed.
     if (key.getVisitedCountries().isEmpty()) {
-      keysByCountry.get(this.originCountry).add(key);
-    } else {
-      key.getVisitedCountries().stream()
-          .filter(supportedCountries::contains)
-          .forEach(visitedCountry -> {
-            if (isKeyOriginAndVisitedCountryNotEqualToOriginCountry(key, visitedCountry)) {
-              return;
-            }
-            if (isEfgsKeyWithOriginInVisitedCountriesAndNotVisitedCountry(key, visitedCountry)) {
-              return;
-            }
-            keysByCountry.get(visitedCountry).add(key);
-          });
+      groupedDiagnosisKeys.get(this.originCountry).addIndex(diagnosisKeyStore.add(key, getDistributionTimestamp(key)));
+      return;
+    }
+    int index = -1;
+    for (String visitedCountry : key.getVisitedCountries()) {
+      if (!supportedCountries.contains(visitedCountry)
+          || isKeyOriginAndVisitedCountryNotEqualToOriginCountry(key, visitedCountry)
+          || isEfgsKeyWithOriginInVisitedCountriesAndNotVisitedCountry(key, visitedCountry)) {
+        continue;
+      }
+      if (index < 0) {
+        index = diagnosisKeyStore.add(key, getDistributionTimestamp(key));
+      }
+      groupedDiagnosisKeys.get(visitedCountry).addIndex(index);
     }
   }
 
@@ -273,40 +335,82 @@ public abstract class DiagnosisKeyBundler {
         && key.getVisitedCountries().contains(originCountry);
   }
 
-  protected Map<String, List<DiagnosisKey>> mapDiagnosisKeysPerVisitedCountries(
-      Collection<DiagnosisKey> diagnosisKeys) {
-    initializeMappings();
-
-    diagnosisKeys
-        .forEach(diagnosisKey -> this.addKeyToMap(diagnosisKey, groupedDiagnosisKeys));
-    return groupedDiagnosisKeys;
-  }
-
   protected void populateEuPackageWithDistributableDiagnosisKeys() {
-    Map<LocalDateTime, Set<DiagnosisKey>> euPackage = new HashMap<>();
+    Map<LocalDateTime, Keys> euPackage = new HashMap<>();
 
     distributableDiagnosisKeys
-        .forEach((country, diagnosisKeyMap) -> diagnosisKeyMap.forEach((distributionDateTime, diagnosisKeys) -> {
-          Set<DiagnosisKey> currentHourDiagnosisKeys = Optional
-              .ofNullable(euPackage.get(distributionDateTime))
-              .orElse(new HashSet<>());
-          currentHourDiagnosisKeys.addAll(diagnosisKeys);
-          euPackage.put(distributionDateTime, currentHourDiagnosisKeys);
-        }));
-
-    Map<LocalDateTime, List<DiagnosisKey>> euPackageList = new HashMap<>();
-    euPackage.forEach((distributionDateTime, diagnosisKeys) ->
-        euPackageList.put(distributionDateTime, new ArrayList<>(diagnosisKeys)));
-    distributableDiagnosisKeys.put(euPackageName, euPackageList);
+        .forEach((country, diagnosisKeyMap) -> diagnosisKeyMap.forEach((distributionDateTime, diagnosisKeys) ->
+            euPackage.computeIfAbsent(distributionDateTime, ignoredDateTime -> diagnosisKeyStore.newKeys())
+                .addAll(diagnosisKeys)));
+
+    // keys that are distributed for more than one country are stored once, thus they share the same index
+    euPackage.values().forEach(Keys::sortAndRemoveDuplicates);
+    distributableDiagnosisKeys.put(euPackageName, euPackage);
+  }
+
+  /**
+   * Groups the hours of {@code distributableDiagnosisKeys} by date for each country and computes the number of keys per
+   * hour and per date, so that the lookups during the assembly do not need to scan or count the keys again.
+   */
+  private void indexDistributableDiagnosisKeys() {
+    distributableDiagnosisKeys.forEach((country, diagnosisKeysPerHour) -> {
+      Map<LocalDate, SortedMap<LocalDateTime, Keys>> hoursPerDate = new HashMap<>();
+      diagnosisKeysPerHour.forEach((hour, diagnosisKeys) -> hoursPerDate
+          .computeIfAbsent(hour.toLocalDate(), ignoredDate -> new TreeMap<>())
+          .put(hour, diagnosisKeys));
+
+      Map<LocalDate, DistributableDate> datesOfCountry = new HashMap<>();
+      hoursPerDate.forEach((date, hours) -> datesOfCountry.put(date, new DistributableDate(date, hours)));
+      distributableDates.put(country, datesOfCountry);
+    });
   }
 
   private void initializeMappings() {
+    diagnosisKeyStore = new DiagnosisKeyStore();
     groupedDiagnosisKeys.clear();
     distributableDiagnosisKeys.clear();
+    distributableDates.clear();
 
     supportedCountries.forEach(supportedCountry -> {
-      groupedDiagnosisKeys.put(supportedCountry, new ArrayList<>());
+      groupedDiagnosisKeys.put(supportedCountry, diagnosisKeyStore.newKeys());
       this.distributableDiagnosisKeys.put(supportedCountry, new HashMap<>());
     });
   }
+
+  /**
+   * The distributable diagnosis keys of one date and country, together with the hours whose number of keys does not
+   * exceed the configured maximum.
+   */
+  private final class DistributableDate {
+
+    private final Set<LocalDateTime> hoursBelowMaximum;
+    private final Keys diagnosisKeys;
+    private final boolean belowMaximum;
+
+    private DistributableDate(LocalDate date, SortedMap<LocalDateTime, Keys> diagnosisKeysPerHour) {
+      Set<LocalDateTime> hours = new HashSet<>();
+      Keys keys = diagnosisKeyStore.newKeys();
+      diagnosisKeysPerHour.forEach((hour, diagnosisKeysOfHour) -> {
+        if (numberOfKeysBelowMaximum(diagnosisKeysOfHour.size(), hour)) {
+          hours.add(hour);
+        }
+        keys.addAll(diagnosisKeysOfHour);
+      });
+      this.hoursBelowMaximum = unmodifiableSet(hours);
+      this.diagnosisKeys = keys;
+      this.belowMaximum = numberOfKeysBelowMaximum(keys.size(), date);
+    }
+
+    Set<LocalDateTime> getHoursBelowMaximum() {
+      return hoursBelowMaximum;
+    }
+
+    Keys getDiagnosisKeys() {
+      return diagnosisKeys;
+    }
+
+    boolean isBelowMaximum() {
+      return belowMaximum;
+    }
+  }
 }
@@ -0,0 +1,350 @@
+package app.coronawarn.server.services.distribution.assembly.diagnosiskeys;
+
+import static app.coronawarn.server.common.persistence.domain.DiagnosisKey.KEY_DATA_LENGTH;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
+import app.coronawarn.server.common.protocols.external.exposurenotification.TemporaryExposureKey;
+import app.coronawarn.server.common.protocols.internal.SubmissionPayload.SubmissionType;
+import com.google.protobuf.ByteString;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * A compact, columnar store for the {@link DiagnosisKey DiagnosisKeys} that are bundled during a distribution run.
+ * Instead of retaining one {@link DiagnosisKey} object (with its key array, visited countries set and enums) per key,
+ * the attributes of all keys are kept in parallel primitive arrays and the key data is packed into a single array of
+ * {@link DiagnosisKey#KEY_DATA_LENGTH} bytes per key. Country codes are interned and the visited countries of each key
+ * are referenced by the id of an interned {@link BitSet} over the country ids, as most keys share the same few sets.
+ * <br>
+ * Keys are referenced by their index in the store. Subsets of the stored keys, e.g. the keys of one hour and country,
+ * are represented by {@link Keys}, which only hold the indices of the keys.
+ */
+public final class DiagnosisKeyStore {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final byte NO_REPORT_TYPE = -1;
+  private static final byte NO_SUBMISSION_TYPE = -1;
+
+  private final List<String> countries = new ArrayList<>();
+  private final Map<String, Short> countryIds = new HashMap<>();
+  private final List<BitSet> countrySets = new ArrayList<>();
+  private final Map<BitSet, Integer> countrySetIds = new HashMap<>();
+  private final BitSet consentToFederation = new BitSet();
+
+  private int size;
+  private byte[] keyData;
+  private int[] rollingStartIntervalNumbers;
+  private short[] rollingPeriods;
+  private byte[] transmissionRiskLevels;
+  private int[] submissionTimestamps;
+  private int[] distributionTimestamps;
+  private byte[] submissionTypes;
+  private byte[] reportTypes;
+  private short[] daysSinceOnsetOfSymptoms;
+  private short[] originCountries;
+  private int[] visitedCountries;
+
+  /**
+   * Creates an empty {@link DiagnosisKeyStore}.
+   */
+  public DiagnosisKeyStore() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Adds the specified {@link DiagnosisKey} to this store.
+   *
+   * @param diagnosisKey          The {@link DiagnosisKey} to add.
+   * @param distributionTimestamp The hour since epoch from which on the key may be distributed, as determined by the
+   *                              {@link DiagnosisKeyBundler}.
+   * @return The index of the added key.
+   */
+  public int add(DiagnosisKey diagnosisKey, long distributionTimestamp) {
+    if (size == submissionTimestamps.length) {
+      allocate(size * 2);
+    }
+    int index = size++;
+    System.arraycopy(diagnosisKey.getKeyData(), 0, keyData, index * KEY_DATA_LENGTH, KEY_DATA_LENGTH);
+    rollingStartIntervalNumbers[index] = diagnosisKey.getRollingStartIntervalNumber();
+    rollingPeriods[index] = (short) diagnosisKey.getRollingPeriod();
+    transmissionRiskLevels[index] = (byte) diagnosisKey.getTransmissionRiskLevel();
+    submissionTimestamps[index] = Math.toIntExact(diagnosisKey.getSubmissionTimestamp());
+    distributionTimestamps[index] = Math.toIntExact(distributionTimestamp);
+    submissionTypes[index] = diagnosisKey.getSubmissionType() == null
+        ? NO_SUBMISSION_TYPE : (byte) diagnosisKey.getSubmissionType().getNumber();
+    reportTypes[index] = diagnosisKey.getReportType() == null
+        ? NO_REPORT_TYPE : (byte) diagnosisKey.getReportType().getNumber();
+    daysSinceOnsetOfSymptoms[index] = (short) diagnosisKey.getDaysSinceOnsetOfSymptoms();
+    originCountries[index] = internCountry(diagnosisKey.getOriginCountry());
+    visitedCountries[index] = internCountries(diagnosisKey.getVisitedCountries());
+    consentToFederation.set(index, diagnosisKey.isConsentToFederation());
+    return index;
+  }
+
+  /**
+   * Returns a new, empty {@link Keys} instance referencing keys of this store.
+   *
+   * @return A new {@link Keys} instance.
+   */
+  public Keys newKeys() {
+    return new Keys(this);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Copies the key data of the specified key into the specified array.
+   *
+   * @param index       The index of the key.
+   * @param destination The array to copy the {@link DiagnosisKey#KEY_DATA_LENGTH} bytes of key data to.
+   * @param offset      The position in the destination array.
+   */
+  public void copyKeyData(int index, byte[] destination, int offset) {
+    System.arraycopy(keyData, index * KEY_DATA_LENGTH, destination, offset, KEY_DATA_LENGTH);
+  }
+
+  public int getRollingStartIntervalNumber(int index) {
+    return rollingStartIntervalNumbers[index];
+  }
+
+  public int getRollingPeriod(int index) {
+    return rollingPeriods[index];
+  }
+
+  public int getTransmissionRiskLevel(int index) {
+    return transmissionRiskLevels[index];
+  }
+
+  public long getSubmissionTimestamp(int index) {
+    return submissionTimestamps[index];
+  }
+
+  public long getDistributionTimestamp(int index) {
+    return distributionTimestamps[index];
+  }
+
+  /**
+   * Returns the number of the {@link ReportType} of the specified key.
+   *
+   * @param index The index of the key.
+   * @return The number of the report type, or -1 if the key has no report type.
+   */
+  public int getReportTypeNumber(int index) {
+    return reportTypes[index];
+  }
+
+  public int getDaysSinceOnsetOfSymptoms(int index) {
+    return daysSinceOnsetOfSymptoms[index];
+  }
+
+  public String getOriginCountry(int index) {
+    return countries.get(originCountries[index]);
+  }
+
+  /**
+   * Checks whether the specified country is contained in the visited countries of the specified key.
+   *
+   * @param index   The index of the key.
+   * @param country The country code.
+   * @return {@code true} if the key has been visited in the specified country.
+   */
+  public boolean isVisitedCountry(int index, String country) {
+    Short countryId = countryIds.get(country);
+    return countryId != null && countrySets.get(visitedCountries[index]).get(countryId);
+  }
+
+  /**
+   * Returns the visited countries of the specified key.
+   *
+   * @param index The index of the key.
+   * @return A new set containing the visited countries.
+   */
+  public Set<String> getVisitedCountries(int index) {
+    Set<String> result = new HashSet<>();
+    countrySets.get(visitedCountries[index]).stream().forEach(countryId -> result.add(countries.get(countryId)));
+    return result;
+  }
+
+  /**
+   * Creates a {@link DiagnosisKey} object from the attributes of the specified key. This is only meant for callers that
+   * require single {@link DiagnosisKey} objects, as the object is created on every call.
+   *
+   * @param index The index of the key.
+   * @return A new {@link DiagnosisKey} equal to the one that has been added at the specified index.
+   */
+  public DiagnosisKey getDiagnosisKey(int index) {
+    byte[] keyDataOfKey = new byte[KEY_DATA_LENGTH];
+    copyKeyData(index, keyDataOfKey, 0);
+    return DiagnosisKey.builder()
+        .withKeyDataAndSubmissionType(keyDataOfKey, submissionTypes[index] == NO_SUBMISSION_TYPE
+            ? null : SubmissionType.forNumber(submissionTypes[index]))
+        .withRollingStartIntervalNumber(getRollingStartIntervalNumber(index))
+        .withTransmissionRiskLevel(getTransmissionRiskLevel(index))
+        .withSubmissionTimestamp(getSubmissionTimestamp(index))
+        .withRollingPeriod(getRollingPeriod(index))
+        .withConsentToFederation(consentToFederation.get(index))
+        .withCountryCode(getOriginCountry(index))
+        .withVisitedCountries(getVisitedCountries(index))
+        .withReportType(getReportType(index))
+        .withDaysSinceOnsetOfSymptoms(getDaysSinceOnsetOfSymptoms(index))
+        .build();
+  }
+
+  /**
+   * Creates the {@link TemporaryExposureKey} of the specified key directly from the stored attributes.
+   *
+   * @param index The index of the key.
+   * @return A new {@link TemporaryExposureKey}.
+   */
+  public TemporaryExposureKey getTemporaryExposureKey(int index) {
+    return TemporaryExposureKey.newBuilder()
+        .setKeyData(ByteString.copyFrom(keyData, index * KEY_DATA_LENGTH, KEY_DATA_LENGTH))
+        .setTransmissionRiskLevel(getTransmissionRiskLevel(index))
+        .setRollingStartIntervalNumber(getRollingStartIntervalNumber(index))
+        .setRollingPeriod(getRollingPeriod(index))
+        .setReportType(getReportType(index))
+        .setDaysSinceOnsetOfSymptoms(getDaysSinceOnsetOfSymptoms(index))
+        .build();
+  }
+
+  private ReportType getReportType(int index) {
+    return reportTypes[index] == NO_REPORT_TYPE ? null : ReportType.forNumber(reportTypes[index]);
+  }
+
+  private short internCountry(String country) {
+    return countryIds.computeIfAbsent(country, ignoredCountry -> {
+      countries.add(country);
+      return (short) (countries.size() - 1);
+    });
+  }
+
+  private int internCountries(Set<String> countriesOfKey) {
+    BitSet countrySet = new BitSet();
+    countriesOfKey.forEach(country -> countrySet.set(internCountry(country)));
+    return countrySetIds.computeIfAbsent(countrySet, ignoredCountrySet -> {
+      countrySets.add(countrySet);
+      return countrySets.size() - 1;
+    });
+  }
+
+  private void allocate(int capacity) {
+    keyData = keyData == null ? new byte[capacity * KEY_DATA_LENGTH]
+        : Arrays.copyOf(keyData, capacity * KEY_DATA_LENGTH);
+    rollingStartIntervalNumbers = rollingStartIntervalNumbers == null ? new int[capacity]
+        : Arrays.copyOf(rollingStartIntervalNumbers, capacity);
+    rollingPeriods = rollingPeriods == null ? new short[capacity] : Arrays.copyOf(rollingPeriods, capacity);
+    transmissionRiskLevels = transmissionRiskLevels == null ? new byte[capacity]
+        : Arrays.copyOf(transmissionRiskLevels, capacity);
+    submissionTimestamps = submissionTimestamps == null ? new int[capacity]
+        : Arrays.copyOf(submissionTimestamps, capacity);
+    distributionTimestamps = distributionTimestamps == null ? new int[capacity]
+        : Arrays.copyOf(distributionTimestamps, capacity);
+    submissionTypes = submissionTypes == null ? new byte[capacity] : Arrays.copyOf(submissionTypes, capacity);
+    reportTypes = reportTypes == null ? new byte[capacity] : Arrays.copyOf(reportTypes, capacity);
+    daysSinceOnsetOfSymptoms = daysSinceOnsetOfSymptoms == null ? new short[capacity]
+        : Arrays.copyOf(daysSinceOnsetOfSymptoms, capacity);
+    originCountries = originCountries == null ? new short[capacity] : Arrays.copyOf(originCountries, capacity);
+    visitedCountries = visitedCountries == null ? new int[capacity] : Arrays.copyOf(visitedCountries, capacity);
+  }
+
+  /**
+   * An ordered subset of the keys of a {@link DiagnosisKeyStore}, holding only the indices of the keys. It can be used
+   * wherever a {@link List} of {@link DiagnosisKey DiagnosisKeys} is expected, in which case the {@link DiagnosisKey}
+   * objects are created on access. Performance-sensitive callers should access the attributes of the keys through
+   * {@link Keys#getStore()} and {@link Keys#getIndex(int)} instead.
+   */
+  public static final class Keys extends AbstractList<DiagnosisKey> implements RandomAccess {
+
+    private static final int[] NO_INDICES = new int[0];
+
+    private final DiagnosisKeyStore store;
+    private int[] indices = NO_INDICES;
+    private int size;
+
+    private Keys(DiagnosisKeyStore store) {
+      this.store = store;
+    }
+
+    public DiagnosisKeyStore getStore() {
+      return store;
+    }
+
+    /**
+     * Returns the index in the {@link DiagnosisKeyStore} of the key at the specified position.
+     *
+     * @param position The position in this list.
+     * @return The index of the key in the store.
+     */
+    public int getIndex(int position) {
+      if (position >= size) {
+        throw new IndexOutOfBoundsException("Position " + position + " is out of bounds for size " + size);
+      }
+      return indices[position];
+    }
+
+    @Override
+    public DiagnosisKey get(int position) {
+      return store.getDiagnosisKey(getIndex(position));
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Creates the {@link TemporaryExposureKey TemporaryExposureKeys} of all keys directly from the attributes in the
+     * store, without creating {@link DiagnosisKey} objects.
+     *
+     * @return A new list of {@link TemporaryExposureKey TemporaryExposureKeys}, in the order of this list.
+     */
+    public List<TemporaryExposureKey> toTemporaryExposureKeys() {
+      List<TemporaryExposureKey> temporaryExposureKeys = new ArrayList<>(size);
+      for (int position = 0; position < size; position++) {
+        temporaryExposureKeys.add(store.getTemporaryExposureKey(indices[position]));
+      }
+      return temporaryExposureKeys;
+    }
+
+    void addIndex(int index) {
+      if (size == indices.length) {
+        indices = Arrays.copyOf(indices, Math.max(16, size * 2));
+      }
+      indices[size++] = index;
+    }
+
+    void addAll(Keys keys) {
+      if (size + keys.size > indices.length) {
+        indices = Arrays.copyOf(indices, Math.max(size + keys.size, size * 2));
+      }
+      System.arraycopy(keys.indices, 0, indices, size, keys.size);
+      size += keys.size;
+    }
+
+    /**
+     * Sorts the keys by their index in the store, i.e. in the order in which they have been added to the store, and
+     * removes keys that are contained more than once.
+     */
+    void sortAndRemoveDuplicates() {
+      Arrays.sort(indices, 0, size);
+      int distinct = 0;
+      for (int position = 0; position < size; position++) {
+        if (distinct == 0 || indices[distinct - 1] != indices[position]) {
+          indices[distinct++] = indices[position];
+        }
+      }
+      size = distinct;
+    }
+  }
+}
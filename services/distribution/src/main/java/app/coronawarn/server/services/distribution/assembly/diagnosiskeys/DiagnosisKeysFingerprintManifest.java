@@ -0,0 +1,224 @@
+package app.coronawarn.server.services.distribution.assembly.diagnosiskeys;
+
+import static app.coronawarn.server.common.persistence.domain.DiagnosisKey.KEY_DATA_LENGTH;
+import static java.lang.Boolean.TRUE;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyStore.Keys;
+import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bouncycastle.util.encoders.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps track of the fingerprints of the diagnosis key sets, from which the date and hour archives of the previous
+ * distribution run have been assembled. If incremental assembly is enabled, archives whose fingerprint did not change
+ * since the previous run are not assembled again, because they have already been published to the object store.
+ * <br>
+ * The fingerprints of the current run are only persisted after all files have been published successfully. As long as
+ * no manifest is available, e.g. on the first run, all archives are assembled. If incremental assembly is disabled, no
+ * fingerprints are computed and no manifest is written.
+ */
+@Component
+public class DiagnosisKeysFingerprintManifest {
+
+  private static final Logger logger = LoggerFactory.getLogger(DiagnosisKeysFingerprintManifest.class);
+
+  private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+
+  private final Path manifestPath;
+  private final boolean enabled;
+  private final boolean skipUnchangedEntries;
+  private final byte[] configurationFingerprint;
+  private final Map<String, String> previousFingerprints;
+  private final Map<String, String> currentFingerprints = new ConcurrentHashMap<>();
+  private final AtomicInteger numberOfUnchangedEntries = new AtomicInteger();
+
+  /**
+   * Creates a {@link DiagnosisKeysFingerprintManifest} and loads the fingerprints of the previous run from the path
+   * configured in {@link DistributionServiceConfig.Paths#getFingerprintManifest()}.
+   *
+   * @param distributionServiceConfig The {@link DistributionServiceConfig} used for distribution service configuration.
+   */
+  public DiagnosisKeysFingerprintManifest(DistributionServiceConfig distributionServiceConfig) {
+    String fingerprintManifest = distributionServiceConfig.getPaths().getFingerprintManifest();
+    this.manifestPath = fingerprintManifest == null || fingerprintManifest.isBlank()
+        ? null : Path.of(fingerprintManifest);
+    this.enabled = manifestPath != null && TRUE.equals(distributionServiceConfig.getIncrementalAssembly());
+    this.skipUnchangedEntries = enabled
+        && !TRUE.equals(distributionServiceConfig.getObjectStore().getForceUpdateKeyfiles());
+    this.configurationFingerprint = computeConfigurationFingerprint(distributionServiceConfig);
+    this.previousFingerprints = skipUnchangedEntries ? load(manifestPath) : Collections.emptyMap();
+  }
+
+  /**
+   * Records the fingerprint of the specified diagnosis keys for the specified entry and checks whether it matches the
+   * fingerprint of the previous run.
+   *
+   * @param entry          The identifier of the archive, e.g. {@code DE/2021-05-01/13}.
+   * @param diagnosisKeys  The {@link DiagnosisKey DiagnosisKeys} contained in the archive.
+   * @param startTimestamp The start of the time window covered by the archive, in UTC seconds since epoch.
+   * @param endTimestamp   The end of the time window covered by the archive, in UTC seconds since epoch.
+   * @return {@code true} if incremental assembly is enabled and the archive has not changed since the previous run.
+   */
+  public boolean isUnchanged(String entry, List<DiagnosisKey> diagnosisKeys, long startTimestamp,
+      long endTimestamp) {
+    if (!enabled) {
+      return false;
+    }
+    String fingerprint = computeFingerprint(entry, diagnosisKeys, startTimestamp, endTimestamp);
+    currentFingerprints.put(entry, fingerprint);
+
+    boolean unchanged = skipUnchangedEntries && fingerprint.equals(previousFingerprints.get(entry));
+    if (unchanged) {
+      numberOfUnchangedEntries.incrementAndGet();
+    }
+    return unchanged;
+  }
+
+  /**
+   * Persists the fingerprints recorded during the current run, so that they can be compared against in the next run.
+   * The manifest is replaced atomically. A failure to write the manifest is not fatal, because the files have already
+   * been published. In that case, the manifest of the previous run is removed, so that the next run assembles all
+   * archives.
+   */
+  public void persist() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      Path parent = manifestPath.toAbsolutePath().getParent();
+      Files.createDirectories(parent);
+      Path temporaryManifest = Files.createTempFile(parent, manifestPath.getFileName().toString(), ".tmp");
+      try (Writer writer = Files.newBufferedWriter(temporaryManifest, StandardCharsets.ISO_8859_1)) {
+        for (Map.Entry<String, String> fingerprint : new TreeMap<>(currentFingerprints).entrySet()) {
+          writer.write(fingerprint.getKey() + "=" + fingerprint.getValue() + System.lineSeparator());
+        }
+      }
+      Files.move(temporaryManifest, manifestPath, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      logger.info("Persisted fingerprints of {} diagnosis key archive(s), {} of which were unchanged and skipped.",
+          currentFingerprints.size(), numberOfUnchangedEntries.get());
+    } catch (IOException e) {
+      logger.warn("Failed to persist fingerprint manifest {}, all diagnosis key archives will be assembled in the next "
+          + "run.", manifestPath, e);
+      deletePreviousManifest();
+    }
+  }
+
+  private void deletePreviousManifest() {
+    try {
+      Files.deleteIfExists(manifestPath);
+    } catch (IOException e) {
+      logger.error("Failed to delete outdated fingerprint manifest {}.", manifestPath, e);
+    }
+  }
+
+  public int getNumberOfUnchangedEntries() {
+    return numberOfUnchangedEntries.get();
+  }
+
+  private String computeFingerprint(String entry, List<DiagnosisKey> diagnosisKeys, long startTimestamp,
+      long endTimestamp) {
+    MessageDigest digest = newDigest();
+    digest.update(configurationFingerprint);
+    digest.update(entry.getBytes(StandardCharsets.UTF_8));
+    digest.update(ByteBuffer.allocate(2 * Long.BYTES).putLong(startTimestamp).putLong(endTimestamp).array());
+
+    ByteBuffer keyAttributes = ByteBuffer.allocate(5 * Integer.BYTES);
+    if (diagnosisKeys instanceof Keys) {
+      updateWithStoredKeys(digest, keyAttributes, (Keys) diagnosisKeys);
+    } else {
+      for (DiagnosisKey diagnosisKey : diagnosisKeys) {
+        digest.update(diagnosisKey.getKeyData());
+        keyAttributes.clear();
+        keyAttributes.putInt(diagnosisKey.getRollingStartIntervalNumber())
+            .putInt(diagnosisKey.getRollingPeriod())
+            .putInt(diagnosisKey.getTransmissionRiskLevel())
+            .putInt(diagnosisKey.getReportType() == null ? -1 : diagnosisKey.getReportType().getNumber())
+            .putInt(diagnosisKey.getDaysSinceOnsetOfSymptoms());
+        digest.update(keyAttributes.array());
+      }
+    }
+    return Hex.toHexString(digest.digest());
+  }
+
+  /**
+   * Same as the fingerprint of {@link DiagnosisKey} objects, but reads the attributes from the {@link
+   * DiagnosisKeyStore}.
+   */
+  private static void updateWithStoredKeys(MessageDigest digest, ByteBuffer keyAttributes, Keys diagnosisKeys) {
+    DiagnosisKeyStore store = diagnosisKeys.getStore();
+    byte[] keyData = new byte[KEY_DATA_LENGTH];
+    for (int position = 0; position < diagnosisKeys.size(); position++) {
+      int index = diagnosisKeys.getIndex(position);
+      store.copyKeyData(index, keyData, 0);
+      digest.update(keyData);
+      keyAttributes.clear();
+      keyAttributes.putInt(store.getRollingStartIntervalNumber(index))
+          .putInt(store.getRollingPeriod(index))
+          .putInt(store.getTransmissionRiskLevel(index))
+          .putInt(store.getReportTypeNumber(index))
+          .putInt(store.getDaysSinceOnsetOfSymptoms(index));
+      digest.update(keyAttributes.array());
+    }
+  }
+
+  /**
+   * Covers the configuration properties that affect the content of the archives, so that a changed configuration
+   * invalidates all fingerprints.
+   */
+  private static byte[] computeConfigurationFingerprint(DistributionServiceConfig distributionServiceConfig) {
+    MessageDigest digest = newDigest();
+    digest.update(distributionServiceConfig.getTekExport().getFileHeader().getBytes(StandardCharsets.UTF_8));
+    digest.update(ByteBuffer.allocate(Integer.BYTES)
+        .putInt(distributionServiceConfig.getTekExport().getFileHeaderWidth()).array());
+    digest.update(distributionServiceConfig.getSignature().getSignatureInfo().toByteArray());
+    return digest.digest();
+  }
+
+  private static Map<String, String> load(Path manifestPath) {
+    if (!Files.isRegularFile(manifestPath)) {
+      logger.info("No fingerprint manifest found at {}, all diagnosis key archives will be assembled.", manifestPath);
+      return Collections.emptyMap();
+    }
+    Properties fingerprints = new Properties();
+    try (Reader reader = Files.newBufferedReader(manifestPath, StandardCharsets.ISO_8859_1)) {
+      fingerprints.load(reader);
+    } catch (IOException e) {
+      logger.warn("Failed to read fingerprint manifest {}, all diagnosis key archives will be assembled.",
+          manifestPath, e);
+      return Collections.emptyMap();
+    }
+    Map<String, String> result = new ConcurrentHashMap<>();
+    fingerprints.stringPropertyNames().forEach(entry -> result.put(entry, fingerprints.getProperty(entry)));
+    logger.info("Loaded fingerprints of {} diagnosis key archive(s) from the previous run.", result.size());
+    return result;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(FINGERPRINT_ALGORITHM + " is not available.", e);
+    }
+  }
+}
@@ -2,23 +2,15 @@
 
 package app.coronawarn.server.services.distribution.assembly.diagnosiskeys;
 
-import static java.util.Collections.emptyList;
-import static java.util.stream.Collectors.groupingBy;
-
 import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
 import app.coronawarn.server.common.persistence.service.common.ExpirationPolicy;
 import app.coronawarn.server.common.persistence.service.common.KeySharingPoliciesChecker;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyStore.Keys;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.LongStream;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
@@ -33,6 +25,7 @@ import org.springframework.stereotype.Component;
 public class ProdDiagnosisKeyBundler extends DiagnosisKeyBundler {
 
   private KeySharingPoliciesChecker sharingPoliciesChecker;
+  private ExpirationPolicy expirationPolicy;
   private String originCountry;
   private boolean applyPoliciesForAllCountries;
 
@@ -46,6 +39,7 @@ public class ProdDiagnosisKeyBundler extends DiagnosisKeyBundler {
       KeySharingPoliciesChecker sharingPoliciesChecker) {
     super(distributionServiceConfig);
     this.sharingPoliciesChecker = sharingPoliciesChecker;
+    this.expirationPolicy = ExpirationPolicy.of(expiryPolicyMinutes, ChronoUnit.MINUTES);
     this.originCountry = distributionServiceConfig.getApi().getOriginCountry();
     this.applyPoliciesForAllCountries = distributionServiceConfig.getApplyPoliciesForAllCountries();
   }
@@ -55,8 +49,8 @@ public class ProdDiagnosisKeyBundler extends DiagnosisKeyBundler {
    * and by the date on which they may be distributed, while respecting the expiry and shifting policies.
    */
   @Override
-  protected void createDiagnosisKeyDistributionMap(Collection<DiagnosisKey> diagnosisKeys) {
-    mapDiagnosisKeysPerVisitedCountries(diagnosisKeys).keySet().forEach(country -> {
+  protected void createDiagnosisKeyDistributionMap() {
+    groupedDiagnosisKeys.keySet().forEach(country -> {
       if (!country.equals(originCountry) && !applyPoliciesForAllCountries) {
         populateDistributableDiagnosisKeysWithoutPolicies(country);
       } else {
@@ -68,8 +62,8 @@ public class ProdDiagnosisKeyBundler extends DiagnosisKeyBundler {
 
   private void populateDistributableDiagnosisKeysWithPolicies(String country) {
 
-    Map<LocalDateTime, List<DiagnosisKey>> distributableDiagnosisKeysGroupedByExpiryPolicy = new HashMap<>(
-        groupedDiagnosisKeys.get(country).stream().collect(groupingBy(this::getDistributionDateTimeByExpiryPolicy)));
+    Map<LocalDateTime, Keys> distributableDiagnosisKeysGroupedByExpiryPolicy =
+        groupByHour(groupedDiagnosisKeys.get(country), diagnosisKeyStore::getDistributionTimestamp);
 
     if (distributableDiagnosisKeysGroupedByExpiryPolicy.isEmpty()) {
       return;
@@ -79,44 +73,45 @@ public class ProdDiagnosisKeyBundler extends DiagnosisKeyBundler {
         getEarliestDistributableTimestamp(distributableDiagnosisKeysGroupedByExpiryPolicy).orElseThrow();
     LocalDateTime latestDistributableTimestamp = distributionTime;
 
-    List<DiagnosisKey> diagnosisKeyAccumulator = new ArrayList<>();
-    LongStream.range(0, earliestDistributableTimestamp.until(latestDistributableTimestamp, ChronoUnit.HOURS))
-        .forEach(hourCounter -> {
-          LocalDateTime currentHour = earliestDistributableTimestamp.plusHours(hourCounter);
-          Collection<DiagnosisKey> currentHourDiagnosisKeys = Optional
-              .ofNullable(distributableDiagnosisKeysGroupedByExpiryPolicy.get(currentHour))
-              .orElse(emptyList());
-          diagnosisKeyAccumulator.addAll(currentHourDiagnosisKeys);
-          if (diagnosisKeyAccumulator.size() >= minNumberOfKeysPerBundle) {
-            distributableDiagnosisKeys.get(country).put(currentHour, new ArrayList<>(diagnosisKeyAccumulator));
-            diagnosisKeyAccumulator.clear();
-          } else {
-            // placeholder list is needed to be able to generate empty file - see issue #650
-            distributableDiagnosisKeys.get(country).put(currentHour, Collections.emptyList());
+    Keys diagnosisKeyAccumulator = diagnosisKeyStore.newKeys();
+    long numberOfHours = earliestDistributableTimestamp.until(latestDistributableTimestamp, ChronoUnit.HOURS);
+    for (long hourCounter = 0; hourCounter < numberOfHours; hourCounter++) {
+      LocalDateTime currentHour = earliestDistributableTimestamp.plusHours(hourCounter);
+      Keys currentHourDiagnosisKeys = distributableDiagnosisKeysGroupedByExpiryPolicy.get(currentHour);
+      if (currentHourDiagnosisKeys != null) {
+        diagnosisKeyAccumulator.addAll(currentHourDiagnosisKeys);
+      }
+      if (diagnosisKeyAccumulator.size() >= minNumberOfKeysPerBundle) {
+        distributableDiagnosisKeys.get(country).put(currentHour, diagnosisKeyAccumulator);
+        diagnosisKeyAccumulator = diagnosisKeyStore.newKeys();
+      } else {
+        // placeholder list is needed to be able to generate empty file - see issue #650
+        distributableDiagnosisKeys.get(country).put(currentHour, diagnosisKeyStore.newKeys());
+      }
+    }
+  }
+
+  private void populateDistributableDiagnosisKeysWithoutPolicies(String country) {
+    groupByHour(groupedDiagnosisKeys.get(country), diagnosisKeyStore::getSubmissionTimestamp)
+        .forEach((submissionDateTime, diagnosisKeys) -> {
+          if (submissionDateTime.isBefore(distributionTime)) {
+            distributableDiagnosisKeys.get(country).put(submissionDateTime, diagnosisKeys);
           }
         });
   }
 
-  private void populateDistributableDiagnosisKeysWithoutPolicies(String country) {
-    distributableDiagnosisKeys.get(country).putAll(groupedDiagnosisKeys.get(country).stream()
-        .filter(diagnosisKey -> getSubmissionDateTime(diagnosisKey).isBefore(distributionTime))
-        .collect(groupingBy(this::getSubmissionDateTime)));
+  /**
+   * Records the distribution time by expiry policy of each key in the {@link DiagnosisKeyStore}, as the policy is
+   * applied after the keys have been loaded. Before keys are allowed to be distributed, they must be expired for a
+   * configured amount of time.
+   */
+  @Override
+  protected long getDistributionTimestamp(DiagnosisKey diagnosisKey) {
+    return sharingPoliciesChecker.getEarliestHourForSharingKey(diagnosisKey, expirationPolicy);
   }
 
   private static Optional<LocalDateTime> getEarliestDistributableTimestamp(
-      Map<LocalDateTime, List<DiagnosisKey>> distributableDiagnosisKeys) {
+      Map<LocalDateTime, Keys> distributableDiagnosisKeys) {
     return distributableDiagnosisKeys.keySet().stream().min(LocalDateTime::compareTo);
   }
-
-  /**
-   * Calculates the earliest point in time at which the specified {@link DiagnosisKey} can be distributed, while
-   * respecting the expiry policy and the submission timestamp. Before keys are allowed to be distributed, they must be
-   * expired for a configured amount of time.
-   *
-   * @return {@link LocalDateTime} at which the specified {@link DiagnosisKey} can be distributed.
-   */
-  private LocalDateTime getDistributionDateTimeByExpiryPolicy(DiagnosisKey diagnosisKey) {
-    return sharingPoliciesChecker.getEarliestTimeForSharingKey(diagnosisKey,
-        ExpirationPolicy.of(expiryPolicyMinutes, ChronoUnit.MINUTES));
-  }
 }
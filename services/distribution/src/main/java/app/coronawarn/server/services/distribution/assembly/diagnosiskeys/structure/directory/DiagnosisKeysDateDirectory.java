@@ -7,6 +7,7 @@ import static java.lang.Boolean.FALSE;
 import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
 import app.coronawarn.server.services.distribution.assembly.component.CryptoProvider;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyBundler;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeysFingerprintManifest;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.structure.directory.decorator.HourIndexingDecorator;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.structure.file.TemporaryExposureKeyExportFile;
 import app.coronawarn.server.services.distribution.assembly.structure.Writable;
@@ -33,6 +34,7 @@ public class DiagnosisKeysDateDirectory extends IndexDirectoryOnDisk<LocalDate>
   private final DiagnosisKeyBundler diagnosisKeyBundler;
   private final CryptoProvider cryptoProvider;
   private final DistributionServiceConfig distributionServiceConfig;
+  private final DiagnosisKeysFingerprintManifest fingerprintManifest;
   private final LocalDate cutOffDate;
 
   /**
@@ -42,9 +44,11 @@ public class DiagnosisKeysDateDirectory extends IndexDirectoryOnDisk<LocalDate>
    * @param diagnosisKeyBundler A {@link DiagnosisKeyBundler} containing the {@link DiagnosisKey DiagnosisKeys}.
    * @param cryptoProvider      The {@link CryptoProvider} used for payload signing.
    * @param distributionServiceConfig The {@link DistributionServiceConfig} config attributes
+   * @param fingerprintManifest The {@link DiagnosisKeysFingerprintManifest} used to skip unchanged archives.
    */
   public DiagnosisKeysDateDirectory(DiagnosisKeyBundler diagnosisKeyBundler,
-      CryptoProvider cryptoProvider, DistributionServiceConfig distributionServiceConfig) {
+      CryptoProvider cryptoProvider, DistributionServiceConfig distributionServiceConfig,
+      DiagnosisKeysFingerprintManifest fingerprintManifest) {
     super(distributionServiceConfig.getApi().getDatePath(),
         indices -> {
           String country = (String) indices.peek();
@@ -53,6 +57,7 @@ public class DiagnosisKeysDateDirectory extends IndexDirectoryOnDisk<LocalDate>
     this.cryptoProvider = cryptoProvider;
     this.diagnosisKeyBundler = diagnosisKeyBundler;
     this.distributionServiceConfig = distributionServiceConfig;
+    this.fingerprintManifest = fingerprintManifest;
 
     int hourRetentionDays = distributionServiceConfig.getObjectStore().getHourFileRetentionDays();
     this.cutOffDate = TimeUtils.getUtcDate().minusDays(hourRetentionDays);
@@ -62,7 +67,8 @@ public class DiagnosisKeysDateDirectory extends IndexDirectoryOnDisk<LocalDate>
     LocalDate currentDate = (LocalDate) indices.peek();
     if (currentDate.isAfter(cutOffDate)) {
       DiagnosisKeysHourDirectory hourDirectory =
-          new DiagnosisKeysHourDirectory(diagnosisKeyBundler, cryptoProvider, distributionServiceConfig);
+          new DiagnosisKeysHourDirectory(diagnosisKeyBundler, cryptoProvider, distributionServiceConfig,
+              fingerprintManifest);
       return Optional.of(decorateHourDirectory(hourDirectory));
     } else {
       return Optional.empty();
@@ -88,6 +94,10 @@ public class DiagnosisKeysDateDirectory extends IndexDirectoryOnDisk<LocalDate>
 
     long startTimestamp = currentDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
     long endTimestamp = currentDate.plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    if (fingerprintManifest.isUnchanged(country + "/" + ISO8601.format(currentDate), diagnosisKeysForCurrentHour,
+        startTimestamp, endTimestamp)) {
+      return Optional.empty();
+    }
 
     File<WritableOnDisk> temporaryExposureKeyExportFile = TemporaryExposureKeyExportFile.fromDiagnosisKeys(
         diagnosisKeysForCurrentHour, country, startTimestamp, endTimestamp, distributionServiceConfig);
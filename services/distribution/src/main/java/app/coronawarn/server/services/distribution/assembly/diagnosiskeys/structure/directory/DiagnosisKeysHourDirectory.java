@@ -3,6 +3,7 @@ package app.coronawarn.server.services.distribution.assembly.diagnosiskeys.struc
 import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
 import app.coronawarn.server.services.distribution.assembly.component.CryptoProvider;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyBundler;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeysFingerprintManifest;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.structure.file.TemporaryExposureKeyExportFile;
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.archive.Archive;
@@ -24,6 +25,7 @@ public class DiagnosisKeysHourDirectory extends IndexDirectoryOnDisk<LocalDateTi
   private final DiagnosisKeyBundler diagnosisKeyBundler;
   private final CryptoProvider cryptoProvider;
   private final DistributionServiceConfig distributionServiceConfig;
+  private final DiagnosisKeysFingerprintManifest fingerprintManifest;
 
   /**
    * Constructs a {@link DiagnosisKeysHourDirectory} instance for the specified date.
@@ -31,9 +33,10 @@ public class DiagnosisKeysHourDirectory extends IndexDirectoryOnDisk<LocalDateTi
    * @param diagnosisKeyBundler A {@link DiagnosisKeyBundler} containing the {@link DiagnosisKey DiagnosisKeys}.
    * @param cryptoProvider      The {@link CryptoProvider} used for cryptographic signing.
    * @param distributionServiceConfig The configuration to set {@link DistributionServiceConfig}
+   * @param fingerprintManifest The {@link DiagnosisKeysFingerprintManifest} used to skip unchanged archives.
    */
   public DiagnosisKeysHourDirectory(DiagnosisKeyBundler diagnosisKeyBundler, CryptoProvider cryptoProvider,
-      DistributionServiceConfig distributionServiceConfig) {
+      DistributionServiceConfig distributionServiceConfig, DiagnosisKeysFingerprintManifest fingerprintManifest) {
     super(distributionServiceConfig.getApi().getHourPath(),
         indices -> {
           String country = (String) indices.pop().peek();
@@ -44,6 +47,7 @@ public class DiagnosisKeysHourDirectory extends IndexDirectoryOnDisk<LocalDateTi
     this.diagnosisKeyBundler = diagnosisKeyBundler;
     this.cryptoProvider = cryptoProvider;
     this.distributionServiceConfig = distributionServiceConfig;
+    this.fingerprintManifest = fingerprintManifest;
   }
 
   @Override
@@ -60,6 +64,10 @@ public class DiagnosisKeysHourDirectory extends IndexDirectoryOnDisk<LocalDateTi
 
       long startTimestamp = currentHour.toEpochSecond(ZoneOffset.UTC);
       long endTimestamp = currentHour.plusHours(1).toEpochSecond(ZoneOffset.UTC);
+      String entry = country + "/" + currentHour.toLocalDate() + "/" + currentHour.getHour();
+      if (fingerprintManifest.isUnchanged(entry, diagnosisKeysForCurrentHour, startTimestamp, endTimestamp)) {
+        return Optional.empty();
+      }
       File<WritableOnDisk> temporaryExposureKeyExportFile = TemporaryExposureKeyExportFile.fromDiagnosisKeys(
           diagnosisKeysForCurrentHour, country, startTimestamp, endTimestamp, distributionServiceConfig);
 
@@ -5,10 +5,14 @@ package app.coronawarn.server.services.distribution.assembly.diagnosiskeys.struc
 import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
 import app.coronawarn.server.common.protocols.external.exposurenotification.TemporaryExposureKey;
 import app.coronawarn.server.common.protocols.external.exposurenotification.TemporaryExposureKeyExport;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyStore.Keys;
 import app.coronawarn.server.services.distribution.assembly.structure.file.FileOnDiskWithChecksum;
 import app.coronawarn.server.services.distribution.assembly.structure.util.ImmutableStack;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
@@ -62,7 +66,9 @@ public class TemporaryExposureKeyExportFile extends FileOnDiskWithChecksum {
   }
 
   /**
-   * Constructs a {@link TemporaryExposureKeyExportFile} from {@link DiagnosisKey DiagnosisKeys}.
+   * Constructs a {@link TemporaryExposureKeyExportFile} from {@link DiagnosisKey DiagnosisKeys}. If the keys are held
+   * by a {@link app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyStore}, the {@link
+   * TemporaryExposureKey TemporaryExposureKeys} are created directly from the stored attributes.
    *
    * @param diagnosisKeys  The {@link DiagnosisKey DiagnosisKeys} to bundle into the {@link
    *                       TemporaryExposureKeyExport}.
@@ -86,19 +92,32 @@ public class TemporaryExposureKeyExportFile extends FileOnDiskWithChecksum {
     super.prepare(indices);
   }
 
+  /**
+   * Serializes the header and the {@link TemporaryExposureKeyExport} directly into a single array of the final size,
+   * instead of concatenating separately serialized arrays.
+   * <br>
+   * The export is not streamed into the ZIP archive on write, because its bytes are already needed when the archive
+   * is prepared: the signing decorator signs them and the archive checksum is derived from them. Serializing the export
+   * a second time while writing the archive would only trade this one array for another serialization pass.
+   */
   private byte[] createKeyExportBytesWithHeader() {
     byte[] headerBytes = this.getHeaderBytes();
-    byte[] temporaryExposureKeyExportBytes = createTemporaryExposureKeyExportBytes();
-    return concatenate(headerBytes, temporaryExposureKeyExportBytes);
-  }
-
-  private byte[] concatenate(byte[] arr1, byte[] arr2) {
-    var concatenatedBytes = Arrays.copyOf(arr1, arr1.length + arr2.length);
-    System.arraycopy(arr2, 0, concatenatedBytes, arr1.length, arr2.length);
-    return concatenatedBytes;
+    TemporaryExposureKeyExport temporaryExposureKeyExport = createTemporaryExposureKeyExport();
+    byte[] exportBytes = new byte[headerBytes.length + temporaryExposureKeyExport.getSerializedSize()];
+    System.arraycopy(headerBytes, 0, exportBytes, 0, headerBytes.length);
+
+    CodedOutputStream codedOutputStream = CodedOutputStream.newInstance(exportBytes, headerBytes.length,
+        exportBytes.length - headerBytes.length);
+    try {
+      temporaryExposureKeyExport.writeTo(codedOutputStream);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to serialize temporary exposure key export.", e);
+    }
+    codedOutputStream.checkNoSpaceLeft();
+    return exportBytes;
   }
 
-  private byte[] createTemporaryExposureKeyExportBytes() {
+  private TemporaryExposureKeyExport createTemporaryExposureKeyExport() {
     return TemporaryExposureKeyExport.newBuilder()
         .setStartTimestamp(this.startTimestamp)
         .setEndTimestamp(this.endTimestamp)
@@ -107,12 +126,14 @@ public class TemporaryExposureKeyExportFile extends FileOnDiskWithChecksum {
         .setBatchSize(1)
         .addAllSignatureInfos(Set.of(distributionServiceConfig.getSignature().getSignatureInfo()))
         .addAllKeys(this.temporaryExposureKeys)
-        .build()
-        .toByteArray();
+        .build();
   }
 
   private static List<TemporaryExposureKey> getTemporaryExposureKeysFromDiagnosisKeys(
       List<DiagnosisKey> diagnosisKeys) {
+    if (diagnosisKeys instanceof Keys) {
+      return ((Keys) diagnosisKeys).toTemporaryExposureKeys();
+    }
     return diagnosisKeys.stream().map(diagnosisKey -> TemporaryExposureKey.newBuilder()
         .setKeyData(ByteString.copyFrom(diagnosisKey.getKeyData()))
         .setTransmissionRiskLevel(diagnosisKey.getTransmissionRiskLevel())
@@ -2,10 +2,18 @@
 
 package app.coronawarn.server.services.distribution.assembly.io;
 
+import app.coronawarn.server.services.distribution.assembly.structure.util.functional.CheckedConsumer;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 /**
  * A class containing helper functions for general purpose file IO.
@@ -58,4 +66,61 @@ public class IO {
       throw new UncheckedIOException("Could not write file " + outputFile, e);
     }
   }
+
+  /**
+   * Streams content into a file through a {@link FileChannel}, without materializing it in memory. If the content
+   * exceeds the maximum file size, writing is aborted and the file is removed.
+   *
+   * @param outputFile The file to write the content into.
+   * @param writer     The function that writes the content into the provided stream. It must not close the stream.
+   */
+  public static void writeToFile(File outputFile, CheckedConsumer<OutputStream, IOException> writer) {
+    try (OutputStream outputStream = new SizeLimitedOutputStream(new BufferedOutputStream(Channels.newOutputStream(
+        FileChannel.open(outputFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))),
+        outputFile.getName())) {
+      writer.apply(outputStream);
+    } catch (IOException e) {
+      deleteQuietly(outputFile);
+      throw new UncheckedIOException("Could not write file " + outputFile, e);
+    }
+  }
+
+  private static void deleteQuietly(File file) {
+    try {
+      Files.deleteIfExists(file.toPath());
+    } catch (IOException e) {
+      // The original exception is more relevant for the caller.
+    }
+  }
+
+  private static class SizeLimitedOutputStream extends FilterOutputStream {
+
+    private final String fileName;
+    private long numberOfBytes;
+
+    SizeLimitedOutputStream(OutputStream outputStream, String fileName) {
+      super(outputStream);
+      this.fileName = fileName;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      checkSize(1);
+      out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      checkSize(len);
+      out.write(b, off, len);
+    }
+
+    private void checkSize(int additionalBytes) throws IOException {
+      numberOfBytes += additionalBytes;
+      if (numberOfBytes > MAXIMUM_FILE_SIZE) {
+        throw new IOException("File size of " + fileName + " exceeds the maximum file size of " + MAXIMUM_FILE_SIZE
+            + " bytes.");
+      }
+    }
+  }
 }
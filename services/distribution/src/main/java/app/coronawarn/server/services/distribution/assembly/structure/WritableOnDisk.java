@@ -5,6 +5,7 @@ package app.coronawarn.server.services.distribution.assembly.structure;
 import app.coronawarn.server.services.distribution.assembly.structure.archive.Archive;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
 import app.coronawarn.server.services.distribution.assembly.structure.file.File;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal;
 import java.util.Objects;
 
 /**
@@ -15,13 +16,15 @@ public abstract class WritableOnDisk implements Writable<WritableOnDisk> {
   private String name;
   private Directory<WritableOnDisk> parent;
   private java.io.File fileOnDisk;
+  private WritableTraversal traversal;
 
   protected WritableOnDisk(String name) {
     this.name = name;
   }
 
-  protected WritableOnDisk(java.io.File fileOnDisk) {
+  protected WritableOnDisk(java.io.File fileOnDisk, WritableTraversal traversal) {
     this.fileOnDisk = fileOnDisk;
+    this.traversal = traversal;
   }
 
   @Override
@@ -49,6 +52,20 @@ public abstract class WritableOnDisk implements Writable<WritableOnDisk> {
         () -> ((WritableOnDisk) this.getParent()).getFileOnDisk().toPath().resolve(this.getName()).toFile());
   }
 
+  /**
+   * Returns the {@link WritableTraversal} of the tree that this {@link Writable} belongs to. The traversal is passed to
+   * the root of the tree and inherited by all of its descendants. A {@link Writable} without a root, that has been
+   * created with a traversal, is traversed sequentially.
+   *
+   * @return traversal
+   */
+  protected WritableTraversal getTraversal() {
+    if (this.traversal != null) {
+      return this.traversal;
+    }
+    return this.getParent() == null ? new WritableTraversal() : ((WritableOnDisk) this.getParent()).getTraversal();
+  }
+
   @Override
   public boolean isFile() {
     return this instanceof File;
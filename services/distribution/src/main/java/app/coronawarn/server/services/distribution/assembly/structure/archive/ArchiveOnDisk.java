@@ -4,6 +4,7 @@ package app.coronawarn.server.services.distribution.assembly.structure.archive;
 
 import static app.coronawarn.server.services.distribution.assembly.structure.util.functional.CheckedConsumer.uncheckedConsumer;
 
+import app.coronawarn.server.services.distribution.assembly.io.IO;
 import app.coronawarn.server.services.distribution.assembly.structure.Writable;
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
@@ -14,11 +15,17 @@ import app.coronawarn.server.services.distribution.assembly.structure.file.FileO
 import app.coronawarn.server.services.distribution.assembly.structure.util.ImmutableStack;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
+import org.springframework.util.DigestUtils;
 
 /**
  * An {@link Archive} that can be written to disk as a ZIP archive.
@@ -32,6 +39,16 @@ public class ArchiveOnDisk extends FileOnDiskWithChecksum implements Archive<Wri
    */
   private byte[] bytesForChecksum;
 
+  /**
+   * The MD5 digest of {@link ArchiveOnDisk#bytesForChecksum}, computed while writing the archive.
+   */
+  private byte[] digestForChecksum;
+
+  /**
+   * The MD5 digest of the ZIP archive, computed while writing the archive.
+   */
+  private byte[] contentDigest;
+
   /**
    * Constructs an {@link Archive} with an internal, temporary directory to store writables in.
    *
@@ -69,26 +86,54 @@ public class ArchiveOnDisk extends FileOnDiskWithChecksum implements Archive<Wri
     updateBytesForChecksum();
   }
 
+  /**
+   * Streams the ZIP archive directly into the file on disk, instead of building it in memory first. The MD5 digest of
+   * the checksum-relevant content and of the ZIP archive itself are computed while they are written.
+   */
+  @Override
+  public void write() {
+    IO.makeNewFile(getRoot(), this.getName());
+    IO.writeToFile(this.getFileOnDisk(), outputStream -> {
+      DigestOutputStream digestOutputStream = new DigestOutputStream(outputStream, newMd5Digest());
+      writeZip(digestOutputStream);
+      this.contentDigest = digestOutputStream.getMessageDigest().digest();
+    });
+    writeChecksumFile();
+  }
+
+  /**
+   * Returns the ZIP archive containing all files of this archive. The entries are sorted by name, so that the archive
+   * content does not depend on the order, in which the files have been added.
+   */
   @Override
   public byte[] getBytes() {
     ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-
-    try (ZipOutputStream zipOutputStream = new ZipOutputStream(byteArrayOutputStream)) {
-      this.getWritables().stream()
-          .filter(writable -> writable instanceof File)
-          .map(FileOnDisk.class::cast)
-          .forEach(uncheckedConsumer(file -> {
-            String pathInZip = file.getName();
-            zipOutputStream.putNextEntry(new ZipEntry(pathInZip));
-            byte[] bytes = file.getBytes();
-            zipOutputStream.write(bytes, 0, bytes.length);
-          }));
+    try {
+      writeZip(byteArrayOutputStream);
     } catch (IOException e) {
       throw new UncheckedIOException("Failed to close zip archive output stream.", e);
     }
     return byteArrayOutputStream.toByteArray();
   }
 
+  private void writeZip(OutputStream outputStream) throws IOException {
+    ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+    this.getWritables().stream()
+        .filter(writable -> writable instanceof File)
+        .map(FileOnDisk.class::cast)
+        .sorted(Comparator.comparing(FileOnDisk::getName))
+        .forEachOrdered(uncheckedConsumer(file -> {
+          String pathInZip = file.getName();
+          zipOutputStream.putNextEntry(new ZipEntry(pathInZip));
+          byte[] bytes = file.getBytes();
+          if (bytes == this.bytesForChecksum) {
+            this.digestForChecksum = DigestUtils.md5Digest(bytes);
+          }
+          zipOutputStream.write(bytes, 0, bytes.length);
+        }));
+    zipOutputStream.finish();
+  }
+
   @Override
   public void setBytes(byte[] bytes) {
     throw new UnsupportedOperationException("Can not set bytes on an archive.");
@@ -98,14 +143,33 @@ public class ArchiveOnDisk extends FileOnDiskWithChecksum implements Archive<Wri
     var targetFile = this.getWritables().stream()
         .filter(Writable::isFile)
         .map(FileOnDisk.class::cast)
-        .findFirst()
+        .min(Comparator.comparing(FileOnDisk::getName))
         .orElseThrow();
 
     this.bytesForChecksum = targetFile.getBytes();
+    this.digestForChecksum = null;
   }
 
   @Override
   protected byte[] getBytesForChecksum() {
     return this.bytesForChecksum;
   }
+
+  @Override
+  protected byte[] getDigestForChecksum() {
+    return this.digestForChecksum != null ? this.digestForChecksum : super.getDigestForChecksum();
+  }
+
+  @Override
+  protected byte[] getContentDigest(byte[] digestForChecksum) {
+    return this.contentDigest;
+  }
+
+  private static MessageDigest newMd5Digest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not supported.", e);
+    }
+  }
 }
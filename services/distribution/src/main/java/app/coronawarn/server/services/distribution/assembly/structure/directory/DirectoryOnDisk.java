@@ -8,7 +8,10 @@ import app.coronawarn.server.services.distribution.assembly.structure.Writable;
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.file.File;
 import app.coronawarn.server.services.distribution.assembly.structure.util.ImmutableStack;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal.Phase;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -19,12 +22,23 @@ public class DirectoryOnDisk extends WritableOnDisk implements Directory<Writabl
   private final Set<Writable<WritableOnDisk>> writables = new HashSet<>();
 
   /**
-   * A root {@link DirectoryOnDisk} representing an already existing directory on disk.
+   * A root {@link DirectoryOnDisk} representing an already existing directory on disk, which is traversed sequentially.
    *
    * @param file The {@link File File} that this {@link DirectoryOnDisk} represents on disk.
    */
   public DirectoryOnDisk(java.io.File file) {
-    super(file);
+    this(file, new WritableTraversal());
+  }
+
+  /**
+   * A root {@link DirectoryOnDisk} representing an already existing directory on disk, which is prepared and written
+   * with the specified {@link WritableTraversal}.
+   *
+   * @param file      The {@link File File} that this {@link DirectoryOnDisk} represents on disk.
+   * @param traversal The {@link WritableTraversal} of the assembly run.
+   */
+  public DirectoryOnDisk(java.io.File file, WritableTraversal traversal) {
+    super(file, traversal);
   }
 
   /**
@@ -51,10 +65,13 @@ public class DirectoryOnDisk extends WritableOnDisk implements Directory<Writabl
 
   /**
    * Delegates the {@link Writable#prepare} call to all contained {@link DirectoryOnDisk#getWritables()} writables}.
+   * The writables are independent of each other and may therefore be prepared in parallel (see {@link
+   * WritableTraversal}).
    */
   @Override
   public void prepare(ImmutableStack<Object> indices) {
-    this.getWritables().forEach(writable -> writable.prepare(indices));
+    this.getTraversal().forEach(Phase.PREPARE, WritableTraversal.levelOf(this) + 1,
+        List.copyOf(this.getWritables()), writable -> writable.prepare(indices));
   }
 
   /**
@@ -72,6 +89,14 @@ public class DirectoryOnDisk extends WritableOnDisk implements Directory<Writabl
   }
 
   private void writeContainedWritables() {
-    this.getWritables().forEach(uncheckedConsumer(Writable::write));
+    this.getTraversal().forEach(Phase.WRITE, WritableTraversal.levelOf(this) + 1, List.copyOf(this.getWritables()),
+        uncheckedConsumer(this::writeContainedWritable));
+  }
+
+  private void writeContainedWritable(Writable<WritableOnDisk> writable) {
+    writable.write();
+    if (writable.isFile()) {
+      this.getTraversal().fileWritten(this.getFileOnDisk().toPath().resolve(writable.getName()).toFile());
+    }
   }
 }
@@ -5,10 +5,14 @@ package app.coronawarn.server.services.distribution.assembly.structure.directory
 import app.coronawarn.server.services.distribution.assembly.structure.Writable;
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.util.ImmutableStack;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal.Phase;
 import app.coronawarn.server.services.distribution.assembly.structure.util.functional.Formatter;
 import app.coronawarn.server.services.distribution.assembly.structure.util.functional.IndexFunction;
 import app.coronawarn.server.services.distribution.assembly.structure.util.functional.WritableFunction;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -72,11 +76,13 @@ public class IndexDirectoryOnDisk<T> extends DirectoryOnDisk implements IndexDir
   }
 
   private void prepareIndex(ImmutableStack<Object> indices) {
-    this.getIndex(indices).forEach(currentIndex -> {
-      ImmutableStack<Object> newIndices = indices.push(currentIndex);
-      DirectoryOnDisk subDirectory = makeSubDirectory(currentIndex);
-      prepareMetaWritables(newIndices, subDirectory);
-    });
+    // The subdirectories are created upfront, as adding them modifies this directory. Afterwards, they are independent
+    // of each other and can be prepared in parallel.
+    Map<T, DirectoryOnDisk> subDirectories = new LinkedHashMap<>();
+    this.getIndex(indices).forEach(currentIndex -> subDirectories.put(currentIndex, makeSubDirectory(currentIndex)));
+
+    this.getTraversal().forEach(Phase.PREPARE, WritableTraversal.levelOf(this) + 1, subDirectories.entrySet(),
+        subDirectory -> prepareMetaWritables(indices.push(subDirectory.getKey()), subDirectory.getValue()));
   }
 
   private DirectoryOnDisk makeSubDirectory(T index) {
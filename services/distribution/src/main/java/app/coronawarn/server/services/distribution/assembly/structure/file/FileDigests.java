@@ -0,0 +1,74 @@
+package app.coronawarn.server.services.distribution.assembly.structure.file;
+
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the checksums and MD5 digests of the files written by the assembly, mapped by their absolute path. Both are
+ * computed while the files are written, so that the publishing does not have to read the checksum files or the files
+ * themselves again, e.g. to send the <code>Content-MD5</code> header on upload.
+ * <br>
+ * The digests are recorded while an assembly run writes its files, and are cleared when the next run starts.
+ */
+@Component
+public class FileDigests {
+
+  private final Map<Path, String> checksums = new ConcurrentHashMap<>();
+  private final Map<Path, String> contentMd5s = new ConcurrentHashMap<>();
+
+  /**
+   * Records the checksum of the specified file, as written to its checksum file.
+   *
+   * @param file     The file, as written to disk.
+   * @param checksum The checksum of the file.
+   */
+  public void putChecksum(Path file, String checksum) {
+    checksums.put(normalize(file), checksum);
+  }
+
+  /**
+   * Returns the checksum of the specified file.
+   *
+   * @param file The file, as written to disk.
+   * @return The checksum, or an empty {@link Optional} if no checksum has been recorded for the file.
+   */
+  public Optional<String> getChecksum(Path file) {
+    return Optional.ofNullable(checksums.get(normalize(file)));
+  }
+
+  /**
+   * Records the MD5 digest of the content of the specified file.
+   *
+   * @param file   The file, as written to disk.
+   * @param digest The MD5 digest of the file content.
+   */
+  public void putContentMd5(Path file, byte[] digest) {
+    contentMd5s.put(normalize(file), Base64.getEncoder().encodeToString(digest));
+  }
+
+  /**
+   * Returns the Base64 encoded MD5 digest of the content of the specified file.
+   *
+   * @param file The file, as written to disk.
+   * @return The digest, or an empty {@link Optional} if no digest has been recorded for the file.
+   */
+  public Optional<String> getContentMd5(Path file) {
+    return Optional.ofNullable(contentMd5s.get(normalize(file)));
+  }
+
+  /**
+   * Removes all recorded checksums and digests. To be called before the assembly writes a new file structure.
+   */
+  public void clear() {
+    checksums.clear();
+    contentMd5s.clear();
+  }
+
+  private static Path normalize(Path file) {
+    return file.toAbsolutePath().normalize();
+  }
+}
@@ -5,13 +5,13 @@ package app.coronawarn.server.services.distribution.assembly.structure.file;
 import app.coronawarn.server.services.distribution.assembly.io.IO;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import org.bouncycastle.util.encoders.Hex;
 import org.springframework.util.DigestUtils;
 
 /**
  * A {@link File} that can be written to disk, alongside a second {@link File} containing the hashsum of the actual
  * {@link FileOnDisk}.<br> The checksum file resides in the same folder as the actual file, and will use the same file
- * name with suffix {@link FileOnDiskWithChecksum#CHECKSUM_FILE_SUFFIX}.
+ * name with suffix {@link FileOnDiskWithChecksum#CHECKSUM_FILE_SUFFIX}. The checksum and the MD5 digest of the file
+ * content are also recorded in the {@link FileDigests}, so that they do not have to be read again for the upload.
  */
 public class FileOnDiskWithChecksum extends FileOnDisk {
 
@@ -37,12 +37,16 @@ public class FileOnDiskWithChecksum extends FileOnDisk {
     writeChecksumFile();
   }
 
-  private void writeChecksumFile() {
+  protected void writeChecksumFile() {
     var checksumFile = getRoot().toPath().resolve(super.getName() + CHECKSUM_FILE_SUFFIX);
-    byte[] checksum = computeChecksum(this.getBytesForChecksum()).getBytes(StandardCharsets.UTF_8);
+    byte[] digestForChecksum = this.getDigestForChecksum();
+    String checksum = computeChecksum(digestForChecksum);
 
     IO.makeNewFile(checksumFile.getParent().toFile(), checksumFile.getFileName().toString());
-    IO.writeBytesToFile(checksum, checksumFile.toFile());
+    IO.writeBytesToFile(checksum.getBytes(StandardCharsets.UTF_8), checksumFile.toFile());
+    FileDigests fileDigests = this.getTraversal().getFileDigests();
+    fileDigests.putChecksum(this.getFileOnDisk().toPath(), checksum);
+    fileDigests.putContentMd5(this.getFileOnDisk().toPath(), this.getContentDigest(digestForChecksum));
   }
 
   /**
@@ -54,6 +58,28 @@ public class FileOnDiskWithChecksum extends FileOnDisk {
     return super.getBytes();
   }
 
+  /**
+   * Fetches the MD5 digest of the {@link FileOnDiskWithChecksum#getBytesForChecksum checksum bytes}. Subclasses, which
+   * stream their content, may override this to provide a digest that was computed while writing.
+   *
+   * @return the MD5 digest of the checksum bytes
+   */
+  protected byte[] getDigestForChecksum() {
+    return DigestUtils.md5Digest(this.getBytesForChecksum());
+  }
+
+  /**
+   * Fetches the MD5 digest of the file content, as written to disk. By default, the checksum bytes are the file
+   * content, so the digest of the checksum bytes is returned. Subclasses, which compute the checksum from other bytes,
+   * must override this.
+   *
+   * @param digestForChecksum the MD5 digest of the checksum bytes
+   * @return the MD5 digest of the file content
+   */
+  protected byte[] getContentDigest(byte[] digestForChecksum) {
+    return digestForChecksum;
+  }
+
   /**
    * Calculates the CWA-hash value. If this code changes, please adapt the
    * <a href=
@@ -64,14 +90,11 @@ public class FileOnDiskWithChecksum extends FileOnDisk {
    *      "https://stackoverflow.com/questions/12186993/what-is-the-algorithm-to-compute-the-amazon-s3-etag-for-a-file-larger-than-5gb#answer-19896823">answer
    *      on StackOverflow</a>
    * 
-   * @param fileContent the binary file content
+   * @param fileContentDigest the MD5 digest of the binary file content
    * @return the calculated hash value
    */
-  private static String computeChecksum(byte[] fileContent) {
-    String md5 = DigestUtils.md5DigestAsHex(fileContent);
-    byte[] raw = Hex.decode(md5.toUpperCase());
-
-    return DigestUtils.md5DigestAsHex(raw);
+  private static String computeChecksum(byte[] fileContentDigest) {
+    return DigestUtils.md5DigestAsHex(fileContentDigest);
   }
 
   /**
@@ -0,0 +1,196 @@
+package app.coronawarn.server.services.distribution.assembly.structure.util;
+
+import app.coronawarn.server.services.distribution.assembly.structure.Writable;
+import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Traverses the contents of a {@link Directory} during {@link Writable#prepare} and {@link Writable#write}. When the
+ * traversal is started through {@link WritableTraversal#invoke} with a parallelism greater than one, independent
+ * subtrees are processed as fork-join subtasks of a dedicated {@link ForkJoinPool}. Otherwise, they are processed
+ * sequentially in the calling thread. The wall-clock time spent per subtree is accumulated per tree level.
+ * <br>
+ * A {@link WritableTraversal} is created for each assembly run and passed to the root directory, from which all
+ * writables of the tree obtain it. The digests of the written files are recorded in the {@link FileDigests} of the
+ * run. A listener can be notified about every file as soon as it has been written
+ * completely, including its checksum file, e.g. to start uploading it while the rest of the tree is still being
+ * written.
+ */
+public class WritableTraversal {
+
+  /**
+   * The phases of the assembly, in which the {@link Writable} tree is traversed.
+   */
+  public enum Phase {
+    PREPARE, WRITE
+  }
+
+  private static final Consumer<java.io.File> NO_LISTENER = ignoredFile -> {
+  };
+
+  private final Map<Phase, Map<Integer, LevelTiming>> timings = new EnumMap<>(Map.of(
+      Phase.PREPARE, new ConcurrentHashMap<>(),
+      Phase.WRITE, new ConcurrentHashMap<>()));
+
+  private final int parallelism;
+
+  private final FileDigests fileDigests;
+
+  private final Consumer<java.io.File> writtenFileListener;
+
+  /**
+   * Creates a {@link WritableTraversal}, which processes the tree sequentially, records the file digests in a new
+   * {@link FileDigests} instance and does not notify any listener.
+   */
+  public WritableTraversal() {
+    this(1, new FileDigests(), null);
+  }
+
+  /**
+   * Creates a {@link WritableTraversal}.
+   *
+   * @param parallelism         The number of threads to use.
+   * @param fileDigests         The {@link FileDigests} to record the digests of the written files in.
+   * @param writtenFileListener The listener that is notified about each file, once it has been written to disk, or
+   *                            {@code null}. The listener may be called concurrently from multiple threads and may
+   *                            block to slow down the writing.
+   */
+  public WritableTraversal(int parallelism, FileDigests fileDigests, Consumer<java.io.File> writtenFileListener) {
+    this.parallelism = parallelism;
+    this.fileDigests = fileDigests;
+    this.writtenFileListener = writtenFileListener == null ? NO_LISTENER : writtenFileListener;
+  }
+
+  /**
+   * Runs the specified traversal. If the parallelism is greater than one, the traversal runs in a dedicated {@link
+   * ForkJoinPool}, which enables {@link WritableTraversal#forEach} to fork subtasks.
+   *
+   * @param traversal The traversal to run, e.g. the preparation of the root directory.
+   */
+  public void invoke(Runnable traversal) {
+    if (parallelism <= 1) {
+      traversal.run();
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(ForkJoinTask.adapt(traversal));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Applies the specified action to all elements and records the time spent per element for the specified phase and
+   * tree level. The elements are processed as fork-join subtasks, if called from within a traversal started by {@link
+   * WritableTraversal#invoke} with a parallelism greater than one.
+   *
+   * @param phase    The phase of the assembly.
+   * @param level    The tree level of the subtrees that are processed by the action.
+   * @param elements The elements, each representing an independent subtree.
+   * @param action   The action to apply.
+   * @param <T>      The type of the elements.
+   */
+  public <T> void forEach(Phase phase, int level, Collection<T> elements, Consumer<T> action) {
+    LevelTiming levelTiming = timings.get(phase).computeIfAbsent(level, ignoredKey -> new LevelTiming());
+    Consumer<T> timedAction = element -> {
+      long startTime = System.nanoTime();
+      action.accept(element);
+      levelTiming.record(System.nanoTime() - startTime);
+    };
+
+    if (elements.size() < 2 || !isInTraversalPool()) {
+      elements.forEach(timedAction);
+    } else {
+      ForkJoinTask.invokeAll(elements.stream()
+          .map(element -> ForkJoinTask.adapt(() -> timedAction.accept(element)))
+          .collect(Collectors.toList()));
+    }
+  }
+
+  /**
+   * Returns the tree level of the specified {@link Writable}, which is the number of its ancestors.
+   *
+   * @param writable The {@link Writable} to determine the level for.
+   * @return The tree level, 0 for the root.
+   */
+  public static int levelOf(Writable<?> writable) {
+    int level = 0;
+    for (Writable<?> parent = writable.getParent(); parent != null; parent = parent.getParent()) {
+      level++;
+    }
+    return level;
+  }
+
+  /**
+   * Returns the timings recorded for the specified phase, sorted by tree level.
+   *
+   * @param phase The phase of the assembly.
+   * @return The timings per tree level.
+   */
+  public SortedMap<Integer, LevelTiming> getTimings(Phase phase) {
+    return new TreeMap<>(timings.get(phase));
+  }
+
+  /**
+   * Notifies the listener that the specified file has been written.
+   *
+   * @param file The file that has been written.
+   */
+  public void fileWritten(java.io.File file) {
+    writtenFileListener.accept(file);
+  }
+
+  public FileDigests getFileDigests() {
+    return fileDigests;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  private static boolean isInTraversalPool() {
+    return ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() != ForkJoinPool.commonPool();
+  }
+
+  /**
+   * The accumulated wall-clock time spent on the subtrees of one tree level.
+   */
+  public static class LevelTiming {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    void record(long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public long getTotalMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+    }
+
+    public long getMaxMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+  }
+}
@@ -33,10 +33,16 @@ public class EnfParameterAdapter {
    * @return updated collection of DiagnosisKey
    */
   public Collection<DiagnosisKey> adaptKeys(Collection<DiagnosisKey> diagnosisKeys) {
-    return diagnosisKeys.stream().map(this::adapt).collect(Collectors.toList());
+    return diagnosisKeys.stream().map(this::adaptKey).collect(Collectors.toList());
   }
 
-  private DiagnosisKey adapt(DiagnosisKey diagnosisKey) {
+  /**
+   * Creates a copy of the given key with all ENF related content transformations applied.
+   *
+   * @param diagnosisKey DiagnosisKey to adapt
+   * @return adapted DiagnosisKey
+   */
+  public DiagnosisKey adaptKey(DiagnosisKey diagnosisKey) {
     return DiagnosisKey.builder()
         .withKeyDataAndSubmissionType(diagnosisKey.getKeyData(), diagnosisKey.getSubmissionType())
         .withRollingStartIntervalNumber(diagnosisKey.getRollingStartIntervalNumber())
@@ -5,6 +5,8 @@ import app.coronawarn.server.services.distribution.utils.SerializationUtils;
 import java.io.File;
 import java.util.List;
 import java.util.stream.Collectors;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
@@ -47,6 +49,10 @@ public class DistributionServiceConfig {
   @Min(600000)
   @Max(750000)
   private Integer maximumNumberOfKeysPerBundle;
+  @Min(1)
+  @Max(64)
+  private Integer assemblyParallelism;
+  private Boolean incrementalAssembly;
   @Pattern(regexp = FILE_NAME_REGEX)
   private String outputFileName;
   @Pattern(regexp = FILE_NAME_REGEX)
@@ -118,6 +124,22 @@ public class DistributionServiceConfig {
     this.maximumNumberOfKeysPerBundle = maximumNumberOfKeysPerBundle;
   }
 
+  public Integer getAssemblyParallelism() {
+    return assemblyParallelism;
+  }
+
+  public void setAssemblyParallelism(Integer assemblyParallelism) {
+    this.assemblyParallelism = assemblyParallelism;
+  }
+
+  public Boolean getIncrementalAssembly() {
+    return incrementalAssembly;
+  }
+
+  public void setIncrementalAssembly(Boolean incrementalAssembly) {
+    this.incrementalAssembly = incrementalAssembly;
+  }
+
   public String getOutputFileName() {
     return outputFileName;
   }
@@ -411,6 +433,8 @@ public class DistributionServiceConfig {
     private String privateKey;
     @Pattern(regexp = PATH_REGEX)
     private String output;
+    @Pattern(regexp = PATH_REGEX)
+    private String fingerprintManifest;
 
     public String getPrivateKey() {
       return privateKey;
@@ -427,6 +451,14 @@ public class DistributionServiceConfig {
     public void setOutput(String output) {
       this.output = output;
     }
+
+    public String getFingerprintManifest() {
+      return fingerprintManifest;
+    }
+
+    public void setFingerprintManifest(String fingerprintManifest) {
+      this.fingerprintManifest = fingerprintManifest;
+    }
   }
 
   public static class Api {
@@ -883,6 +915,33 @@ public class DistributionServiceConfig {
     private Boolean forceUpdateKeyfiles;
     @Max(Integer.MAX_VALUE)
     private Integer hourFileRetentionDays;
+    private Boolean pipelinedUpload;
+    @Min(1)
+    @Max(100000)
+    private Integer pipelinedUploadQueueSize;
+    @Min(1)
+    @Max(100000)
+    private Integer maxNumberOfPendingUploads;
+    private Boolean checksumManifest;
+    @Pattern(regexp = NO_WHITESPACE_REGEX)
+    private String checksumManifestKey;
+    private Boolean multipartUpload;
+    @Min(5242880)
+    @Max(Integer.MAX_VALUE)
+    private Integer multipartUploadThreshold;
+    @Min(5242880)
+    @Max(Integer.MAX_VALUE)
+    private Integer multipartUploadPartSize;
+    @Min(0)
+    @Max(10)
+    private Integer multipartUploadPartRetryAttempts;
+    private String localDirectory;
+    @Min(0)
+    @Max(60000)
+    private Integer localLatency;
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private Double localErrorRate;
 
     public String getAccessKey() {
       return accessKey;
@@ -963,6 +1022,102 @@ public class DistributionServiceConfig {
     public void setHourFileRetentionDays(Integer hourFileRetentionDays) {
       this.hourFileRetentionDays = hourFileRetentionDays;
     }
+
+    public Boolean getPipelinedUpload() {
+      return pipelinedUpload;
+    }
+
+    public void setPipelinedUpload(Boolean pipelinedUpload) {
+      this.pipelinedUpload = pipelinedUpload;
+    }
+
+    public Integer getMaxNumberOfPendingUploads() {
+      return maxNumberOfPendingUploads;
+    }
+
+    public void setMaxNumberOfPendingUploads(Integer maxNumberOfPendingUploads) {
+      this.maxNumberOfPendingUploads = maxNumberOfPendingUploads;
+    }
+
+    public Boolean getChecksumManifest() {
+      return checksumManifest;
+    }
+
+    public void setChecksumManifest(Boolean checksumManifest) {
+      this.checksumManifest = checksumManifest;
+    }
+
+    public String getChecksumManifestKey() {
+      return checksumManifestKey;
+    }
+
+    public void setChecksumManifestKey(String checksumManifestKey) {
+      this.checksumManifestKey = checksumManifestKey;
+    }
+
+    public Boolean getMultipartUpload() {
+      return multipartUpload;
+    }
+
+    public void setMultipartUpload(Boolean multipartUpload) {
+      this.multipartUpload = multipartUpload;
+    }
+
+    public Integer getMultipartUploadThreshold() {
+      return multipartUploadThreshold;
+    }
+
+    public void setMultipartUploadThreshold(Integer multipartUploadThreshold) {
+      this.multipartUploadThreshold = multipartUploadThreshold;
+    }
+
+    public Integer getMultipartUploadPartSize() {
+      return multipartUploadPartSize;
+    }
+
+    public void setMultipartUploadPartSize(Integer multipartUploadPartSize) {
+      this.multipartUploadPartSize = multipartUploadPartSize;
+    }
+
+    public Integer getMultipartUploadPartRetryAttempts() {
+      return multipartUploadPartRetryAttempts;
+    }
+
+    public void setMultipartUploadPartRetryAttempts(Integer multipartUploadPartRetryAttempts) {
+      this.multipartUploadPartRetryAttempts = multipartUploadPartRetryAttempts;
+    }
+
+    public String getLocalDirectory() {
+      return localDirectory;
+    }
+
+    public void setLocalDirectory(String localDirectory) {
+      this.localDirectory = localDirectory;
+    }
+
+    public Integer getLocalLatency() {
+      return localLatency;
+    }
+
+    public void setLocalLatency(Integer localLatency) {
+      this.localLatency = localLatency;
+    }
+
+    public Double getLocalErrorRate() {
+      return localErrorRate;
+    }
+
+    public void setLocalErrorRate(Double localErrorRate) {
+      this.localErrorRate = localErrorRate;
+    }
+
+    public Integer getPipelinedUploadQueueSize() {
+      return pipelinedUploadQueueSize;
+    }
+
+    public void setPipelinedUploadQueueSize(Integer pipelinedUploadQueueSize) {
+      this.pipelinedUploadQueueSize = pipelinedUploadQueueSize;
+    }
   }
 
   public static class AppFeature {
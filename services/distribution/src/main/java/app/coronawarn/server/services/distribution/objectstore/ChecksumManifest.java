@@ -0,0 +1,118 @@
+package app.coronawarn.server.services.distribution.objectstore;
+
+import app.coronawarn.server.services.distribution.objectstore.client.S3Object;
+import app.coronawarn.server.services.distribution.utils.SerializationUtils;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Maps the names of published objects to their CWA hashes. The manifest is stored as a single JSON object on the object
+ * store, so that the CWA hashes of all published objects can be read with one request, instead of one HEAD request per
+ * object.
+ * <br>
+ * Each entry also holds the entity tag of the object at the time the entry was written. An entry is only used for an
+ * object with the same entity tag, so that an object that has been changed since is never compared with an outdated
+ * hash.
+ */
+class ChecksumManifest {
+
+  private final Map<String, Entry> entries;
+
+  /**
+   * Creates a {@link ChecksumManifest} with the specified entries.
+   *
+   * @param entries The entries, mapped by object name.
+   */
+  ChecksumManifest(Map<String, Entry> entries) {
+    this.entries = Collections.unmodifiableMap(new HashMap<>(entries));
+  }
+
+  static ChecksumManifest empty() {
+    return new ChecksumManifest(Collections.emptyMap());
+  }
+
+  /**
+   * Parses a {@link ChecksumManifest} from its JSON representation.
+   *
+   * @param json The JSON representation, as written by {@link ChecksumManifest#toJson()}.
+   * @return The parsed manifest.
+   * @throws IOException if the JSON cannot be parsed.
+   */
+  static ChecksumManifest fromJson(byte[] json) throws IOException {
+    Map<String, Entry> entries = SerializationUtils.deserializeJson(new ByteArrayInputStream(json),
+        typeFactory -> typeFactory.constructMapType(HashMap.class, String.class, Entry.class));
+    return new ChecksumManifest(entries);
+  }
+
+  byte[] toJson() {
+    return SerializationUtils.stringifyObject(entries).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the CWA hash of the specified object, if the manifest holds an entry with the entity tag of the object.
+   *
+   * @param s3Object The object as returned by the object listing.
+   * @return The CWA hash, or an empty {@link Optional} if the hash has to be fetched from the object store.
+   */
+  Optional<String> getCwaHash(S3Object s3Object) {
+    Entry entry = entries.get(s3Object.getObjectName());
+    if (entry == null || s3Object.getETag() == null || !s3Object.getETag().equals(entry.getETag())) {
+      return Optional.empty();
+    }
+    return Optional.of(entry.getCwaHash());
+  }
+
+  Map<String, Entry> getEntries() {
+    return entries;
+  }
+
+  /**
+   * The entity tag and the CWA hash of a published object.
+   */
+  static class Entry {
+
+    private final String etag;
+    private final String cwaHash;
+
+    @JsonCreator
+    Entry(@JsonProperty("eTag") String etag, @JsonProperty("cwaHash") String cwaHash) {
+      this.etag = etag;
+      this.cwaHash = cwaHash;
+    }
+
+    @JsonProperty("eTag")
+    public String getETag() {
+      return etag;
+    }
+
+    @JsonProperty("cwaHash")
+    public String getCwaHash() {
+      return cwaHash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Entry entry = (Entry) o;
+      return Objects.equals(etag, entry.etag) && Objects.equals(cwaHash, entry.cwaHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(etag, cwaHash);
+    }
+  }
+}
@@ -37,4 +37,8 @@ public class FailedObjectStoreOperationsCounter {
       throw cause;
     }
   }
+
+  public int getNumberOfFailedOperations() {
+    return failedOperationsCounter.get();
+  }
 }
@@ -3,17 +3,33 @@
 package app.coronawarn.server.services.distribution.objectstore;
 
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
+import app.coronawarn.server.services.distribution.objectstore.ChecksumManifest.Entry;
 import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreClient;
 import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreClient.HeaderKey;
+import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreOperationFailedException;
 import app.coronawarn.server.services.distribution.objectstore.client.S3Object;
+import app.coronawarn.server.services.distribution.objectstore.client.UploadStatistics;
 import app.coronawarn.server.services.distribution.objectstore.publish.LocalFile;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
@@ -48,18 +64,27 @@ public class ObjectStoreAccess {
 
   private final ObjectStoreClient client;
 
+  private final String checksumManifestKey;
+
+  private final Executor executor;
+
   /**
    * Constructs an {@link ObjectStoreAccess} instance for communication with the specified object store endpoint and
    * bucket.
    *
    * @param distributionServiceConfig The config properties
    * @param objectStoreClient         The client used for interaction with the object store
+   * @param executor                  The executor of the object store operations, which fetches the CWA hashes
    */
   ObjectStoreAccess(DistributionServiceConfig distributionServiceConfig,
-      @Qualifier("publish-s3") ObjectStoreClient objectStoreClient) {
+      @Qualifier("publish-s3") ObjectStoreClient objectStoreClient, ThreadPoolTaskExecutor executor) {
     this.client = objectStoreClient;
     this.bucket = distributionServiceConfig.getObjectStore().getBucket();
     this.isSetPublicReadAclOnPutObject = distributionServiceConfig.getObjectStore().isSetPublicReadAclOnPutObject();
+    this.checksumManifestKey = Boolean.TRUE.equals(distributionServiceConfig.getObjectStore().getChecksumManifest())
+        ? distributionServiceConfig.getObjectStore().getChecksumManifestKey()
+        : null;
+    this.executor = executor;
 
     if (!this.client.bucketExists(this.bucket)) {
       throw new IllegalArgumentException("No bucket with the specified name exists: " + bucket);
@@ -96,7 +121,7 @@ public class ObjectStoreAccess {
    * @param prefix the prefix, e.g. my/folder/
    */
   public void deleteObjectsWithPrefix(String prefix) {
-    List<String> toDelete = getObjectsWithPrefix(prefix)
+    List<String> toDelete = listObjectsWithPrefix(prefix)
         .stream()
         .map(S3Object::getObjectName)
         .collect(Collectors.toList());
@@ -106,13 +131,160 @@ public class ObjectStoreAccess {
   }
 
   /**
-   * Fetches the list of objects in the store with the given prefix.
+   * Deletes the specified objects from the object store. The objects are deleted with batch requests of up to 1000
+   * objects each, without listing them again.
+   *
+   * @param objectNames the names of the objects to delete
+   */
+  public void deleteObjects(List<String> objectNames) {
+    logger.info("Deleting {} entries", objectNames.size());
+    this.client.removeObjects(bucket, objectNames);
+  }
+
+  /**
+   * Fetches the list of objects in the store with the given prefix, including their CWA hashes. If the checksum
+   * manifest is enabled, the CWA hashes are read from the manifest, and only the hashes of objects that are missing in
+   * the manifest or have been changed since are fetched with one request per object. These requests are sent in
+   * parallel by the executor of the object store operations.
    *
    * @param prefix the prefix, e.g. my/folder/
    * @return the list of objects
    */
   public List<S3Object> getObjectsWithPrefix(String prefix) {
-    return client.getObjects(bucket, prefix);
+    if (checksumManifestKey == null) {
+      return client.getObjects(bucket, prefix);
+    }
+    ChecksumManifest manifest = loadChecksumManifest();
+    List<S3Object> resolved = new ArrayList<>();
+    List<S3Object> unresolved = new ArrayList<>();
+    for (S3Object s3Object : listObjectsWithPrefix(prefix)) {
+      manifest.getCwaHash(s3Object).ifPresentOrElse(
+          cwaHash -> resolved.add(new S3Object(s3Object.getObjectName(), cwaHash, s3Object.getETag())),
+          () -> unresolved.add(s3Object));
+    }
+    logger.info("Read the CWA hashes of {} object(s) with prefix {} from the checksum manifest, fetching {} hash(es).",
+        resolved.size(), prefix, unresolved.size());
+    resolved.addAll(fetchCwaHashes(unresolved));
+    return resolved;
+  }
+
+  /**
+   * Fetches the list of objects in the store with the given prefix, without their CWA hashes.
+   *
+   * @param prefix the prefix, e.g. my/folder/
+   * @return the list of objects
+   */
+  public List<S3Object> listObjectsWithPrefix(String prefix) {
+    return client.listObjects(bucket, prefix);
+  }
+
+  /**
+   * Replaces the entries of the objects with the specified prefix in the checksum manifest, if the checksum manifest is
+   * enabled. The objects are listed once more, and an entry is written for each object that has either been uploaded
+   * during this publishing cycle, or has not been changed since it was fetched with
+   * {@link ObjectStoreAccess#getObjectsWithPrefix}. The manifest is replaced with a single upload, so readers either
+   * see the previous or the new manifest.
+   *
+   * @param prefix            the prefix, e.g. my/folder/
+   * @param publishedObjects  the objects with their CWA hashes, as fetched before publishing
+   * @param uploadedChecksums the checksums of the files that have been uploaded since, mapped by object name
+   */
+  public void updateChecksumManifest(String prefix, List<S3Object> publishedObjects,
+      Map<String, String> uploadedChecksums) {
+    if (checksumManifestKey == null) {
+      return;
+    }
+    Map<String, S3Object> previousObjects = publishedObjects.stream()
+        .collect(Collectors.toMap(S3Object::getObjectName, Function.identity()));
+    Map<String, Entry> entries = new HashMap<>();
+    loadChecksumManifest().getEntries().forEach((objectName, entry) -> {
+      if (!objectName.startsWith(prefix)) {
+        entries.put(objectName, entry);
+      }
+    });
+    for (S3Object s3Object : listObjectsWithPrefix(prefix)) {
+      String cwaHash = uploadedChecksums.get(s3Object.getObjectName());
+      S3Object previousObject = previousObjects.get(s3Object.getObjectName());
+      if (cwaHash == null && previousObject != null && Objects.equals(previousObject.getETag(), s3Object.getETag())) {
+        cwaHash = previousObject.getCwaHash();
+      }
+      if (cwaHash != null && s3Object.getETag() != null) {
+        entries.put(s3Object.getObjectName(), new Entry(s3Object.getETag(), cwaHash));
+      }
+    }
+    putChecksumManifest(new ChecksumManifest(entries));
+    logger.info("Updated the checksum manifest with {} entries.", entries.size());
+  }
+
+  /**
+   * Returns the statistics of the uploads to the object store.
+   *
+   * @return the upload statistics of the object store client
+   */
+  public UploadStatistics getUploadStatistics() {
+    return client.getUploadStatistics();
+  }
+
+  private ChecksumManifest loadChecksumManifest() {
+    Optional<byte[]> content = client.getObjectContent(bucket, checksumManifestKey);
+    if (content.isEmpty()) {
+      logger.info("No checksum manifest found at {}.", checksumManifestKey);
+      return ChecksumManifest.empty();
+    }
+    try {
+      return ChecksumManifest.fromJson(content.get());
+    } catch (IOException e) {
+      logger.warn("Ignoring checksum manifest at {}, because it cannot be parsed.", checksumManifestKey, e);
+      return ChecksumManifest.empty();
+    }
+  }
+
+  private void putChecksumManifest(ChecksumManifest manifest) {
+    Path manifestFile = null;
+    try {
+      manifestFile = Files.createTempFile("checksum-manifest", ".json");
+      Files.write(manifestFile, manifest.toJson());
+      this.client.putObject(bucket, checksumManifestKey, manifestFile, new EnumMap<>(Map.of(
+          HeaderKey.CACHE_CONTROL, "no-cache",
+          HeaderKey.CONTENT_TYPE, "application/json")));
+    } catch (IOException e) {
+      throw new ObjectStoreOperationFailedException("Failed to write checksum manifest.", e);
+    } finally {
+      deleteQuietly(manifestFile);
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.warn("Failed to delete temporary file {}.", file, e);
+    }
+  }
+
+  private List<S3Object> fetchCwaHashes(List<S3Object> s3Objects) {
+    if (s3Objects.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<CompletableFuture<S3Object>> cwaHashes = s3Objects.stream()
+        .map(s3Object -> CompletableFuture.supplyAsync(() -> new S3Object(s3Object.getObjectName(),
+            client.getCwaHash(bucket, s3Object.getObjectName()), s3Object.getETag()), executor))
+        .collect(Collectors.toList());
+    return cwaHashes.stream().map(ObjectStoreAccess::join).collect(Collectors.toList());
+  }
+
+  private static S3Object join(CompletableFuture<S3Object> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new ObjectStoreOperationFailedException("Failed to fetch CWA hash.", e.getCause());
+    }
   }
 
   private Map<HeaderKey, String> createHeaders(int maxAge, LocalFile file) {
@@ -125,6 +297,10 @@ public class ObjectStoreAccess {
       headers.put(HeaderKey.CWA_HASH, file.getChecksum());
     }
 
+    if (!ObjectUtils.isEmpty(file.getContentMd5())) {
+      headers.put(HeaderKey.CONTENT_MD5, file.getContentMd5());
+    }
+
     headers.put(HeaderKey.CONTENT_TYPE, file.getContentType());
 
     return headers;
@@ -2,16 +2,18 @@
 
 package app.coronawarn.server.services.distribution.objectstore;
 
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
 import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreOperationFailedException;
+import app.coronawarn.server.services.distribution.objectstore.client.S3Object;
 import app.coronawarn.server.services.distribution.objectstore.publish.LocalFile;
 import app.coronawarn.server.services.distribution.objectstore.publish.PublishFileSet;
 import app.coronawarn.server.services.distribution.objectstore.publish.PublishedFileSet;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,8 +32,14 @@ import org.springframework.stereotype.Component;
  *   checks whether the existing files hash differ from the to-be-uploaded files hash. Only if the
  *   hash differs, the file will ultimately be uploaded</li>
  *   <li>Currently not implemented: Set cache control headers</li>
- *   <li>Currently not implemented: Supports multi threaded upload of files.</li>
+ *   <li>Uploads the files concurrently, with a bounded number of pending uploads, and retries failed uploads with an
+ *   exponential backoff.</li>
+ *   <li>Updates the checksum manifest, if enabled, so that the next run can read the hashes of the published files
+ *   with a single request.</li>
  * </ul>
+ * The executor is not shut down after publishing, so that an instance can publish multiple times.
+ * If pipelined publishing is started before the assembly writes the files, each file is uploaded as soon as it has
+ * been written, and {@link S3Publisher#publish(S3PublishingPipeline)} only waits for the pending uploads.
  */
 @Component
 public class S3Publisher {
@@ -42,6 +50,7 @@ public class S3Publisher {
   private final FailedObjectStoreOperationsCounter failedOperationsCounter;
   private final ThreadPoolTaskExecutor executor;
   private final DistributionServiceConfig distributionServiceConfig;
+  private final FileDigests fileDigests;
 
   /**
    * Creates an {@link S3Publisher} instance that attempts to publish the files at the specified location to an object
@@ -50,16 +59,19 @@ public class S3Publisher {
    * @param objectStoreAccess         The {@link ObjectStoreAccess} used to communicate with the object store.
    * @param failedOperationsCounter   The {@link FailedObjectStoreOperationsCounter} that is used to monitor the number
    *                                  of failed operations.
-   * @param executor                  The executor that manages the upload task submission.
+   * @param executor                  The executor that runs the uploads.
    * @param distributionServiceConfig The {@link DistributionServiceConfig} used for distribution service
    *                                  configuration.
+   * @param fileDigests               The digests of the files written by the assembly, which are used instead of
+   *                                  the checksum files.
    */
   public S3Publisher(ObjectStoreAccess objectStoreAccess, FailedObjectStoreOperationsCounter failedOperationsCounter,
-      ThreadPoolTaskExecutor executor, DistributionServiceConfig distributionServiceConfig) {
+      ThreadPoolTaskExecutor executor, DistributionServiceConfig distributionServiceConfig, FileDigests fileDigests) {
     this.objectStoreAccess = objectStoreAccess;
     this.failedOperationsCounter = failedOperationsCounter;
     this.executor = executor;
     this.distributionServiceConfig = distributionServiceConfig;
+    this.fileDigests = fileDigests;
   }
 
   /**
@@ -73,10 +85,14 @@ public class S3Publisher {
    * @throws IOException in case there were problems reading files from the disk.
    */
   public void publish(Path root) throws IOException {
-    List<LocalFile> toPublish = new PublishFileSet(root).getFiles();
+    long startTime = System.currentTimeMillis();
+    List<LocalFile> toPublish = new PublishFileSet(root,
+        Objects.requireNonNullElse(distributionServiceConfig.getAssemblyParallelism(), 1), fileDigests).getFiles();
+    logger.info("Found {} local file(s) in {} ms.", toPublish.size(), System.currentTimeMillis() - startTime);
 
-    PublishedFileSet published = new PublishedFileSet(
-        objectStoreAccess.getObjectsWithPrefix(distributionServiceConfig.getApi().getVersionPath()),
+    List<S3Object> publishedObjects = objectStoreAccess.getObjectsWithPrefix(
+        distributionServiceConfig.getApi().getVersionPath());
+    PublishedFileSet published = new PublishedFileSet(publishedObjects,
         distributionServiceConfig.getObjectStore().getForceUpdateKeyfiles());
     List<LocalFile> diff = toPublish
         .stream()
@@ -84,24 +100,60 @@ public class S3Publisher {
         .collect(Collectors.toList());
 
     logger.info("Beginning upload of {} files... ", diff.size());
-    try {
-      diff.stream()
-          .map(file -> executor.submit(() -> objectStoreAccess.putObject(file)))
-          .forEach(this::awaitThread);
-    } finally {
-      executor.shutdown();
-    }
+    S3UploadScheduler scheduler = createScheduler(
+        distributionServiceConfig.getObjectStore().getMaxNumberOfPendingUploads());
+    diff.forEach(scheduler::submit);
+    scheduler.awaitCompletion();
+    updateChecksumManifest(publishedObjects, scheduler.getUploadedChecksums());
     logger.info("Upload completed.");
   }
 
-  private void awaitThread(Future<?> result) {
+  /**
+   * Completes the specified pipelined publishing run. Waits for the pending uploads instead of publishing the
+   * directory once more, and updates the checksum manifest.
+   *
+   * @param pipeline The pipeline returned by {@link S3Publisher#startPipelinedPublishing}.
+   */
+  public void publish(S3PublishingPipeline pipeline) {
+    pipeline.finish();
+    updateChecksumManifest(pipeline.getPublishedObjects(), pipeline.getUploadedChecksums());
+    logger.info("Upload completed.");
+  }
+
+  /**
+   * Starts uploading files while they are written. The returned pipeline shall be notified about each file, once it
+   * has been written to disk completely, and blocks while the configured number of files are waiting for upload. The
+   * files are uploaded under the same conditions as by {@link S3Publisher#publish(Path)}. Once all files have been
+   * written, the pipeline shall be passed to {@link S3Publisher#publish(S3PublishingPipeline)}.
+   *
+   * @param root The path of the directory that the files are written to.
+   * @return The pipeline of this publishing run, to notify about written files.
+   */
+  public S3PublishingPipeline startPipelinedPublishing(Path root) {
+    List<S3Object> publishedObjects = objectStoreAccess.getObjectsWithPrefix(
+        distributionServiceConfig.getApi().getVersionPath());
+    PublishedFileSet published = new PublishedFileSet(publishedObjects,
+        distributionServiceConfig.getObjectStore().getForceUpdateKeyfiles());
+    S3PublishingPipeline pipeline = new S3PublishingPipeline(root, fileDigests, publishedObjects, published,
+        createScheduler(distributionServiceConfig.getObjectStore().getPipelinedUploadQueueSize()));
+    logger.info("Started pipelined upload of written files.");
+    return pipeline;
+  }
+
+  /**
+   * Updates the checksum manifest after all uploads have completed. A failed update does not affect the published
+   * files, as outdated manifest entries are detected by their entity tags.
+   */
+  private void updateChecksumManifest(List<S3Object> publishedObjects, Map<String, String> uploadedChecksums) {
     try {
-      result.get();
-    } catch (ExecutionException e) {
-      failedOperationsCounter.incrementAndCheckThreshold(new ObjectStoreOperationFailedException(e.getMessage(), e));
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      throw new ObjectStoreOperationFailedException(e.getMessage(), e);
+      objectStoreAccess.updateChecksumManifest(distributionServiceConfig.getApi().getVersionPath(), publishedObjects,
+          uploadedChecksums);
+    } catch (ObjectStoreOperationFailedException e) {
+      failedOperationsCounter.incrementAndCheckThreshold(e);
     }
   }
+
+  private S3UploadScheduler createScheduler(int maxNumberOfPendingUploads) {
+    return new S3UploadScheduler(objectStoreAccess, failedOperationsCounter, executor, maxNumberOfPendingUploads);
+  }
 }
@@ -0,0 +1,106 @@
+package app.coronawarn.server.services.distribution.objectstore;
+
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileOnDiskWithChecksum;
+import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreOperationFailedException;
+import app.coronawarn.server.services.distribution.objectstore.client.S3Object;
+import app.coronawarn.server.services.distribution.objectstore.publish.LocalFile;
+import app.coronawarn.server.services.distribution.objectstore.publish.PublishFileSet;
+import app.coronawarn.server.services.distribution.objectstore.publish.PublishedFileSet;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Uploads files to the object store while the assembly is still writing the remaining files. Written files are handed
+ * over to an {@link S3UploadScheduler} with a bounded number of pending uploads, so that writing blocks if the uploads
+ * fall behind.
+ * <br>
+ * A file is only uploaded if {@link PublishedFileSet#shouldPublish} returns {@code true} for it. Thus, the same files
+ * are uploaded as by {@link S3Publisher#publish(Path)} after the assembly.
+ * <br>
+ * A pipeline is created for each assembly run by {@link S3Publisher#startPipelinedPublishing} and finished by
+ * {@link S3Publisher#publish(S3PublishingPipeline)}.
+ */
+public class S3PublishingPipeline implements Consumer<java.io.File> {
+
+  private static final Logger logger = LoggerFactory.getLogger(S3PublishingPipeline.class);
+
+  private final Path root;
+  private final FileDigests fileDigests;
+  private final List<S3Object> publishedObjects;
+  private final PublishedFileSet published;
+  private final S3UploadScheduler scheduler;
+  private final AtomicInteger numberOfWrittenFiles = new AtomicInteger();
+
+  /**
+   * Creates an {@link S3PublishingPipeline}.
+   *
+   * @param root        The path of the directory that is published.
+   * @param fileDigests      The digests of the files written by the assembly.
+   * @param publishedObjects The objects on the object store, as fetched before the upload.
+   * @param published        The files that are already available on the object store.
+   * @param scheduler        The {@link S3UploadScheduler} that runs the uploads.
+   */
+  S3PublishingPipeline(Path root, FileDigests fileDigests, List<S3Object> publishedObjects, PublishedFileSet published,
+      S3UploadScheduler scheduler) {
+    this.root = root;
+    this.fileDigests = fileDigests;
+    this.publishedObjects = publishedObjects;
+    this.published = published;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Submits the upload of the specified file, if it shall be published. Blocks while the maximum number of uploads
+   * are pending.
+   *
+   * @param file The file that has been written.
+   * @throws ObjectStoreOperationFailedException if the maximum number of failed operations has been exceeded.
+   */
+  @Override
+  public void accept(java.io.File file) {
+    Path path = file.toPath().toAbsolutePath();
+    if (FileOnDiskWithChecksum.isChecksumFile(path)) {
+      return;
+    }
+    numberOfWrittenFiles.incrementAndGet();
+    LocalFile localFile = PublishFileSet.createLocalFile(path, root, fileDigests);
+    if (published.shouldPublish(localFile)) {
+      scheduler.submit(localFile);
+    }
+  }
+
+  /**
+   * Returns the objects on the object store, as fetched before the upload.
+   *
+   * @return The published objects with their CWA hashes.
+   */
+  List<S3Object> getPublishedObjects() {
+    return publishedObjects;
+  }
+
+  /**
+   * Returns the checksums of the files that have been uploaded so far, mapped by their S3 key.
+   *
+   * @return The checksums of the uploaded files.
+   */
+  Map<String, String> getUploadedChecksums() {
+    return scheduler.getUploadedChecksums();
+  }
+
+  /**
+   * Waits until all submitted uploads have completed.
+   *
+   * @throws ObjectStoreOperationFailedException if the maximum number of failed operations has been exceeded.
+   */
+  void finish() {
+    scheduler.awaitCompletion();
+    logger.info("Pipelined upload completed: {} file(s) written, {} file(s) uploaded.", numberOfWrittenFiles.get(),
+        scheduler.getNumberOfUploadedFiles());
+  }
+}
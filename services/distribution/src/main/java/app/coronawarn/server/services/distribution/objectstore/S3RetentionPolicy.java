@@ -9,12 +9,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,20 +62,28 @@ public class S3RetentionPolicy {
     this.euPackageName = distributionServiceConfig.getEuPackageName();
   }
 
+  /**
+   * Applies the diagnosis-key day, the diagnosis-key hour and the trace time warning hour retention policy. The
+   * diagnosis-key and trace time warning prefixes of each country are listed once, and all expired objects of a country
+   * are deleted with batch requests. The countries are processed in parallel.
+   *
+   * @param retentionDays         the number of days, that files should be retained on S3.
+   * @param hourFileRetentionDays number of days back where hourly diagnosis-key files should be deleted
+   */
+  public void applyRetentionPolicy(int retentionDays, long hourFileRetentionDays) {
+    apply(List.of(
+        diagnosisKeyDayRetentionRule(retentionDays),
+        diagnosisKeyHourRetentionRule(hourFileRetentionDays),
+        traceTimeWarningHourRetentionRule(retentionDays)));
+  }
+
   /**
    * Deletes all diagnosis-key day files from S3 that are older than retentionDays.
    *
    * @param retentionDays the number of days, that files should be retained on S3.
    */
   public void applyDiagnosisKeyDayRetentionPolicy(int retentionDays) {
-    Set<String> countries = Set.of(originCountry, euPackageName);
-    countries.forEach(country -> {
-      List<S3Object> diagnosisKeysObjects = objectStoreAccess.getObjectsWithPrefix(getDiagnosisKeyPrefix(country));
-      final LocalDate cutOffDate = TimeUtils.getUtcDate().minusDays(retentionDays);
-      diagnosisKeysObjects.stream()
-          .filter(diagnosisKeysObject -> isDiagnosisKeyFilePathOlderThan(diagnosisKeysObject, cutOffDate))
-          .forEach(this::deleteS3Object);
-    });
+    apply(List.of(diagnosisKeyDayRetentionRule(retentionDays)));
   }
 
   /**
@@ -80,19 +92,7 @@ public class S3RetentionPolicy {
    * @param retentionDays number of days back where hourly files should be deleted
    */
   public void applyDiagnosisKeyHourRetentionPolicy(long retentionDays) {
-    Set<String> countries = Set.of(originCountry, euPackageName);
-    countries.forEach(country -> {
-      List<S3Object> diagnosisKeysObjects = objectStoreAccess.getObjectsWithPrefix(getDiagnosisKeyPrefix(country));
-      final LocalDate cutOffDate = TimeUtils.getUtcDate().minusDays(retentionDays - 1L);
-      var deletableKeys = diagnosisKeysObjects.stream()
-          .filter(diagnosisKeysObject -> isDiagnosisKeyFilePathOlderThan(diagnosisKeysObject, cutOffDate))
-          .filter(this::isDiagnosisKeyFilePathOnHourFolder)
-          .collect(Collectors.toList());
-
-      logger.info("Deleting {} diagnosis key files from hourly folders older than {}", deletableKeys.size(),
-          cutOffDate);
-      deletableKeys.forEach(this::deleteS3Object);
-    });
+    apply(List.of(diagnosisKeyHourRetentionRule(retentionDays)));
   }
 
   /**
@@ -101,36 +101,66 @@ public class S3RetentionPolicy {
    * @param retentionDays number of days back where hourly files should be deleted
    */
   public void applyTraceTimeWarningHourRetentionPolicy(long retentionDays) {
-    Set<String> countries = Set.of(originCountry, euPackageName);
-    countries.forEach(country -> {
-      List<S3Object> traceTimeWarningsObjects = objectStoreAccess
-          .getObjectsWithPrefix(getTraceTimeWarningPrefix(country));
-      final LocalDateTime cutOffTime = TimeUtils.getCurrentUtcHour().minusDays(retentionDays);
-      final LocalDate cutOffDate = TimeUtils.getUtcDate().minusDays(retentionDays - 1L);
-      var deletableTraceTimeWarnings = traceTimeWarningsObjects.stream()
-          .filter(traceTimeWarningsObject -> isTraceTimeWarningFilePathOlderThan(traceTimeWarningsObject, cutOffTime))
-          .collect(Collectors.toList());
+    apply(List.of(traceTimeWarningHourRetentionRule(retentionDays)));
+  }
+
+  private RetentionRule diagnosisKeyDayRetentionRule(int retentionDays) {
+    final LocalDate cutOffDate = TimeUtils.getUtcDate().minusDays(retentionDays);
+    return new RetentionRule(this::getDiagnosisKeyPrefix,
+        s3Object -> isDiagnosisKeyFilePathOlderThan(s3Object, cutOffDate));
+  }
 
-      logger.info("Deleting {} trace time warning files older than {}", deletableTraceTimeWarnings.size(), cutOffDate);
-      deletableTraceTimeWarnings.forEach(this::deleteS3Object);
-    });
+  private RetentionRule diagnosisKeyHourRetentionRule(long retentionDays) {
+    final LocalDate cutOffDate = TimeUtils.getUtcDate().minusDays(retentionDays - 1L);
+    return new RetentionRule(this::getDiagnosisKeyPrefix,
+        s3Object -> isDiagnosisKeyFilePathOlderThan(s3Object, cutOffDate)
+            && isDiagnosisKeyFilePathOnHourFolder(s3Object));
+  }
+
+  private RetentionRule traceTimeWarningHourRetentionRule(long retentionDays) {
+    final LocalDateTime cutOffTime = TimeUtils.getCurrentUtcHour().minusDays(retentionDays);
+    return new RetentionRule(this::getTraceTimeWarningPrefix,
+        s3Object -> isTraceTimeWarningFilePathOlderThan(s3Object, cutOffTime));
+  }
+
+  private void apply(List<RetentionRule> rules) {
+    Set<String> countries = Set.of(originCountry, euPackageName);
+    long startTime = System.nanoTime();
+    int numberOfDeletedObjects = countries.parallelStream()
+        .mapToInt(country -> applyToCountry(country, rules))
+        .sum();
+    long elapsedMillis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    logger.info("Deleted {} expired object(s) in {} ms ({} objects/s).", numberOfDeletedObjects, elapsedMillis,
+        numberOfDeletedObjects * 1000L / elapsedMillis);
   }
 
   /**
-   * Java stream do not support checked exceptions within streams. This helper method rethrows them as unchecked
-   * expressions, so they can be passed up to the Retention Policy.
+   * Lists each prefix of the rules once for the specified country, and deletes all objects that are expired according
+   * to at least one rule of their prefix.
    *
-   * @param s3Object the S3 object, that should be deleted.
+   * @return the number of deleted objects.
    */
-  public void deleteS3Object(S3Object s3Object) {
+  private int applyToCountry(String country, List<RetentionRule> rules) {
+    Map<String, Predicate<S3Object>> expiryPredicatesByPrefix = new LinkedHashMap<>();
+    rules.forEach(rule -> expiryPredicatesByPrefix.merge(rule.getPrefix(country), rule.getIsExpired(),
+        Predicate::or));
+
+    List<String> expiredObjectNames = new ArrayList<>();
+    expiryPredicatesByPrefix.forEach((prefix, isExpired) -> objectStoreAccess.listObjectsWithPrefix(prefix).stream()
+        .filter(isExpired)
+        .map(S3Object::getObjectName)
+        .forEach(expiredObjectNames::add));
+
+    logger.info("Deleting {} expired object(s) of country {}.", expiredObjectNames.size(), country);
     try {
-      objectStoreAccess.deleteObjectsWithPrefix(s3Object.getObjectName());
+      objectStoreAccess.deleteObjects(expiredObjectNames);
+      return expiredObjectNames.size();
     } catch (ObjectStoreOperationFailedException e) {
       failedObjectStoreOperationsCounter.incrementAndCheckThreshold(e);
+      return 0;
     }
   }
 
-
   private boolean isDiagnosisKeyFilePathOnHourFolder(S3Object s3Object) {
     Matcher matcher = hourPathPattern.matcher(s3Object.getObjectName());
     return matcher.matches();
@@ -165,4 +195,26 @@ public class S3RetentionPolicy {
     return api.getVersionPath() + "/" + api.getVersionV1() + "/" + api.getTraceWarningsPath() + "/"
         + api.getCountryPath() + "/" + country + "/" + api.getHourPath() + "/";
   }
+
+  /**
+   * Decides whether an object below the prefix of a country is expired.
+   */
+  private static final class RetentionRule {
+
+    private final UnaryOperator<String> prefixOfCountry;
+    private final Predicate<S3Object> isExpired;
+
+    RetentionRule(UnaryOperator<String> prefixOfCountry, Predicate<S3Object> isExpired) {
+      this.prefixOfCountry = prefixOfCountry;
+      this.isExpired = isExpired;
+    }
+
+    String getPrefix(String country) {
+      return prefixOfCountry.apply(country);
+    }
+
+    Predicate<S3Object> getIsExpired() {
+      return isExpired;
+    }
+  }
 }
@@ -0,0 +1,151 @@
+package app.coronawarn.server.services.distribution.objectstore;
+
+import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreOperationFailedException;
+import app.coronawarn.server.services.distribution.objectstore.publish.LocalFile;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Runs the uploads of a single publishing cycle on a shared executor. Only a bounded number of uploads are pending at
+ * any time, i.e. {@link S3UploadScheduler#submit} blocks until a pending upload has completed. Failed uploads are
+ * retried by the object store client, so an upload that still fails is counted as a failed object store operation.
+ * The latency of each successful upload is recorded in an {@link UploadLatencyHistogram}.
+ */
+class S3UploadScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(S3UploadScheduler.class);
+
+  private final ObjectStoreAccess objectStoreAccess;
+  private final FailedObjectStoreOperationsCounter failedOperationsCounter;
+  private final Executor executor;
+  private final int maxNumberOfPendingUploads;
+  private final Semaphore pendingUploads;
+  private final UploadLatencyHistogram latencies = new UploadLatencyHistogram();
+  private final AtomicInteger numberOfUploadedFiles = new AtomicInteger();
+  private final Map<String, String> uploadedChecksums = new ConcurrentHashMap<>();
+  private final AtomicReference<ObjectStoreOperationFailedException> failure = new AtomicReference<>();
+
+  /**
+   * Creates an {@link S3UploadScheduler}.
+   *
+   * @param objectStoreAccess         The {@link ObjectStoreAccess} used to communicate with the object store.
+   * @param failedOperationsCounter   The {@link FailedObjectStoreOperationsCounter} that is used to monitor the number
+   *                                  of failed operations.
+   * @param executor                  The executor that runs the uploads. It is not shut down by the scheduler.
+   * @param maxNumberOfPendingUploads The maximum number of submitted uploads that have not yet completed.
+   */
+  S3UploadScheduler(ObjectStoreAccess objectStoreAccess, FailedObjectStoreOperationsCounter failedOperationsCounter,
+      Executor executor, int maxNumberOfPendingUploads) {
+    this.objectStoreAccess = objectStoreAccess;
+    this.failedOperationsCounter = failedOperationsCounter;
+    this.executor = executor;
+    this.maxNumberOfPendingUploads = maxNumberOfPendingUploads;
+    this.pendingUploads = new Semaphore(maxNumberOfPendingUploads);
+  }
+
+  /**
+   * Submits the upload of the specified file. Blocks while the maximum number of uploads are pending.
+   *
+   * @param file The file to upload.
+   * @throws ObjectStoreOperationFailedException if the maximum number of failed operations has been exceeded.
+   */
+  void submit(LocalFile file) {
+    throwIfFailed();
+    acquire(1);
+    try {
+      executor.execute(() -> uploadAndRelease(file));
+    } catch (RuntimeException e) {
+      pendingUploads.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Waits until all submitted uploads have completed and logs their statistics.
+   *
+   * @throws ObjectStoreOperationFailedException if the maximum number of failed operations has been exceeded.
+   */
+  void awaitCompletion() {
+    acquire(maxNumberOfPendingUploads);
+    pendingUploads.release(maxNumberOfPendingUploads);
+    throwIfFailed();
+    logger.info("Uploaded {} file(s). Latency: p50 <= {} ms, p95 <= {} ms, p99 <= {} ms, max {} ms.",
+        numberOfUploadedFiles.get(),
+        latencies.getPercentileUpperBoundMillis(50), latencies.getPercentileUpperBoundMillis(95),
+        latencies.getPercentileUpperBoundMillis(99), latencies.getMaxMillis());
+    logger.debug("Upload latency histogram: {}", latencies.getBucketCounts());
+  }
+
+  int getNumberOfUploadedFiles() {
+    return numberOfUploadedFiles.get();
+  }
+
+  UploadLatencyHistogram getLatencies() {
+    return latencies;
+  }
+
+  /**
+   * Returns the checksums of the successfully uploaded files that have a checksum, mapped by their S3 key.
+   *
+   * @return The checksums of the uploaded files.
+   */
+  Map<String, String> getUploadedChecksums() {
+    return Collections.unmodifiableMap(uploadedChecksums);
+  }
+
+  private void uploadAndRelease(LocalFile file) {
+    try {
+      if (failure.get() == null) {
+        upload(file);
+      }
+    } finally {
+      pendingUploads.release();
+    }
+  }
+
+  private void upload(LocalFile file) {
+    long startTime = System.currentTimeMillis();
+    try {
+      objectStoreAccess.putObject(file);
+      latencies.record(System.currentTimeMillis() - startTime);
+      numberOfUploadedFiles.incrementAndGet();
+      if (!ObjectUtils.isEmpty(file.getChecksum())) {
+        uploadedChecksums.put(file.getS3Key(), file.getChecksum());
+      }
+    } catch (RuntimeException e) {
+      recordFailure(e);
+    }
+  }
+
+  private void recordFailure(RuntimeException e) {
+    try {
+      failedOperationsCounter.incrementAndCheckThreshold(new ObjectStoreOperationFailedException(e.getMessage(), e));
+    } catch (ObjectStoreOperationFailedException thresholdExceeded) {
+      failure.compareAndSet(null, thresholdExceeded);
+    }
+  }
+
+  private void acquire(int permits) {
+    try {
+      pendingUploads.acquire(permits);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ObjectStoreOperationFailedException(e.getMessage(), e);
+    }
+  }
+
+  private void throwIfFailed() {
+    ObjectStoreOperationFailedException cause = failure.get();
+    if (cause != null) {
+      throw cause;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package app.coronawarn.server.services.distribution.objectstore;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Records the latencies of object uploads in buckets with fixed upper bounds. Recording is thread-safe and does not
+ * allocate, so that it can be done for each uploaded object.
+ */
+class UploadLatencyHistogram {
+
+  /**
+   * The inclusive upper bounds of the buckets in milliseconds. Latencies above the last bound are counted in an
+   * additional overflow bucket.
+   */
+  private static final long[] BUCKET_UPPER_BOUNDS_MILLIS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_UPPER_BOUNDS_MILLIS.length + 1);
+  private final LongAccumulator maxMillis = new LongAccumulator(Long::max, 0);
+
+  /**
+   * Records the latency of a single upload.
+   *
+   * @param millis The latency in milliseconds.
+   */
+  void record(long millis) {
+    counts.incrementAndGet(bucketOf(millis));
+    maxMillis.accumulate(millis);
+  }
+
+  long getCount() {
+    long count = 0;
+    for (int bucket = 0; bucket < counts.length(); bucket++) {
+      count += counts.get(bucket);
+    }
+    return count;
+  }
+
+  long getMaxMillis() {
+    return maxMillis.get();
+  }
+
+  /**
+   * Returns the upper bound of the bucket that contains the specified percentile. For the overflow bucket, the maximum
+   * recorded latency is returned.
+   *
+   * @param percentile The percentile, between 0 and 100.
+   * @return The upper bound in milliseconds, or 0 if no latency has been recorded.
+   */
+  long getPercentileUpperBoundMillis(double percentile) {
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(count * percentile / 100);
+    long cumulativeCount = 0;
+    for (int bucket = 0; bucket < BUCKET_UPPER_BOUNDS_MILLIS.length; bucket++) {
+      cumulativeCount += counts.get(bucket);
+      if (cumulativeCount >= rank) {
+        return BUCKET_UPPER_BOUNDS_MILLIS[bucket];
+      }
+    }
+    return getMaxMillis();
+  }
+
+  /**
+   * Returns the number of recorded latencies per bucket, labeled with the bucket's upper bound.
+   *
+   * @return The counts of all buckets, ordered by their upper bounds.
+   */
+  Map<String, Long> getBucketCounts() {
+    Map<String, Long> bucketCounts = new LinkedHashMap<>();
+    for (int bucket = 0; bucket < BUCKET_UPPER_BOUNDS_MILLIS.length; bucket++) {
+      bucketCounts.put("<=" + BUCKET_UPPER_BOUNDS_MILLIS[bucket] + "ms", counts.get(bucket));
+    }
+    bucketCounts.put(">" + BUCKET_UPPER_BOUNDS_MILLIS[BUCKET_UPPER_BOUNDS_MILLIS.length - 1] + "ms",
+        counts.get(BUCKET_UPPER_BOUNDS_MILLIS.length));
+    return bucketCounts;
+  }
+
+  private static int bucketOf(long millis) {
+    for (int bucket = 0; bucket < BUCKET_UPPER_BOUNDS_MILLIS.length; bucket++) {
+      if (millis <= BUCKET_UPPER_BOUNDS_MILLIS[bucket]) {
+        return bucket;
+      }
+    }
+    return BUCKET_UPPER_BOUNDS_MILLIS.length;
+  }
+}
@@ -0,0 +1,307 @@
+package app.coronawarn.server.services.distribution.objectstore.client;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import app.coronawarn.server.services.distribution.statistics.exceptions.NotModifiedException;
+import app.coronawarn.server.services.distribution.statistics.file.JsonFile;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.bouncycastle.util.encoders.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link ObjectStoreClient} that stores the objects in a local directory, so that publishing and the retention
+ * policy can be load tested without an object store.
+ * <br>
+ * Each bucket is a directory below the root directory. Each segment of an object name is a directory below the bucket
+ * directory, which holds the content of the object and a sidecar file with its metadata. Hence, an object name may be
+ * the prefix of other object names, like on S3. Segments must not be empty or start with a dot.
+ * <br>
+ * The content and the metadata of an object are written to temporary files first, and each is moved to its target
+ * with an atomic rename, so that readers never see a partially written file. The two files are not replaced together,
+ * though: a reader may briefly see the new content together with the metadata of the replaced object. A configurable
+ * latency is added to each simulated request, and a configurable fraction of the requests fails with an
+ * {@link ObjectStoreOperationFailedException}. Like S3, uploads with a <code>Content-MD5</code> header that does not
+ * match their content are rejected, and listings and deletions are split into requests of up to 1000 objects each.
+ */
+public class LocalObjectStoreClient implements ObjectStoreClient {
+
+  private static final Logger logger = LoggerFactory.getLogger(LocalObjectStoreClient.class);
+
+  static final String CONTENT_FILE_NAME = ".content";
+  static final String METADATA_FILE_NAME = ".metadata";
+  static final String ETAG_METADATA_KEY = "ETag";
+  private static final String TEMPORARY_DIRECTORY_NAME = ".tmp";
+  private static final int MAX_OBJECTS_PER_REQUEST = 1000;
+
+  private final Path rootDirectory;
+  private final Duration latency;
+  private final double errorRate;
+  private final UploadStatistics uploadStatistics = new UploadStatistics();
+
+  /**
+   * Creates a {@link LocalObjectStoreClient}.
+   *
+   * @param rootDirectory The directory that holds the bucket directories.
+   * @param latency       The latency that is added to each request.
+   * @param errorRate     The fraction of requests that fail, between 0 and 1.
+   * @throws IllegalArgumentException if the latency is negative, or the error rate is not between 0 and 1.
+   */
+  public LocalObjectStoreClient(Path rootDirectory, Duration latency, double errorRate) {
+    if (latency.isNegative()) {
+      throw new IllegalArgumentException("The latency must not be negative.");
+    }
+    if (errorRate < 0 || errorRate > 1) {
+      throw new IllegalArgumentException("The error rate must be between 0 and 1.");
+    }
+    this.rootDirectory = rootDirectory;
+    this.latency = latency;
+    this.errorRate = errorRate;
+  }
+
+  /**
+   * Creates the directory of the specified bucket, if it does not exist yet.
+   *
+   * @param bucket The name of the bucket.
+   * @throws ObjectStoreOperationFailedException if the directory could not be created.
+   */
+  public void createBucket(String bucket) {
+    try {
+      Files.createDirectories(bucketDirectory(bucket));
+    } catch (IOException e) {
+      throw new ObjectStoreOperationFailedException("Failed to create bucket " + bucket + ".", e);
+    }
+  }
+
+  @Override
+  public List<S3Object> getObjects(String bucket, String prefix) {
+    return listObjects(bucket, prefix).stream()
+        .map(s3Object -> new S3Object(s3Object.getObjectName(), getCwaHash(bucket, s3Object.getObjectName()),
+            s3Object.getETag()))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<S3Object> listObjects(String bucket, String prefix) {
+    List<String> objectNames = findObjectNames(bucket, prefix);
+    for (int listed = 0; listed == 0 || listed < objectNames.size(); listed += MAX_OBJECTS_PER_REQUEST) {
+      simulateRequest("object listing");
+    }
+    return objectNames.stream()
+        .map(objectName -> new S3Object(objectName, null,
+            readMetadata(objectDirectory(bucket, objectName)).getProperty(ETAG_METADATA_KEY)))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public String getCwaHash(String bucket, String objectName) {
+    simulateRequest("metadata read");
+    return readMetadata(objectDirectory(bucket, objectName)).getProperty(HeaderKey.CWA_HASH.keyValue);
+  }
+
+  @Override
+  public Optional<byte[]> getObjectContent(String bucket, String objectName) {
+    simulateRequest("content read");
+    try {
+      return Optional.of(Files.readAllBytes(objectDirectory(bucket, objectName).resolve(CONTENT_FILE_NAME)));
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    } catch (IOException e) {
+      throw new ObjectStoreOperationFailedException("Failed to read object " + objectName + ".", e);
+    }
+  }
+
+  @Override
+  public JsonFile getSingleObjectContent(String bucket, String key) {
+    Path objectDirectory = objectDirectory(bucket, key);
+    byte[] content = getObjectContent(bucket, key)
+        .orElseThrow(() -> new ObjectStoreOperationFailedException("Object " + key + " does not exist."));
+    return new JsonFile(new ByteArrayInputStream(content),
+        readMetadata(objectDirectory).getProperty(ETAG_METADATA_KEY));
+  }
+
+  @Override
+  public JsonFile getSingleObjectContent(String bucket, String key, String ifNotETag) throws NotModifiedException {
+    String etag = readMetadata(objectDirectory(bucket, key)).getProperty(ETAG_METADATA_KEY);
+    if (etag != null && etag.equals(ifNotETag)) {
+      simulateRequest("content read");
+      throw new NotModifiedException(key, ifNotETag);
+    }
+    return getSingleObjectContent(bucket, key);
+  }
+
+  @Override
+  public void putObject(String bucket, String objectName, Path filePath, Map<HeaderKey, String> headers) {
+    Path objectDirectory = objectDirectory(bucket, objectName);
+    long startTime = System.nanoTime();
+    simulateRequest("object upload");
+    try {
+      Path temporaryDirectory = Files.createDirectories(bucketDirectory(bucket).resolve(TEMPORARY_DIRECTORY_NAME));
+      Path content = Files.createTempFile(temporaryDirectory, null, CONTENT_FILE_NAME);
+      Path metadata = Files.createTempFile(temporaryDirectory, null, METADATA_FILE_NAME);
+      try {
+        Files.copy(filePath, content, REPLACE_EXISTING);
+        Properties properties = new Properties();
+        headers.forEach((key, value) -> properties.setProperty(key.keyValue, value));
+        byte[] md5 = computeMd5(content);
+        verifyContentMd5(objectName, headers.get(HeaderKey.CONTENT_MD5), md5);
+        properties.setProperty(ETAG_METADATA_KEY, "\"" + Hex.toHexString(md5) + "\"");
+        try (Writer writer = Files.newBufferedWriter(metadata, StandardCharsets.UTF_8)) {
+          properties.store(writer, null);
+        }
+        Files.createDirectories(objectDirectory);
+        Files.move(content, objectDirectory.resolve(CONTENT_FILE_NAME), ATOMIC_MOVE);
+        Files.move(metadata, objectDirectory.resolve(METADATA_FILE_NAME), ATOMIC_MOVE);
+        uploadStatistics.recordUpload(Files.size(objectDirectory.resolve(CONTENT_FILE_NAME)),
+            System.nanoTime() - startTime);
+      } finally {
+        Files.deleteIfExists(content);
+        Files.deleteIfExists(metadata);
+      }
+    } catch (IOException e) {
+      throw new ObjectStoreOperationFailedException("Failed to upload object " + objectName + ".", e);
+    }
+  }
+
+  @Override
+  public void removeObjects(String bucket, List<String> objectNames) {
+    for (int offset = 0; offset < objectNames.size(); offset += MAX_OBJECTS_PER_REQUEST) {
+      simulateRequest("object deletion");
+      for (String objectName : objectNames.subList(offset,
+          Math.min(offset + MAX_OBJECTS_PER_REQUEST, objectNames.size()))) {
+        Path objectDirectory = objectDirectory(bucket, objectName);
+        try {
+          Files.deleteIfExists(objectDirectory.resolve(CONTENT_FILE_NAME));
+          Files.deleteIfExists(objectDirectory.resolve(METADATA_FILE_NAME));
+        } catch (IOException e) {
+          throw new ObjectStoreOperationFailedException("Failed to remove object " + objectName + ".", e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean bucketExists(String bucket) {
+    return Files.isDirectory(bucketDirectory(bucket));
+  }
+
+  @Override
+  public UploadStatistics getUploadStatistics() {
+    return uploadStatistics;
+  }
+
+  private List<String> findObjectNames(String bucket, String prefix) {
+    Path bucketDirectory = bucketDirectory(bucket);
+    int lastSeparator = prefix.lastIndexOf('/');
+    Path searchDirectory = lastSeparator < 0 ? bucketDirectory
+        : objectDirectory(bucket, prefix.substring(0, lastSeparator));
+    if (!Files.isDirectory(searchDirectory)) {
+      return new ArrayList<>();
+    }
+    try (Stream<Path> files = Files.walk(searchDirectory)) {
+      return files
+          .filter(file -> file.getFileName().toString().equals(CONTENT_FILE_NAME))
+          .map(file -> toObjectName(bucketDirectory.relativize(file.getParent())))
+          .filter(objectName -> objectName.startsWith(prefix))
+          .sorted()
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new ObjectStoreOperationFailedException("Failed to list objects with prefix " + prefix + ".", e);
+    }
+  }
+
+  private Path bucketDirectory(String bucket) {
+    return rootDirectory.resolve(bucket);
+  }
+
+  private Path objectDirectory(String bucket, String objectName) {
+    Path objectDirectory = bucketDirectory(bucket);
+    for (String segment : objectName.split("/", -1)) {
+      if (segment.isEmpty() || segment.startsWith(".")) {
+        throw new IllegalArgumentException("Unsupported object name: " + objectName);
+      }
+      objectDirectory = objectDirectory.resolve(segment);
+    }
+    return objectDirectory;
+  }
+
+  private static String toObjectName(Path relativeObjectDirectory) {
+    return StreamSupport.stream(relativeObjectDirectory.spliterator(), false)
+        .map(Path::toString)
+        .collect(Collectors.joining("/"));
+  }
+
+  private static Properties readMetadata(Path objectDirectory) {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(objectDirectory.resolve(METADATA_FILE_NAME),
+        StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    } catch (NoSuchFileException e) {
+      logger.debug("No metadata found in {}.", objectDirectory);
+    } catch (IOException e) {
+      throw new ObjectStoreOperationFailedException("Failed to read metadata in " + objectDirectory + ".", e);
+    }
+    return properties;
+  }
+
+  /**
+   * Computes the MD5 digest of the specified file, from which S3 derives the entity tag of single part uploads.
+   */
+  private static byte[] computeMd5(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      digest.update(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+      return digest.digest();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not supported.", e);
+    }
+  }
+
+  /**
+   * Rejects the upload like S3 does, if the specified <code>Content-MD5</code> header does not match the content.
+   */
+  private static void verifyContentMd5(String objectName, String contentMd5, byte[] md5) {
+    if (contentMd5 != null && !contentMd5.equals(Base64.getEncoder().encodeToString(md5))) {
+      throw new ObjectStoreOperationFailedException("The Content-MD5 of object " + objectName
+          + " does not match its content.");
+    }
+  }
+
+  private void simulateRequest(String operation) {
+    if (!latency.isZero()) {
+      try {
+        Thread.sleep(latency.toMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ObjectStoreOperationFailedException("Interrupted during " + operation + ".", e);
+      }
+    }
+    if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+      throw new ObjectStoreOperationFailedException("Injected failure of " + operation + ".");
+    }
+  }
+}
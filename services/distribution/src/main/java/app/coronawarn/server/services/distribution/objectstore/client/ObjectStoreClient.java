@@ -7,6 +7,7 @@ import app.coronawarn.server.services.distribution.statistics.file.JsonFile;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Simple Storage Service (aka S3) client to perform bucket and object operations.
@@ -23,6 +24,37 @@ public interface ObjectStoreClient {
    */
   List<S3Object> getObjects(String bucket, String prefix);
 
+  /**
+   * Lists all objects that match the specified prefix without fetching their metadata. The returned objects have an
+   * entity tag, but no CWA hash.
+   *
+   * @param bucket The name of the object store bucket.
+   * @param prefix The prefix that the names of the returned objects start with.
+   * @return A list of objects from the object store that match the specified parameters.
+   * @throws ObjectStoreOperationFailedException if the operation could not be performed.
+   */
+  List<S3Object> listObjects(String bucket, String prefix);
+
+  /**
+   * Fetches the CWA hash of the specified object.
+   *
+   * @param bucket     The name of the object store bucket.
+   * @param objectName The name of the object.
+   * @return The CWA hash, or {@code null} if the object has no CWA hash.
+   * @throws ObjectStoreOperationFailedException if the operation could not be performed.
+   */
+  String getCwaHash(String bucket, String objectName);
+
+  /**
+   * Downloads the content of the specified object.
+   *
+   * @param bucket     The name of the object store bucket.
+   * @param objectName The name of the object.
+   * @return The content of the object, or an empty {@link Optional} if the object does not exist.
+   * @throws ObjectStoreOperationFailedException if the operation could not be performed.
+   */
+  Optional<byte[]> getObjectContent(String bucket, String objectName);
+
   JsonFile getSingleObjectContent(String bucket, String key);
 
   JsonFile getSingleObjectContent(String bucket, String key, String ifNotETag) throws NotModifiedException;
@@ -56,6 +88,13 @@ public interface ObjectStoreClient {
    */
   boolean bucketExists(String bucket);
 
+  /**
+   * Returns the statistics of the uploads performed by this client.
+   *
+   * @return The upload statistics.
+   */
+  UploadStatistics getUploadStatistics();
+
   /**
    * Provides the supported header keys.
    */
@@ -66,7 +105,11 @@ public interface ObjectStoreClient {
     /**
      * To control which content type is sent, when objects are retrieved from the object store.
      */
-    CONTENT_TYPE("Content-Type");
+    CONTENT_TYPE("Content-Type"),
+    /**
+     * The Base64 encoded MD5 digest of the object content, which the object store uses to verify the upload.
+     */
+    CONTENT_MD5("Content-MD5");
 
     public final String keyValue;
 
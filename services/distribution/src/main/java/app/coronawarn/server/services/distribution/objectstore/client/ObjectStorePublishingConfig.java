@@ -5,6 +5,10 @@ package app.coronawarn.server.services.distribution.objectstore.client;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig.ObjectStore;
 import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.retry.annotation.EnableRetry;
@@ -14,6 +18,7 @@ import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
 
 /**
  * Manages the instantiation of the {@link ObjectStoreClient} bean.
@@ -22,6 +27,8 @@ import software.amazon.awssdk.services.s3.S3Client;
 @EnableRetry
 public class ObjectStorePublishingConfig {
 
+  private static final Logger logger = LoggerFactory.getLogger(ObjectStorePublishingConfig.class);
+
   private static final Region DEFAULT_REGION = Region.EU_CENTRAL_1;
 
   @Bean(name = "publish-s3")
@@ -30,15 +37,28 @@ public class ObjectStorePublishingConfig {
   }
 
   private ObjectStoreClient createClient(ObjectStore objectStore) {
+    if (objectStore.getLocalDirectory() != null && !objectStore.getLocalDirectory().isBlank()) {
+      return createLocalClient(objectStore);
+    }
     AwsCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(
         AwsBasicCredentials.create(objectStore.getAccessKey(), objectStore.getSecretKey()));
     String endpoint = removeTrailingSlash(objectStore.getEndpoint()) + ":" + objectStore.getPort();
 
+    // uploads are sent with the MD5 digest of their content, which is verified by the object store
     return new S3ClientWrapper(S3Client.builder()
         .region(DEFAULT_REGION)
         .endpointOverride(URI.create(endpoint))
         .credentialsProvider(credentialsProvider)
-        .build());
+        .serviceConfiguration(S3Configuration.builder().checksumValidationEnabled(false).build())
+        .build(), objectStore);
+  }
+
+  private ObjectStoreClient createLocalClient(ObjectStore objectStore) {
+    logger.warn("Using the local directory {} instead of the object store.", objectStore.getLocalDirectory());
+    LocalObjectStoreClient client = new LocalObjectStoreClient(Path.of(objectStore.getLocalDirectory()),
+        Duration.ofMillis(objectStore.getLocalLatency()), objectStore.getLocalErrorRate());
+    client.createBucket(objectStore.getBucket());
+    return client;
   }
 
   private String removeTrailingSlash(String string) {
@@ -57,6 +77,8 @@ public class ObjectStorePublishingConfig {
     executor.setCorePoolSize(distributionServiceConfig.getObjectStore().getMaxNumberOfS3Threads());
     executor.setMaxPoolSize(distributionServiceConfig.getObjectStore().getMaxNumberOfS3Threads());
     executor.setThreadNamePrefix("object-store-operation-worker-");
+    // the executor is not shut down after publishing, so its idle threads must not keep the application alive
+    executor.setDaemon(true);
     executor.initialize();
     return executor;
   }
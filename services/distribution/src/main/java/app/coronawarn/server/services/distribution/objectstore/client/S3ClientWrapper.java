@@ -3,26 +3,52 @@ package app.coronawarn.server.services.distribution.objectstore.client;
 import static java.lang.Boolean.TRUE;
 import static java.util.stream.Collectors.toList;
 
+import app.coronawarn.server.services.distribution.config.DistributionServiceConfig.ObjectStore;
 import app.coronawarn.server.services.distribution.statistics.exceptions.NotModifiedException;
 import app.coronawarn.server.services.distribution.statistics.file.JsonFile;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.retry.RetryContext;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Recover;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.retry.support.RetrySynchronizationManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
@@ -32,23 +58,72 @@ import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
 /**
- * Implementation of {@link ObjectStoreClient} that encapsulates an {@link S3Client}.
+ * Implementation of {@link ObjectStoreClient} that encapsulates an {@link S3Client}. The parts of multipart uploads
+ * are uploaded by a thread pool, which is owned by the client and shut down when the client bean is destroyed.
  */
-public class S3ClientWrapper implements ObjectStoreClient {
+public class S3ClientWrapper implements ObjectStoreClient, DisposableBean {
 
   private static final Logger logger = LoggerFactory.getLogger(S3ClientWrapper.class);
 
   private static final int CHUNK_SIZE = 1000;
+  private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
 
   private final S3Client s3Client;
+  private final long multipartUploadThreshold;
+  private final long multipartUploadPartSize;
+  private final int multipartUploadPartRetryAttempts;
+  private final UploadStatistics uploadStatistics = new UploadStatistics();
+  private final ExecutorService partUploadExecutor;
 
+  /**
+   * Creates an {@link S3ClientWrapper}, which uploads each file with a single request.
+   *
+   * @param s3Client The client to wrap.
+   */
   public S3ClientWrapper(S3Client s3Client) {
     this.s3Client = s3Client;
+    this.multipartUploadThreshold = Long.MAX_VALUE;
+    this.multipartUploadPartSize = Long.MAX_VALUE;
+    this.multipartUploadPartRetryAttempts = 0;
+    this.partUploadExecutor = createPartUploadExecutor(1);
+  }
+
+  /**
+   * Creates an {@link S3ClientWrapper}, which uploads files above the configured threshold in parts, if multipart
+   * upload is enabled. The parts of a file are uploaded in parallel, by up to the configured maximum number of S3
+   * threads.
+   *
+   * @param s3Client    The client to wrap.
+   * @param objectStore The object store configuration.
+   */
+  public S3ClientWrapper(S3Client s3Client, ObjectStore objectStore) {
+    this.s3Client = s3Client;
+    this.multipartUploadThreshold = TRUE.equals(objectStore.getMultipartUpload())
+        ? objectStore.getMultipartUploadThreshold() : Long.MAX_VALUE;
+    this.multipartUploadPartSize = objectStore.getMultipartUploadPartSize();
+    this.multipartUploadPartRetryAttempts = objectStore.getMultipartUploadPartRetryAttempts();
+    this.partUploadExecutor = createPartUploadExecutor(objectStore.getMaxNumberOfS3Threads());
+  }
+
+  /**
+   * Creates the thread pool for part uploads. Its threads are only started once the first part is uploaded.
+   */
+  private static ExecutorService createPartUploadExecutor(int numberOfThreads) {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("multipart-upload-worker-");
+    threadFactory.setDaemon(true);
+    return Executors.newFixedThreadPool(numberOfThreads, threadFactory);
+  }
+
+  @Override
+  public void destroy() {
+    partUploadExecutor.shutdownNow();
   }
 
   @Override
@@ -113,6 +188,21 @@ public class S3ClientWrapper implements ObjectStoreClient {
       backoff = @Backoff(delayExpression = "${services.distribution.objectstore.retry-backoff}"))
   public List<S3Object> getObjects(String bucket, String prefix) {
     logRetryStatus("object download");
+    return listObjects(bucket, prefix, s3Object -> buildS3Object(s3Object, bucket));
+  }
+
+  @Override
+  @Retryable(
+      value = SdkException.class,
+      maxAttemptsExpression = "${services.distribution.objectstore.retry-attempts}",
+      backoff = @Backoff(delayExpression = "${services.distribution.objectstore.retry-backoff}"))
+  public List<S3Object> listObjects(String bucket, String prefix) {
+    logRetryStatus("object listing");
+    return listObjects(bucket, prefix, s3Object -> new S3Object(s3Object.key(), null, s3Object.eTag()));
+  }
+
+  private List<S3Object> listObjects(String bucket, String prefix,
+      Function<software.amazon.awssdk.services.s3.model.S3Object, S3Object> objectMapper) {
     List<S3Object> allS3Objects = new ArrayList<>();
     String continuationToken = null;
 
@@ -121,7 +211,7 @@ public class S3ClientWrapper implements ObjectStoreClient {
           ListObjectsV2Request.builder().prefix(prefix).bucket(bucket).continuationToken(continuationToken).build();
       ListObjectsV2Response response = s3Client.listObjectsV2(request);
       response.contents().stream()
-          .map(s3Object -> buildS3Object(s3Object, bucket))
+          .map(objectMapper)
           .forEach(allS3Objects::add);
       continuationToken = TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null;
     } while (continuationToken != null);
@@ -134,6 +224,44 @@ public class S3ClientWrapper implements ObjectStoreClient {
     throw new ObjectStoreOperationFailedException("Failed to get objects from object store", cause);
   }
 
+  @Override
+  @Retryable(
+      value = SdkException.class,
+      maxAttemptsExpression = "${services.distribution.objectstore.retry-attempts}",
+      backoff = @Backoff(delayExpression = "${services.distribution.objectstore.retry-backoff}"))
+  public String getCwaHash(String bucket, String objectName) {
+    logRetryStatus("object metadata download");
+    return fetchCwaHash(bucket, objectName);
+  }
+
+  @Recover
+  public String skipMetadataReadOperation(Throwable cause) {
+    throw new ObjectStoreOperationFailedException("Failed to get object metadata from object store", cause);
+  }
+
+  @Override
+  @Retryable(
+      value = SdkException.class,
+      exclude = NoSuchKeyException.class,
+      maxAttemptsExpression = "${services.distribution.objectstore.retry-attempts}",
+      backoff = @Backoff(delayExpression = "${services.distribution.objectstore.retry-backoff}"))
+  public Optional<byte[]> getObjectContent(String bucket, String objectName) {
+    logRetryStatus("object content download");
+    GetObjectRequest request = GetObjectRequest.builder().bucket(bucket).key(objectName).build();
+    try (ResponseInputStream<GetObjectResponse> response = s3Client.getObject(request)) {
+      return Optional.of(response.readAllBytes());
+    } catch (NoSuchKeyException e) {
+      return Optional.empty();
+    } catch (IOException e) {
+      throw new ObjectStoreOperationFailedException("Failed to read object content from object store.", e);
+    }
+  }
+
+  @Recover
+  public Optional<byte[]> skipContentReadOperation(Throwable cause) {
+    throw new ObjectStoreOperationFailedException("Failed to get object content from object store", cause);
+  }
+
   @Override
   @Retryable(
       value = SdkException.class,
@@ -155,8 +283,141 @@ public class S3ClientWrapper implements ObjectStoreClient {
       requestBuilder.contentType(headers.get(HeaderKey.CONTENT_TYPE));
     }
 
-    RequestBody bodyFile = RequestBody.fromFile(filePath);
-    s3Client.putObject(requestBuilder.build(), bodyFile);
+    long startTime = System.nanoTime();
+    long size = sizeOf(filePath);
+    if (size >= multipartUploadThreshold) {
+      putObjectInParts(requestBuilder.build(), filePath, size);
+      uploadStatistics.recordMultipartUpload();
+    } else {
+      String contentMd5 = headers.containsKey(HeaderKey.CONTENT_MD5)
+          ? headers.get(HeaderKey.CONTENT_MD5) : computeContentMd5(filePath, 0, size);
+      s3Client.putObject(requestBuilder.contentMD5(contentMd5).build(), streamFrom(filePath, 0, size));
+    }
+    uploadStatistics.recordUpload(size, System.nanoTime() - startTime);
+  }
+
+  /**
+   * Uploads the specified file in parts of the configured size, which are uploaded in parallel. Each part is sent with
+   * the MD5 digest of its content, and a failed part is retried up to the configured number of times, before the
+   * multipart upload is aborted. The parts of all files share the thread pool of the client.
+   */
+  private void putObjectInParts(PutObjectRequest request, Path filePath, long size) {
+    String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+        .bucket(request.bucket())
+        .key(request.key())
+        .acl(request.aclAsString())
+        .cacheControl(request.cacheControl())
+        .metadata(request.metadata())
+        .contentType(request.contentType())
+        .build()).uploadId();
+    int numberOfParts = (int) ((size + multipartUploadPartSize - 1) / multipartUploadPartSize);
+    try {
+      List<CompletableFuture<CompletedPart>> uploadedParts = IntStream.rangeClosed(1, numberOfParts)
+          .mapToObj(partNumber -> CompletableFuture.supplyAsync(
+              () -> uploadPart(request, uploadId, filePath, partNumber, size), partUploadExecutor))
+          .collect(toList());
+      List<CompletedPart> completedParts = uploadedParts.stream().map(S3ClientWrapper::join).collect(toList());
+      s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+          .bucket(request.bucket())
+          .key(request.key())
+          .uploadId(uploadId)
+          .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+          .build());
+    } catch (RuntimeException e) {
+      abortMultipartUpload(request, uploadId);
+      throw e;
+    }
+  }
+
+  private CompletedPart uploadPart(PutObjectRequest request, String uploadId, Path filePath, int partNumber,
+      long size) {
+    long offset = (partNumber - 1L) * multipartUploadPartSize;
+    long length = Math.min(multipartUploadPartSize, size - offset);
+    UploadPartRequest partRequest = UploadPartRequest.builder()
+        .bucket(request.bucket())
+        .key(request.key())
+        .uploadId(uploadId)
+        .partNumber(partNumber)
+        .contentLength(length)
+        .contentMD5(computeContentMd5(filePath, offset, length))
+        .build();
+    for (int attempt = 0; ; attempt++) {
+      try {
+        String etag = s3Client.uploadPart(partRequest, streamFrom(filePath, offset, length)).eTag();
+        return CompletedPart.builder().partNumber(partNumber).eTag(etag).build();
+      } catch (SdkException e) {
+        if (attempt >= multipartUploadPartRetryAttempts) {
+          throw e;
+        }
+        uploadStatistics.recordPartRetry();
+        logger.warn("Retrying upload of part {} of {} after {} failed attempt(s).", partNumber, request.key(),
+            attempt + 1, e);
+      }
+    }
+  }
+
+  private void abortMultipartUpload(PutObjectRequest request, String uploadId) {
+    try {
+      s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+          .bucket(request.bucket()).key(request.key()).uploadId(uploadId).build());
+    } catch (SdkException e) {
+      logger.warn("Failed to abort multipart upload of {}.", request.key(), e);
+    }
+  }
+
+  private static CompletedPart join(CompletableFuture<CompletedPart> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new ObjectStoreOperationFailedException("Failed to upload part.", e.getCause());
+    }
+  }
+
+  private static long sizeOf(Path filePath) {
+    try {
+      return Files.size(filePath);
+    } catch (IOException e) {
+      throw new ObjectStoreOperationFailedException("Failed to read file " + filePath + ".", e);
+    }
+  }
+
+  /**
+   * Computes the Base64 encoded MD5 digest of the specified section of a file, as sent in the <code>Content-MD5</code>
+   * header. The file is read through a memory mapping.
+   */
+  private static String computeContentMd5(Path filePath, long offset, long length) {
+    try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      digest.update(channel.map(MapMode.READ_ONLY, offset, length));
+      return Base64.getEncoder().encodeToString(digest.digest());
+    } catch (IOException e) {
+      throw new ObjectStoreOperationFailedException("Failed to read file " + filePath + ".", e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not supported.", e);
+    }
+  }
+
+  /**
+   * Creates a {@link RequestBody}, which streams the specified section of a file from a {@link FileChannel}. A new
+   * stream is opened for each attempt of the SDK to send the request.
+   */
+  private static RequestBody streamFrom(Path filePath, long offset, long length) {
+    return RequestBody.fromContentProvider(() -> {
+      try {
+        FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ);
+        return new BoundedInputStream(Channels.newInputStream(channel.position(offset)), length);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to read file " + filePath, e);
+      }
+    }, length, DEFAULT_CONTENT_TYPE);
+  }
+
+  @Override
+  public UploadStatistics getUploadStatistics() {
+    return uploadStatistics;
   }
 
   @Override
@@ -205,22 +466,23 @@ public class S3ClientWrapper implements ObjectStoreClient {
    * support fetching metadata within the {@link ListObjectsV2Request}.<br> MinIO actually does support this, so when
    * they release 7.0.3, we can remove this code here.
    *
-   * @param s3Object the S3Object to fetch the CWA hash for
-   * @param bucket   the target bucket
+   * @param bucket     the target bucket
+   * @param objectName the name of the object to fetch the CWA hash for
    * @return the CWA hash as a String, or null, if there is no CWA hash available on that object.
    */
-  private String fetchCwaHash(software.amazon.awssdk.services.s3.model.S3Object s3Object, String bucket) {
-    var result = this.s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(s3Object.key()).build());
+  private String fetchCwaHash(String bucket, String objectName) {
+    var result = this.s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(objectName).build());
     return result.metadata().get(HeaderKey.CWA_HASH.keyValue);
   }
 
   private S3Object buildS3Object(software.amazon.awssdk.services.s3.model.S3Object s3Object, String bucket) {
-    String cwaHash = fetchCwaHash(s3Object, bucket);
-    return new S3Object(s3Object.key(), cwaHash);
+    String cwaHash = fetchCwaHash(bucket, s3Object.key());
+    return new S3Object(s3Object.key(), cwaHash, s3Object.eTag());
   }
 
   private void logRetryStatus(String action) {
-    int retryCount = RetrySynchronizationManager.getContext().getRetryCount();
+    RetryContext retryContext = RetrySynchronizationManager.getContext();
+    int retryCount = retryContext != null ? retryContext.getRetryCount() : 0;
     if (retryCount > 0) {
       logger.warn("Retrying {} after {} failed attempt(s).", action, retryCount);
     }
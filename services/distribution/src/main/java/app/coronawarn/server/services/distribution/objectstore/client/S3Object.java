@@ -17,6 +17,9 @@ public class S3Object {
   /** The cwaHash of this S3 Object. */
   private String cwaHash;
 
+  /** The entity tag of this S3 Object, as returned by the object listing. */
+  private String etag;
+
   /**
    * Constructs a new S3Object for the given object name.
    *
@@ -37,6 +40,18 @@ public class S3Object {
     this.cwaHash = cwaHash;
   }
 
+  /**
+   * Constructs a new S3Object for the given object name.
+   *
+   * @param objectName the target object name
+   * @param cwaHash the checksum for that file
+   * @param etag the entity tag of that object
+   */
+  public S3Object(String objectName, String cwaHash, String etag) {
+    this(objectName, cwaHash);
+    this.etag = etag;
+  }
+
   public String getObjectName() {
     return objectName;
   }
@@ -45,6 +60,10 @@ public class S3Object {
     return cwaHash;
   }
 
+  public String getETag() {
+    return etag;
+  }
+
   /**
    * Indicates if the S3 object is a file with diagnosis key content.
    * The evaluation is based on the distribution logic which implies that such files are generated
@@ -65,11 +84,12 @@ public class S3Object {
       return false;
     }
     S3Object s3Object = (S3Object) o;
-    return Objects.equals(objectName, s3Object.objectName) && Objects.equals(cwaHash, s3Object.cwaHash);
+    return Objects.equals(objectName, s3Object.objectName) && Objects.equals(cwaHash, s3Object.cwaHash)
+        && Objects.equals(etag, s3Object.etag);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(objectName, cwaHash);
+    return Objects.hash(objectName, cwaHash, etag);
   }
 }
@@ -0,0 +1,88 @@
+package app.coronawarn.server.services.distribution.objectstore.client;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the statistics of the uploads of an {@link ObjectStoreClient}. The statistics can be updated concurrently by
+ * the upload threads.
+ */
+public class UploadStatistics {
+
+  private final LongAdder uploadedBytes = new LongAdder();
+  private final LongAdder uploadNanos = new LongAdder();
+  private final LongAdder multipartUploads = new LongAdder();
+  private final LongAdder partRetries = new LongAdder();
+
+  /**
+   * Records a successful upload.
+   *
+   * @param size     The number of uploaded bytes.
+   * @param duration The duration of the upload in nanoseconds.
+   */
+  public void recordUpload(long size, long duration) {
+    uploadedBytes.add(size);
+    uploadNanos.add(duration);
+  }
+
+  /**
+   * Records a successful upload of a file in parts.
+   */
+  public void recordMultipartUpload() {
+    multipartUploads.increment();
+  }
+
+  /**
+   * Records a retry of the upload of a part.
+   */
+  public void recordPartRetry() {
+    partRetries.increment();
+  }
+
+  /**
+   * Returns the number of bytes that have been uploaded successfully.
+   *
+   * @return The number of uploaded bytes.
+   */
+  public long getUploadedBytes() {
+    return uploadedBytes.sum();
+  }
+
+  /**
+   * Returns the average throughput of a single upload, i.e. the number of uploaded bytes divided by the sum of the
+   * durations of all successful uploads.
+   *
+   * @return The number of bytes per second, or 0 if nothing has been uploaded yet.
+   */
+  public long getUploadBytesPerSecond() {
+    long nanos = uploadNanos.sum();
+    return nanos == 0 ? 0 : (long) (uploadedBytes.sum() * 1e9 / nanos);
+  }
+
+  /**
+   * Returns the number of files that have been uploaded in parts.
+   *
+   * @return The number of multipart uploads.
+   */
+  public long getNumberOfMultipartUploads() {
+    return multipartUploads.sum();
+  }
+
+  /**
+   * Returns the number of times the upload of a part has been retried.
+   *
+   * @return The number of part retries.
+   */
+  public long getNumberOfPartRetries() {
+    return partRetries.sum();
+  }
+
+  /**
+   * Resets the statistics, e.g. before the next publishing run.
+   */
+  public void reset() {
+    uploadedBytes.reset();
+    uploadNanos.reset();
+    multipartUploads.reset();
+    partRetries.reset();
+  }
+}
@@ -2,10 +2,12 @@
 
 package app.coronawarn.server.services.distribution.objectstore.publish;
 
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
 import app.coronawarn.server.services.distribution.assembly.structure.file.FileOnDiskWithChecksum;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.function.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,6 +18,14 @@ public abstract class LocalFile {
 
   private static final Logger logger = LoggerFactory.getLogger(LocalFile.class);
 
+  private static final Predicate<String> IS_CONFIG_FILE = s3Key ->
+      s3Key.endsWith("app_config") || s3Key.endsWith("app_config_ios") || s3Key.endsWith("app_config_android");
+
+  private static final Predicate<String> IS_STATISTIC_FILE = s3Key -> s3Key.endsWith("stats");
+
+  private static final Predicate<String> IS_KEY_FILE = s3Key ->
+      !s3Key.isEmpty() && Character.isDigit(s3Key.charAt(s3Key.length() - 1));
+
   /**
    * the path to the file to be represented.
    */
@@ -32,15 +42,48 @@ public abstract class LocalFile {
   private String checksum = "";
 
   /**
-   * Constructs a new file representing a file on the disk.
+   * the Base64 encoded MD5 digest of the content of this file, if it has been computed during assembly.
+   */
+  private String contentMd5 = "";
+
+  /**
+   * whether this file is a key file, as determined once from the {@link #s3Key}.
+   */
+  private final boolean keyFile;
+
+  /**
+   * the value for the <code>content-type</code> header, as determined once from the {@link #s3Key}.
+   */
+  private final String contentType;
+
+  /**
+   * Constructs a new file representing a file on the disk. The checksum is read from the checksum file.
    *
    * @param file     the path to the file to be represented
    * @param basePath the base path
    */
   protected LocalFile(Path file, Path basePath) {
+    this(file, basePath, new FileDigests());
+  }
+
+  /**
+   * Constructs a new file representing a file on the disk. The checksum is taken from the specified
+   * {@link FileDigests}, if the file has been written by the assembly of this run. Otherwise, it is read from the
+   * checksum file.
+   *
+   * @param file        the path to the file to be represented
+   * @param basePath    the base path
+   * @param fileDigests the digests of the files written by the assembly
+   */
+  protected LocalFile(Path file, Path basePath, FileDigests fileDigests) {
     this.file = file;
     this.s3Key = createS3Key(file, basePath);
-    this.checksum = loadChecksum();
+    this.checksum = fileDigests.getChecksum(file).orElseGet(this::loadChecksum);
+    this.contentMd5 = fileDigests.getContentMd5(file).orElse("");
+    this.keyFile = IS_KEY_FILE.test(s3Key);
+    // index files, i.e. lists of versions, dates, hours, are JSON
+    this.contentType = keyFile || IS_CONFIG_FILE.test(s3Key) || IS_STATISTIC_FILE.test(s3Key)
+        ? "application/zip" : "application/json";
   }
 
   public String getS3Key() {
@@ -51,6 +94,10 @@ public abstract class LocalFile {
     return checksum;
   }
 
+  public String getContentMd5() {
+    return contentMd5;
+  }
+
   public Path getFile() {
     return file;
   }
@@ -76,11 +123,7 @@ public abstract class LocalFile {
    *         <a href="https://www.iana.org/assignments/media-types/application/json">json</a>.
    */
   public String getContentType() {
-    if (isConfigFile() || isStatisticFile() || isKeyFile()) {
-      return "application/zip";
-    }
-    // list of versions, dates, hours
-    return "application/json";
+    return contentType;
   }
 
   /**
@@ -90,14 +133,6 @@ public abstract class LocalFile {
    * @return <code>true</code> if and only if the {@link #s3Key} ends with a digit, false otherwise.
    */
   public boolean isKeyFile() {
-    return s3Key.matches(".*\\d");
-  }
-
-  private boolean isConfigFile() {
-    return s3Key.endsWith("app_config") || s3Key.endsWith("app_config_ios") || s3Key.endsWith("app_config_android");
-  }
-
-  private boolean isStatisticFile() {
-    return s3Key.endsWith("stats");
+    return keyFile;
   }
 }
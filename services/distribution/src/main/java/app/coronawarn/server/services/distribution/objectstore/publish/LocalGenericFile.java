@@ -2,6 +2,7 @@
 
 package app.coronawarn.server.services.distribution.objectstore.publish;
 
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
 import java.nio.file.Path;
 
 public class LocalGenericFile extends LocalFile {
@@ -9,4 +10,8 @@ public class LocalGenericFile extends LocalFile {
   public LocalGenericFile(Path file, Path basePath) {
     super(file, basePath);
   }
+
+  public LocalGenericFile(Path file, Path basePath, FileDigests fileDigests) {
+    super(file, basePath, fileDigests);
+  }
 }
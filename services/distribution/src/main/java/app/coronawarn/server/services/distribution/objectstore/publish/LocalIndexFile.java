@@ -2,6 +2,7 @@
 
 package app.coronawarn.server.services.distribution.objectstore.publish;
 
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
 import java.nio.file.Path;
 
 /**
@@ -30,6 +31,18 @@ public class LocalIndexFile extends LocalFile {
     super(file, basePath);
   }
 
+  /**
+   * Constructs a new file, which is treated as an index file.
+   *
+   * @param file        the file on the disk
+   * @param basePath    the base path, from where the file was loaded. This will be used in order to determine the S3
+   *                    key
+   * @param fileDigests the digests of the files written by the assembly
+   */
+  public LocalIndexFile(Path file, Path basePath, FileDigests fileDigests) {
+    super(file, basePath, fileDigests);
+  }
+
   @Override
   protected String createS3Key(Path file, Path rootFolder) {
     String s3Key = super.createS3Key(file, rootFolder);
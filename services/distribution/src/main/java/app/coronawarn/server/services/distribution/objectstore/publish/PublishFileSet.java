@@ -2,16 +2,27 @@
 
 package app.coronawarn.server.services.distribution.objectstore.publish;
 
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
 import app.coronawarn.server.services.distribution.assembly.structure.file.FileOnDiskWithChecksum;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * A set of files, which are subject for publishing to S3.
+ * <br>
+ * The root folder is scanned as a fork-join task per directory, so that the directories and the files within are
+ * processed in parallel. The files are listed in the same order as by {@link Files#walk}.
  */
 public class PublishFileSet {
 
@@ -25,6 +36,11 @@ public class PublishFileSet {
    */
   private final Path root;
 
+  /**
+   * the digests of the files written by the assembly.
+   */
+  private final FileDigests fileDigests;
+
   /**
    * the list of identified files in the root folder.
    */
@@ -38,37 +54,108 @@ public class PublishFileSet {
    * @throws IOException in case there were problems reading the files
    */
   public PublishFileSet(Path root) throws IOException {
+    this(root, 1, new FileDigests());
+  }
+
+  /**
+   * Creates a new PublishFileSet, based on the given root folder, which is scanned recursively by the given number of
+   * threads.
+   *
+   * @param root        the root folder, e.g. ./out/
+   * @param parallelism the number of threads to scan the root folder with
+   * @param fileDigests the digests of the files written by the assembly, which are used instead of the checksum files
+   * @throws IOException in case there were problems reading the files
+   */
+  public PublishFileSet(Path root, int parallelism, FileDigests fileDigests) throws IOException {
     this.root = root;
-    this.files = getFilesOnPath(root);
+    this.fileDigests = fileDigests;
+    this.files = getFilesOnPath(root, parallelism);
   }
 
-  private List<LocalFile> getFilesOnPath(Path path) throws IOException {
+  private List<LocalFile> getFilesOnPath(Path path, int parallelism) throws IOException {
     if (path == null || !path.toFile().isDirectory()) {
       throw new UnsupportedOperationException("Supplied path is not a folder: " + path);
     }
 
-    try (Stream<Path> stream = Files.walk(path, FILE_WALK_MAX_DEPTH)) {
-      return stream
-          .filter(Files::isRegularFile)
-          .filter(this::ignoreChecksumFiles)
-          .map(this::constructPublishFile)
-          .collect(Collectors.toList());
+    ForkJoinPool pool = new ForkJoinPool(Math.max(parallelism, 1));
+    try {
+      return pool.invoke(new DirectoryScan(path, 1));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      pool.shutdown();
     }
   }
 
-  private LocalFile constructPublishFile(Path path) {
+  /**
+   * Creates the {@link LocalFile} for the given file, which is subject for publishing.
+   *
+   * @param path        the file on the disk
+   * @param root        the root folder, from which the S3 key of the file is derived
+   * @param fileDigests the digests of the files written by the assembly
+   * @return a {@link LocalIndexFile} for index files, otherwise a {@link LocalGenericFile}
+   */
+  public static LocalFile createLocalFile(Path path, Path root, FileDigests fileDigests) {
     if (path.endsWith("index")) {
-      return new LocalIndexFile(path, root);
+      return new LocalIndexFile(path, root, fileDigests);
     }
 
-    return new LocalGenericFile(path, root);
+    return new LocalGenericFile(path, root, fileDigests);
   }
 
   private boolean ignoreChecksumFiles(Path path) {
     return !FileOnDiskWithChecksum.isChecksumFile(path);
   }
 
+  private static boolean isRegularFile(Path path, BasicFileAttributes attributes) {
+    return attributes.isRegularFile() || attributes.isSymbolicLink() && Files.isRegularFile(path);
+  }
+
   public List<LocalFile> getFiles() {
     return files;
   }
+
+  /**
+   * Lists the files of a directory and forks a subtask for each subdirectory. The results of the subtasks are joined
+   * in listing order.
+   */
+  private class DirectoryScan extends RecursiveTask<List<LocalFile>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Path directory;
+    private final int depth;
+
+    /**
+     * Creates a {@link DirectoryScan}.
+     *
+     * @param directory the directory to scan
+     * @param depth     the depth of the entries of the directory, relative to the root folder
+     */
+    DirectoryScan(Path directory, int depth) {
+      this.directory = directory;
+      this.depth = depth;
+    }
+
+    @Override
+    protected List<LocalFile> compute() {
+      List<Supplier<List<LocalFile>>> entries = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+        for (Path entry : stream) {
+          BasicFileAttributes attributes =
+              Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+          if (attributes.isDirectory() && depth < FILE_WALK_MAX_DEPTH) {
+            entries.add(new DirectoryScan(entry, depth + 1).fork()::join);
+          } else if (isRegularFile(entry, attributes) && ignoreChecksumFiles(entry)) {
+            LocalFile localFile = createLocalFile(entry, root, fileDigests);
+            entries.add(() -> List.of(localFile));
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      return entries.stream().map(Supplier::get).flatMap(List::stream).collect(Collectors.toList());
+    }
+  }
 }
@@ -7,9 +7,17 @@ import app.coronawarn.server.services.distribution.assembly.component.CwaApiStru
 import app.coronawarn.server.services.distribution.assembly.component.OutputDirectoryProvider;
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
 import app.coronawarn.server.services.distribution.assembly.structure.util.ImmutableStack;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal.Phase;
+import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
+import app.coronawarn.server.services.distribution.objectstore.S3Publisher;
+import app.coronawarn.server.services.distribution.objectstore.S3PublishingPipeline;
+import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.ApplicationContext;
@@ -17,7 +25,8 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 /**
- * This runner assembles and writes diagnosis key bundles and the parameter configuration.
+ * This runner assembles and writes diagnosis key bundles and the parameter configuration. If pipelined upload is
+ * enabled, the files are also published to the object store while they are written.
  */
 @Component
 @Order(2)
@@ -31,29 +40,52 @@ public class Assembly implements ApplicationRunner {
 
   private final ApplicationContext applicationContext;
 
+  private final ObjectProvider<S3Publisher> s3Publisher;
+
+  private final FileDigests fileDigests;
+
+  private final int parallelism;
+
+  private final boolean pipelinedUpload;
+
   /**
-   * Creates an Assembly, using {@link OutputDirectoryProvider}, {@link CwaApiStructureProvider} and
-   * {@link ApplicationContext}.
+   * Creates an Assembly, using {@link OutputDirectoryProvider}, {@link CwaApiStructureProvider},
+   * {@link ApplicationContext}, {@link S3Publisher}, {@link FileDigests} and {@link DistributionServiceConfig}.
    */
   Assembly(OutputDirectoryProvider outputDirectoryProvider,
-      CwaApiStructureProvider cwaApiStructureProvider, ApplicationContext applicationContext) {
+      CwaApiStructureProvider cwaApiStructureProvider, ApplicationContext applicationContext,
+      ObjectProvider<S3Publisher> s3Publisher, FileDigests fileDigests,
+      DistributionServiceConfig distributionServiceConfig) {
     this.outputDirectoryProvider = outputDirectoryProvider;
     this.cwaApiStructureProvider = cwaApiStructureProvider;
     this.applicationContext = applicationContext;
+    this.s3Publisher = s3Publisher;
+    this.fileDigests = fileDigests;
+    this.parallelism = Objects.requireNonNullElse(distributionServiceConfig.getAssemblyParallelism(), 1);
+    this.pipelinedUpload = Boolean.TRUE.equals(distributionServiceConfig.getObjectStore().getPipelinedUpload());
   }
 
   @Override
   public void run(ApplicationArguments args) {
     try {
-      Directory<WritableOnDisk> outputDirectory = this.outputDirectoryProvider.getDirectory();
+      fileDigests.clear();
+      S3Publisher publisher = pipelinedUpload ? s3Publisher.getIfAvailable() : null;
+      S3PublishingPipeline pipeline = publisher == null ? null
+          : publisher.startPipelinedPublishing(outputDirectoryProvider.getFileOnDisk().toPath().toAbsolutePath());
+      WritableTraversal traversal = new WritableTraversal(parallelism, fileDigests, pipeline);
+      Directory<WritableOnDisk> outputDirectory = this.outputDirectoryProvider.getDirectory(traversal);
       outputDirectory.addWritable(cwaApiStructureProvider.getDirectory());
       outputDirectory.addWritable(cwaApiStructureProvider.getDirectoryV2());
       this.outputDirectoryProvider.clear();
       logger.debug("Preparing files...");
       logger.info("Start signing...");
-      outputDirectory.prepare(new ImmutableStack<>());
+      runPhase(traversal, Phase.PREPARE, () -> outputDirectory.prepare(new ImmutableStack<>()));
       logger.debug("Writing files...");
-      outputDirectory.write();
+      runPhase(traversal, Phase.WRITE, outputDirectory::write);
+      if (pipeline != null) {
+        publisher.publish(pipeline);
+        logger.info("Data pushed to Object Store during assembly.");
+      }
     } catch (Exception e) {
       logger.error("Distribution data assembly failed.", e);
       Application.killApplication(applicationContext);
@@ -61,4 +93,14 @@ public class Assembly implements ApplicationRunner {
 
     logger.debug("Distribution data assembled successfully.");
   }
+
+  private void runPhase(WritableTraversal traversal, Phase phase, Runnable action) {
+    long startTime = System.currentTimeMillis();
+    traversal.invoke(action);
+    logger.info("Assembly phase {} completed in {} ms using {} thread(s).", phase,
+        System.currentTimeMillis() - startTime, parallelism);
+    traversal.getTimings(phase).forEach((level, timing) -> logger.info(
+        "Assembly phase {}, level {}: {} subtree(s), {} ms total, {} ms max.", phase, level, timing.getCount(),
+        timing.getTotalMillis(), timing.getMaxMillis()));
+  }
 }
@@ -69,9 +69,7 @@ public class RetentionPolicy implements ApplicationRunner {
     try {
       diagnosisKeyService.applyRetentionPolicy(retentionDays);
       traceTimeIntervalWarningService.applyRetentionPolicy(retentionDays);
-      s3RetentionPolicy.applyDiagnosisKeyDayRetentionPolicy(retentionDays);
-      s3RetentionPolicy.applyDiagnosisKeyHourRetentionPolicy(hourFileRetentionDays);
-      s3RetentionPolicy.applyTraceTimeWarningHourRetentionPolicy(retentionDays);
+      s3RetentionPolicy.applyRetentionPolicy(retentionDays, hourFileRetentionDays);
       statisticsDownloadService.applyRetentionPolicy(retentionDays);
     } catch (Exception e) {
       logger.error("Application of retention policy failed.", e);
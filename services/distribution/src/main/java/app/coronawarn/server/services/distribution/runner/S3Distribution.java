@@ -4,8 +4,13 @@ package app.coronawarn.server.services.distribution.runner;
 
 import app.coronawarn.server.services.distribution.Application;
 import app.coronawarn.server.services.distribution.assembly.component.OutputDirectoryProvider;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeysFingerprintManifest;
+import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
+import app.coronawarn.server.services.distribution.objectstore.FailedObjectStoreOperationsCounter;
+import app.coronawarn.server.services.distribution.objectstore.ObjectStoreAccess;
 import app.coronawarn.server.services.distribution.objectstore.S3Publisher;
 import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreOperationFailedException;
+import app.coronawarn.server.services.distribution.objectstore.client.UploadStatistics;
 import java.io.IOException;
 import java.nio.file.Path;
 import org.slf4j.Logger;
@@ -17,7 +22,8 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 /**
- * This runner will sync the base working directory to the S3.
+ * This runner will sync the base working directory to the S3, unless the files have already been uploaded during the
+ * assembly with pipelined upload.
  */
 @Component
 @Order(3)
@@ -28,24 +34,57 @@ public class S3Distribution implements ApplicationRunner {
   private final OutputDirectoryProvider outputDirectoryProvider;
   private final S3Publisher s3Publisher;
   private final ApplicationContext applicationContext;
+  private final DiagnosisKeysFingerprintManifest fingerprintManifest;
+  private final FailedObjectStoreOperationsCounter failedOperationsCounter;
+  private final ObjectStoreAccess objectStoreAccess;
+  private final DistributionServiceConfig distributionServiceConfig;
 
   S3Distribution(OutputDirectoryProvider outputDirectoryProvider, S3Publisher s3Publisher,
-      ApplicationContext applicationContext) {
+      ApplicationContext applicationContext, DiagnosisKeysFingerprintManifest fingerprintManifest,
+      FailedObjectStoreOperationsCounter failedOperationsCounter, ObjectStoreAccess objectStoreAccess,
+      DistributionServiceConfig distributionServiceConfig) {
     this.outputDirectoryProvider = outputDirectoryProvider;
     this.s3Publisher = s3Publisher;
     this.applicationContext = applicationContext;
+    this.fingerprintManifest = fingerprintManifest;
+    this.failedOperationsCounter = failedOperationsCounter;
+    this.objectStoreAccess = objectStoreAccess;
+    this.distributionServiceConfig = distributionServiceConfig;
   }
 
   @Override
   public void run(ApplicationArguments args) {
     try {
       Path pathToDistribute = outputDirectoryProvider.getFileOnDisk().toPath().toAbsolutePath();
+      UploadStatistics uploadStatistics = objectStoreAccess.getUploadStatistics();
 
-      s3Publisher.publish(pathToDistribute);
-      logger.info("Data pushed to Object Store successfully.");
+      if (Boolean.TRUE.equals(distributionServiceConfig.getObjectStore().getPipelinedUpload())) {
+        // the statistics of the pipelined upload have been collected during the assembly
+        logger.info("Data has been pushed to Object Store during assembly.");
+      } else {
+        uploadStatistics.reset();
+        s3Publisher.publish(pathToDistribute);
+        logger.info("Data pushed to Object Store successfully.");
+      }
+      logger.info("Uploaded {} bytes at {} bytes/s per upload, {} multipart upload(s) with {} part retries.",
+          uploadStatistics.getUploadedBytes(), uploadStatistics.getUploadBytesPerSecond(),
+          uploadStatistics.getNumberOfMultipartUploads(), uploadStatistics.getNumberOfPartRetries());
+      persistFingerprintManifest();
     } catch (UnsupportedOperationException | ObjectStoreOperationFailedException | IOException e) {
       logger.error("Distribution failed.", e);
       Application.killApplication(applicationContext);
     }
   }
+
+  /**
+   * The fingerprints are only persisted if all files have been published. Otherwise, archives that failed to upload
+   * would be considered unchanged and thus skipped in the next run.
+   */
+  private void persistFingerprintManifest() {
+    if (failedOperationsCounter.getNumberOfFailedOperations() > 0) {
+      logger.warn("Fingerprint manifest is not persisted, because not all object store operations succeeded.");
+      return;
+    }
+    fingerprintManifest.persist();
+  }
 }
@@ -1,11 +1,13 @@
 package app.coronawarn.server.services.distribution.assembly.component;
 
 import static app.coronawarn.server.services.distribution.common.Helpers.buildDiagnosisKeys;
+import static org.mockito.ArgumentMatchers.any;
 
 import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
 import app.coronawarn.server.common.persistence.service.DiagnosisKeyService;
 import app.coronawarn.server.common.persistence.service.common.KeySharingPoliciesChecker;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyBundler;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeysFingerprintManifest;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.ProdDiagnosisKeyBundler;
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
@@ -14,6 +16,7 @@ import app.coronawarn.server.services.distribution.config.DistributionServiceCon
 import app.coronawarn.server.services.distribution.config.TransmissionRiskLevelEncoding;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Assertions;
@@ -58,14 +61,19 @@ class DiagnosisKeysStructureProviderTest {
         .mapToObj(currentHour -> buildDiagnosisKeys(6, LocalDateTime.of(1970, 1, 3, 0, 0).plusHours(currentHour), 5))
         .flatMap(List::stream)
         .collect(Collectors.toList());
-    Mockito.when(diagnosisKeyService.getDiagnosisKeys()).thenReturn(diagnosisKeys);
+    Mockito.when(diagnosisKeyService.streamDiagnosisKeys(any())).thenAnswer(invocation -> {
+      Consumer<DiagnosisKey> consumer = invocation.getArgument(0);
+      diagnosisKeys.forEach(consumer);
+      return (long) diagnosisKeys.size();
+    });
   }
 
   @Test
   void testGetDiagnosisKeysReturnsCorrectDirectoryName() {
     DiagnosisKeyBundler bundler = new ProdDiagnosisKeyBundler(distributionServiceConfig, sharingPoliciesChecker);
     DiagnosisKeysStructureProvider diagnosisKeysStructureProvider = new DiagnosisKeysStructureProvider(
-        diagnosisKeyService, cryptoProvider, distributionServiceConfig, bundler, enfParameterAdapter);
+        diagnosisKeyService, cryptoProvider, distributionServiceConfig, bundler, enfParameterAdapter,
+        new DiagnosisKeysFingerprintManifest(distributionServiceConfig));
     Directory<WritableOnDisk> diagnosisKeys = diagnosisKeysStructureProvider.getDiagnosisKeys();
     Assertions.assertEquals("diagnosis-keys", diagnosisKeys.getName());
   }
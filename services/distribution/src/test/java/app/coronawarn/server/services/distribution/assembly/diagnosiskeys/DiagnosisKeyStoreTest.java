@@ -0,0 +1,96 @@
+package app.coronawarn.server.services.distribution.assembly.diagnosiskeys;
+
+import static app.coronawarn.server.services.distribution.common.Helpers.buildDiagnosisKeys;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
+import app.coronawarn.server.common.protocols.external.exposurenotification.TemporaryExposureKey;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyStore.Keys;
+import com.google.protobuf.ByteString;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DiagnosisKeyStoreTest {
+
+  private DiagnosisKeyStore store;
+
+  @BeforeEach
+  void setup() {
+    store = new DiagnosisKeyStore();
+  }
+
+  @Test
+  void storedKeysAreEqualToAddedKeys() {
+    List<DiagnosisKey> diagnosisKeys = List.of(
+        buildDiagnosisKeys(6, 50L, 1, "DE", Set.of("DE", "FR"), ReportType.CONFIRMED_TEST, 3, 5).get(0),
+        buildDiagnosisKeys(12, 51L, 1, "FR", Set.of("FR"), ReportType.SELF_REPORT, -2, 1).get(0));
+    Keys keys = addAll(diagnosisKeys);
+
+    assertThat(keys).containsExactlyElementsOf(diagnosisKeys);
+    assertThat(store.getDistributionTimestamp(keys.getIndex(1))).isEqualTo(51L);
+  }
+
+  @Test
+  void createsTemporaryExposureKeysFromStoredAttributes() {
+    DiagnosisKey diagnosisKey = buildDiagnosisKeys(6, 50L, 1).get(0);
+    Keys keys = addAll(List.of(diagnosisKey));
+
+    assertThat(keys.toTemporaryExposureKeys()).containsExactly(TemporaryExposureKey.newBuilder()
+        .setKeyData(ByteString.copyFrom(diagnosisKey.getKeyData()))
+        .setTransmissionRiskLevel(diagnosisKey.getTransmissionRiskLevel())
+        .setRollingStartIntervalNumber(diagnosisKey.getRollingStartIntervalNumber())
+        .setRollingPeriod(diagnosisKey.getRollingPeriod())
+        .setReportType(diagnosisKey.getReportType())
+        .setDaysSinceOnsetOfSymptoms(diagnosisKey.getDaysSinceOnsetOfSymptoms())
+        .build());
+  }
+
+  @Test
+  void internsVisitedCountries() {
+    Keys keys = addAll(buildDiagnosisKeys(6, 50L, 3, "DE", Set.of("DE", "NL"), ReportType.CONFIRMED_TEST, 0));
+    int index = keys.getIndex(2);
+
+    assertThat(store.getOriginCountry(index)).isEqualTo("DE");
+    assertThat(store.getVisitedCountries(index)).containsExactlyInAnyOrder("DE", "NL");
+    assertThat(store.isVisitedCountry(index, "NL")).isTrue();
+    assertThat(store.isVisitedCountry(index, "FR")).isFalse();
+    assertThat(store.isVisitedCountry(index, "IE")).isFalse();
+  }
+
+  @Test
+  void growsBeyondInitialCapacity() {
+    List<DiagnosisKey> diagnosisKeys = buildDiagnosisKeys(6, 50L, 5000);
+    Keys keys = addAll(diagnosisKeys);
+
+    assertThat(store.size()).isEqualTo(5000);
+    assertThat(keys).hasSize(5000);
+    assertThat(keys.get(4999)).isEqualTo(diagnosisKeys.get(4999));
+  }
+
+  @Test
+  void removesDuplicateIndices() {
+    Keys keys = addAll(buildDiagnosisKeys(6, 50L, 3));
+    Keys union = store.newKeys();
+    union.addAll(keys);
+    union.addIndex(keys.getIndex(0));
+    union.addAll(keys);
+
+    union.sortAndRemoveDuplicates();
+
+    assertThat(union).hasSize(3);
+    assertThat(List.of(union.getIndex(0), union.getIndex(1), union.getIndex(2)))
+        .containsExactly(keys.getIndex(0), keys.getIndex(1), keys.getIndex(2));
+    assertThatThrownBy(() -> union.getIndex(3)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  private Keys addAll(List<DiagnosisKey> diagnosisKeys) {
+    Keys keys = store.newKeys();
+    diagnosisKeys.forEach(diagnosisKey ->
+        keys.addIndex(store.add(diagnosisKey, diagnosisKey.getSubmissionTimestamp())));
+    return keys;
+  }
+}
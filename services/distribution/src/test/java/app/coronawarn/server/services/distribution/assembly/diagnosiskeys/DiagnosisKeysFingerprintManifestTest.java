@@ -0,0 +1,143 @@
+package app.coronawarn.server.services.distribution.assembly.diagnosiskeys;
+
+import static app.coronawarn.server.services.distribution.common.Helpers.buildDiagnosisKeys;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@EnableConfigurationProperties(value = DistributionServiceConfig.class)
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {DistributionServiceConfig.class},
+    initializers = ConfigDataApplicationContextInitializer.class)
+class DiagnosisKeysFingerprintManifestTest {
+
+  private static final String ENTRY = "DE/1970-01-03/5";
+
+  @Rule
+  private TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Autowired
+  DistributionServiceConfig distributionServiceConfig;
+
+  private List<DiagnosisKey> diagnosisKeys;
+
+  private File manifest;
+
+  @BeforeEach
+  void setup() throws IOException {
+    temporaryFolder.create();
+    manifest = new File(temporaryFolder.newFolder(), "fingerprints");
+    distributionServiceConfig.getPaths().setFingerprintManifest(manifest.getPath());
+    distributionServiceConfig.setIncrementalAssembly(true);
+    diagnosisKeys = buildDiagnosisKeys(6, 53L, 5);
+  }
+
+  @AfterEach
+  void tearDown() {
+    distributionServiceConfig.getPaths().setFingerprintManifest(null);
+    distributionServiceConfig.setIncrementalAssembly(false);
+    distributionServiceConfig.getObjectStore().setForceUpdateKeyfiles(false);
+  }
+
+  @Test
+  void testNothingIsUnchangedWithoutPreviousManifest() {
+    var fingerprintManifest = new DiagnosisKeysFingerprintManifest(distributionServiceConfig);
+
+    assertThat(fingerprintManifest.isUnchanged(ENTRY, diagnosisKeys, 0, 3600)).isFalse();
+  }
+
+  @Test
+  void testSameKeysAreUnchangedAfterPersisting() {
+    runAndPersist();
+
+    var fingerprintManifest = new DiagnosisKeysFingerprintManifest(distributionServiceConfig);
+
+    assertThat(fingerprintManifest.isUnchanged(ENTRY, diagnosisKeys, 0, 3600)).isTrue();
+    assertThat(fingerprintManifest.getNumberOfUnchangedEntries()).isEqualTo(1);
+  }
+
+  @Test
+  void testAdditionalKeyIsDetected() {
+    runAndPersist();
+    List<DiagnosisKey> changedKeys = new ArrayList<>(diagnosisKeys);
+    changedKeys.addAll(buildDiagnosisKeys(6, 53L, 1));
+
+    var fingerprintManifest = new DiagnosisKeysFingerprintManifest(distributionServiceConfig);
+
+    assertThat(fingerprintManifest.isUnchanged(ENTRY, changedKeys, 0, 3600)).isFalse();
+    assertThat(fingerprintManifest.isUnchanged("DE/1970-01-03/6", diagnosisKeys, 0, 3600)).isFalse();
+  }
+
+  @Test
+  void testNothingIsSkippedIfIncrementalAssemblyIsDisabled() {
+    runAndPersist();
+    distributionServiceConfig.setIncrementalAssembly(false);
+
+    var fingerprintManifest = new DiagnosisKeysFingerprintManifest(distributionServiceConfig);
+
+    assertThat(fingerprintManifest.isUnchanged(ENTRY, diagnosisKeys, 0, 3600)).isFalse();
+  }
+
+  @Test
+  void testNoManifestIsWrittenIfIncrementalAssemblyIsDisabled() {
+    distributionServiceConfig.setIncrementalAssembly(false);
+
+    runAndPersist();
+
+    assertThat(manifest).doesNotExist();
+  }
+
+  @Test
+  void testFailureToPersistIsNotFatal() throws IOException {
+    File unwritableManifest = new File(temporaryFolder.newFile(), "fingerprints");
+    distributionServiceConfig.getPaths().setFingerprintManifest(unwritableManifest.getPath());
+
+    assertThatCode(this::runAndPersist).doesNotThrowAnyException();
+    assertThat(unwritableManifest).doesNotExist();
+  }
+
+  @Test
+  void testNothingIsSkippedIfKeyFilesAreForcedToBeUpdated() {
+    runAndPersist();
+    distributionServiceConfig.getObjectStore().setForceUpdateKeyfiles(true);
+
+    var fingerprintManifest = new DiagnosisKeysFingerprintManifest(distributionServiceConfig);
+
+    assertThat(fingerprintManifest.isUnchanged(ENTRY, diagnosisKeys, 0, 3600)).isFalse();
+  }
+
+  @Test
+  void testStoredKeysHaveSameFingerprintAsDiagnosisKeys() {
+    runAndPersist();
+    DiagnosisKeyStore store = new DiagnosisKeyStore();
+    DiagnosisKeyStore.Keys storedKeys = store.newKeys();
+    diagnosisKeys.forEach(diagnosisKey -> storedKeys.addIndex(store.add(diagnosisKey, 53L)));
+
+    var fingerprintManifest = new DiagnosisKeysFingerprintManifest(distributionServiceConfig);
+
+    assertThat(fingerprintManifest.isUnchanged(ENTRY, storedKeys, 0, 3600)).isTrue();
+  }
+
+  private void runAndPersist() {
+    var fingerprintManifest = new DiagnosisKeysFingerprintManifest(distributionServiceConfig);
+    fingerprintManifest.isUnchanged(ENTRY, diagnosisKeys, 0, 3600);
+    fingerprintManifest.persist();
+  }
+}
@@ -12,6 +12,7 @@ import app.coronawarn.server.common.protocols.external.exposurenotification.Repo
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -263,6 +264,60 @@ class ProdDiagnosisKeyBundlerKeyRetrievalTest {
     assertThat(expectedKeys).isEmpty();
   }
 
+  @Test
+  void testGetsNoDatesWithDistributableDiagnosisKeysExceedingMaximumNumberOfKeys() {
+    DistributionServiceConfig spyConfig = spy(distributionServiceConfig);
+    when(spyConfig.getMaximumNumberOfKeysPerBundle()).thenReturn(50);
+    when(spyConfig.getShiftingPolicyThreshold()).thenReturn(1);
+    DiagnosisKeyBundler keyBundler = new ProdDiagnosisKeyBundler(spyConfig, sharingPolicyChecker);
+
+    List<DiagnosisKey> diagnosisKeys = IntStream.range(0, 24).mapToObj(hour ->
+        buildDiagnosisKeys(6, LocalDateTime.of(1970, 1, 4, hour, 0), 4))
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+    keyBundler.setDiagnosisKeys(diagnosisKeys, LocalDateTime.of(1970, 1, 5, 0, 0));
+
+    assertThat(keyBundler.getDatesWithDistributableDiagnosisKeys("DE")).isEmpty();
+    assertThat(keyBundler.numberOfKeysForDateBelowMaximum(LocalDate.of(1970, 1, 4), "DE")).isFalse();
+    assertThat(keyBundler.getHoursWithDistributableDiagnosisKeys(LocalDate.of(1970, 1, 4), "DE")).hasSize(24);
+  }
+
+  @Test
+  void testGetsDatesAndHoursOfTwoWeeksForTwoCountries() {
+    LocalDate firstDate = LocalDate.of(1970, 1, 3);
+    int numberOfDays = 14;
+    int keysPerHour = 5;
+    List<DiagnosisKey> diagnosisKeys = IntStream.range(0, numberOfDays * 24)
+        .mapToObj(hour -> firstDate.atStartOfDay().plusHours(hour))
+        .flatMap(hour -> {
+          // rolling periods that expired long before the submission, so that each key is distributed in its hour
+          int startIntervalNumber = (int) ((hour.toEpochSecond(ZoneOffset.UTC) / 3600 - 30) * 6);
+          return Stream.of(buildDiagnosisKeys(startIntervalNumber, hour, keysPerHour),
+              buildDiagnosisKeys(startIntervalNumber, hour, keysPerHour, "FR", Set.of("FR"),
+                  ReportType.CONFIRMED_TEST, 0));
+        })
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+    bundler.setDiagnosisKeys(diagnosisKeys, firstDate.plusDays(numberOfDays).atStartOfDay());
+
+    Set<LocalDate> expectedDates = IntStream.range(0, numberOfDays).mapToObj(firstDate::plusDays)
+        .collect(Collectors.toSet());
+    for (String country : List.of("DE", "FR", "EUR")) {
+      int expectedKeysPerHour = country.equals("EUR") ? 2 * keysPerHour : keysPerHour;
+      assertThat(bundler.getDatesWithDistributableDiagnosisKeys(country)).isEqualTo(expectedDates);
+      for (LocalDate date : expectedDates) {
+        Set<LocalDateTime> hours = bundler.getHoursWithDistributableDiagnosisKeys(date, country);
+        assertThat(hours).hasSize(24).allMatch(hour -> hour.toLocalDate().equals(date));
+        assertThat(bundler.getDiagnosisKeysForDate(date, country))
+            .hasSize(24 * expectedKeysPerHour)
+            .containsExactlyElementsOf(hours.stream().sorted()
+                .flatMap(hour -> bundler.getDiagnosisKeysForHour(hour, country).stream())
+                .collect(Collectors.toList()));
+      }
+      assertThat(bundler.getDiagnosisKeysForDate(firstDate.plusDays(numberOfDays), country)).isEmpty();
+    }
+  }
+
   @Test
   void testIfOriginCountryKeyIsPartOfEuPackage() {
     List<DiagnosisKey> diagnosisKeys = Stream
@@ -9,6 +9,7 @@ import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
 import app.coronawarn.server.common.persistence.service.common.KeySharingPoliciesChecker;
 import app.coronawarn.server.services.distribution.assembly.component.CryptoProvider;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeyBundler;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeysFingerprintManifest;
 import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.ProdDiagnosisKeyBundler;
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
@@ -80,7 +81,7 @@ class DiagnosisKeysDateDirectoryTest {
     bundler
         .setDiagnosisKeys(diagnosisKeys, distributionTime);
     DiagnosisKeysDateDirectory dateDirectory = new DiagnosisKeysDateDirectory(bundler, cryptoProvider,
-        distributionServiceConfig);
+        distributionServiceConfig, new DiagnosisKeysFingerprintManifest(distributionServiceConfig));
     Directory<WritableOnDisk> outputDirectory = new DirectoryOnDisk(outputFile);
     outputDirectory.addWritable(dateDirectory);
     dateDirectory.prepare(new ImmutableStack<>()
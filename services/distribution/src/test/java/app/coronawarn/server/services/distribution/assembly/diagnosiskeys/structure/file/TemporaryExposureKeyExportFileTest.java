@@ -3,6 +3,7 @@ package app.coronawarn.server.services.distribution.assembly.diagnosiskeys.struc
 import static app.coronawarn.server.services.distribution.common.Helpers.buildDiagnosisKeyForSubmissionTimestamp;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import app.coronawarn.server.common.protocols.external.exposurenotification.TemporaryExposureKeyExport;
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.DirectoryOnDisk;
@@ -11,7 +12,9 @@ import app.coronawarn.server.services.distribution.config.DistributionServiceCon
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig.Signature;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.List;
 import org.junit.Rule;
 import org.junit.jupiter.api.BeforeEach;
@@ -71,6 +74,19 @@ class TemporaryExposureKeyExportFileTest {
     assertThat(checksum1).isNotEqualTo(checksum2);
   }
 
+  @Test
+  void testExportBytesConsistOfHeaderAndExport() throws IOException {
+    TemporaryExposureKeyExportFile tekExportFile = createTemporaryExposureKeyExportFile();
+    tekExportFile.prepare(new ImmutableStack<>());
+
+    byte[] header = "EK Export v1    ".getBytes(StandardCharsets.UTF_8);
+    TemporaryExposureKeyExport export = TemporaryExposureKeyExport.parseFrom(tekExportFile.getBytesWithoutHeader());
+    assertThat(Arrays.copyOf(tekExportFile.getBytes(), header.length)).isEqualTo(header);
+    assertThat(export.getRegion()).isEqualTo("DE");
+    assertThat(export.getKeysCount()).isEqualTo(1);
+    assertThat(tekExportFile.getBytes()).hasSize(header.length + export.getSerializedSize());
+  }
+
   private TemporaryExposureKeyExportFile createTemporaryExposureKeyExportFile() {
     return TemporaryExposureKeyExportFile.fromDiagnosisKeys(
         List.of(
@@ -3,17 +3,33 @@
 package app.coronawarn.server.services.distribution.assembly.io;
 
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
 
 class IOTest {
 
+  @Rule
+  private final TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private File outputFolder;
+
+  @BeforeEach
+  void setup() throws IOException {
+    temporaryFolder.create();
+    outputFolder = temporaryFolder.newFolder();
+  }
+
   @Test
   void doesNotWriteIfMaximumFileSize() {
     File file = mock(File.class);
@@ -21,4 +37,30 @@ class IOTest {
         .isThrownBy(() -> IO.writeBytesToFile(new byte[IO.MAXIMUM_FILE_SIZE + 1], file));
     verify(file, never()).getPath();
   }
+
+  @Test
+  void writesStreamedContent() throws IOException {
+    IO.makeNewFile(outputFolder, "file");
+    File file = new File(outputFolder, "file");
+
+    IO.writeToFile(file, outputStream -> {
+      outputStream.write(1);
+      outputStream.write(new byte[]{2, 3});
+    });
+
+    assertThat(Files.readAllBytes(file.toPath())).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  void removesStreamedFileIfMaximumFileSizeIsExceeded() {
+    IO.makeNewFile(outputFolder, "file");
+    File file = new File(outputFolder, "file");
+
+    assertThatExceptionOfType(UncheckedIOException.class)
+        .isThrownBy(() -> IO.writeToFile(file, outputStream -> {
+          outputStream.write(new byte[IO.MAXIMUM_FILE_SIZE]);
+          outputStream.write(1);
+        }));
+    assertThat(file).doesNotExist();
+  }
 }
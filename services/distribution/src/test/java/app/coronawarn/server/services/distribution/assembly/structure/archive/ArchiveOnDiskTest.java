@@ -0,0 +1,92 @@
+package app.coronawarn.server.services.distribution.assembly.structure.archive;
+
+import static app.coronawarn.server.services.distribution.assembly.structure.file.FileOnDiskWithChecksum.buildChecksumPathForFile;
+import static java.nio.file.Files.readString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.server.services.distribution.assembly.structure.directory.DirectoryOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileOnDiskWithChecksum;
+import app.coronawarn.server.services.distribution.assembly.structure.util.ImmutableStack;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.ZipInputStream;
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.DigestUtils;
+
+class ArchiveOnDiskTest {
+
+  private final byte[] exportBytes = "World".getBytes();
+  private final byte[] signatureBytes = "Signature".getBytes();
+  private final FileDigests fileDigests = new FileDigests();
+  private ArchiveOnDisk archive;
+
+  @Rule
+  private final TemporaryFolder outputFolder = new TemporaryFolder();
+
+  @BeforeEach
+  public void setup() throws IOException {
+    outputFolder.create();
+    archive = new ArchiveOnDisk("index");
+    archive.setParent(new DirectoryOnDisk(outputFolder.newFolder(), new WritableTraversal(1, fileDigests, null)));
+    archive.addWritable(new FileOnDisk("export.bin", exportBytes));
+    archive.prepare(new ImmutableStack<>());
+    archive.addWritable(new FileOnDisk("export.sig", signatureBytes));
+  }
+
+  @Test
+  void writtenArchiveContainsSortedEntries() throws IOException {
+    archive.write();
+
+    byte[] writtenBytes = Files.readAllBytes(archive.getFileOnDisk().toPath());
+    assertThat(readEntries(writtenBytes)).containsExactly("export.bin=World", "export.sig=Signature");
+    assertThat(readEntries(archive.getBytes())).isEqualTo(readEntries(writtenBytes));
+  }
+
+  @Test
+  void checksumIsComputedFromExportFile() throws IOException {
+    archive.write();
+
+    FileOnDiskWithChecksum exportFile = new FileOnDiskWithChecksum("export.bin", exportBytes);
+    exportFile.setParent(new DirectoryOnDisk(outputFolder.newFolder()));
+    exportFile.write();
+
+    assertThat(readString(buildChecksumPathForFile(archive.getFileOnDisk().toPath())))
+        .isEqualTo(readString(buildChecksumPathForFile(exportFile.getFileOnDisk().toPath())));
+  }
+
+  @Test
+  void contentMd5IsComputedFromWrittenArchive() throws IOException {
+    archive.write();
+
+    byte[] writtenBytes = Files.readAllBytes(archive.getFileOnDisk().toPath());
+    assertThat(fileDigests.getContentMd5(archive.getFileOnDisk().toPath()))
+        .contains(Base64.getEncoder().encodeToString(DigestUtils.md5Digest(writtenBytes)));
+  }
+
+  @Test
+  void addedWritablesAreContainedInArchive() throws IOException {
+    archive.addWritable(new FileOnDisk("other.bin", exportBytes));
+
+    assertThat(readEntries(archive.getBytes())).contains("other.bin=World");
+  }
+
+  private static List<String> readEntries(byte[] zipBytes) throws IOException {
+    List<String> entries = new ArrayList<>();
+    try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zipBytes))) {
+      for (var entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+        entries.add(entry.getName() + "=" + new String(zipInputStream.readAllBytes()));
+      }
+    }
+    return entries;
+  }
+}
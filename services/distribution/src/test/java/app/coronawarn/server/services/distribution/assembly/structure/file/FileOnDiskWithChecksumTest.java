@@ -5,11 +5,14 @@ import static java.nio.file.Files.readString;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import app.coronawarn.server.services.distribution.assembly.structure.directory.DirectoryOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal;
 import java.io.IOException;
+import java.util.Base64;
 import org.junit.Rule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.rules.TemporaryFolder;
+import org.springframework.util.DigestUtils;
 
 class FileOnDiskWithChecksumTest {
 
@@ -36,4 +39,15 @@ class FileOnDiskWithChecksumTest {
     assertThat(checksum).isEqualTo("65584eac1cb9fd270adb3a733be69c3e");
   }
 
+  @Test
+  void checkContentMd5() throws IOException {
+    FileDigests fileDigests = new FileDigests();
+    file = new FileOnDiskWithChecksum("Hello", bytes);
+    file.setParent(new DirectoryOnDisk(outputFolder.newFolder(), new WritableTraversal(1, fileDigests, null)));
+    file.write();
+
+    assertThat(fileDigests.getContentMd5(file.getFileOnDisk().toPath()))
+        .contains(Base64.getEncoder().encodeToString(DigestUtils.md5Digest(bytes)));
+  }
+
 }
@@ -0,0 +1,150 @@
+package app.coronawarn.server.services.distribution.assembly.structure.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.archive.ArchiveOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
+import app.coronawarn.server.services.distribution.assembly.structure.directory.DirectoryOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.directory.IndexDirectoryOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.util.WritableTraversal.Phase;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipInputStream;
+import org.junit.Rule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.rules.TemporaryFolder;
+
+class WritableTraversalTest {
+
+  private static final Set<Integer> days = IntStream.rangeClosed(1, 5).boxed().collect(Collectors.toSet());
+  private static final Set<Integer> hours = IntStream.range(0, 24).boxed().collect(Collectors.toSet());
+
+  @Rule
+  private TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @BeforeEach
+  void setup() throws IOException {
+    temporaryFolder.create();
+  }
+
+  @Test
+  void parallelAssemblyProducesSameOutputAsSequentialAssembly() throws IOException {
+    java.io.File sequentialOutput = temporaryFolder.newFolder();
+    java.io.File parallelOutput = temporaryFolder.newFolder();
+
+    assemble(sequentialOutput, new WritableTraversal());
+    assemble(parallelOutput, new WritableTraversal(4, new FileDigests(), null));
+
+    Map<String, List<String>> sequentialContent = readContent(sequentialOutput.toPath());
+    assertThat(sequentialContent).hasSize(days.size() * hours.size() * 2);
+    assertThat(readContent(parallelOutput.toPath())).isEqualTo(sequentialContent);
+  }
+
+  @Test
+  void recordsTimingsPerLevel() throws IOException {
+    WritableTraversal traversal = new WritableTraversal(4, new FileDigests(), null);
+    assemble(temporaryFolder.newFolder(), traversal);
+
+    Map<Integer, WritableTraversal.LevelTiming> prepareTimings = traversal.getTimings(Phase.PREPARE);
+    assertThat(prepareTimings.get(1).getCount()).isEqualTo(1);
+    assertThat(prepareTimings.get(2).getCount()).isEqualTo(days.size());
+    assertThat(prepareTimings.get(4).getCount()).isEqualTo((long) days.size() * hours.size());
+    assertThat(traversal.getTimings(Phase.WRITE)).isNotEmpty();
+  }
+
+  @Test
+  void notifiesListenerAboutEachWrittenFile() throws IOException {
+    java.io.File output = temporaryFolder.newFolder();
+    Set<Path> writtenFiles = ConcurrentHashMap.newKeySet();
+    assemble(output, new WritableTraversal(4, new FileDigests(), file -> writtenFiles.add(file.toPath())));
+
+    try (Stream<Path> files = Files.walk(output.toPath())) {
+      assertThat(writtenFiles).containsExactlyInAnyOrderElementsOf(files.filter(Files::isRegularFile)
+          .filter(file -> !file.toString().endsWith(".checksum"))
+          .collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void levelOfRoot() throws IOException {
+    Directory<WritableOnDisk> root = new DirectoryOnDisk(temporaryFolder.newFolder());
+    DirectoryOnDisk child = new DirectoryOnDisk("child");
+    root.addWritable(child);
+
+    assertThat(WritableTraversal.levelOf(root)).isZero();
+    assertThat(WritableTraversal.levelOf(child)).isEqualTo(1);
+  }
+
+  private void assemble(java.io.File outputFolder, WritableTraversal traversal) {
+    Directory<WritableOnDisk> root = new DirectoryOnDisk(outputFolder, traversal);
+    IndexDirectoryOnDisk<Integer> dayDirectory = new IndexDirectoryOnDisk<>("date", ignoredValue -> days,
+        Integer::valueOf);
+    dayDirectory.addWritableToAll(ignoredValue -> {
+      IndexDirectoryOnDisk<Integer> hourDirectory = new IndexDirectoryOnDisk<>("hour", ignoredIndices -> hours,
+          Integer::valueOf);
+      hourDirectory.addWritableToAll(indices -> {
+        ArchiveOnDisk archive = new ArchiveOnDisk("index");
+        archive.addWritable(new FileOnDisk("export.bin", toBytes(indices)));
+        archive.addWritable(new FileOnDisk("export.sig", toBytes(indices.pop())));
+        return Optional.of(archive);
+      });
+      return Optional.of(hourDirectory);
+    });
+    root.addWritable(dayDirectory);
+
+    traversal.invoke(() -> root.prepare(new ImmutableStack<>()));
+    traversal.invoke(root::write);
+  }
+
+  private static byte[] toBytes(ImmutableStack<Object> indices) {
+    return String.valueOf(indices.peek()).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads all files below the specified directory. ZIP archives are represented by their entry names and contents, as
+   * the archives contain the modification times of the entries.
+   */
+  private static Map<String, List<String>> readContent(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile)
+          .collect(Collectors.toMap(file -> directory.relativize(file).toString(), WritableTraversalTest::readFile,
+              (first, second) -> first, TreeMap::new));
+    }
+  }
+
+  private static List<String> readFile(Path file) {
+    try {
+      byte[] bytes = Files.readAllBytes(file);
+      if (file.toString().endsWith(".checksum")) {
+        return List.of(new String(bytes, StandardCharsets.UTF_8));
+      }
+      List<String> entries = new ArrayList<>();
+      try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+        for (var entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+          entries.add(entry.getName() + "=" + new String(zipInputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+      }
+      return entries;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
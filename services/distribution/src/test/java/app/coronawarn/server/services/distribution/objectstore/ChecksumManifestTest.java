@@ -0,0 +1,38 @@
+package app.coronawarn.server.services.distribution.objectstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+import app.coronawarn.server.services.distribution.objectstore.ChecksumManifest.Entry;
+import app.coronawarn.server.services.distribution.objectstore.client.S3Object;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ChecksumManifestTest {
+
+  private static final ChecksumManifest MANIFEST = new ChecksumManifest(Map.of(
+      "version/v1/file1", new Entry("\"etag1\"", "hash1"),
+      "version/v1/file2", new Entry("\"etag2\"", "hash2")));
+
+  @Test
+  void manifestIsRestoredFromJson() throws IOException {
+    ChecksumManifest restored = ChecksumManifest.fromJson(MANIFEST.toJson());
+
+    assertThat(restored.getEntries()).isEqualTo(MANIFEST.getEntries());
+  }
+
+  @Test
+  void cwaHashIsOnlyReturnedForUnchangedObjects() {
+    assertThat(MANIFEST.getCwaHash(new S3Object("version/v1/file1", null, "\"etag1\""))).contains("hash1");
+    assertThat(MANIFEST.getCwaHash(new S3Object("version/v1/file2", null, "\"changed\""))).isEmpty();
+    assertThat(MANIFEST.getCwaHash(new S3Object("version/v1/file2", null, null))).isEmpty();
+    assertThat(MANIFEST.getCwaHash(new S3Object("version/v1/file3", null, "\"etag1\""))).isEmpty();
+  }
+
+  @Test
+  void invalidJsonIsRejected() {
+    assertThatIOException().isThrownBy(() -> ChecksumManifest.fromJson("[".getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -6,20 +6,29 @@ import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
+import app.coronawarn.server.services.distribution.objectstore.ChecksumManifest.Entry;
 import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreClient;
 import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreClient.HeaderKey;
 import app.coronawarn.server.services.distribution.objectstore.client.S3Object;
 import app.coronawarn.server.services.distribution.objectstore.publish.LocalFile;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,6 +37,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -38,11 +48,13 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 class ObjectStoreAccessUnitTest {
 
   private static final String EXP_S3_KEY = "fooS3Key";
+  private static final String MANIFEST_KEY = "manifest/checksums.json";
 
   private final DistributionServiceConfig distributionServiceConfig;
   private final String expBucketName;
   private LocalFile testLocalFile;
   private ObjectStoreAccess objectStoreAccess;
+  private ThreadPoolTaskExecutor executor;
   private Path expPath;
 
   @MockBean
@@ -57,10 +69,19 @@ class ObjectStoreAccessUnitTest {
   @BeforeEach
   public void setUpMocks() {
     when(objectStoreClient.bucketExists(any())).thenReturn(true);
-    this.objectStoreAccess = new ObjectStoreAccess(distributionServiceConfig, objectStoreClient);
+    this.executor = new ThreadPoolTaskExecutor();
+    this.executor.setCorePoolSize(2);
+    this.executor.setMaxPoolSize(2);
+    this.executor.initialize();
+    this.objectStoreAccess = new ObjectStoreAccess(distributionServiceConfig, objectStoreClient, executor);
     this.testLocalFile = setUpLocalFileMock();
   }
 
+  @AfterEach
+  public void shutdownExecutor() {
+    this.executor.shutdown();
+  }
+
   private LocalFile setUpLocalFileMock() {
     var testLocalFile = mock(LocalFile.class);
     expPath = mock(Path.class);
@@ -77,7 +98,7 @@ class ObjectStoreAccessUnitTest {
     when(objectStoreClient.bucketExists(any())).thenReturn(false);
 
     assertThatExceptionOfType(IllegalArgumentException.class)
-        .isThrownBy(() -> new ObjectStoreAccess(distributionServiceConfig, objectStoreClient));
+        .isThrownBy(() -> new ObjectStoreAccess(distributionServiceConfig, objectStoreClient, executor));
   }
 
   @Test
@@ -130,10 +151,112 @@ class ObjectStoreAccessUnitTest {
     var filesToDeleteObjectName = List
         .of(fileToDelete1.getObjectName(), fileToDelete2.getObjectName(), fileToDelete3.getObjectName());
 
-    when(objectStoreClient.getObjects(any(), any())).thenReturn(filesToDelete);
+    when(objectStoreClient.listObjects(any(), any())).thenReturn(filesToDelete);
 
     objectStoreAccess.deleteObjectsWithPrefix("");
 
     verify(objectStoreClient, times(1)).removeObjects(eq(expBucketName), eq(filesToDeleteObjectName));
+    verify(objectStoreClient, never()).getObjects(any(), any());
+  }
+
+  @Test
+  void getObjectsWithPrefixFetchesAllHashesIfChecksumManifestIsDisabled() {
+    var expObjects = List.of(new S3Object("prefix/file1", "hash1"));
+    when(objectStoreClient.getObjects(expBucketName, "prefix")).thenReturn(expObjects);
+
+    assertThat(objectStoreAccess.getObjectsWithPrefix("prefix")).isEqualTo(expObjects);
+    verify(objectStoreClient, never()).getObjectContent(any(), any());
+  }
+
+  @Test
+  void getObjectsWithPrefixReadsHashesFromChecksumManifest() {
+    ObjectStoreAccess manifestAccess = createObjectStoreAccessWithChecksumManifest();
+    ChecksumManifest manifest = new ChecksumManifest(Map.of(
+        "prefix/file1", new Entry("etag1", "hash1"),
+        "prefix/file2", new Entry("outdated", "outdated-hash")));
+    when(objectStoreClient.getObjectContent(expBucketName, MANIFEST_KEY)).thenReturn(Optional.of(manifest.toJson()));
+    when(objectStoreClient.listObjects(expBucketName, "prefix")).thenReturn(List.of(
+        new S3Object("prefix/file1", null, "etag1"),
+        new S3Object("prefix/file2", null, "etag2"),
+        new S3Object("prefix/file3", null, "etag3")));
+    when(objectStoreClient.getCwaHash(expBucketName, "prefix/file2")).thenReturn("hash2");
+    when(objectStoreClient.getCwaHash(expBucketName, "prefix/file3")).thenReturn("hash3");
+
+    List<S3Object> objects = manifestAccess.getObjectsWithPrefix("prefix");
+
+    assertThat(objects).containsExactlyInAnyOrder(
+        new S3Object("prefix/file1", "hash1", "etag1"),
+        new S3Object("prefix/file2", "hash2", "etag2"),
+        new S3Object("prefix/file3", "hash3", "etag3"));
+    verify(objectStoreClient, never()).getCwaHash(any(), eq("prefix/file1"));
+    verify(objectStoreClient, never()).getObjects(any(), any());
+  }
+
+  @Test
+  void getObjectsWithPrefixFetchesAllHashesIfChecksumManifestIsMissing() {
+    ObjectStoreAccess manifestAccess = createObjectStoreAccessWithChecksumManifest();
+    when(objectStoreClient.getObjectContent(expBucketName, MANIFEST_KEY)).thenReturn(Optional.empty());
+    when(objectStoreClient.listObjects(expBucketName, "prefix"))
+        .thenReturn(List.of(new S3Object("prefix/file1", null, "etag1")));
+    when(objectStoreClient.getCwaHash(expBucketName, "prefix/file1")).thenReturn("hash1");
+
+    assertThat(manifestAccess.getObjectsWithPrefix("prefix"))
+        .containsExactly(new S3Object("prefix/file1", "hash1", "etag1"));
+  }
+
+  @Test
+  void updateChecksumManifestWritesUnchangedAndUploadedObjects() {
+    ObjectStoreAccess manifestAccess = createObjectStoreAccessWithChecksumManifest();
+    ChecksumManifest previousManifest = new ChecksumManifest(Map.of(
+        "other/file", new Entry("etag0", "hash0"),
+        "prefix/deleted", new Entry("etag4", "hash4")));
+    when(objectStoreClient.getObjectContent(expBucketName, MANIFEST_KEY))
+        .thenReturn(Optional.of(previousManifest.toJson()));
+    when(objectStoreClient.listObjects(expBucketName, "prefix")).thenReturn(List.of(
+        new S3Object("prefix/file1", null, "etag1"),
+        new S3Object("prefix/file2", null, "etag2-new"),
+        new S3Object("prefix/file3", null, "etag3-changed")));
+    AtomicReference<byte[]> writtenManifest = new AtomicReference<>();
+    doAnswer(invocation -> {
+      writtenManifest.set(Files.readAllBytes(invocation.getArgument(2)));
+      return null;
+    }).when(objectStoreClient).putObject(eq(expBucketName), eq(MANIFEST_KEY), any(), any());
+
+    manifestAccess.updateChecksumManifest("prefix",
+        List.of(new S3Object("prefix/file1", "hash1", "etag1"), new S3Object("prefix/file3", "hash3", "etag3")),
+        Map.of("prefix/file2", "hash2"));
+
+    assertThat(writtenManifest.get()).isNotNull();
+    assertThat(parse(writtenManifest.get()).getEntries()).isEqualTo(Map.of(
+        "other/file", new Entry("etag0", "hash0"),
+        "prefix/file1", new Entry("etag1", "hash1"),
+        "prefix/file2", new Entry("etag2-new", "hash2")));
+  }
+
+  @Test
+  void updateChecksumManifestDoesNothingIfChecksumManifestIsDisabled() {
+    objectStoreAccess.updateChecksumManifest("prefix", List.of(), Map.of("prefix/file", "hash"));
+
+    verify(objectStoreClient, never()).listObjects(any(), any());
+    verify(objectStoreClient, never()).putObject(any(), any(), any(), any());
+  }
+
+  private ObjectStoreAccess createObjectStoreAccessWithChecksumManifest() {
+    DistributionServiceConfig.ObjectStore objectStore = distributionServiceConfig.getObjectStore();
+    objectStore.setChecksumManifest(true);
+    objectStore.setChecksumManifestKey(MANIFEST_KEY);
+    try {
+      return new ObjectStoreAccess(distributionServiceConfig, objectStoreClient, executor);
+    } finally {
+      objectStore.setChecksumManifest(false);
+    }
+  }
+
+  private static ChecksumManifest parse(byte[] json) {
+    try {
+      return ChecksumManifest.fromJson(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 }
@@ -5,11 +5,15 @@ package app.coronawarn.server.services.distribution.objectstore;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
+import app.coronawarn.server.services.distribution.config.DistributionServiceConfig.ObjectStore;
+import app.coronawarn.server.services.distribution.objectstore.client.LocalObjectStoreClient;
 import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreClient;
 import app.coronawarn.server.services.distribution.objectstore.client.ObjectStorePublishingConfig;
 import app.coronawarn.server.services.distribution.objectstore.client.S3ClientWrapper;
+import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -37,6 +41,20 @@ class ObjectStorePublishingConfigTest {
     assertThat(config.createObjectStoreClient(distributionServiceConfig)).isInstanceOf(S3ClientWrapper.class);
   }
 
+  @Test
+  void testLocalObjectStoreClientInstantiation(@TempDir Path rootDirectory) {
+    ObjectStore objectStore = distributionServiceConfig.getObjectStore();
+    objectStore.setLocalDirectory(rootDirectory.toString());
+    try {
+      ObjectStoreClient client = new ObjectStorePublishingConfig().createObjectStoreClient(distributionServiceConfig);
+
+      assertThat(client).isInstanceOf(LocalObjectStoreClient.class);
+      assertThat(client.bucketExists(objectStore.getBucket())).isTrue();
+    } finally {
+      objectStore.setLocalDirectory("");
+    }
+  }
+
   @Test
   void testThreadPoolExecutorPoolSize() {
     int expNumberOfThreads = distributionServiceConfig.getObjectStore().getMaxNumberOfS3Threads();
@@ -3,23 +3,26 @@ package app.coronawarn.server.services.distribution.objectstore;
 import static org.assertj.core.util.Lists.emptyList;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
-import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig.Api;
 import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreOperationFailedException;
 import app.coronawarn.server.services.distribution.objectstore.client.S3Object;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -67,7 +70,7 @@ class S3PublisherTest {
     executor.initialize();
     executor = spy(executor);
     s3Publisher = new S3Publisher(objectStoreAccess, failedObjectStoreOperationsCounter, executor,
-        distributionServiceConfig);
+        distributionServiceConfig, new FileDigests());
   }
 
   @Test
@@ -107,12 +110,55 @@ class S3PublisherTest {
   }
 
   @Test
-  void executorGetsShutDown() throws IOException {
+  void checksumManifestIsUpdatedWithUploadedFiles() throws IOException {
+    List<S3Object> publishedObjects = twoIdenticalOneOtherOneChange();
+    when(objectStoreAccess.getObjectsWithPrefix("version")).thenReturn(publishedObjects);
+
+    s3Publisher.publish(publishingPath);
+
+    verify(objectStoreAccess).updateChecksumManifest("version", publishedObjects,
+        Map.of("file3.txt", "0385524c9fdc83634467a11667c851ac"));
+  }
+
+  @Test
+  void failedChecksumManifestUpdateIsCounted() throws IOException {
+    when(objectStoreAccess.getObjectsWithPrefix("version")).thenReturn(allExistAllSame());
+    doThrow(ObjectStoreOperationFailedException.class).when(objectStoreAccess)
+        .updateChecksumManifest(any(), any(), any());
+
+    s3Publisher.publish(publishingPath);
+
+    verify(failedObjectStoreOperationsCounter, times(1)).incrementAndCheckThreshold(any());
+  }
+
+  @Test
+  void executorIsNotShutDown() throws IOException {
     when(objectStoreAccess.getObjectsWithPrefix("version")).thenReturn(emptyList());
 
     s3Publisher.publish(publishingPath);
 
-    verify(executor, times(1)).shutdown();
+    verify(executor, never()).shutdown();
+  }
+
+  @Test
+  void publisherCanPublishMultipleTimes() throws IOException {
+    when(objectStoreAccess.getObjectsWithPrefix("version")).thenReturn(emptyList());
+
+    s3Publisher.publish(publishingPath);
+    s3Publisher.publish(publishingPath);
+
+    verify(objectStoreAccess, times(6)).putObject(any());
+  }
+
+  @Test
+  void failedUploadIsNotRetriedOnTopOfTheObjectStoreClient() throws IOException {
+    when(objectStoreAccess.getObjectsWithPrefix("version")).thenReturn(twoIdenticalOneOtherOneChange());
+    doThrow(ObjectStoreOperationFailedException.class).when(objectStoreAccess).putObject(any());
+
+    s3Publisher.publish(publishingPath);
+
+    verify(objectStoreAccess, times(1)).putObject(any());
+    verify(failedObjectStoreOperationsCounter, times(1)).incrementAndCheckThreshold(any());
   }
 
   @Test
@@ -128,14 +174,14 @@ class S3PublisherTest {
   }
 
   @Test
-  void threadPoolShutDownWhenMaximumFailedOperationsReached() {
+  void threadPoolNotShutDownWhenMaximumFailedOperationsReached() {
     when(objectStoreAccess.getObjectsWithPrefix("version")).thenReturn(emptyList());
     setUpFailureThresholdExceededOnSecondUpload();
 
     Assertions.assertThatExceptionOfType(ObjectStoreOperationFailedException.class)
         .isThrownBy(() -> s3Publisher.publish(publishingPath));
 
-    verify(executor, times(1)).shutdown();
+    verify(executor, never()).shutdown();
   }
 
   private void setUpFailureThresholdExceededOnSecondUpload() {
@@ -147,16 +193,67 @@ class S3PublisherTest {
   }
 
   @Test
-  void interruptedExceptionHandling() throws ExecutionException, InterruptedException {
-    var result = mock(Future.class);
-    when(result.get()).thenThrow(new InterruptedException());
-    doReturn(result).when(executor).submit(any(Runnable.class));
+  void interruptedExceptionHandling() throws InterruptedException {
+    doNothing().when(executor).execute(any(Runnable.class));
     when(objectStoreAccess.getObjectsWithPrefix("version")).thenReturn(emptyList());
+    AtomicReference<Throwable> thrown = new AtomicReference<>();
+    Thread publishing = new Thread(() -> {
+      try {
+        s3Publisher.publish(publishingPath);
+      } catch (Throwable e) {
+        thrown.set(e);
+      }
+    });
+
+    publishing.start();
+    // the uploads are never run, so publishing waits for them until it is interrupted
+    while (publishing.getState() != Thread.State.WAITING) {
+      Thread.sleep(10);
+    }
+    publishing.interrupt();
+    publishing.join();
+
+    Assertions.assertThat(thrown.get()).isInstanceOf(ObjectStoreOperationFailedException.class);
+    verify(executor, never()).shutdown();
+  }
+
+  @Test
+  void pipelinedPublishingUploadsWrittenFiles() throws IOException {
+    when(objectStoreAccess.getObjectsWithPrefix("version")).thenReturn(emptyList());
+
+    publishPipelined();
+
+    verify(objectStoreAccess, times(3)).putObject(any());
+    verify(executor, never()).shutdown();
+  }
+
+  @Test
+  void pipelinedPublishingSkipsUnchangedFiles() throws IOException {
+    List<S3Object> publishedObjects = twoIdenticalOneOtherOneChange();
+    when(objectStoreAccess.getObjectsWithPrefix("version")).thenReturn(publishedObjects);
+
+    publishPipelined();
+
+    verify(objectStoreAccess, times(1)).putObject(any());
+    verify(objectStoreAccess).updateChecksumManifest("version", publishedObjects,
+        Map.of("file3.txt", "0385524c9fdc83634467a11667c851ac"));
+  }
+
+  @Test
+  void pipelinedPublishingHaltsWhenMaximumFailedOperationsReached() {
+    when(objectStoreAccess.getObjectsWithPrefix("version")).thenReturn(emptyList());
+    setUpFailureThresholdExceededOnSecondUpload();
 
     Assertions.assertThatExceptionOfType(ObjectStoreOperationFailedException.class)
-        .isThrownBy(() -> s3Publisher.publish(publishingPath));
+        .isThrownBy(this::publishPipelined);
+  }
 
-    verify(executor, times(1)).shutdown();
+  private void publishPipelined() throws IOException {
+    S3PublishingPipeline pipeline = s3Publisher.startPipelinedPublishing(publishingPath);
+    try (Stream<Path> files = Files.list(publishingPath)) {
+      files.sorted().map(Path::toFile).forEach(pipeline);
+    }
+    s3Publisher.publish(pipeline);
   }
 
   private List<S3Object> otherExisting() {
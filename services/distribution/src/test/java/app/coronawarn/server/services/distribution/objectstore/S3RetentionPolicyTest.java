@@ -4,9 +4,9 @@ import static app.coronawarn.server.services.distribution.assembly.structure.uti
 import static app.coronawarn.server.services.distribution.assembly.structure.util.TimeUtils.getUtcDate;
 import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.util.Lists.list;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -30,6 +30,7 @@ import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
@@ -70,11 +71,10 @@ class S3RetentionPolicyTest {
     List<S3Object> mockResponse = this.s3ObjectsFromFilenames(Stream.concat(toBeDeleted.stream(), toBeKept.stream())
         .collect(Collectors.toUnmodifiableList()));
 
-    when(objectStoreAccess.getObjectsWithPrefix(this.getDiagnosisKeyPrefix("DE"))).thenReturn(mockResponse);
+    when(objectStoreAccess.listObjectsWithPrefix(this.getDiagnosisKeyPrefix("DE"))).thenReturn(mockResponse);
     s3RetentionPolicy.applyDiagnosisKeyHourRetentionPolicy(2);
 
-    toBeDeleted.forEach(f -> verify(objectStoreAccess, times(1)).deleteObjectsWithPrefix(f));
-    toBeKept.forEach(f -> verify(objectStoreAccess, never()).deleteObjectsWithPrefix(f));
+    assertThat(deletedObjectNames()).containsAll(toBeDeleted).doesNotContainAnyElementsOf(toBeKept);
   }
 
   @Test
@@ -88,19 +88,17 @@ class S3RetentionPolicyTest {
     List<S3Object> mockResponseDE = this
         .s3ObjectsFromFilenames(Stream.concat(toBeDeletedDE.stream(), toBeKeptDE.stream())
             .collect(Collectors.toUnmodifiableList()));
-    when(objectStoreAccess.getObjectsWithPrefix(this.getDiagnosisKeyPrefix("DE"))).thenReturn(mockResponseDE);
+    when(objectStoreAccess.listObjectsWithPrefix(this.getDiagnosisKeyPrefix("DE"))).thenReturn(mockResponseDE);
 
     List<S3Object> mockResponseEUR = this
         .s3ObjectsFromFilenames(Stream.concat(toBeDeletedEUR.stream(), toBeKeptEUR.stream())
             .collect(Collectors.toUnmodifiableList()));
-    when(objectStoreAccess.getObjectsWithPrefix(this.getDiagnosisKeyPrefix("EUR"))).thenReturn(mockResponseEUR);
+    when(objectStoreAccess.listObjectsWithPrefix(this.getDiagnosisKeyPrefix("EUR"))).thenReturn(mockResponseEUR);
 
     s3RetentionPolicy.applyDiagnosisKeyHourRetentionPolicy(2);
 
-    toBeDeletedDE.forEach(f -> verify(objectStoreAccess, times(1)).deleteObjectsWithPrefix(f));
-    toBeKeptDE.forEach(f -> verify(objectStoreAccess, never()).deleteObjectsWithPrefix(f));
-    toBeDeletedEUR.forEach(f -> verify(objectStoreAccess, times(1)).deleteObjectsWithPrefix(f));
-    toBeKeptEUR.forEach(f -> verify(objectStoreAccess, never()).deleteObjectsWithPrefix(f));
+    assertThat(deletedObjectNames()).containsAll(toBeDeletedDE).doesNotContainAnyElementsOf(toBeKeptDE);
+    assertThat(deletedObjectNames()).containsAll(toBeDeletedEUR).doesNotContainAnyElementsOf(toBeKeptEUR);
   }
 
   @Test
@@ -110,12 +108,11 @@ class S3RetentionPolicyTest {
 
     List<S3Object> mockResponse = this.s3ObjectsFromFilenames(list(validHourFile, invalidHourFile));
 
-    when(objectStoreAccess.getObjectsWithPrefix(this.getDiagnosisKeyPrefix("DE"))).thenReturn(mockResponse);
+    when(objectStoreAccess.listObjectsWithPrefix(this.getDiagnosisKeyPrefix("DE"))).thenReturn(mockResponse);
 
     s3RetentionPolicy.applyDiagnosisKeyHourRetentionPolicy(2);
 
-    verify(objectStoreAccess, times(1)).deleteObjectsWithPrefix(invalidHourFile);
-    verify(objectStoreAccess, never()).deleteObjectsWithPrefix(validHourFile);
+    assertThat(deletedObjectNames()).containsExactly(invalidHourFile);
   }
 
   @Test
@@ -125,12 +122,11 @@ class S3RetentionPolicyTest {
 
     List<S3Object> mockResponse = this.s3ObjectsFromFilenames(list(validHourFile, invalidHourFile));
 
-    when(objectStoreAccess.getObjectsWithPrefix(this.getDiagnosisKeyPrefix("EUR"))).thenReturn(mockResponse);
+    when(objectStoreAccess.listObjectsWithPrefix(this.getDiagnosisKeyPrefix("EUR"))).thenReturn(mockResponse);
 
     s3RetentionPolicy.applyDiagnosisKeyHourRetentionPolicy(2);
 
-    verify(objectStoreAccess, times(1)).deleteObjectsWithPrefix(invalidHourFile);
-    verify(objectStoreAccess, never()).deleteObjectsWithPrefix(validHourFile);
+    assertThat(deletedObjectNames()).containsExactly(invalidHourFile);
   }
 
   @Test
@@ -141,13 +137,11 @@ class S3RetentionPolicyTest {
 
     List<S3Object> mockResponse = this.s3ObjectsFromFilenames(list(validHourFile, invalidHourFile1, invalidHourFile2));
 
-    when(objectStoreAccess.getObjectsWithPrefix(this.getDiagnosisKeyPrefix("DE"))).thenReturn(mockResponse);
+    when(objectStoreAccess.listObjectsWithPrefix(this.getDiagnosisKeyPrefix("DE"))).thenReturn(mockResponse);
 
     s3RetentionPolicy.applyDiagnosisKeyHourRetentionPolicy(2);
 
-    verify(objectStoreAccess, times(1)).deleteObjectsWithPrefix(invalidHourFile1);
-    verify(objectStoreAccess, times(1)).deleteObjectsWithPrefix(invalidHourFile2);
-    verify(objectStoreAccess, never()).deleteObjectsWithPrefix(validHourFile);
+    assertThat(deletedObjectNames()).containsExactlyInAnyOrder(invalidHourFile1, invalidHourFile2);
   }
 
   @Test
@@ -164,12 +158,11 @@ class S3RetentionPolicyTest {
             .collect(toList()));
     mockResponse.addAll(expectedFilesToBeDeleted.stream().map(S3Object::new).collect(toList()));
 
-    when(objectStoreAccess.getObjectsWithPrefix(any())).thenReturn(mockResponse);
+    when(objectStoreAccess.listObjectsWithPrefix(any())).thenReturn(mockResponse);
 
     s3RetentionPolicy.applyDiagnosisKeyDayRetentionPolicy(1);
 
-    expectedFilesToBeDeleted.forEach(expectedFileToBeDeleted ->
-        verify(objectStoreAccess, atLeastOnce()).deleteObjectsWithPrefix(expectedFileToBeDeleted));
+    assertThat(deletedObjectNames()).containsAll(expectedFilesToBeDeleted);
   }
 
   @Test
@@ -184,22 +177,49 @@ class S3RetentionPolicyTest {
             new S3Object(generateDiagnosisKeyHourFilename(getUtcDate(), country)))).flatMap(List::stream)
             .collect(toList()));
 
-    when(objectStoreAccess.getObjectsWithPrefix(any())).thenReturn(mockResponse);
+    when(objectStoreAccess.listObjectsWithPrefix(any())).thenReturn(mockResponse);
     s3RetentionPolicy.applyDiagnosisKeyDayRetentionPolicy(1);
 
-    verify(objectStoreAccess, never()).deleteObjectsWithPrefix(any());
+    assertThat(deletedObjectNames()).isEmpty();
   }
 
   @Test
   void deleteDiagnosisKeysUpdatesFailedOperationCounter() {
-    doThrow(ObjectStoreOperationFailedException.class).when(objectStoreAccess).deleteObjectsWithPrefix(any());
+    List<S3Object> mockResponse = list(new S3Object(generateDiagnosisKeyHourFilename(getUtcDate().minusDays(2), "DE")));
+    when(objectStoreAccess.listObjectsWithPrefix(this.getDiagnosisKeyPrefix("DE"))).thenReturn(mockResponse);
+    doThrow(ObjectStoreOperationFailedException.class).when(objectStoreAccess).deleteObjects(any());
 
-    s3RetentionPolicy.deleteS3Object(new S3Object("foo"));
+    s3RetentionPolicy.applyDiagnosisKeyDayRetentionPolicy(1);
 
-    verify(failedObjectStoreOperationsCounter, times(1))
+    verify(failedObjectStoreOperationsCounter, times(2))
         .incrementAndCheckThreshold(any(ObjectStoreOperationFailedException.class));
   }
 
+  @Test
+  void shouldListEachPrefixOnceAndDeleteInOneBatchPerCountry() {
+    var expiredDayFile = generateDiagnosisKeyHourFilename(getUtcDate().minusDays(15), "DE");
+    var expiredHourFile = generateDiagnosisKeyHourFilename(getUtcDate().minusDays(3), "DE");
+    var validHourFile = generateDiagnosisKeyHourFilename(getUtcDate().minusDays(1), "DE");
+    var expiredTraceTimeWarningFile = generateTraceTimeWarningFilename(
+        TimeUnit.SECONDS.toHours(currentTime.minusDays(15).toEpochSecond(ZoneOffset.UTC)), "DE");
+    var validTraceTimeWarningFile = generateTraceTimeWarningFilename(
+        TimeUnit.SECONDS.toHours(currentTime.toEpochSecond(ZoneOffset.UTC)), "DE");
+
+    List<S3Object> diagnosisKeyObjects = s3ObjectsFromFilenames(list(expiredDayFile, expiredHourFile, validHourFile));
+    when(objectStoreAccess.listObjectsWithPrefix(getDiagnosisKeyPrefix("DE"))).thenReturn(diagnosisKeyObjects);
+    List<S3Object> traceTimeWarningObjects = s3ObjectsFromFilenames(
+        list(expiredTraceTimeWarningFile, validTraceTimeWarningFile));
+    when(objectStoreAccess.listObjectsWithPrefix(getTraceTimeWarningPrefix("DE"))).thenReturn(traceTimeWarningObjects);
+
+    s3RetentionPolicy.applyRetentionPolicy(14, 2);
+
+    verify(objectStoreAccess, times(1)).listObjectsWithPrefix(getDiagnosisKeyPrefix("DE"));
+    verify(objectStoreAccess, times(1)).listObjectsWithPrefix(getTraceTimeWarningPrefix("DE"));
+    verify(objectStoreAccess, never()).deleteObjectsWithPrefix(any());
+    assertThat(deletedObjectNames())
+        .containsExactlyInAnyOrder(expiredDayFile, expiredHourFile, expiredTraceTimeWarningFile);
+  }
+
   @Test
   void shouldDeleteTraceTimeWarningFilesOlderThanCutoffDate() {
     var toBeKept = generateTraceTimeWarningFilenamesForRange(
@@ -210,11 +230,20 @@ class S3RetentionPolicyTest {
     List<S3Object> mockResponse = this.s3ObjectsFromFilenames(Stream.concat(toBeDeleted.stream(), toBeKept.stream())
         .collect(Collectors.toUnmodifiableList()));
 
-    when(objectStoreAccess.getObjectsWithPrefix(this.getTraceTimeWarningPrefix("DE"))).thenReturn(mockResponse);
+    when(objectStoreAccess.listObjectsWithPrefix(this.getTraceTimeWarningPrefix("DE"))).thenReturn(mockResponse);
     s3RetentionPolicy.applyTraceTimeWarningHourRetentionPolicy(2);
 
-    toBeDeleted.forEach(f -> verify(objectStoreAccess, times(1)).deleteObjectsWithPrefix(f));
-    toBeKept.forEach(f -> verify(objectStoreAccess, never()).deleteObjectsWithPrefix(f));
+    assertThat(deletedObjectNames()).containsAll(toBeDeleted).doesNotContainAnyElementsOf(toBeKept);
+  }
+
+  /**
+   * Returns the names of all objects that have been passed to the batch deletion, which is called once per country.
+   */
+  @SuppressWarnings("unchecked")
+  private List<String> deletedObjectNames() {
+    ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
+    verify(objectStoreAccess, times(2)).deleteObjects(captor.capture());
+    return captor.getAllValues().stream().flatMap(List::stream).collect(toList());
   }
 
   private String getDiagnosisKeyPrefix(String country) {
@@ -0,0 +1,39 @@
+package app.coronawarn.server.services.distribution.objectstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class UploadLatencyHistogramTest {
+
+  @Test
+  void emptyHistogramHasNoLatencies() {
+    UploadLatencyHistogram histogram = new UploadLatencyHistogram();
+
+    assertThat(histogram.getCount()).isZero();
+    assertThat(histogram.getPercentileUpperBoundMillis(99)).isZero();
+  }
+
+  @Test
+  void percentilesAreUpperBoundsOfBuckets() {
+    UploadLatencyHistogram histogram = new UploadLatencyHistogram();
+    LongStream.rangeClosed(1, 100).forEach(histogram::record);
+
+    assertThat(histogram.getCount()).isEqualTo(100);
+    assertThat(histogram.getPercentileUpperBoundMillis(10)).isEqualTo(10);
+    assertThat(histogram.getPercentileUpperBoundMillis(50)).isEqualTo(50);
+    assertThat(histogram.getPercentileUpperBoundMillis(95)).isEqualTo(100);
+    assertThat(histogram.getMaxMillis()).isEqualTo(100);
+  }
+
+  @Test
+  void latenciesAboveLastBoundAreReportedWithMaximum() {
+    UploadLatencyHistogram histogram = new UploadLatencyHistogram();
+    histogram.record(5);
+    histogram.record(12345);
+
+    assertThat(histogram.getPercentileUpperBoundMillis(99)).isEqualTo(12345);
+    assertThat(histogram.getBucketCounts()).containsEntry("<=10ms", 1L).containsEntry(">10000ms", 1L);
+  }
+}
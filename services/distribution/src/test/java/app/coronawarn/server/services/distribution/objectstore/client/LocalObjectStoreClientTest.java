@@ -0,0 +1,144 @@
+package app.coronawarn.server.services.distribution.objectstore.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreClient.HeaderKey;
+import app.coronawarn.server.services.distribution.statistics.exceptions.NotModifiedException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.DigestUtils;
+
+class LocalObjectStoreClientTest {
+
+  private static final String BUCKET = "cwa";
+
+  @TempDir
+  Path rootDirectory;
+
+  @TempDir
+  Path sourceDirectory;
+
+  private LocalObjectStoreClient client;
+
+  @BeforeEach
+  void setup() {
+    client = new LocalObjectStoreClient(rootDirectory, Duration.ZERO, 0);
+    client.createBucket(BUCKET);
+  }
+
+  @Test
+  void putObjectStoresContentAndMetadata() throws IOException {
+    Path file = createFile("content");
+
+    client.putObject(BUCKET, "version/v1/file", file, Map.of(
+        HeaderKey.CWA_HASH, "hash",
+        HeaderKey.CONTENT_TYPE, "application/zip",
+        HeaderKey.CACHE_CONTROL, "public,max-age=300"));
+
+    String expectedEtag = "\"" + DigestUtils.md5DigestAsHex("content".getBytes(StandardCharsets.UTF_8)) + "\"";
+    assertThat(client.getObjects(BUCKET, "version/")).containsExactly(
+        new S3Object("version/v1/file", "hash", expectedEtag));
+    assertThat(client.getObjectContent(BUCKET, "version/v1/file")).hasValueSatisfying(
+        content -> assertThat(new String(content, StandardCharsets.UTF_8)).isEqualTo("content"));
+    assertThat(Files.readString(rootDirectory.resolve("cwa/version/v1/file/.metadata")))
+        .contains("application/zip", "public,max-age\\=300");
+    assertThat(client.getUploadStatistics().getUploadedBytes()).isEqualTo(7);
+  }
+
+  @Test
+  void objectNamesMayBePrefixesOfOtherObjectNames() throws IOException {
+    Path file = createFile("content");
+    client.putObject(BUCKET, "date/2021-01-01/hour/1", file, Collections.emptyMap());
+    client.putObject(BUCKET, "date/2021-01-01", file, Collections.emptyMap());
+    client.putObject(BUCKET, "date/2021-01-01/hour", file, Collections.emptyMap());
+    client.putObject(BUCKET, "date/2021-01-02", file, Collections.emptyMap());
+
+    assertThat(objectNames(client.listObjects(BUCKET, "date/2021-01-01")))
+        .containsExactly("date/2021-01-01", "date/2021-01-01/hour", "date/2021-01-01/hour/1");
+    assertThat(objectNames(client.listObjects(BUCKET, "date/2021-01-01/")))
+        .containsExactly("date/2021-01-01/hour", "date/2021-01-01/hour/1");
+    assertThat(objectNames(client.listObjects(BUCKET, "")))
+        .containsExactly("date/2021-01-01", "date/2021-01-01/hour", "date/2021-01-01/hour/1", "date/2021-01-02");
+    assertThat(client.listObjects(BUCKET, "other/")).isEmpty();
+  }
+
+  @Test
+  void putObjectReplacesExistingObjectWithoutLeavingTemporaryFiles() throws IOException {
+    client.putObject(BUCKET, "file", createFile("old"), Map.of(HeaderKey.CWA_HASH, "old"));
+    client.putObject(BUCKET, "file", createFile("new"), Map.of(HeaderKey.CWA_HASH, "new"));
+
+    assertThat(client.getCwaHash(BUCKET, "file")).isEqualTo("new");
+    assertThat(client.getObjectContent(BUCKET, "file")).hasValueSatisfying(
+        content -> assertThat(new String(content, StandardCharsets.UTF_8)).isEqualTo("new"));
+    try (Stream<Path> temporaryFiles = Files.list(rootDirectory.resolve("cwa/.tmp"))) {
+      assertThat(temporaryFiles).isEmpty();
+    }
+  }
+
+  @Test
+  void removeObjectsOnlyRemovesTheSpecifiedObjects() throws IOException {
+    Path file = createFile("content");
+    client.putObject(BUCKET, "a", file, Collections.emptyMap());
+    client.putObject(BUCKET, "a/b", file, Collections.emptyMap());
+
+    client.removeObjects(BUCKET, List.of("a", "missing"));
+
+    assertThat(client.getObjectContent(BUCKET, "a")).isEmpty();
+    assertThat(objectNames(client.listObjects(BUCKET, ""))).containsExactly("a/b");
+  }
+
+  @Test
+  void getSingleObjectContentThrowsIfObjectIsNotModified() throws IOException {
+    client.putObject(BUCKET, "stats.json", createFile("{}"), Collections.emptyMap());
+    String etag = client.getSingleObjectContent(BUCKET, "stats.json").getETag();
+
+    assertThatExceptionOfType(NotModifiedException.class)
+        .isThrownBy(() -> client.getSingleObjectContent(BUCKET, "stats.json", etag));
+  }
+
+  @Test
+  void requestsFailWithInjectedErrors() throws IOException {
+    Path file = createFile("content");
+    client.putObject(BUCKET, "file", file, Collections.emptyMap());
+    LocalObjectStoreClient failingClient = new LocalObjectStoreClient(rootDirectory, Duration.ofMillis(1), 1);
+
+    assertThatExceptionOfType(ObjectStoreOperationFailedException.class)
+        .isThrownBy(() -> failingClient.putObject(BUCKET, "file", file, Collections.emptyMap()));
+    assertThatExceptionOfType(ObjectStoreOperationFailedException.class)
+        .isThrownBy(() -> failingClient.listObjects(BUCKET, ""));
+    assertThatExceptionOfType(ObjectStoreOperationFailedException.class)
+        .isThrownBy(() -> failingClient.removeObjects(BUCKET, List.of("file")));
+    assertThat(client.getObjectContent(BUCKET, "file")).isPresent();
+  }
+
+  @Test
+  void invalidParametersAreRejected() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> new LocalObjectStoreClient(rootDirectory, Duration.ofMillis(-1), 0));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> new LocalObjectStoreClient(rootDirectory, Duration.ZERO, 1.5));
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> client.getObjectContent(BUCKET, "version/../file"));
+  }
+
+  private Path createFile(String content) throws IOException {
+    return Files.writeString(Files.createTempFile(sourceDirectory, null, null), content);
+  }
+
+  private static List<String> objectNames(List<S3Object> s3Objects) {
+    return s3Objects.stream().map(S3Object::getObjectName).collect(Collectors.toList());
+  }
+}
@@ -2,32 +2,44 @@ package app.coronawarn.server.services.distribution.objectstore.client;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.assertj.core.util.Maps.newHashMap;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
+import app.coronawarn.server.services.distribution.config.DistributionServiceConfig.ObjectStore;
 import app.coronawarn.server.services.distribution.objectstore.client.ObjectStoreClient.HeaderKey;
 import app.coronawarn.server.services.distribution.statistics.exceptions.NotModifiedException;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.assertj.core.util.Lists;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -41,12 +53,19 @@ import org.springframework.retry.ExhaustedRetryException;
 import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.DigestUtils;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
@@ -57,10 +76,13 @@ import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Error;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 import software.amazon.awssdk.utils.builder.SdkBuilder;
 
 @ExtendWith(SpringExtension.class)
@@ -71,7 +93,14 @@ class S3ClientWrapperTest {
   private static final String VALID_BUCKET_NAME = "myBucket";
   private static final String VALID_PREFIX = "prefix";
   private static final String VALID_NAME = "object key";
-  private static final Path VALID_PATH = Path.of("");
+  private static final byte[] VALID_CONTENT = "content".getBytes(StandardCharsets.UTF_8);
+  private static final String VALID_CONTENT_MD5 =
+      Base64.getEncoder().encodeToString(DigestUtils.md5Digest(VALID_CONTENT));
+
+  @TempDir
+  Path tempDirectory;
+
+  private Path validPath;
 
   @Value("${services.distribution.objectstore.retry-attempts}")
   private int configuredNumberOfRetries;
@@ -95,8 +124,9 @@ class S3ClientWrapperTest {
   }
 
   @BeforeEach
-  public void setUpMocks() {
+  public void setUpMocks() throws IOException {
     reset(s3Client);
+    validPath = Files.write(tempDirectory.resolve("file"), VALID_CONTENT);
   }
 
   @Test
@@ -142,6 +172,43 @@ class S3ClientWrapperTest {
     assertThat(actResult).isEqualTo(expResult);
   }
 
+  @Test
+  void listObjectsDoesNotFetchMetadata() {
+    var listedObject = software.amazon.awssdk.services.s3.model.S3Object.builder().key("objName").eTag("etag").build();
+    when(s3Client.listObjectsV2(any(ListObjectsV2Request.class)))
+        .thenReturn(ListObjectsV2Response.builder().contents(listedObject).build());
+
+    List<S3Object> actResult = s3ClientWrapper.listObjects(VALID_BUCKET_NAME, VALID_PREFIX);
+
+    assertThat(actResult).containsExactly(new S3Object("objName", null, "etag"));
+    verify(s3Client, never()).headObject(any(HeadObjectRequest.class));
+  }
+
+  @Test
+  void getCwaHashReadsMetadata() {
+    when(s3Client.headObject(any(HeadObjectRequest.class)))
+        .thenReturn(HeadObjectResponse.builder().metadata(Map.of(HeaderKey.CWA_HASH.keyValue, "hash")).build());
+
+    assertThat(s3ClientWrapper.getCwaHash(VALID_BUCKET_NAME, VALID_NAME)).isEqualTo("hash");
+    verify(s3Client).headObject(HeadObjectRequest.builder().bucket(VALID_BUCKET_NAME).key(VALID_NAME).build());
+  }
+
+  @Test
+  void getObjectContentReturnsContent() {
+    var httpResponse = makeGetObjectStreamedResponse(GetObjectResponse.builder().build(), "{}");
+    when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(httpResponse);
+
+    assertThat(s3ClientWrapper.getObjectContent(VALID_BUCKET_NAME, VALID_NAME)).contains("{}".getBytes());
+  }
+
+  @Test
+  void getObjectContentIsEmptyIfObjectDoesNotExist() {
+    when(s3Client.getObject(any(GetObjectRequest.class))).thenThrow(NoSuchKeyException.class);
+
+    assertThat(s3ClientWrapper.getObjectContent(VALID_BUCKET_NAME, VALID_NAME)).isEmpty();
+    verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+  }
+
   @Test
   void testContinuationToken() {
     var continuationToken = "1ueGcxLPRx1Tr/XYExHnhbYLgveDs2J/wm36Hy4vbOwM=<";
@@ -197,20 +264,22 @@ class S3ClientWrapperTest {
 
   @Test
   void testPutObjectForNoHeaders() {
-    s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_NAME, VALID_PATH, Collections.emptyMap());
+    s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_NAME, validPath, Collections.emptyMap());
 
-    PutObjectRequest expRequest = PutObjectRequest.builder().bucket(VALID_BUCKET_NAME).key(VALID_NAME).build();
+    PutObjectRequest expRequest = PutObjectRequest.builder().bucket(VALID_BUCKET_NAME).key(VALID_NAME)
+        .contentMD5(VALID_CONTENT_MD5).build();
     verify(s3Client, atLeastOnce()).putObject(eq(expRequest), any(RequestBody.class));
   }
 
   @Test
   void testPutObjectForContentTypeHeader() {
     String contentType = "foo-content-type";
-    s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_NAME, Path.of(""),
+    s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_NAME, validPath,
         newHashMap(HeaderKey.CONTENT_TYPE, contentType));
 
     PutObjectRequest expRequest =
-        PutObjectRequest.builder().bucket(VALID_BUCKET_NAME).key(VALID_NAME).contentType(contentType).build();
+        PutObjectRequest.builder().bucket(VALID_BUCKET_NAME).key(VALID_NAME).contentType(contentType)
+            .contentMD5(VALID_CONTENT_MD5).build();
     verify(s3Client, atLeastOnce()).putObject(eq(expRequest), any(RequestBody.class));
   }
 
@@ -218,29 +287,108 @@ class S3ClientWrapperTest {
   void testPutObjectForCacheControlHeader() {
     var expCacheControl = "foo-cache-control";
     s3ClientWrapper
-        .putObject(VALID_BUCKET_NAME, VALID_NAME, VALID_PATH, newHashMap(HeaderKey.CACHE_CONTROL, expCacheControl));
+        .putObject(VALID_BUCKET_NAME, VALID_NAME, validPath, newHashMap(HeaderKey.CACHE_CONTROL, expCacheControl));
 
     PutObjectRequest expRequest =
-        PutObjectRequest.builder().bucket(VALID_BUCKET_NAME).key(VALID_NAME).cacheControl(expCacheControl).build();
+        PutObjectRequest.builder().bucket(VALID_BUCKET_NAME).key(VALID_NAME).cacheControl(expCacheControl)
+            .contentMD5(VALID_CONTENT_MD5).build();
     verify(s3Client, atLeastOnce()).putObject(eq(expRequest), any(RequestBody.class));
   }
 
   @Test
   void testPutObjectForAmzAclHeader() {
     String expAcl = "foo-acl";
-    s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_NAME, VALID_PATH, newHashMap(HeaderKey.AMZ_ACL, expAcl));
+    s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_NAME, validPath, newHashMap(HeaderKey.AMZ_ACL, expAcl));
+
+    PutObjectRequest expRequest =
+        PutObjectRequest.builder().bucket(VALID_BUCKET_NAME).key(VALID_NAME).acl(expAcl)
+            .contentMD5(VALID_CONTENT_MD5).build();
+    verify(s3Client, atLeastOnce()).putObject(eq(expRequest), any(RequestBody.class));
+  }
+
+  @Test
+  void putObjectSendsContentMd5FromHeader() {
+    s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_NAME, validPath, newHashMap(HeaderKey.CONTENT_MD5, "md5"));
 
     PutObjectRequest expRequest =
-        PutObjectRequest.builder().bucket(VALID_BUCKET_NAME).key(VALID_NAME).acl(expAcl).build();
+        PutObjectRequest.builder().bucket(VALID_BUCKET_NAME).key(VALID_NAME).contentMD5("md5").build();
     verify(s3Client, atLeastOnce()).putObject(eq(expRequest), any(RequestBody.class));
   }
 
+  @Test
+  void putObjectUploadsLargeFilesInParts() throws IOException {
+    mockMultipartUpload();
+    when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+        .thenThrow(SdkClientException.class)
+        .thenAnswer(invocation -> UploadPartResponse.builder()
+            .eTag("etag" + invocation.getArgument(0, UploadPartRequest.class).partNumber()).build());
+
+    ObjectStoreClient multipartClient = createMultipartClient();
+    multipartClient.putObject(VALID_BUCKET_NAME, VALID_NAME, createMultipartFile(),
+        newHashMap(HeaderKey.CONTENT_TYPE, "application/zip"));
+
+    verify(s3Client).createMultipartUpload(CreateMultipartUploadRequest.builder()
+        .bucket(VALID_BUCKET_NAME).key(VALID_NAME).contentType("application/zip").build());
+    ArgumentCaptor<UploadPartRequest> partRequests = ArgumentCaptor.forClass(UploadPartRequest.class);
+    verify(s3Client, times(4)).uploadPart(partRequests.capture(), any(RequestBody.class));
+    assertThat(partRequests.getAllValues().stream().distinct()
+        .sorted(Comparator.comparing(UploadPartRequest::partNumber)))
+        .extracting(UploadPartRequest::partNumber, UploadPartRequest::contentLength, UploadPartRequest::contentMD5)
+        .containsExactly(
+            tuple(1, 4L, md5Of("0123")), tuple(2, 4L, md5Of("4567")), tuple(3, 2L, md5Of("89")));
+    verify(s3Client).completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+        .bucket(VALID_BUCKET_NAME).key(VALID_NAME).uploadId("uploadId")
+        .multipartUpload(CompletedMultipartUpload.builder().parts(
+            CompletedPart.builder().partNumber(1).eTag("etag1").build(),
+            CompletedPart.builder().partNumber(2).eTag("etag2").build(),
+            CompletedPart.builder().partNumber(3).eTag("etag3").build()).build())
+        .build());
+    verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    UploadStatistics uploadStatistics = multipartClient.getUploadStatistics();
+    assertThat(uploadStatistics.getNumberOfMultipartUploads()).isEqualTo(1);
+    assertThat(uploadStatistics.getNumberOfPartRetries()).isEqualTo(1);
+    assertThat(uploadStatistics.getUploadedBytes()).isEqualTo(10);
+  }
+
+  @Test
+  void failedMultipartUploadIsAborted() throws IOException {
+    mockMultipartUpload();
+    when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+        .thenThrow(SdkClientException.class);
+    ObjectStoreClient multipartClient = createMultipartClient();
+    Path file = createMultipartFile();
+    Map<HeaderKey, String> headers = Collections.emptyMap();
+
+    assertThatExceptionOfType(SdkClientException.class)
+        .isThrownBy(() -> multipartClient.putObject(VALID_BUCKET_NAME, VALID_NAME, file, headers));
+
+    verify(s3Client).abortMultipartUpload(AbortMultipartUploadRequest.builder()
+        .bucket(VALID_BUCKET_NAME).key(VALID_NAME).uploadId("uploadId").build());
+    verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+  }
+
+  @Test
+  void partsAreNotUploadedAfterTheClientIsDestroyed() throws IOException {
+    mockMultipartUpload();
+    S3ClientWrapper multipartClient = createMultipartClient();
+    Path file = createMultipartFile();
+    Map<HeaderKey, String> headers = Collections.emptyMap();
+
+    multipartClient.destroy();
+
+    assertThatExceptionOfType(RejectedExecutionException.class)
+        .isThrownBy(() -> multipartClient.putObject(VALID_BUCKET_NAME, VALID_NAME, file, headers));
+    verify(s3Client, never()).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+    verify(s3Client).abortMultipartUpload(AbortMultipartUploadRequest.builder()
+        .bucket(VALID_BUCKET_NAME).key(VALID_NAME).uploadId("uploadId").build());
+  }
+
   @ParameterizedTest
   @ValueSource(classes = {NoSuchBucketException.class, S3Exception.class, SdkClientException.class, SdkException.class})
   void putObjectsThrowsObjectStoreOperationFailedExceptionIfClientThrows(Class<Exception> cause) {
     when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenThrow(cause);
     assertThatExceptionOfType(ObjectStoreOperationFailedException.class)
-        .isThrownBy(() -> s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_PREFIX, VALID_PATH, Collections.emptyMap()));
+        .isThrownBy(() -> s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_PREFIX, validPath, Collections.emptyMap()));
   }
 
   @ParameterizedTest
@@ -248,7 +396,7 @@ class S3ClientWrapperTest {
   void shouldRetryUploadingObjectAndThenThrow(Class<Exception> cause) {
     when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenThrow(cause);
     assertThatExceptionOfType(ObjectStoreOperationFailedException.class)
-        .isThrownBy(() -> s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_PREFIX, VALID_PATH, Collections.emptyMap()));
+        .isThrownBy(() -> s3ClientWrapper.putObject(VALID_BUCKET_NAME, VALID_PREFIX, validPath, Collections.emptyMap()));
 
     verify(s3Client, times(configuredNumberOfRetries)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
   }
@@ -368,4 +516,27 @@ class S3ClientWrapperTest {
         .isThrownBy(() -> s3ClientWrapper.getSingleObjectContent("", "", "etag"))
         .withCauseExactlyInstanceOf(cause);
   }
+
+  private void mockMultipartUpload() {
+    CreateMultipartUploadResponse createResponse = CreateMultipartUploadResponse.builder().uploadId("uploadId").build();
+    when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class))).thenReturn(createResponse);
+  }
+
+  private S3ClientWrapper createMultipartClient() {
+    ObjectStore objectStore = new ObjectStore();
+    objectStore.setMultipartUpload(true);
+    objectStore.setMultipartUploadThreshold(10);
+    objectStore.setMultipartUploadPartSize(4);
+    objectStore.setMaxNumberOfS3Threads(2);
+    objectStore.setMultipartUploadPartRetryAttempts(1);
+    return new S3ClientWrapper(s3Client, objectStore);
+  }
+
+  private Path createMultipartFile() throws IOException {
+    return Files.writeString(tempDirectory.resolve("large"), "0123456789");
+  }
+
+  private static String md5Of(String content) {
+    return Base64.getEncoder().encodeToString(DigestUtils.md5Digest(content.getBytes(StandardCharsets.UTF_8)));
+  }
 }
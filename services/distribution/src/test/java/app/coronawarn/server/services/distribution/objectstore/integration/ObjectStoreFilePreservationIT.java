@@ -2,6 +2,7 @@
 
 package app.coronawarn.server.services.distribution.objectstore.integration;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 import app.coronawarn.server.common.persistence.service.DiagnosisKeyService;
@@ -10,6 +11,7 @@ import app.coronawarn.server.common.persistence.service.TraceTimeIntervalWarning
 import app.coronawarn.server.services.distribution.Application;
 import app.coronawarn.server.services.distribution.assembly.component.OutputDirectoryProvider;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.DirectoryOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
 import app.coronawarn.server.services.distribution.common.DiagnosisTestData;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
 import app.coronawarn.server.services.distribution.objectstore.FailedObjectStoreOperationsCounter;
@@ -69,6 +71,8 @@ class ObjectStoreFilePreservationIT extends BaseS3IntegrationTest {
   private DistributionServiceConfig distributionServiceConfig;
   @Autowired
   private StatisticsDownloadService statisticsDownloadService;
+  @Autowired
+  private FileDigests fileDigests;
 
   @MockBean
   private OutputDirectoryProvider distributionDirectoryProvider;
@@ -181,14 +185,15 @@ class ObjectStoreFilePreservationIT extends BaseS3IntegrationTest {
   }
 
   private void assembleAndDistribute(File output) throws IOException {
-    when(distributionDirectoryProvider.getDirectory()).thenReturn(new DirectoryOnDisk(output));
+    when(distributionDirectoryProvider.getDirectory(any()))
+        .thenAnswer(invocation -> new DirectoryOnDisk(output, invocation.getArgument(0)));
     when(distributionDirectoryProvider.getFileOnDisk()).thenReturn(output);
 
     fileAssembler.run(null);
 
     S3Publisher s3Publisher = new S3Publisher(objectStoreAccess,
         new FailedObjectStoreOperationsCounter(distributionServiceConfig),
-        newAsyncExecutor(), distributionServiceConfig);
+        newAsyncExecutor(), distributionServiceConfig, fileDigests);
     s3Publisher.publish(distributionDirectoryProvider.getFileOnDisk().toPath().toAbsolutePath());
   }
 
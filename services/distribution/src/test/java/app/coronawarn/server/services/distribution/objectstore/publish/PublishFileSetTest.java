@@ -0,0 +1,89 @@
+package app.coronawarn.server.services.distribution.objectstore.publish;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class PublishFileSetTest {
+
+  @TempDir
+  Path root;
+
+  private final FileDigests fileDigests = new FileDigests();
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4})
+  void filesAreListedInTheSameOrderAsByFileWalk(int parallelism) throws IOException {
+    for (int day = 1; day <= 3; day++) {
+      Path date = root.resolve("version/v1/diagnosis-keys/country/DE/date/2021-01-0" + day);
+      createFile(date.resolve("index"));
+      for (int hour = 0; hour < 24; hour++) {
+        createFile(date.resolve("hour/" + hour + "/index"));
+        createFile(date.resolve("hour/" + hour + "/index.checksum"));
+      }
+    }
+    createFile(root.resolve("version/v1/app_config"));
+
+    List<String> s3Keys = new PublishFileSet(root, parallelism, fileDigests).getFiles().stream()
+        .map(LocalFile::getS3Key).collect(Collectors.toList());
+
+    try (Stream<Path> walk = Files.walk(root)) {
+      assertThat(s3Keys).hasSize(3 * 25 + 1).isEqualTo(walk
+          .filter(Files::isRegularFile)
+          .filter(path -> !path.toString().endsWith(".checksum"))
+          .map(path -> PublishFileSet.createLocalFile(path, root, fileDigests).getS3Key())
+          .collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void filesBelowTheMaximumDepthAreIgnored() throws IOException {
+    String nineteenDirectories = IntStream.range(0, 19).mapToObj(String::valueOf).collect(Collectors.joining("/"));
+    createFile(root.resolve(nineteenDirectories + "/file"));
+    createFile(root.resolve(nineteenDirectories + "/19/file"));
+
+    assertThat(new PublishFileSet(root, 2, fileDigests).getFiles())
+        .extracting(LocalFile::getS3Key)
+        .containsExactly(nineteenDirectories + "/file");
+  }
+
+  @Test
+  void checksumsAreTakenFromFileDigestsBeforeChecksumFiles() throws IOException {
+    Path recordedFile = createFile(root.resolve("recorded"));
+    Files.writeString(root.resolve("recorded.checksum"), "on disk");
+    fileDigests.putChecksum(recordedFile, "recorded");
+    createFile(root.resolve("unrecorded"));
+    Files.writeString(root.resolve("unrecorded.checksum"), "on disk");
+
+    assertThat(new PublishFileSet(root, 2, fileDigests).getFiles())
+        .extracting(LocalFile::getS3Key, LocalFile::getChecksum)
+        .containsExactlyInAnyOrder(
+            tuple("recorded", "recorded"),
+            tuple("unrecorded", "on disk"));
+  }
+
+  @Test
+  void rootMustBeADirectory() throws IOException {
+    Path file = createFile(root.resolve("file"));
+
+    assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() -> new PublishFileSet(file, 2, fileDigests));
+  }
+
+  private static Path createFile(Path path) throws IOException {
+    Files.createDirectories(path.getParent());
+    return Files.writeString(path, "content");
+  }
+}
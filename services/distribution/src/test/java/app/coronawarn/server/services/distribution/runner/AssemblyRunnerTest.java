@@ -11,6 +11,7 @@ import app.coronawarn.server.services.distribution.assembly.component.OutputDire
 import app.coronawarn.server.services.distribution.assembly.structure.WritableOnDisk;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.Directory;
 import app.coronawarn.server.services.distribution.assembly.structure.directory.DirectoryOnDisk;
+import app.coronawarn.server.services.distribution.assembly.structure.file.FileDigests;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
 import java.io.IOException;
 import org.junit.Rule;
@@ -27,7 +28,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 @EnableConfigurationProperties(value = DistributionServiceConfig.class)
 @ExtendWith(SpringExtension.class)
-@ContextConfiguration(classes = {Assembly.class}, initializers = ConfigDataApplicationContextInitializer.class)
+@ContextConfiguration(classes = {Assembly.class, FileDigests.class}, initializers = ConfigDataApplicationContextInitializer.class)
 class AssemblyRunnerTest {
 
   @MockBean
@@ -59,13 +60,13 @@ class AssemblyRunnerTest {
     Directory<WritableOnDisk> spyParentDirectory = spy(parentDirectory);
 
 
-    when(outputDirectoryProvider.getDirectory()).thenReturn(spyParentDirectory);
+    when(outputDirectoryProvider.getDirectory(any())).thenReturn(spyParentDirectory);
     when(cwaApiStructureProvider.getDirectory()).thenReturn(childDirectory);
     when(cwaApiStructureProvider.getDirectoryV2()).thenReturn(childDirectory);
 
     assembly.run(null);
 
-    verify(outputDirectoryProvider, times(1)).getDirectory();
+    verify(outputDirectoryProvider, times(1)).getDirectory(any());
     verify(outputDirectoryProvider, times(1)).clear();
     verify(cwaApiStructureProvider, times(1)).getDirectory();
     verify(cwaApiStructureProvider, times(1)).getDirectoryV2();
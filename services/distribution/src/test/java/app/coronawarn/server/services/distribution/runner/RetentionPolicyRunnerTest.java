@@ -50,11 +50,7 @@ class RetentionPolicyRunnerTest {
         .applyRetentionPolicy(distributionServiceConfig.getRetentionDays());
     verify(traceTimeIntervalWarningService, times(1))
         .applyRetentionPolicy(distributionServiceConfig.getRetentionDays());
-    verify(s3RetentionPolicy, times(1))
-        .applyDiagnosisKeyDayRetentionPolicy(distributionServiceConfig.getRetentionDays());
-    verify(s3RetentionPolicy, times(1))
-        .applyDiagnosisKeyHourRetentionPolicy(distributionServiceConfig.getObjectStore().getHourFileRetentionDays());
-    verify(s3RetentionPolicy, times(1))
-        .applyTraceTimeWarningHourRetentionPolicy(distributionServiceConfig.getRetentionDays());
+    verify(s3RetentionPolicy, times(1)).applyRetentionPolicy(distributionServiceConfig.getRetentionDays(),
+        distributionServiceConfig.getObjectStore().getHourFileRetentionDays());
   }
 }
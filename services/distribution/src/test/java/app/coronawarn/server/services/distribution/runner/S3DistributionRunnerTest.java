@@ -1,14 +1,22 @@
 package app.coronawarn.server.services.distribution.runner;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import app.coronawarn.server.services.distribution.assembly.component.OutputDirectoryProvider;
+import app.coronawarn.server.services.distribution.assembly.diagnosiskeys.DiagnosisKeysFingerprintManifest;
 import app.coronawarn.server.services.distribution.config.DistributionServiceConfig;
+import app.coronawarn.server.services.distribution.objectstore.FailedObjectStoreOperationsCounter;
+import app.coronawarn.server.services.distribution.objectstore.ObjectStoreAccess;
 import app.coronawarn.server.services.distribution.objectstore.S3Publisher;
+import app.coronawarn.server.services.distribution.objectstore.client.UploadStatistics;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,9 +37,26 @@ class S3DistributionRunnerTest {
   @MockBean
   S3Publisher s3Publisher;
 
+  @MockBean
+  DiagnosisKeysFingerprintManifest fingerprintManifest;
+
+  @MockBean
+  FailedObjectStoreOperationsCounter failedOperationsCounter;
+
+  @MockBean
+  ObjectStoreAccess objectStoreAccess;
+
   @Autowired
   S3Distribution s3Distribution;
 
+  @Autowired
+  DistributionServiceConfig distributionServiceConfig;
+
+  @BeforeEach
+  void setup() {
+    when(objectStoreAccess.getUploadStatistics()).thenReturn(new UploadStatistics());
+  }
+
   @Test
   void shouldPublishCorrectFolder() throws IOException {
     var outputPath = Paths.get("test", "mock", "folder");
@@ -43,4 +68,39 @@ class S3DistributionRunnerTest {
 
     verify(s3Publisher, times(1)).publish(outputPath.toAbsolutePath());
   }
+
+  @Test
+  void shouldNotPublishAgainAfterPipelinedUpload() throws IOException {
+    when(outputDirectoryProvider.getFileOnDisk()).thenReturn(new java.io.File("test"));
+    distributionServiceConfig.getObjectStore().setPipelinedUpload(true);
+
+    try {
+      s3Distribution.run(null);
+    } finally {
+      distributionServiceConfig.getObjectStore().setPipelinedUpload(false);
+    }
+
+    verify(s3Publisher, never()).publish(any(Path.class));
+    verify(fingerprintManifest, times(1)).persist();
+  }
+
+  @Test
+  void shouldPersistFingerprintManifestAfterSuccessfulPublishing() {
+    when(outputDirectoryProvider.getFileOnDisk()).thenReturn(new java.io.File("test"));
+    when(failedOperationsCounter.getNumberOfFailedOperations()).thenReturn(0);
+
+    s3Distribution.run(null);
+
+    verify(fingerprintManifest, times(1)).persist();
+  }
+
+  @Test
+  void shouldNotPersistFingerprintManifestIfOperationsFailed() {
+    when(outputDirectoryProvider.getFileOnDisk()).thenReturn(new java.io.File("test"));
+    when(failedOperationsCounter.getNumberOfFailedOperations()).thenReturn(1);
+
+    s3Distribution.run(null);
+
+    verify(fingerprintManifest, never()).persist();
+  }
 }
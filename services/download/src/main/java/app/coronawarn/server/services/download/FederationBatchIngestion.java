@@ -0,0 +1,123 @@
+package app.coronawarn.server.services.download;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.common.persistence.domain.FederationBatchSourceSystem;
+import app.coronawarn.server.common.persistence.domain.normalization.DiagnosisKeyNormalizer;
+import app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKeyBatch;
+import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
+import app.coronawarn.server.services.download.validation.ValidFederationKeyFilter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts the keys of a downloaded federation batch into {@link DiagnosisKey} entities in a single traversal. Each key
+ * is counted for its origin country, checked by the {@link ValidFederationKeyFilter}, normalized and built. Batches
+ * from the CHGS only contribute keys with origin country CH. A single instance is used for all batches and may be used
+ * concurrently.
+ */
+class FederationBatchIngestion {
+
+  static final String CH = "CH";
+
+  private static final Logger logger = LoggerFactory.getLogger(FederationBatchIngestion.class);
+
+  private final ValidFederationKeyFilter validFederationKeyFilter;
+  private final DiagnosisKeyNormalizer normalizer;
+  private final boolean onlyKeysFromCh;
+
+  /**
+   * Creates a {@link FederationBatchIngestion}.
+   *
+   * @param validFederationKeyFilter The {@link ValidFederationKeyFilter} the keys must pass.
+   * @param normalizer               The {@link DiagnosisKeyNormalizer} that is applied to all keys. It must be
+   *                                 stateless.
+   * @param sourceSystem             The source system of the batches.
+   */
+  FederationBatchIngestion(ValidFederationKeyFilter validFederationKeyFilter, DiagnosisKeyNormalizer normalizer,
+      FederationBatchSourceSystem sourceSystem) {
+    this.validFederationKeyFilter = validFederationKeyFilter;
+    this.normalizer = normalizer;
+    this.onlyKeysFromCh = sourceSystem == FederationBatchSourceSystem.CHGS;
+  }
+
+  /**
+   * Counts, validates, normalizes and converts the keys of the specified batch.
+   *
+   * @param batch The downloaded batch.
+   * @return The {@link IngestedBatch} with the valid keys and the number of keys per origin country.
+   */
+  IngestedBatch ingest(DiagnosisKeyBatch batch) {
+    List<DiagnosisKey> validKeys = new ArrayList<>(batch.getKeysCount());
+    Map<String, int[]> keysPerOriginCountry = new HashMap<>();
+    for (app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKey federationKey
+        : batch.getKeysList()) {
+      String originCountry = federationKey.getOrigin();
+      keysPerOriginCountry.computeIfAbsent(originCountry, key -> new int[1])[0]++;
+      if (validFederationKeyFilter.isValid(federationKey)
+          && (!onlyKeysFromCh || CH.equalsIgnoreCase(originCountry))) {
+        DiagnosisKey diagnosisKey = convert(federationKey);
+        if (diagnosisKey != null) {
+          validKeys.add(diagnosisKey);
+        }
+      }
+    }
+    return new IngestedBatch(validKeys, batch.getKeysCount(), keysPerOriginCountry);
+  }
+
+  private DiagnosisKey convert(
+      app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKey federationKey) {
+    try {
+      return DiagnosisKey.builder().fromFederationDiagnosisKey(federationKey)
+          .withReportType(ReportType.CONFIRMED_TEST)
+          .withFieldNormalization(normalizer)
+          .build();
+    } catch (Exception e) {
+      logger.warn("Building diagnosis key from federation diagnosis key failed. The key's origin country is: "
+          + federationKey.getOrigin(), e);
+      return null;
+    }
+  }
+
+  /**
+   * The result of the ingestion of a single batch.
+   */
+  static final class IngestedBatch {
+
+    private final List<DiagnosisKey> validKeys;
+    private final int numberOfKeys;
+    private final Map<String, int[]> keysPerOriginCountry;
+
+    private IngestedBatch(List<DiagnosisKey> validKeys, int numberOfKeys, Map<String, int[]> keysPerOriginCountry) {
+      this.validKeys = validKeys;
+      this.numberOfKeys = numberOfKeys;
+      this.keysPerOriginCountry = keysPerOriginCountry;
+    }
+
+    List<DiagnosisKey> getValidKeys() {
+      return validKeys;
+    }
+
+    int getNumberOfKeys() {
+      return numberOfKeys;
+    }
+
+    int getNumberOfInvalidKeys() {
+      return numberOfKeys - validKeys.size();
+    }
+
+    /**
+     * Passes each origin country and the number of keys of the batch with this origin country to the specified
+     * consumer.
+     *
+     * @param consumer The consumer of the origin countries and their numbers of keys.
+     */
+    void forEachOriginCountry(ObjIntConsumer<String> consumer) {
+      keysPerOriginCountry.forEach((originCountry, count) -> consumer.accept(originCountry, count[0]));
+    }
+  }
+}
@@ -5,36 +5,44 @@ import static app.coronawarn.server.common.persistence.domain.FederationBatchSta
 import static app.coronawarn.server.common.persistence.domain.FederationBatchStatus.PROCESSED;
 import static app.coronawarn.server.common.persistence.domain.FederationBatchStatus.PROCESSED_WITH_ERROR;
 import static app.coronawarn.server.common.persistence.domain.FederationBatchStatus.UNPROCESSED;
+import static app.coronawarn.server.services.download.FederationBatchStageMetrics.Stage.AUDIT;
+import static app.coronawarn.server.services.download.FederationBatchStageMetrics.Stage.DOWNLOAD;
+import static app.coronawarn.server.services.download.FederationBatchStageMetrics.Stage.PERSISTENCE;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 
-import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
 import app.coronawarn.server.common.persistence.domain.FederationBatchInfo;
 import app.coronawarn.server.common.persistence.domain.FederationBatchSourceSystem;
 import app.coronawarn.server.common.persistence.domain.FederationBatchStatus;
 import app.coronawarn.server.common.persistence.service.DiagnosisKeyService;
 import app.coronawarn.server.common.persistence.service.FederationBatchInfoService;
-import app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKeyBatch;
-import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
+import app.coronawarn.server.services.download.FederationBatchIngestion.IngestedBatch;
 import app.coronawarn.server.services.download.config.DownloadServiceConfig;
 import app.coronawarn.server.services.download.normalization.FederationKeyNormalizer;
 import app.coronawarn.server.services.download.validation.ValidFederationKeyFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.Deque;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
 /**
@@ -44,18 +52,19 @@ import org.springframework.stereotype.Component;
 public class FederationBatchProcessor {
 
   private static final Logger logger = LoggerFactory.getLogger(FederationBatchProcessor.class);
-  private static final String CH = "CH";
   private final FederationBatchInfoService batchInfoService;
   private final DiagnosisKeyService diagnosisKeyService;
   private final FederationGatewayDownloadService federationGatewayDownloadService;
   private final DownloadServiceConfig config;
-  private final ValidFederationKeyFilter validFederationKeyFilter;
+  private final FederationBatchIngestion batchIngestion;
+  private final FederationBatchStageMetrics stageMetrics;
 
   /**
    * This is a potential memory-leak if there are very many batches.
    * This is an intentional decision:
    * We'd rather run into a memory-leak if there are too many batches
-   * than run into an endless loop if a batch-tag repeats
+   * than run into an endless loop if a batch-tag repeats.
+   * The set is concurrent, because batches of different dates may be processed in parallel.
    */
   private final Set<String> seenBatches;
 
@@ -70,16 +79,22 @@ public class FederationBatchProcessor {
    * @param config                           A {@link DownloadServiceConfig} for retrieving federation configuration.
    * @param federationKeyValidator           A {@link ValidFederationKeyFilter} for validating keys in the downloaded
    *                                         batches
+   * @param meterRegistry                    The {@link MeterRegistry} of the stage timers. If none is available, the
+   *                                         timers are registered with a {@link SimpleMeterRegistry}.
    */
   public FederationBatchProcessor(FederationBatchInfoService batchInfoService,
       DiagnosisKeyService diagnosisKeyService, FederationGatewayDownloadService federationGatewayDownloadService,
-      DownloadServiceConfig config, ValidFederationKeyFilter federationKeyValidator) {
+      DownloadServiceConfig config, ValidFederationKeyFilter federationKeyValidator,
+      ObjectProvider<MeterRegistry> meterRegistry) {
     this.batchInfoService = batchInfoService;
     this.diagnosisKeyService = diagnosisKeyService;
     this.federationGatewayDownloadService = federationGatewayDownloadService;
     this.config = config;
-    this.validFederationKeyFilter = federationKeyValidator;
-    this.seenBatches = new HashSet<>();
+    this.batchIngestion = new FederationBatchIngestion(federationKeyValidator, new FederationKeyNormalizer(config),
+        config.getSourceSystem());
+    this.seenBatches = ConcurrentHashMap.newKeySet();
+    this.stageMetrics = new FederationBatchStageMetrics(meterRegistry.getIfAvailable(SimpleMeterRegistry::new),
+        config.getSourceSystem());
   }
 
   /**
@@ -120,12 +135,29 @@ public class FederationBatchProcessor {
 
   /**
    * Downloads and processes all batches from the federation gateway that have previously been marked with the status
-   * value {@link FederationBatchStatus#ERROR}.
+   * value {@link FederationBatchStatus#ERROR}. If the pipelined download is enabled, the batches are retried in
+   * parallel.
    */
   public void processErrorFederationBatches() {
     List<FederationBatchInfo> federationBatchInfoWithError = batchInfoService.findByStatus(ERROR);
     logger.info("{} error federation batches for reprocessing found", federationBatchInfoWithError.size());
-    federationBatchInfoWithError.forEach(this::retryProcessingBatch);
+    if (config.getPipeline().isEnabled() && federationBatchInfoWithError.size() > 1) {
+      retryProcessingBatchesInParallel(federationBatchInfoWithError);
+    } else {
+      federationBatchInfoWithError.forEach(this::retryProcessingBatch);
+    }
+  }
+
+  private void retryProcessingBatchesInParallel(List<FederationBatchInfo> federationBatchInfoWithError) {
+    ExecutorService retryExecutor = Executors.newFixedThreadPool(
+        Math.min(config.getPipeline().getParallelism(), federationBatchInfoWithError.size()));
+    try {
+      CompletableFuture.allOf(federationBatchInfoWithError.stream()
+          .map(batchInfo -> CompletableFuture.runAsync(() -> retryProcessingBatch(batchInfo), retryExecutor))
+          .toArray(CompletableFuture[]::new)).join();
+    } finally {
+      retryExecutor.shutdownNow();
+    }
   }
 
   private void retryProcessingBatch(FederationBatchInfo federationBatchInfo) {
@@ -143,14 +175,27 @@ public class FederationBatchProcessor {
 
   /**
    * Downloads and processes all batches from the federation gateway that have previously been marked with status value
-   * {@link FederationBatchStatus#UNPROCESSED}.
+   * {@link FederationBatchStatus#UNPROCESSED}. If the pipelined download is enabled, the batches of different dates are
+   * processed in parallel, see {@link #processBatchesOfDate}.
    *
    * @throws FatalFederationGatewayException triggers if error occurs in the federation gateway
    */
   public void processUnprocessedFederationBatches() throws FatalFederationGatewayException {
-    Deque<FederationBatchInfo> unprocessedBatches = new LinkedList<>(batchInfoService.findByStatus(UNPROCESSED));
-    logger.info("{} unprocessed {} batches found", unprocessedBatches.size(), config.getSourceSystem());
+    List<FederationBatchInfo> unprocessedBatchInfos = batchInfoService.findByStatus(UNPROCESSED);
+    logger.info("{} unprocessed {} batches found", unprocessedBatchInfos.size(), config.getSourceSystem());
+
+    if (config.getPipeline().isEnabled()) {
+      processUnprocessedFederationBatchesPipelined(unprocessedBatchInfos);
+    } else {
+      processUnprocessedFederationBatchesSequentially(unprocessedBatchInfos);
+    }
+    logger.info("Processed {} total {} batches", seenBatches.size(), config.getSourceSystem());
+    stageMetrics.logSummary();
+  }
 
+  private void processUnprocessedFederationBatchesSequentially(List<FederationBatchInfo> unprocessedBatchInfos)
+      throws FatalFederationGatewayException {
+    Deque<FederationBatchInfo> unprocessedBatches = new LinkedList<>(unprocessedBatchInfos);
     while (!unprocessedBatches.isEmpty()) {
       FederationBatchInfo currentBatchInfo = unprocessedBatches.remove();
       seenBatches.add(currentBatchInfo.getBatchTag());
@@ -162,7 +207,71 @@ public class FederationBatchProcessor {
             }
           });
     }
-    logger.info("Processed {} total {} batches", seenBatches.size(), config.getSourceSystem());
+  }
+
+  private void processUnprocessedFederationBatchesPipelined(List<FederationBatchInfo> unprocessedBatchInfos)
+      throws FatalFederationGatewayException {
+    Collection<List<FederationBatchInfo>> batchesByDate = unprocessedBatchInfos.stream()
+        .collect(groupingBy(FederationBatchInfo::getDate, LinkedHashMap::new, toList())).values();
+    if (batchesByDate.isEmpty()) {
+      return;
+    }
+    int parallelism = Math.min(config.getPipeline().getParallelism(), batchesByDate.size());
+    ExecutorService dateExecutor = Executors.newFixedThreadPool(parallelism);
+    // Each date has at most one prefetched download and one audit in flight.
+    ExecutorService gatewayExecutor = Executors.newFixedThreadPool(2 * parallelism);
+    try {
+      List<CompletableFuture<Void>> dates = batchesByDate.stream()
+          .map(batches -> CompletableFuture.runAsync(() -> {
+            try {
+              processBatchesOfDate(batches, gatewayExecutor);
+            } catch (FatalFederationGatewayException e) {
+              throw new CompletionException(e);
+            }
+          }, dateExecutor))
+          .collect(toList());
+      for (CompletableFuture<Void> date : dates) {
+        awaitFatal(date);
+      }
+    } finally {
+      dateExecutor.shutdownNow();
+      gatewayExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Processes the specified batches of a single date and the batches they link to one after another. While a batch is
+   * validated and persisted, the download of the next batch is already running and the batch is audited concurrently.
+   */
+  private void processBatchesOfDate(List<FederationBatchInfo> batches, Executor gatewayExecutor)
+      throws FatalFederationGatewayException {
+    Deque<FederationBatchInfo> unprocessedBatches = new LinkedList<>(batches);
+    CompletableFuture<BatchDownloadResponse> prefetchedDownload = null;
+    while (!unprocessedBatches.isEmpty()) {
+      FederationBatchInfo currentBatchInfo = unprocessedBatches.remove();
+      seenBatches.add(currentBatchInfo.getBatchTag());
+      logProcessing(currentBatchInfo);
+      CompletableFuture<BatchDownloadResponse> download = prefetchedDownload != null
+          ? prefetchedDownload : downloadAsync(currentBatchInfo, gatewayExecutor);
+      prefetchedDownload = null;
+      BatchDownloadResponse response;
+      try {
+        response = await(download);
+      } catch (FatalFederationGatewayException e) {
+        throw e;
+      } catch (Exception e) {
+        handleFailedBatch(currentBatchInfo, ERROR, e);
+        continue;
+      }
+      Optional.ofNullable(response).flatMap(BatchDownloadResponse::getNextBatchTag)
+          .filter(this::isEfgsEnforceDateBasedDownloadAndNotSeen)
+          .ifPresent(nextBatchTag -> unprocessedBatches.add(new FederationBatchInfo(nextBatchTag,
+              currentBatchInfo.getDate(), this.config.getSourceSystem())));
+      if (!unprocessedBatches.isEmpty()) {
+        prefetchedDownload = downloadAsync(unprocessedBatches.peek(), gatewayExecutor);
+      }
+      processDownloadedBatch(currentBatchInfo, response, ERROR, gatewayExecutor);
+    }
   }
 
   private boolean isEfgsEnforceDateBasedDownloadAndNotSeen(String batchTag) {
@@ -171,89 +280,156 @@ public class FederationBatchProcessor {
 
   private Optional<String> processBatchAndReturnNextBatchId(
       FederationBatchInfo batchInfo, FederationBatchStatus errorStatus) throws FatalFederationGatewayException {
+    logProcessing(batchInfo);
+    BatchDownloadResponse response;
+    try {
+      response = download(batchInfo);
+    } catch (FatalFederationGatewayException e) {
+      throw e;
+    } catch (Exception e) {
+      handleFailedBatch(batchInfo, errorStatus, e);
+      return Optional.empty();
+    }
+    return processDownloadedBatch(batchInfo, response, errorStatus, Runnable::run);
+  }
+
+  private void logProcessing(FederationBatchInfo batchInfo) {
+    logger.info("Processing {} batch for date {} and batchTag {}", batchInfo.getSourceSystem(), batchInfo.getDate(),
+        batchInfo.getBatchTag());
+  }
+
+  private BatchDownloadResponse download(FederationBatchInfo batchInfo)
+      throws FatalFederationGatewayException, BatchDownloadException {
+    long startTime = System.nanoTime();
+    try {
+      return federationGatewayDownloadService.downloadBatch(batchInfo.getBatchTag(), batchInfo.getDate());
+    } finally {
+      stageMetrics.record(DOWNLOAD, startTime);
+    }
+  }
+
+  private CompletableFuture<BatchDownloadResponse> downloadAsync(FederationBatchInfo batchInfo, Executor executor) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return download(batchInfo);
+      } catch (FatalFederationGatewayException | BatchDownloadException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  private void handleFailedBatch(FederationBatchInfo batchInfo, FederationBatchStatus errorStatus, Exception e) {
+    logger.error(batchInfo.getSourceSystem() + " batch processing for date " + batchInfo.getDate() + " and batchTag "
+        + batchInfo.getBatchTag() + " failed. Status set to " + errorStatus.name(), e);
+    batchInfoService.updateStatus(batchInfo, errorStatus);
+  }
+
+  /**
+   * Validates and persists the keys of the downloaded batch and updates the status of the batch accordingly. If the
+   * batch audit is enabled, the batch is audited on the specified executor while its keys are validated. The keys are
+   * only persisted if the audit succeeds.
+   *
+   * @return The tag of the next batch, if any.
+   */
+  private Optional<String> processDownloadedBatch(FederationBatchInfo batchInfo, BatchDownloadResponse response,
+      FederationBatchStatus errorStatus, Executor auditExecutor) {
     LocalDate date = batchInfo.getDate();
     String batchTag = batchInfo.getBatchTag();
-    logger.info("Processing {} batch for date {} and batchTag {}", batchInfo.getSourceSystem(), date, batchTag);
     AtomicReference<Optional<String>> nextBatchTag = new AtomicReference<>(Optional.empty());
     try {
-      BatchDownloadResponse response = federationGatewayDownloadService.downloadBatch(batchTag, date);
       AtomicBoolean batchContainsInvalidKeys = new AtomicBoolean(false);
       nextBatchTag.set(response.getNextBatchTag());
       response.getDiagnosisKeyBatch().ifPresentOrElse(batch -> {
         logger.info("Downloaded {} {} keys for date {} and batchTag {}", batchInfo.getSourceSystem(),
             batch.getKeysCount(), date, batchTag);
-        Map<String, Integer> countedKeysByOriginCountry = batch
-            .getKeysList().stream().collect(Collectors.groupingBy(
-                app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKey::getOrigin))
-            .entrySet().stream()
-            .collect(Collectors.toMap(Entry::getKey,
-                e -> e.getValue().size()));
-        if (config.getSourceSystem() == FederationBatchSourceSystem.EFGS) {
-          countedKeysByOriginCountry.forEach((key, value) -> logger.info("Downloaded {} {} keys with origin country {}",
-              batchInfo.getSourceSystem(), key, value));
-        }
-        if (isChgs()) {
-          countedKeysByOriginCountry.entrySet().stream().filter(k -> !CH.equalsIgnoreCase(k.getKey()))
-              .forEach(k -> logger
-                  .warn("There are keys {} with origin country {} which is different to CH and therefore they will be "
-                      + "dropped", k.getValue(), k.getKey()));
-        }
-
-        if (config.isBatchAuditEnabled()) {
-          federationGatewayDownloadService.auditBatch(batchTag, date);
-        }
-        List<DiagnosisKey> validDiagnosisKeys = extractValidDiagnosisKeysFromBatch(batch);
-        int numOfInvalidKeys = batch.getKeysCount() - validDiagnosisKeys.size();
+        CompletableFuture<Void> audit = config.isBatchAuditEnabled()
+            ? CompletableFuture.runAsync(() -> stageMetrics.time(AUDIT, () -> {
+              federationGatewayDownloadService.auditBatch(batchTag, date);
+              return null;
+            }), auditExecutor)
+            : CompletableFuture.completedFuture(null);
+        long ingestionStartTime = System.nanoTime();
+        IngestedBatch ingestedBatch = batchIngestion.ingest(batch);
+        double keysPerSecond = stageMetrics.recordIngestion(ingestionStartTime, batch.getKeysCount());
+        logger.debug("Ingested {} {} keys of batchTag {} at {} keys/s", batchInfo.getSourceSystem(),
+            batch.getKeysCount(), batchTag, Math.round(keysPerSecond));
+        logKeysPerOriginCountry(batchInfo, ingestedBatch);
+        awaitUnchecked(audit);
+        int numOfInvalidKeys = ingestedBatch.getNumberOfInvalidKeys();
         if (numOfInvalidKeys > 0) {
           batchContainsInvalidKeys.set(true);
           logger.info("{} {} keys failed validation and were skipped", batchInfo.getSourceSystem(), numOfInvalidKeys);
         }
-        int insertedKeys = diagnosisKeyService.saveDiagnosisKeys(validDiagnosisKeys);
+        int insertedKeys = stageMetrics.time(PERSISTENCE,
+            () -> diagnosisKeyService.saveDiagnosisKeys(ingestedBatch.getValidKeys()));
         logger.info("Successfully inserted {} {} keys for date {} and batchTag {}",  batchInfo.getSourceSystem(),
             insertedKeys, date, batchTag);
       }, () -> logger.info("{} batch for date {} and batchTag {} did not contain any keys",
           batchInfo.getSourceSystem(), date, batchTag));
       batchInfoService.updateStatus(batchInfo, batchContainsInvalidKeys.get() ? PROCESSED_WITH_ERROR : PROCESSED);
       return nextBatchTag.get();
-    } catch (FatalFederationGatewayException e) {
-      throw e;
     } catch (Exception e) {
-      logger.error(batchInfo.getSourceSystem() + " batch processing for date " + date + " and batchTag " + batchTag
-          + " failed. Status set to " + errorStatus.name(), e);
-      batchInfoService.updateStatus(batchInfo, errorStatus);
+      handleFailedBatch(batchInfo, errorStatus, e);
       return nextBatchTag.get();
     }
   }
 
-  private List<DiagnosisKey> extractValidDiagnosisKeysFromBatch(DiagnosisKeyBatch diagnosisKeyBatch) {
-    Stream<app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKey> partialKeys
-        = diagnosisKeyBatch.getKeysList().stream().filter(validFederationKeyFilter::isValid);
-    if (isChgs()) {
-      partialKeys = partialKeys.filter(key -> CH.equalsIgnoreCase(key.getOrigin()));
+  /**
+   * Waits for the specified future and rethrows the cause of its failure.
+   */
+  private static <T> T await(CompletableFuture<T> future) throws Exception {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof Exception) {
+        throw (Exception) e.getCause();
+      }
+      throw e;
     }
-    return partialKeys
-        .map(this::convertFederationDiagnosisKeyToDiagnosisKey)
-        .filter(Optional::isPresent)
-        .map(Optional::get)
-        .collect(toList());
   }
 
-  private boolean isChgs() {
-    return config.getSourceSystem() == FederationBatchSourceSystem.CHGS;
+  /**
+   * Waits for the specified future and rethrows the cause of its failure, if it is a {@link RuntimeException}.
+   */
+  private static void awaitUnchecked(CompletableFuture<?> future) {
+    try {
+      future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
   }
 
-  private Optional<DiagnosisKey> convertFederationDiagnosisKeyToDiagnosisKey(
-      app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKey diagnosisKey) {
+  /**
+   * Waits for the specified future and rethrows the cause of its failure, if it is a
+   * {@link FatalFederationGatewayException}.
+   */
+  private static void awaitFatal(CompletableFuture<?> future) throws FatalFederationGatewayException {
     try {
-      return Optional.of(DiagnosisKey.builder().fromFederationDiagnosisKey(diagnosisKey)
-          .withReportType(ReportType.CONFIRMED_TEST)
-          .withFieldNormalization(new FederationKeyNormalizer(config))
-          .build());
-    } catch (Exception e) {
-      logger.warn(
-          "Building diagnosis key from federation diagnosis key failed. The key's origin country is: " + diagnosisKey
-              .getOrigin(), e);
-      return Optional.empty();
+      future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof FatalFederationGatewayException) {
+        throw (FatalFederationGatewayException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+
+  private void logKeysPerOriginCountry(FederationBatchInfo batchInfo, IngestedBatch ingestedBatch) {
+    if (config.getSourceSystem() == FederationBatchSourceSystem.EFGS) {
+      ingestedBatch.forEachOriginCountry((originCountry, numberOfKeys) -> logger.info(
+          "Downloaded {} {} keys with origin country {}", batchInfo.getSourceSystem(), originCountry, numberOfKeys));
+    }
+    if (config.getSourceSystem() == FederationBatchSourceSystem.CHGS) {
+      ingestedBatch.forEachOriginCountry((originCountry, numberOfKeys) -> {
+        if (!FederationBatchIngestion.CH.equalsIgnoreCase(originCountry)) {
+          logger.warn("There are keys {} with origin country {} which is different to CH and therefore they will be "
+              + "dropped", numberOfKeys, originCountry);
+        }
+      });
     }
   }
 }
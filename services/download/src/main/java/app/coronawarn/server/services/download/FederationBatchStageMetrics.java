@@ -0,0 +1,146 @@
+package app.coronawarn.server.services.download;
+
+import app.coronawarn.server.common.persistence.domain.FederationBatchSourceSystem;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the latency of the stages a federation batch passes through while it is processed. Each latency is recorded
+ * by a Micrometer {@link Timer} named {@value #TIMER_NAME}, which is tagged with the stage and the source system. In
+ * addition, the count, total and maximum latency of each stage are kept, so that they can be logged after processing.
+ * The throughput of the ingestion of each batch is recorded by a {@link DistributionSummary} named
+ * {@value #THROUGHPUT_NAME} in keys per second.
+ * All methods may be called concurrently.
+ */
+class FederationBatchStageMetrics {
+
+  static final String TIMER_NAME = "federation.batch.stage";
+  static final String THROUGHPUT_NAME = "federation.batch.ingestion.throughput";
+
+  private static final Logger logger = LoggerFactory.getLogger(FederationBatchStageMetrics.class);
+
+  /**
+   * The stages of the processing of a single batch.
+   */
+  enum Stage {
+    DOWNLOAD, AUDIT, INGESTION, PERSISTENCE
+  }
+
+  private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+  private final Map<Stage, LongAdder> counts = new EnumMap<>(Stage.class);
+  private final Map<Stage, LongAdder> totalNanos = new EnumMap<>(Stage.class);
+  private final Map<Stage, LongAccumulator> maxNanos = new EnumMap<>(Stage.class);
+  private final DistributionSummary ingestionThroughput;
+
+  /**
+   * Creates a {@link FederationBatchStageMetrics} and registers its timers.
+   *
+   * @param registry     The {@link MeterRegistry} the timers are registered with.
+   * @param sourceSystem The source system of the processed batches.
+   */
+  FederationBatchStageMetrics(MeterRegistry registry, FederationBatchSourceSystem sourceSystem) {
+    String source = String.valueOf(sourceSystem);
+    for (Stage stage : Stage.values()) {
+      timers.put(stage, Timer.builder(TIMER_NAME)
+          .description("Latency of a stage of the federation batch processing")
+          .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+          .tag("source", source)
+          .register(registry));
+      counts.put(stage, new LongAdder());
+      totalNanos.put(stage, new LongAdder());
+      maxNanos.put(stage, new LongAccumulator(Math::max, 0L));
+    }
+    ingestionThroughput = DistributionSummary.builder(THROUGHPUT_NAME)
+        .description("Number of keys per second at which a federation batch is ingested")
+        .baseUnit("keys/s")
+        .tag("source", source)
+        .register(registry);
+  }
+
+  /**
+   * Runs the specified stage and records its latency, regardless of whether it completes normally.
+   *
+   * @param stage    The stage that is run.
+   * @param supplier The computation of the stage.
+   * @param <T>      The type of the result.
+   * @return The result of the stage.
+   */
+  <T> T time(Stage stage, Supplier<T> supplier) {
+    long startTime = System.nanoTime();
+    try {
+      return supplier.get();
+    } finally {
+      record(stage, startTime);
+    }
+  }
+
+  /**
+   * Records the latency of the specified stage, which started at the specified {@link System#nanoTime()}.
+   *
+   * @param stage     The completed stage.
+   * @param startTime The value of {@link System#nanoTime()} when the stage started.
+   */
+  void record(Stage stage, long startTime) {
+    record(stage, startTime, System.nanoTime());
+  }
+
+  private void record(Stage stage, long startTime, long endTime) {
+    long nanos = endTime - startTime;
+    timers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    counts.get(stage).increment();
+    totalNanos.get(stage).add(nanos);
+    maxNanos.get(stage).accumulate(nanos);
+  }
+
+  /**
+   * Records the latency of the ingestion of a batch, which started at the specified {@link System#nanoTime()}, and the
+   * throughput of the ingestion.
+   *
+   * @param startTime    The value of {@link System#nanoTime()} when the ingestion started.
+   * @param numberOfKeys The number of keys of the ingested batch.
+   * @return The throughput in keys per second.
+   */
+  double recordIngestion(long startTime, int numberOfKeys) {
+    long endTime = System.nanoTime();
+    record(Stage.INGESTION, startTime, endTime);
+    double keysPerSecond = numberOfKeys * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(endTime - startTime, 1L);
+    ingestionThroughput.record(keysPerSecond);
+    return keysPerSecond;
+  }
+
+  long getCount(Stage stage) {
+    return counts.get(stage).sum();
+  }
+
+  long getTotalMillis(Stage stage) {
+    return TimeUnit.NANOSECONDS.toMillis(totalNanos.get(stage).sum());
+  }
+
+  long getMaxMillis(Stage stage) {
+    return TimeUnit.NANOSECONDS.toMillis(maxNanos.get(stage).get());
+  }
+
+  /**
+   * Logs the count, total and maximum latency of each stage that has been recorded at least once.
+   */
+  void logSummary() {
+    for (Stage stage : Stage.values()) {
+      long count = getCount(stage);
+      if (count > 0) {
+        logger.info("Batch stage {}: {} time(s), {} ms in total, {} ms on average, {} ms at most.",
+            stage.name().toLowerCase(Locale.ROOT), count, getTotalMillis(stage), getTotalMillis(stage) / count,
+            getMaxMillis(stage));
+      }
+    }
+  }
+}
@@ -6,6 +6,7 @@ import app.coronawarn.server.common.persistence.domain.FederationBatchSourceSyst
 import app.coronawarn.server.common.persistence.domain.config.TekFieldDerivations;
 import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
 import java.util.List;
+import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,8 @@ public class DownloadServiceConfig {
   private TekFieldDerivations tekFieldDerivations;
   private boolean batchAuditEnabled;
   private FederationBatchSourceSystem sourceSystem;
+  @Valid
+  private Pipeline pipeline = new Pipeline();
 
   public Validation getValidation() {
     return validation;
@@ -88,6 +91,14 @@ public class DownloadServiceConfig {
     this.sourceSystem = sourceSystem;
   }
 
+  public Pipeline getPipeline() {
+    return pipeline;
+  }
+
+  public void setPipeline(Pipeline pipeline) {
+    this.pipeline = pipeline;
+  }
+
   public static class Validation {
 
     private List<ReportType> allowedReportTypes;
@@ -101,4 +112,28 @@ public class DownloadServiceConfig {
       this.allowedReportTypes = allowedReportTypes;
     }
   }
+
+  public static class Pipeline {
+
+    private boolean enabled;
+    @Min(1)
+    @Max(64)
+    private int parallelism = 1;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getParallelism() {
+      return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+      this.parallelism = parallelism;
+    }
+  }
 }
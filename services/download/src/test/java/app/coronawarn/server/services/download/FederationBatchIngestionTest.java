@@ -0,0 +1,94 @@
+package app.coronawarn.server.services.download;
+
+import static app.coronawarn.server.common.persistence.domain.FederationBatchSourceSystem.CHGS;
+import static app.coronawarn.server.common.persistence.domain.FederationBatchSourceSystem.EFGS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import app.coronawarn.server.common.persistence.domain.FederationBatchSourceSystem;
+import app.coronawarn.server.common.persistence.domain.normalization.NormalizableFields;
+import app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKey;
+import app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKeyBatch;
+import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
+import app.coronawarn.server.services.download.FederationBatchIngestion.IngestedBatch;
+import app.coronawarn.server.services.download.config.DownloadServiceConfig;
+import app.coronawarn.server.services.download.config.DownloadServiceConfig.Validation;
+import app.coronawarn.server.services.download.validation.ValidFederationKeyFilter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class FederationBatchIngestionTest {
+
+  private static final int NORMALIZED_TRANSMISSION_RISK_LEVEL = 6;
+
+  private final ValidFederationKeyFilter filter;
+
+  FederationBatchIngestionTest() {
+    DownloadServiceConfig config = mock(DownloadServiceConfig.class);
+    Validation validation = mock(Validation.class);
+    when(validation.getAllowedReportTypes()).thenReturn(List.of(ReportType.CONFIRMED_TEST));
+    when(config.getValidation()).thenReturn(validation);
+    filter = new ValidFederationKeyFilter(config);
+  }
+
+  @Test
+  void validKeysAreNormalizedAndConverted() {
+    DiagnosisKeyBatch batch = FederationBatchTestHelper.createDiagnosisKeyBatch(List.of(
+        FederationBatchTestHelper.createFederationDiagnosisKeyWithKeyData("0123456789ABCDEF", "DE"),
+        FederationBatchTestHelper.createFederationDiagnosisKeyWithKeyData("0123456789ABCDEG", "FR")));
+
+    IngestedBatch ingestedBatch = createIngestion(EFGS).ingest(batch);
+
+    assertThat(ingestedBatch.getNumberOfKeys()).isEqualTo(2);
+    assertThat(ingestedBatch.getNumberOfInvalidKeys()).isZero();
+    assertThat(ingestedBatch.getValidKeys()).hasSize(2).allSatisfy(key -> assertThat(key.getTransmissionRiskLevel())
+        .isEqualTo(NORMALIZED_TRANSMISSION_RISK_LEVEL));
+    assertThat(ingestedBatch.getValidKeys().get(1).getOriginCountry()).isEqualTo("FR");
+  }
+
+  @Test
+  void invalidKeysAreSkippedButCounted() {
+    DiagnosisKey filteredKey = FederationBatchTestHelper.createFederationDiagnosisKeyWithReportType(
+        ReportType.SELF_REPORT);
+    DiagnosisKey unbuildableKey = FederationBatchTestHelper.createFederationDiagnosisKeyWithKeyData(
+        FederationBatchTestHelper.createByteStringOfLength(32));
+    DiagnosisKey validKey = FederationBatchTestHelper.createFederationDiagnosisKeyWithKeyData("0123456789ABCDEF", "FR");
+    DiagnosisKeyBatch batch = FederationBatchTestHelper.createDiagnosisKeyBatch(
+        List.of(filteredKey, unbuildableKey, validKey));
+
+    IngestedBatch ingestedBatch = createIngestion(EFGS).ingest(batch);
+
+    assertThat(ingestedBatch.getValidKeys()).hasSize(1);
+    assertThat(ingestedBatch.getNumberOfInvalidKeys()).isEqualTo(2);
+    assertThat(countKeysPerOriginCountry(ingestedBatch)).containsOnly(Map.entry("DE", 2), Map.entry("FR", 1));
+  }
+
+  @Test
+  void keysWithOtherOriginThanChAreDroppedForChgs() {
+    DiagnosisKeyBatch batch = FederationBatchTestHelper.createDiagnosisKeyBatch(List.of(
+        FederationBatchTestHelper.createFederationDiagnosisKeyWithKeyData("0123456789ABCDEF", "CH"),
+        FederationBatchTestHelper.createFederationDiagnosisKeyWithKeyData("0123456789ABCDEG", "DE")));
+
+    IngestedBatch ingestedBatch = createIngestion(CHGS).ingest(batch);
+
+    assertThat(ingestedBatch.getValidKeys()).hasSize(1)
+        .allSatisfy(key -> assertThat(key.getOriginCountry()).isEqualTo("CH"));
+    assertThat(ingestedBatch.getNumberOfInvalidKeys()).isEqualTo(1);
+    assertThat(countKeysPerOriginCountry(ingestedBatch)).containsOnly(Map.entry("CH", 1), Map.entry("DE", 1));
+  }
+
+  private FederationBatchIngestion createIngestion(FederationBatchSourceSystem sourceSystem) {
+    return new FederationBatchIngestion(filter,
+        fields -> NormalizableFields.of(NORMALIZED_TRANSMISSION_RISK_LEVEL, fields.getDaysSinceOnsetOfSymptoms()),
+        sourceSystem);
+  }
+
+  private static Map<String, Integer> countKeysPerOriginCountry(IngestedBatch ingestedBatch) {
+    Map<String, Integer> keysPerOriginCountry = new HashMap<>();
+    ingestedBatch.forEachOriginCountry(keysPerOriginCountry::put);
+    return keysPerOriginCountry;
+  }
+}
@@ -38,6 +38,8 @@ import java.time.Period;
 import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -90,6 +92,7 @@ class FederationBatchProcessorTest {
   @BeforeEach
   void resetConfigToDefault() {
     config.setEnforceDateBasedDownload(false);
+    config.getPipeline().setEnabled(false);
   }
 
   @Nested
@@ -491,6 +494,114 @@ class FederationBatchProcessorTest {
     }
   }
 
+  @Nested
+  @DisplayName("pipelinedDownload")
+  class PipelinedDownloadTest {
+
+    private final LocalDate otherDate = date.plusDays(1);
+
+    @BeforeEach
+    void enablePipeline() {
+      config.getPipeline().setEnabled(true);
+    }
+
+    @Test
+    void testNextBatchIsDownloadedAndProcessed() throws Exception {
+      // The processor remembers the batches it has seen, thus these tags must not be used by other tests.
+      String firstBatchTag = "507f191e810c19729de860ec";
+      String nextBatchTag = "507f191e810c19729de860ed";
+      config.setEnforceDateBasedDownload(true);
+      FederationBatchInfo batchInfo1 = new FederationBatchInfo(firstBatchTag, date, UNPROCESSED, EFGS);
+      FederationBatchInfo batchInfo2 = new FederationBatchInfo(nextBatchTag, date, UNPROCESSED, EFGS);
+      when(batchInfoService.findByStatus(UNPROCESSED)).thenReturn(list(batchInfo1));
+      BatchDownloadResponse serverResponse1 = FederationBatchTestHelper.createBatchDownloadResponse(firstBatchTag,
+          Optional.of(nextBatchTag));
+      when(federationGatewayDownloadService.downloadBatch(firstBatchTag, date)).thenReturn(serverResponse1);
+      BatchDownloadResponse serverResponse2 = FederationBatchTestHelper.createBatchDownloadResponse(nextBatchTag,
+          Optional.empty());
+      when(federationGatewayDownloadService.downloadBatch(nextBatchTag, date)).thenReturn(serverResponse2);
+
+      batchProcessor.processUnprocessedFederationBatches();
+
+      verify(federationGatewayDownloadService, times(1)).downloadBatch(firstBatchTag, date);
+      verify(federationGatewayDownloadService, times(1)).downloadBatch(nextBatchTag, date);
+      verify(batchInfoService, times(1)).updateStatus(batchInfo1, PROCESSED);
+      verify(batchInfoService, times(1)).updateStatus(batchInfo2, PROCESSED);
+      verify(diagnosisKeyService, times(2)).saveDiagnosisKeys(any());
+    }
+
+    @Test
+    void testBatchesOfDifferentDatesAreProcessedInParallel() throws Exception {
+      FederationBatchInfo batchInfo1 = new FederationBatchInfo(batchTag1, date, UNPROCESSED, EFGS);
+      FederationBatchInfo batchInfo2 = new FederationBatchInfo(batchTag2, otherDate, UNPROCESSED, EFGS);
+      when(batchInfoService.findByStatus(UNPROCESSED)).thenReturn(list(batchInfo1, batchInfo2));
+      CountDownLatch bothDownloadsStarted = new CountDownLatch(2);
+      when(federationGatewayDownloadService.downloadBatch(anyString(), any())).thenAnswer(invocation -> {
+        bothDownloadsStarted.countDown();
+        assertThat(bothDownloadsStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        return FederationBatchTestHelper.createBatchDownloadResponse(invocation.getArgument(0), Optional.empty());
+      });
+
+      batchProcessor.processUnprocessedFederationBatches();
+
+      verify(batchInfoService, times(1)).updateStatus(batchInfo1, PROCESSED);
+      verify(batchInfoService, times(1)).updateStatus(batchInfo2, PROCESSED);
+      verify(diagnosisKeyService, times(2)).saveDiagnosisKeys(any());
+    }
+
+    @Test
+    void testAuditFailureSkipsPersistence() throws Exception {
+      config.setBatchAuditEnabled(true);
+      FederationBatchInfo batchInfo = new FederationBatchInfo(batchTag1, date, UNPROCESSED, EFGS);
+      when(batchInfoService.findByStatus(UNPROCESSED)).thenReturn(list(batchInfo));
+      BatchDownloadResponse serverResponse1 = FederationBatchTestHelper.createBatchDownloadResponse(batchTag1,
+          Optional.empty());
+      when(federationGatewayDownloadService.downloadBatch(batchTag1, date)).thenReturn(serverResponse1);
+      doThrow(BatchAuditException.class).when(federationGatewayDownloadService).auditBatch(batchTag1, date);
+
+      batchProcessor.processUnprocessedFederationBatches();
+
+      verify(federationGatewayDownloadService, times(1)).auditBatch(batchTag1, date);
+      verify(batchInfoService, times(1)).updateStatus(batchInfo, ERROR);
+      verify(diagnosisKeyService, never()).saveDiagnosisKeys(any());
+      config.setBatchAuditEnabled(false);
+    }
+
+    @Test
+    void testErrorBatchesAreRetriedInParallel() throws Exception {
+      FederationBatchInfo batchInfo1 = new FederationBatchInfo(batchTag1, date, ERROR, EFGS);
+      FederationBatchInfo batchInfo2 = new FederationBatchInfo(batchTag2, date, ERROR, EFGS);
+      when(batchInfoService.findByStatus(ERROR)).thenReturn(list(batchInfo1, batchInfo2));
+      CountDownLatch bothDownloadsStarted = new CountDownLatch(2);
+      when(federationGatewayDownloadService.downloadBatch(anyString(), any())).thenAnswer(invocation -> {
+        bothDownloadsStarted.countDown();
+        assertThat(bothDownloadsStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        return FederationBatchTestHelper.createBatchDownloadResponse(invocation.getArgument(0), Optional.empty());
+      });
+
+      batchProcessor.processErrorFederationBatches();
+
+      verify(batchInfoService, times(1)).updateStatus(batchInfo1, PROCESSED);
+      verify(batchInfoService, times(1)).updateStatus(batchInfo2, PROCESSED);
+      verify(batchInfoService, never()).updateStatus(any(FederationBatchInfo.class), eq(ERROR_WONT_RETRY));
+    }
+
+    @Test
+    void testFatalExceptionIsPropagated() throws Exception {
+      when(batchInfoService.findByStatus(UNPROCESSED)).thenReturn(list(
+          new FederationBatchInfo(batchTag1, date, UNPROCESSED, EFGS),
+          new FederationBatchInfo(batchTag2, otherDate, UNPROCESSED, EFGS)));
+      when(federationGatewayDownloadService.downloadBatch(batchTag1, date))
+          .thenThrow(FatalFederationGatewayException.class);
+      BatchDownloadResponse serverResponse2 = FederationBatchTestHelper.createBatchDownloadResponse(batchTag2,
+          Optional.empty());
+      when(federationGatewayDownloadService.downloadBatch(batchTag2, otherDate)).thenReturn(serverResponse2);
+
+      assertThatThrownBy(() -> batchProcessor.processUnprocessedFederationBatches())
+          .isExactlyInstanceOf(FatalFederationGatewayException.class);
+    }
+  }
+
   @Test
   void testProcessBachAndReturnNextBatchIdNotAuthenticated() throws Exception {
     FederationBatchInfo batchInfo = new FederationBatchInfo(batchTag1, date, UNPROCESSED, EFGS);
@@ -0,0 +1,60 @@
+package app.coronawarn.server.services.download;
+
+import static app.coronawarn.server.common.persistence.domain.FederationBatchSourceSystem.EFGS;
+import static app.coronawarn.server.services.download.FederationBatchStageMetrics.Stage.AUDIT;
+import static app.coronawarn.server.services.download.FederationBatchStageMetrics.Stage.DOWNLOAD;
+import static app.coronawarn.server.services.download.FederationBatchStageMetrics.Stage.INGESTION;
+import static app.coronawarn.server.services.download.FederationBatchStageMetrics.Stage.PERSISTENCE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class FederationBatchStageMetricsTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final FederationBatchStageMetrics metrics = new FederationBatchStageMetrics(registry, EFGS);
+
+  @Test
+  void recordsLatenciesPerStage() {
+    assertThat(metrics.time(DOWNLOAD, () -> 42)).isEqualTo(42);
+    metrics.time(DOWNLOAD, () -> null);
+    metrics.record(PERSISTENCE, System.nanoTime());
+
+    assertThat(metrics.getCount(DOWNLOAD)).isEqualTo(2);
+    assertThat(metrics.getCount(PERSISTENCE)).isEqualTo(1);
+    assertThat(metrics.getCount(AUDIT)).isZero();
+    assertThat(findTimer("download").count()).isEqualTo(2);
+    assertThat(findTimer("audit").count()).isZero();
+  }
+
+  @Test
+  void recordsLatencyOfFailedStage() {
+    assertThatThrownBy(() -> metrics.time(AUDIT, () -> {
+      throw new BatchAuditException("audit failed", null);
+    })).isInstanceOf(BatchAuditException.class);
+
+    assertThat(metrics.getCount(AUDIT)).isEqualTo(1);
+    assertThat(findTimer("audit").count()).isEqualTo(1);
+  }
+
+  @Test
+  void recordsIngestionLatencyAndThroughput() {
+    double keysPerSecond = metrics.recordIngestion(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(500), 1000);
+
+    assertThat(keysPerSecond).isPositive().isLessThanOrEqualTo(2000.0);
+    assertThat(metrics.getCount(INGESTION)).isEqualTo(1);
+    assertThat(findTimer("ingestion").count()).isEqualTo(1);
+    DistributionSummary throughput = registry.get(FederationBatchStageMetrics.THROUGHPUT_NAME).summary();
+    assertThat(throughput.count()).isEqualTo(1);
+    assertThat(throughput.totalAmount()).isEqualTo(keysPerSecond);
+  }
+
+  private Timer findTimer(String stage) {
+    return registry.get(FederationBatchStageMetrics.TIMER_NAME).tag("stage", stage).tag("source", "EFGS").timer();
+  }
+}
@@ -25,6 +25,7 @@ import app.coronawarn.server.services.download.FederationGatewayDownloadService;
 import app.coronawarn.server.services.download.config.DownloadServiceConfig;
 import app.coronawarn.server.services.download.validation.ValidFederationKeyFilter;
 import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -53,6 +55,8 @@ class FederationKeyNormalizerTest {
   private DiagnosisKeyRepository repository;
   @Autowired
   private ValidFederationKeyFilter validator;
+  @Autowired
+  private ObjectProvider<MeterRegistry> meterRegistry;
   @SpyBean
   private DiagnosisKeyService diagnosisKeyService;
   @MockBean
@@ -76,7 +80,7 @@ class FederationKeyNormalizerTest {
   @BeforeEach
   void setUp() {
     processor = new FederationBatchProcessor(batchInfoService, diagnosisKeyService, federationGatewayDownloadService,
-        config, validator);
+        config, validator, meterRegistry);
     repository.deleteAll();
   }
 
@@ -3,6 +3,7 @@ package app.coronawarn.server.services.submission.config;
 import app.coronawarn.server.common.persistence.domain.config.TekFieldDerivations;
 import app.coronawarn.server.common.persistence.domain.config.TrlDerivations;
 import java.io.File;
+import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
@@ -54,6 +55,8 @@ public class SubmissionServiceConfig {
   private Verification verification;
   private Monitoring monitoring;
   private Client client;
+  @Valid
+  private Async async = new Async();
   @Min(0)
   @Max(144)
   private Integer maxRollingPeriod;
@@ -318,6 +321,60 @@ public class SubmissionServiceConfig {
     this.monitoring.setBatchSize(batchSize);
   }
 
+  public Async getAsync() {
+    return async;
+  }
+
+  public void setAsync(Async async) {
+    this.async = async;
+  }
+
+  public static class Async {
+
+    private boolean enabled;
+    @Min(1)
+    @Max(1000)
+    private int verificationThreads = 1;
+    @Min(1)
+    @Max(1000)
+    private int persistenceThreads = 1;
+    @Min(1)
+    @Max(100000)
+    private int maxPendingSubmissions = 1;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getVerificationThreads() {
+      return verificationThreads;
+    }
+
+    public void setVerificationThreads(int verificationThreads) {
+      this.verificationThreads = verificationThreads;
+    }
+
+    public int getPersistenceThreads() {
+      return persistenceThreads;
+    }
+
+    public void setPersistenceThreads(int persistenceThreads) {
+      this.persistenceThreads = persistenceThreads;
+    }
+
+    public int getMaxPendingSubmissions() {
+      return maxPendingSubmissions;
+    }
+
+    public void setMaxPendingSubmissions(int maxPendingSubmissions) {
+      this.maxPendingSubmissions = maxPendingSubmissions;
+    }
+  }
+
   public Client getClient() {
     return client;
   }
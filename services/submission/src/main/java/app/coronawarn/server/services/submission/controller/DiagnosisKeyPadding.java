@@ -0,0 +1,61 @@
+package app.coronawarn.server.services.submission.controller;
+
+import static app.coronawarn.server.common.persistence.domain.DiagnosisKey.KEY_DATA_LENGTH;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.common.persistence.service.utils.ThreadLocalSecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pads the submitted diagnosis keys with random keys. For each submitted key, {@code multiplier - 1} padding keys are
+ * created, which only differ from the submitted key in their key data.
+ * <br>
+ * The key data of all padding keys of a submission is generated with a single call to the
+ * {@link ThreadLocalSecureRandom} of the current thread. The padding keys are copies of already validated keys, so
+ * they are not validated again.
+ */
+class DiagnosisKeyPadding {
+
+  private final int multiplier;
+
+  /**
+   * Creates a {@link DiagnosisKeyPadding}.
+   *
+   * @param multiplier The number of keys that are stored for each submitted key, including the submitted key.
+   * @throws IllegalArgumentException if the multiplier is less than 1.
+   */
+  DiagnosisKeyPadding(int multiplier) {
+    if (multiplier < 1) {
+      throw new IllegalArgumentException("The padding multiplier must be at least 1.");
+    }
+    this.multiplier = multiplier;
+  }
+
+  /**
+   * Returns the specified keys, each followed by its padding keys.
+   *
+   * @param diagnosisKeys The submitted keys.
+   * @return The submitted and the padding keys.
+   */
+  List<DiagnosisKey> pad(List<DiagnosisKey> diagnosisKeys) {
+    if (multiplier == 1) {
+      return diagnosisKeys;
+    }
+    int paddingKeysPerKey = multiplier - 1;
+    byte[] randomKeyData = new byte[diagnosisKeys.size() * paddingKeysPerKey * KEY_DATA_LENGTH];
+    ThreadLocalSecureRandom.current().nextBytes(randomKeyData);
+
+    List<DiagnosisKey> paddedDiagnosisKeys = new ArrayList<>(diagnosisKeys.size() * multiplier);
+    int offset = 0;
+    for (DiagnosisKey diagnosisKey : diagnosisKeys) {
+      paddedDiagnosisKeys.add(diagnosisKey);
+      for (int i = 0; i < paddingKeysPerKey; i++, offset += KEY_DATA_LENGTH) {
+        paddedDiagnosisKeys.add(
+            diagnosisKey.copyWithKeyData(Arrays.copyOfRange(randomKeyData, offset, offset + KEY_DATA_LENGTH)));
+      }
+    }
+    return paddedDiagnosisKeys;
+  }
+}
@@ -5,10 +5,12 @@ package app.coronawarn.server.services.submission.controller;
 import static app.coronawarn.server.services.submission.controller.SubmissionController.SUBMISSION_ROUTE;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+import app.coronawarn.server.services.submission.config.SubmissionServiceConfig;
 import app.coronawarn.server.services.submission.monitoring.SubmissionMonitor;
 import io.micrometer.core.annotation.Timed;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -23,20 +25,27 @@ public class FakeRequestController {
   private final ScheduledExecutorService scheduledExecutor = Executors.newScheduledThreadPool(4);
   private final SubmissionMonitor submissionMonitor;
   private final FakeDelayManager fakeDelayManager;
+  private final SubmissionServiceConfig submissionServiceConfig;
+  private final SubmissionExecutors submissionExecutors;
 
-  FakeRequestController(SubmissionMonitor submissionMonitor, FakeDelayManager fakeDelayManager) {
+  FakeRequestController(SubmissionMonitor submissionMonitor, FakeDelayManager fakeDelayManager,
+      SubmissionServiceConfig submissionServiceConfig, SubmissionExecutors submissionExecutors) {
     this.submissionMonitor = submissionMonitor;
     this.fakeDelayManager = fakeDelayManager;
+    this.submissionServiceConfig = submissionServiceConfig;
+    this.submissionExecutors = submissionExecutors;
   }
 
   /**
    * Handles "fake" requests. The concept of fake (or "dummy") requests is a privacy preserving measure which is
    * characterized by having corona warn app send "dummy" requests in randomized intervals. These requests are not
    * triggering any diagnosis key processing/storage on the server but simply result in an HTTP response with status
-   * code 200 (OK) after a dynamically calculated delay.
+   * code 200 (OK) after a dynamically calculated delay. If the asynchronous submission is enabled and real submissions
+   * are currently rejected, because too many are pending, fake requests are answered with status code 503 (Service
+   * Unavailable) after the same delay, just like the rejected real submissions.
    *
    * @param fake The header flag, marking fake requests.
-   * @return An empty response body and HTTP status code 200 (OK).
+   * @return An empty response body and HTTP status code 200 (OK), or 503 (Service Unavailable) under load shedding.
    */
   @PostMapping(value = SUBMISSION_ROUTE, headers = {"cwa-fake!=0"})
   @Timed(description = "Time spent handling fake submission.")
@@ -44,8 +53,11 @@ public class FakeRequestController {
     submissionMonitor.incrementRequestCounter();
     submissionMonitor.incrementFakeRequestCounter();
     long delay = fakeDelayManager.getJitteredFakeDelay();
+    ResponseEntity<Void> response = submissionServiceConfig.getAsync().isEnabled() && submissionExecutors.isSaturated()
+        ? ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()
+        : ResponseEntity.ok().build();
     DeferredResult<ResponseEntity<Void>> deferredResult = new DeferredResult<>();
-    scheduledExecutor.schedule(() -> deferredResult.setResult(ResponseEntity.ok().build()), delay, MILLISECONDS);
+    scheduledExecutor.schedule(() -> deferredResult.setResult(response), delay, MILLISECONDS);
     return deferredResult;
   }
 }
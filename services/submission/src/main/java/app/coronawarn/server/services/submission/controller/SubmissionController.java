@@ -18,13 +18,13 @@ import app.coronawarn.server.services.submission.normalization.SubmissionKeyNorm
 import app.coronawarn.server.services.submission.validation.ValidSubmissionPayload;
 import app.coronawarn.server.services.submission.verification.TanVerifier;
 import io.micrometer.core.annotation.Timed;
-import java.security.SecureRandom;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,36 +58,32 @@ public class SubmissionController {
   private final DiagnosisKeyService diagnosisKeyService;
   private final TanVerifier tanVerifier;
   private final Integer retentionDays;
-  private final Integer randomKeyPaddingMultiplier;
+  private final DiagnosisKeyPadding diagnosisKeyPadding;
   private final FakeDelayManager fakeDelayManager;
   private final SubmissionServiceConfig submissionServiceConfig;
   private final EventCheckinDataFilter checkinsDataFilter;
   private final TraceTimeIntervalWarningService traceTimeIntervalWarningSevice;
   private final TrlDerivations trlDerivations;
+  private final SubmissionExecutors submissionExecutors;
 
   SubmissionController(DiagnosisKeyService diagnosisKeyService, TanVerifier tanVerifier,
       FakeDelayManager fakeDelayManager, SubmissionServiceConfig submissionServiceConfig,
       SubmissionMonitor submissionMonitor, EventCheckinDataFilter checkinsDataFilter,
-      TraceTimeIntervalWarningService traceTimeIntervalWarningSevice) {
+      TraceTimeIntervalWarningService traceTimeIntervalWarningSevice, SubmissionExecutors submissionExecutors) {
     this.diagnosisKeyService = diagnosisKeyService;
     this.tanVerifier = tanVerifier;
     this.submissionMonitor = submissionMonitor;
     this.fakeDelayManager = fakeDelayManager;
     this.submissionServiceConfig = submissionServiceConfig;
     this.retentionDays = submissionServiceConfig.getRetentionDays();
-    this.randomKeyPaddingMultiplier = submissionServiceConfig.getRandomKeyPaddingMultiplier();
+    this.diagnosisKeyPadding = new DiagnosisKeyPadding(submissionServiceConfig.getRandomKeyPaddingMultiplier());
     this.checkinsDataFilter = checkinsDataFilter;
     this.traceTimeIntervalWarningSevice = traceTimeIntervalWarningSevice;
     this.trlDerivations = submissionServiceConfig.getTrlDerivations();
+    this.submissionExecutors = submissionExecutors;
 
   }
 
-  private static byte[] generateRandomKeyData() {
-    byte[] randomKeyData = new byte[16];
-    new SecureRandom().nextBytes(randomKeyData);
-    return randomKeyData;
-  }
-
   /**
    * Handles diagnosis key submission requests.
    *
@@ -107,21 +103,18 @@ public class SubmissionController {
 
   private DeferredResult<ResponseEntity<Void>> buildRealDeferredResult(SubmissionPayload submissionPayload,
       String tan) {
+    if (submissionServiceConfig.getAsync().isEnabled()) {
+      return buildAsyncDeferredResult(submissionPayload, tan);
+    }
     DeferredResult<ResponseEntity<Void>> deferredResult = new DeferredResult<>();
 
     StopWatch stopWatch = new StopWatch();
     stopWatch.start();
     try {
       if (!this.tanVerifier.verifyTan(tan)) {
-        submissionMonitor.incrementInvalidTanRequestCounter();
-        deferredResult.setResult(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        deferredResult.setResult(rejectInvalidTan());
       } else {
-        extractAndStoreDiagnosisKeys(submissionPayload);
-        CheckinsStorageResult checkinsStorageResult = extractAndStoreEventCheckins(submissionPayload);
-        deferredResult.setResult(ResponseEntity.ok()
-            .header("cwa-filtered-checkins", String.valueOf(checkinsStorageResult.getNumberOfFilteredCheckins()))
-            .header("cwa-saved-checkins", String.valueOf(checkinsStorageResult.getNumberOfSavedCheckins()))
-            .build());
+        deferredResult.setResult(storeSubmission(submissionPayload));
       }
     } catch (Exception e) {
       deferredResult.setErrorResult(e);
@@ -132,6 +125,65 @@ public class SubmissionController {
     return deferredResult;
   }
 
+  /**
+   * Verifies the TAN and stores the submission on the {@link SubmissionExecutors}, so that the request thread is
+   * released right away. If too many submissions are pending, the submission is rejected with status 503 before its
+   * TAN is verified. Like fake requests, which are rejected under the same condition, the rejection is answered after
+   * the jittered fake delay.
+   */
+  private DeferredResult<ResponseEntity<Void>> buildAsyncDeferredResult(SubmissionPayload submissionPayload,
+      String tan) {
+    DeferredResult<ResponseEntity<Void>> deferredResult = new DeferredResult<>();
+    if (!submissionExecutors.tryAdmit()) {
+      submissionMonitor.incrementRejectedRequestCounter();
+      logger.warn("Rejecting submission, because the maximum number of pending submissions has been reached.");
+      submissionExecutors.scheduleRejection(
+          () -> deferredResult.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()),
+          fakeDelayManager.getJitteredFakeDelay());
+      return deferredResult;
+    }
+
+    StopWatch stopWatch = new StopWatch();
+    stopWatch.start();
+    try {
+      CompletableFuture
+          .supplyAsync(() -> tanVerifier.verifyTan(tan), submissionExecutors.getVerificationExecutor())
+          .thenCompose(isValidTan -> isValidTan
+              ? CompletableFuture.supplyAsync(() -> storeSubmission(submissionPayload),
+              submissionExecutors.getPersistenceExecutor())
+              : CompletableFuture.completedFuture(rejectInvalidTan()))
+          .whenComplete((response, error) -> {
+            submissionExecutors.release();
+            stopWatch.stop();
+            fakeDelayManager.updateFakeRequestDelay(stopWatch.getTotalTimeMillis());
+            if (error == null) {
+              deferredResult.setResult(response);
+            } else {
+              deferredResult.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // the executors have been shut down
+      submissionExecutors.release();
+      deferredResult.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+    return deferredResult;
+  }
+
+  private ResponseEntity<Void> rejectInvalidTan() {
+    submissionMonitor.incrementInvalidTanRequestCounter();
+    return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+  }
+
+  private ResponseEntity<Void> storeSubmission(SubmissionPayload submissionPayload) {
+    extractAndStoreDiagnosisKeys(submissionPayload);
+    CheckinsStorageResult checkinsStorageResult = extractAndStoreEventCheckins(submissionPayload);
+    return ResponseEntity.ok()
+        .header("cwa-filtered-checkins", String.valueOf(checkinsStorageResult.getNumberOfFilteredCheckins()))
+        .header("cwa-saved-checkins", String.valueOf(checkinsStorageResult.getNumberOfSavedCheckins()))
+        .build();
+  }
+
   protected CheckinsStorageResult extractAndStoreEventCheckins(SubmissionPayload submissionPayload) {
     // need a container object that reflects how many checkins were filtered even if storage fails
     AtomicInteger numberOfFilteredCheckins = new AtomicInteger(0);
@@ -161,7 +213,7 @@ public class SubmissionController {
     for (DiagnosisKey diagnosisKey : diagnosisKeys) {
       mapTrasmissionRiskValue(diagnosisKey);
     }
-    diagnosisKeyService.saveDiagnosisKeys(padDiagnosisKeys(diagnosisKeys));
+    diagnosisKeyService.saveDiagnosisKeys(diagnosisKeyPadding.pad(diagnosisKeys));
   }
 
   private void mapTrasmissionRiskValue(DiagnosisKey diagnosisKey) {
@@ -208,25 +260,4 @@ public class SubmissionController {
   private String defaultIfEmptyOriginCountry(String originCountry) {
     return StringUtils.defaultIfBlank(originCountry, submissionServiceConfig.getDefaultOriginCountry());
   }
-
-  private List<DiagnosisKey> padDiagnosisKeys(List<DiagnosisKey> diagnosisKeys) {
-    List<DiagnosisKey> paddedDiagnosisKeys = new ArrayList<>();
-    diagnosisKeys.forEach(diagnosisKey -> {
-      paddedDiagnosisKeys.add(diagnosisKey);
-      IntStream.range(1, randomKeyPaddingMultiplier)
-          .mapToObj(index -> DiagnosisKey.builder()
-              .withKeyDataAndSubmissionType(generateRandomKeyData(), diagnosisKey.getSubmissionType())
-              .withRollingStartIntervalNumber(diagnosisKey.getRollingStartIntervalNumber())
-              .withTransmissionRiskLevel(diagnosisKey.getTransmissionRiskLevel())
-              .withRollingPeriod(diagnosisKey.getRollingPeriod())
-              .withVisitedCountries(diagnosisKey.getVisitedCountries())
-              .withCountryCode(diagnosisKey.getOriginCountry())
-              .withReportType(diagnosisKey.getReportType())
-              .withConsentToFederation(diagnosisKey.isConsentToFederation())
-              .withDaysSinceOnsetOfSymptoms(diagnosisKey.getDaysSinceOnsetOfSymptoms())
-              .build())
-          .forEach(paddedDiagnosisKeys::add);
-    });
-    return paddedDiagnosisKeys;
-  }
 }
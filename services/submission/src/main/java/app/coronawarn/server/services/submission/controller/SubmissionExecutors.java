@@ -0,0 +1,143 @@
+package app.coronawarn.server.services.submission.controller;
+
+import app.coronawarn.server.services.submission.config.SubmissionServiceConfig;
+import app.coronawarn.server.services.submission.config.SubmissionServiceConfig.Async;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Provides the thread pools that verify the TANs and store the submissions of real requests, if the asynchronous
+ * submission is enabled. The number of pending submissions, i.e. submissions that are queued or running in either
+ * stage, is limited. A submission must be admitted by {@link #tryAdmit()} before its TAN is verified, so that a
+ * rejected submission does not consume its TAN. Rejections are answered after the delay of a fake request, so that
+ * real and fake requests can not be told apart by the timing of a rejection.
+ */
+@Component
+public class SubmissionExecutors implements DisposableBean {
+
+  private static final String QUEUE_DEPTH = "submission_controller.async.queue_depth";
+  private static final String ACTIVE_THREADS = "submission_controller.async.active_threads";
+  private static final String PENDING_SUBMISSIONS = "submission_controller.async.pending_submissions";
+  private static final String STAGE = "stage";
+  private static final int AWAIT_TERMINATION_SECONDS = 20;
+
+  private final ThreadPoolTaskExecutor verificationExecutor;
+  private final ThreadPoolTaskExecutor persistenceExecutor;
+  private final ThreadPoolTaskScheduler rejectionScheduler;
+  private final int maxPendingSubmissions;
+  private final Semaphore pendingSubmissions;
+
+  /**
+   * Creates the thread pools and registers their gauges. The threads are only started on demand.
+   *
+   * @param submissionServiceConfig config containing the sizes of the thread pools
+   * @param meterRegistry           the registry of the queue depth gauges
+   */
+  SubmissionExecutors(SubmissionServiceConfig submissionServiceConfig, MeterRegistry meterRegistry) {
+    Async async = submissionServiceConfig.getAsync();
+    this.verificationExecutor = createExecutor("submission-verification-", async.getVerificationThreads());
+    this.persistenceExecutor = createExecutor("submission-persistence-", async.getPersistenceThreads());
+    this.rejectionScheduler = createRejectionScheduler();
+    this.maxPendingSubmissions = async.getMaxPendingSubmissions();
+    this.pendingSubmissions = new Semaphore(maxPendingSubmissions);
+    registerGauges(meterRegistry, "verification", verificationExecutor);
+    registerGauges(meterRegistry, "persistence", persistenceExecutor);
+    Gauge.builder(PENDING_SUBMISSIONS, this, SubmissionExecutors::getNumberOfPendingSubmissions)
+        .description("The number of submissions that are verified or stored, including the queued ones.")
+        .register(meterRegistry);
+  }
+
+  private static ThreadPoolTaskExecutor createExecutor(String threadNamePrefix, int threads) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix(threadNamePrefix);
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    // Let the admitted submissions complete during a graceful shutdown.
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.setAwaitTerminationSeconds(AWAIT_TERMINATION_SECONDS);
+    executor.initialize();
+    return executor;
+  }
+
+  private static ThreadPoolTaskScheduler createRejectionScheduler() {
+    ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    scheduler.setThreadNamePrefix("submission-rejection-");
+    scheduler.initialize();
+    return scheduler;
+  }
+
+  private static void registerGauges(MeterRegistry meterRegistry, String stage, ThreadPoolTaskExecutor executor) {
+    Gauge.builder(QUEUE_DEPTH, executor, e -> e.getThreadPoolExecutor().getQueue().size())
+        .description("The number of submissions waiting for a thread of the stage.")
+        .tag(STAGE, stage)
+        .register(meterRegistry);
+    Gauge.builder(ACTIVE_THREADS, executor, ThreadPoolTaskExecutor::getActiveCount)
+        .description("The number of threads of the stage that are processing a submission.")
+        .tag(STAGE, stage)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Admits a submission, if the maximum number of pending submissions has not been reached. An admitted submission must
+   * be released by {@link #release()} after it has been processed.
+   *
+   * @return {@literal true} if the submission has been admitted, {@literal false} if it shall be rejected.
+   */
+  public boolean tryAdmit() {
+    return pendingSubmissions.tryAcquire();
+  }
+
+  /**
+   * Releases a submission that has been admitted by {@link #tryAdmit()}.
+   */
+  public void release() {
+    pendingSubmissions.release();
+  }
+
+  /**
+   * Returns whether the maximum number of pending submissions has been reached, i.e. whether {@link #tryAdmit()} would
+   * reject a submission right now. Fake requests are checked this way, because they are not processed and thus do not
+   * need to be admitted.
+   *
+   * @return {@literal true} if submissions are currently rejected.
+   */
+  public boolean isSaturated() {
+    return pendingSubmissions.availablePermits() == 0;
+  }
+
+  /**
+   * Schedules the response to a rejected submission.
+   *
+   * @param rejection   sets the result of the rejected request
+   * @param delayMillis the delay of the response, i.e. the delay of a fake request
+   */
+  public void scheduleRejection(Runnable rejection, long delayMillis) {
+    rejectionScheduler.getScheduledExecutor().schedule(rejection, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public int getNumberOfPendingSubmissions() {
+    return maxPendingSubmissions - pendingSubmissions.availablePermits();
+  }
+
+  public Executor getVerificationExecutor() {
+    return verificationExecutor;
+  }
+
+  public Executor getPersistenceExecutor() {
+    return persistenceExecutor;
+  }
+
+  @Override
+  public void destroy() {
+    verificationExecutor.shutdown();
+    persistenceExecutor.shutdown();
+    rejectionScheduler.shutdown();
+  }
+}
@@ -24,6 +24,7 @@ public class SubmissionMonitor {
   private BatchCounter realRequests;
   private BatchCounter fakeRequests;
   private BatchCounter invalidTanRequests;
+  private BatchCounter rejectedRequests;
 
   /**
    * Constructor for {@link SubmissionMonitor}. Initializes all counters to 0 upon being called.
@@ -47,6 +48,7 @@ public class SubmissionMonitor {
    *    <li> As part of all, the number of requests that are not fake.
    *    <li> As part of all, the number of requests that are fake.
    *    <li> As part of all, the number of requests for that the TAN-validation failed.
+   *    <li> As part of all, the number of real requests that were rejected, because too many submissions were pending.
    *  </ul>
    */
   private void initializeCounters() {
@@ -54,6 +56,7 @@ public class SubmissionMonitor {
     realRequests = new BatchCounter(meterRegistry, batchSize, "real");
     fakeRequests = new BatchCounter(meterRegistry, batchSize, "fake");
     invalidTanRequests = new BatchCounter(meterRegistry, batchSize, "invalidTan");
+    rejectedRequests = new BatchCounter(meterRegistry, batchSize, "rejected");
   }
 
   /**
@@ -84,4 +87,8 @@ public class SubmissionMonitor {
   public void incrementInvalidTanRequestCounter() {
     invalidTanRequests.increment();
   }
+
+  public void incrementRejectedRequestCounter() {
+    rejectedRequests.increment();
+  }
 }
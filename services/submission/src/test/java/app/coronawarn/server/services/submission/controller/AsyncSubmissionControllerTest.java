@@ -0,0 +1,155 @@
+package app.coronawarn.server.services.submission.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import app.coronawarn.server.common.persistence.service.DiagnosisKeyService;
+import app.coronawarn.server.common.persistence.service.TraceTimeIntervalWarningService;
+import app.coronawarn.server.common.protocols.internal.SubmissionPayload;
+import app.coronawarn.server.services.submission.checkins.EventCheckinDataFilter;
+import app.coronawarn.server.services.submission.config.SubmissionServiceConfig;
+import app.coronawarn.server.services.submission.config.SubmissionServiceConfig.Async;
+import app.coronawarn.server.services.submission.monitoring.SubmissionMonitor;
+import app.coronawarn.server.services.submission.verification.TanVerifier;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+class AsyncSubmissionControllerTest {
+
+  private static final String TAN = "tan";
+  private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+  private final DiagnosisKeyService diagnosisKeyService = mock(DiagnosisKeyService.class);
+  private final TanVerifier tanVerifier = mock(TanVerifier.class);
+  private final FakeDelayManager fakeDelayManager = mock(FakeDelayManager.class);
+  private final SubmissionMonitor submissionMonitor = mock(SubmissionMonitor.class);
+  private final SubmissionExecutors submissionExecutors = mock(SubmissionExecutors.class);
+  private SubmissionServiceConfig config;
+  private SubmissionController submissionController;
+
+  @BeforeEach
+  void setup() {
+    config = mock(SubmissionServiceConfig.class);
+    Async async = new Async();
+    async.setEnabled(true);
+    when(config.getAsync()).thenReturn(async);
+    when(config.getDefaultOriginCountry()).thenReturn("DE");
+    when(config.getRandomKeyPaddingMultiplier()).thenReturn(1);
+    when(submissionExecutors.getVerificationExecutor()).thenReturn(DIRECT_EXECUTOR);
+    when(submissionExecutors.getPersistenceExecutor()).thenReturn(DIRECT_EXECUTOR);
+    doAnswer(invocation -> {
+      invocation.getArgument(0, Runnable.class).run();
+      return null;
+    }).when(submissionExecutors).scheduleRejection(any(), anyLong());
+    submissionController = new SubmissionController(diagnosisKeyService, tanVerifier, fakeDelayManager, config,
+        submissionMonitor, mock(EventCheckinDataFilter.class), mock(TraceTimeIntervalWarningService.class),
+        submissionExecutors);
+  }
+
+  @Test
+  void validSubmissionIsStoredOnPersistenceExecutor() {
+    when(submissionExecutors.tryAdmit()).thenReturn(true);
+    when(tanVerifier.verifyTan(TAN)).thenReturn(true);
+
+    DeferredResult<ResponseEntity<Void>> result = submit();
+
+    assertThat(statusOf(result)).isEqualTo(HttpStatus.OK);
+    verify(diagnosisKeyService, times(1)).saveDiagnosisKeys(anyList());
+    verify(submissionExecutors, times(1)).release();
+    verify(fakeDelayManager, times(1)).updateFakeRequestDelay(anyLong());
+  }
+
+  @Test
+  void invalidTanIsRejected() {
+    when(submissionExecutors.tryAdmit()).thenReturn(true);
+    when(tanVerifier.verifyTan(TAN)).thenReturn(false);
+
+    DeferredResult<ResponseEntity<Void>> result = submit();
+
+    assertThat(statusOf(result)).isEqualTo(HttpStatus.FORBIDDEN);
+    verify(submissionMonitor, times(1)).incrementInvalidTanRequestCounter();
+    verify(diagnosisKeyService, never()).saveDiagnosisKeys(anyList());
+    verify(submissionExecutors, times(1)).release();
+  }
+
+  @Test
+  void submissionIsShedBeforeTanVerificationIfTooManyArePending() {
+    when(submissionExecutors.tryAdmit()).thenReturn(false);
+    when(fakeDelayManager.getJitteredFakeDelay()).thenReturn(42L);
+
+    DeferredResult<ResponseEntity<Void>> result = submit();
+
+    assertThat(statusOf(result)).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    verify(submissionExecutors, times(1)).scheduleRejection(any(), eq(42L));
+    verify(tanVerifier, never()).verifyTan(anyString());
+    verify(submissionMonitor, times(1)).incrementRejectedRequestCounter();
+    verify(submissionExecutors, never()).release();
+  }
+
+  @Test
+  void fakeRequestIsShedLikeRealSubmissionIfTooManyArePending() throws InterruptedException {
+    when(submissionExecutors.isSaturated()).thenReturn(true);
+    FakeRequestController fakeRequestController = new FakeRequestController(submissionMonitor, fakeDelayManager,
+        config, submissionExecutors);
+
+    DeferredResult<ResponseEntity<Void>> result = fakeRequestController.fakeRequest(1);
+
+    assertThat(statusOf(awaitResult(result))).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    verify(fakeDelayManager, times(1)).getJitteredFakeDelay();
+    verify(submissionExecutors, never()).tryAdmit();
+  }
+
+  @Test
+  void fakeRequestIsAnsweredIfSubmissionsAreAdmitted() throws InterruptedException {
+    when(submissionExecutors.isSaturated()).thenReturn(false);
+    FakeRequestController fakeRequestController = new FakeRequestController(submissionMonitor, fakeDelayManager,
+        config, submissionExecutors);
+
+    DeferredResult<ResponseEntity<Void>> result = fakeRequestController.fakeRequest(1);
+
+    assertThat(statusOf(awaitResult(result))).isEqualTo(HttpStatus.OK);
+  }
+
+  @Test
+  void failedVerificationIsReportedAsErrorResult() {
+    when(submissionExecutors.tryAdmit()).thenReturn(true);
+    IllegalStateException failure = new IllegalStateException("verification server unavailable");
+    when(tanVerifier.verifyTan(TAN)).thenThrow(failure);
+
+    DeferredResult<ResponseEntity<Void>> result = submit();
+
+    assertThat(result.getResult()).isSameAs(failure);
+    verify(submissionExecutors, times(1)).release();
+  }
+
+  private DeferredResult<ResponseEntity<Void>> submit() {
+    return submissionController.submitDiagnosisKey(SubmissionPayload.newBuilder().build(), TAN);
+  }
+
+  private static DeferredResult<ResponseEntity<Void>> awaitResult(DeferredResult<ResponseEntity<Void>> result)
+      throws InterruptedException {
+    for (int i = 0; i < 500 && !result.hasResult(); i++) {
+      Thread.sleep(10);
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static HttpStatus statusOf(DeferredResult<ResponseEntity<Void>> result) {
+    return ((ResponseEntity<Void>) result.getResult()).getStatusCode();
+  }
+}
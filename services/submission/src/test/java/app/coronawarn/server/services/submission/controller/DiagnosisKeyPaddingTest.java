@@ -0,0 +1,68 @@
+package app.coronawarn.server.services.submission.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import app.coronawarn.server.common.persistence.domain.DiagnosisKey;
+import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
+import app.coronawarn.server.common.protocols.internal.SubmissionPayload.SubmissionType;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class DiagnosisKeyPaddingTest {
+
+  @Test
+  void keysAreNotPaddedWithMultiplierOne() {
+    List<DiagnosisKey> keys = List.of(buildKey((byte) 1), buildKey((byte) 2));
+
+    assertThat(new DiagnosisKeyPadding(1).pad(keys)).isEqualTo(keys);
+  }
+
+  @Test
+  void eachKeyIsFollowedByItsPaddingKeys() {
+    List<DiagnosisKey> keys = List.of(buildKey((byte) 1), buildKey((byte) 2));
+
+    List<DiagnosisKey> paddedKeys = new DiagnosisKeyPadding(5).pad(keys);
+
+    assertThat(paddedKeys).hasSize(10);
+    assertThat(paddedKeys.get(0)).isSameAs(keys.get(0));
+    assertThat(paddedKeys.get(5)).isSameAs(keys.get(1));
+    for (int i = 0; i < paddedKeys.size(); i++) {
+      assertThat(paddedKeys.get(i)).usingRecursiveComparison().ignoringFields("keyData")
+          .isEqualTo(keys.get(i / 5));
+    }
+  }
+
+  @Test
+  void paddingKeysHaveDistinctRandomKeyData() {
+    List<DiagnosisKey> paddedKeys = new DiagnosisKeyPadding(25).pad(List.of(buildKey((byte) 1)));
+
+    Set<ByteBuffer> keyData = paddedKeys.stream()
+        .map(key -> ByteBuffer.wrap(key.getKeyData()))
+        .collect(Collectors.toSet());
+    assertThat(keyData).hasSize(25);
+    assertThat(paddedKeys).allSatisfy(key -> assertThat(key.getKeyData()).hasSize(DiagnosisKey.KEY_DATA_LENGTH));
+  }
+
+  @Test
+  void multiplierMustBePositive() {
+    assertThatIllegalArgumentException().isThrownBy(() -> new DiagnosisKeyPadding(0));
+  }
+
+  private static DiagnosisKey buildKey(byte keyDataValue) {
+    byte[] keyData = new byte[DiagnosisKey.KEY_DATA_LENGTH];
+    keyData[0] = keyDataValue;
+    return DiagnosisKey.builder()
+        .withKeyDataAndSubmissionType(keyData, SubmissionType.SUBMISSION_TYPE_PCR_TEST)
+        .withRollingStartIntervalNumber(2_700_000)
+        .withTransmissionRiskLevel(6)
+        .withCountryCode("DE")
+        .withVisitedCountries(Set.of("DE", "FR"))
+        .withReportType(ReportType.CONFIRMED_TEST)
+        .withDaysSinceOnsetOfSymptoms(1)
+        .build();
+  }
+}
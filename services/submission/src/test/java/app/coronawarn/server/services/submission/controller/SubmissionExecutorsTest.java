@@ -0,0 +1,80 @@
+package app.coronawarn.server.services.submission.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.server.services.submission.config.SubmissionServiceConfig;
+import app.coronawarn.server.services.submission.config.SubmissionServiceConfig.Async;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SubmissionExecutorsTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private SubmissionExecutors submissionExecutors;
+
+  @BeforeEach
+  void setup() {
+    SubmissionServiceConfig config = new SubmissionServiceConfig();
+    Async async = new Async();
+    async.setVerificationThreads(1);
+    async.setPersistenceThreads(1);
+    async.setMaxPendingSubmissions(2);
+    config.setAsync(async);
+    submissionExecutors = new SubmissionExecutors(config, meterRegistry);
+  }
+
+  @AfterEach
+  void shutdown() {
+    submissionExecutors.destroy();
+  }
+
+  @Test
+  void admitsAtMostMaxPendingSubmissions() {
+    assertThat(submissionExecutors.tryAdmit()).isTrue();
+    assertThat(submissionExecutors.tryAdmit()).isTrue();
+    assertThat(submissionExecutors.tryAdmit()).isFalse();
+    assertThat(submissionExecutors.getNumberOfPendingSubmissions()).isEqualTo(2);
+
+    submissionExecutors.release();
+
+    assertThat(submissionExecutors.getNumberOfPendingSubmissions()).isEqualTo(1);
+    assertThat(submissionExecutors.tryAdmit()).isTrue();
+    assertThat(meterRegistry.get("submission_controller.async.pending_submissions").gauge().value()).isEqualTo(2.0);
+  }
+
+  @Test
+  void exportsQueueDepthAndActiveThreadsPerStage() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch running = new CountDownLatch(1);
+    CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+      running.countDown();
+      await(blocked);
+    }, submissionExecutors.getPersistenceExecutor());
+    CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+    }, submissionExecutors.getPersistenceExecutor());
+    assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(meterRegistry.get("submission_controller.async.queue_depth").tag("stage", "persistence").gauge()
+        .value()).isEqualTo(1.0);
+    assertThat(meterRegistry.get("submission_controller.async.active_threads").tag("stage", "persistence").gauge()
+        .value()).isEqualTo(1.0);
+    assertThat(meterRegistry.get("submission_controller.async.queue_depth").tag("stage", "verification").gauge()
+        .value()).isZero();
+
+    blocked.countDown();
+    CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -46,6 +46,12 @@ class SubmissionMonitorTest {
     verify(meterCounter, times(1)).increment(anyDouble());
   }
 
+  @Test
+  void incrementRejectedRequestCounterIncrementsEnclosedCounter() {
+    submissionMonitor.incrementRejectedRequestCounter();
+    verify(meterCounter, times(1)).increment(anyDouble());
+  }
+
   @Test
   void incrementRealRequestCounterIncrementsEnclosedCounter() {
     submissionMonitor.incrementRealRequestCounter();
@@ -3,9 +3,13 @@
 package app.coronawarn.server.services.federation.upload.config;
 
 import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
 
 @ConfigurationProperties(prefix = "services.upload")
+@Validated
 public class UploadServiceConfig {
 
   private Integer expiryPolicyMinutes;
@@ -18,6 +22,8 @@ public class UploadServiceConfig {
   private Signature signature;
   private TestData testData;
   private EfgsTransmission efgsTransmission;
+  @Valid
+  private Pipeline pipeline = new Pipeline();
 
   public Integer getRetentionDays() {
     return retentionDays;
@@ -99,6 +105,14 @@ public class UploadServiceConfig {
     this.signature = signature;
   }
 
+  public Pipeline getPipeline() {
+    return pipeline;
+  }
+
+  public void setPipeline(Pipeline pipeline) {
+    this.pipeline = pipeline;
+  }
+
   public static class EfgsTransmission {
     private boolean enableDsos;
     private boolean enableReportType;
@@ -180,4 +194,37 @@ public class UploadServiceConfig {
       this.securityProvider = securityProvider;
     }
   }
+
+  public static class Pipeline {
+
+    private boolean enabled;
+    @Min(1)
+    private int signingThreads = 1;
+    @Min(1)
+    private int maxConcurrentUploads = 1;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getSigningThreads() {
+      return signingThreads;
+    }
+
+    public void setSigningThreads(int signingThreads) {
+      this.signingThreads = signingThreads;
+    }
+
+    public int getMaxConcurrentUploads() {
+      return maxConcurrentUploads;
+    }
+
+    public void setMaxConcurrentUploads(int maxConcurrentUploads) {
+      this.maxConcurrentUploads = maxConcurrentUploads;
+    }
+  }
 }
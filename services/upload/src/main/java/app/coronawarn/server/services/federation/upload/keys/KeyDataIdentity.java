@@ -0,0 +1,55 @@
+package app.coronawarn.server.services.federation.upload.keys;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Identifies a diagnosis key by its 16 bytes of key data, which are packed into two longs. In contrast to the key data
+ * array, instances can be used as keys of hash based collections and are compared without iterating over the bytes.
+ */
+public final class KeyDataIdentity {
+
+  /**
+   * The length of the key data of a diagnosis key in bytes.
+   */
+  public static final int KEY_DATA_LENGTH = 2 * Long.BYTES;
+
+  private final long high;
+  private final long low;
+
+  private KeyDataIdentity(long high, long low) {
+    this.high = high;
+    this.low = low;
+  }
+
+  /**
+   * Creates the identity of the specified key data.
+   *
+   * @param keyData The 16 bytes of key data.
+   * @return The identity of the key data.
+   * @throws IllegalArgumentException if the key data does not have a length of {@value #KEY_DATA_LENGTH} bytes.
+   */
+  public static KeyDataIdentity of(byte[] keyData) {
+    if (keyData == null || keyData.length != KEY_DATA_LENGTH) {
+      throw new IllegalArgumentException("Key data must have a length of " + KEY_DATA_LENGTH + " bytes.");
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(keyData);
+    return new KeyDataIdentity(buffer.getLong(), buffer.getLong());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    KeyDataIdentity that = (KeyDataIdentity) o;
+    return high == that.high && low == that.low;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(high) + Long.hashCode(low);
+  }
+}
@@ -10,8 +10,11 @@ import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.apache.commons.codec.binary.Base64;
@@ -41,8 +44,11 @@ public class PayloadFactory {
     payload.setBatch(batch);
     payload.setBatchTag(batchTag);
     payload.setOriginalKeys(originalKeys);
+    long startTime = System.currentTimeMillis();
     try {
       payload.setBatchSignature(signer.createSignatureBytes(batch));
+      logger.debug("Signed batch {} with {} key(s) in {} ms", batchTag, batch.getKeysCount(),
+          System.currentTimeMillis() - startTime);
     } catch (GeneralSecurityException | OperatorCreationException | IOException | CMSException e) {
       logger.error("Failed to generate upload payload signature", e);
     }
@@ -80,4 +86,30 @@ public class PayloadFactory {
             entry.getValue()))
         .collect(Collectors.toList());
   }
+
+  /**
+   * Generates the Payload objects like {@link #makePayloadList(List)}, but signs them on the specified executor. The
+   * batch tags are assigned in the order of the returned list, so that the payloads can be uploaded in this order while
+   * the remaining payloads are still being signed.
+   *
+   * @param diagnosisKeys   List of Diagnosis Keys.
+   * @param signingExecutor The executor that signs the payloads.
+   * @return futures of the upload payload objects {@link UploadPayload}.
+   */
+  public List<CompletableFuture<UploadPayload>> makePayloadListAsync(List<FederationUploadKey> diagnosisKeys,
+      Executor signingExecutor) {
+    Map<DiagnosisKeyBatch, List<FederationUploadKey>> batchesAndOriginalKeys = assembler
+        .assembleDiagnosisKeyBatch(diagnosisKeys);
+    byte[] hash = new byte[4];
+    new SecureRandom().nextBytes(hash);
+    int batchCounter = 0;
+
+    List<CompletableFuture<UploadPayload>> payloads = new ArrayList<>(batchesAndOriginalKeys.size());
+    for (Map.Entry<DiagnosisKeyBatch, List<FederationUploadKey>> entry : batchesAndOriginalKeys.entrySet()) {
+      String batchTag = generateBatchTag(batchCounter++, hash);
+      payloads.add(CompletableFuture.supplyAsync(
+          () -> this.mapToPayloadAndSign(batchTag, entry.getKey(), entry.getValue()), signingExecutor));
+    }
+    return payloads;
+  }
 }
@@ -0,0 +1,168 @@
+package app.coronawarn.server.services.federation.upload.payload.signing;
+
+import app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKey;
+import app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKeyBatch;
+import com.google.protobuf.ByteString;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the bytes of a {@link DiagnosisKeyBatch} that are signed for the Federation Gateway. Each key is encoded as
+ * a record of Base64 encoded fields, which are terminated by a dot:
+ * <br>
+ * {@code keyData.rollingStartIntervalNumber.rollingPeriod.transmissionRiskLevel.visitedCountries.origin.reportType.
+ * daysSinceOnsetOfSymptoms.}
+ * <br>
+ * The integers are encoded as 4 bytes in big-endian order, the strings as US-ASCII bytes, and the visited countries
+ * are joined with a comma. The records are concatenated in the order of their own Base64 encoding.
+ * <br>
+ * All records are written into one pre-sized buffer. Their Base64 encodings, which are used as sort keys, are
+ * computed once per record, and origins and visited countries that occur repeatedly are only encoded once.
+ */
+final class CanonicalBatchEncoder {
+
+  private static final byte[] BASE64_ALPHABET =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+  private static final byte BASE64_PADDING = '=';
+  private static final byte SEPARATOR = '.';
+  private static final int NUMBER_OF_FIELDS = 8;
+  private static final int NUMBER_OF_INT_FIELDS = 5;
+  private static final int ENCODED_INT_LENGTH = encodedLength(Integer.BYTES);
+
+  private final Map<String, byte[]> encodedOrigins = new HashMap<>();
+  private final Map<List<String>, byte[]> encodedVisitedCountries = new HashMap<>();
+  private final byte[] intBytes = new byte[Integer.BYTES];
+  private byte[] keyDataBytes = new byte[0];
+
+  private CanonicalBatchEncoder() {
+  }
+
+  /**
+   * Returns the bytes of the specified batch that are signed.
+   *
+   * @param batch The batch to encode.
+   * @return The canonical bytes of the batch.
+   */
+  static byte[] encode(DiagnosisKeyBatch batch) {
+    return new CanonicalBatchEncoder().encodeKeys(batch.getKeysList());
+  }
+
+  private byte[] encodeKeys(List<DiagnosisKey> keys) {
+    int numberOfKeys = keys.size();
+    byte[][] origins = new byte[numberOfKeys][];
+    byte[][] visitedCountries = new byte[numberOfKeys][];
+    int[] recordOffsets = new int[numberOfKeys + 1];
+    int[] sortKeyOffsets = new int[numberOfKeys + 1];
+    for (int i = 0; i < numberOfKeys; i++) {
+      DiagnosisKey key = keys.get(i);
+      origins[i] = encodedOrigins.computeIfAbsent(key.getOrigin(), CanonicalBatchEncoder::encodeAscii);
+      visitedCountries[i] = encodedVisitedCountries.computeIfAbsent(key.getVisitedCountriesList(),
+          countries -> encodeAscii(String.join(",", countries)));
+      int recordLength = encodedLength(key.getKeyData().size()) + origins[i].length + visitedCountries[i].length
+          + NUMBER_OF_INT_FIELDS * ENCODED_INT_LENGTH + NUMBER_OF_FIELDS;
+      recordOffsets[i + 1] = recordOffsets[i] + recordLength;
+      sortKeyOffsets[i + 1] = sortKeyOffsets[i] + encodedLength(recordLength);
+    }
+
+    byte[] records = new byte[recordOffsets[numberOfKeys]];
+    byte[] sortKeys = new byte[sortKeyOffsets[numberOfKeys]];
+    for (int i = 0; i < numberOfKeys; i++) {
+      writeRecord(keys.get(i), origins[i], visitedCountries[i], records, recordOffsets[i]);
+      writeBase64(records, recordOffsets[i], recordOffsets[i + 1] - recordOffsets[i], sortKeys, sortKeyOffsets[i]);
+    }
+
+    Integer[] order = new Integer[numberOfKeys];
+    Arrays.setAll(order, i -> i);
+    Arrays.sort(order, (left, right) -> Arrays.compare(
+        sortKeys, sortKeyOffsets[left], sortKeyOffsets[left + 1],
+        sortKeys, sortKeyOffsets[right], sortKeyOffsets[right + 1]));
+
+    byte[] bytesToSign = new byte[records.length];
+    int position = 0;
+    for (int index : order) {
+      int recordLength = recordOffsets[index + 1] - recordOffsets[index];
+      System.arraycopy(records, recordOffsets[index], bytesToSign, position, recordLength);
+      position += recordLength;
+    }
+    return bytesToSign;
+  }
+
+  private void writeRecord(DiagnosisKey key, byte[] origin, byte[] visitedCountries, byte[] target, int offset) {
+    int position = writeKeyData(key.getKeyData(), target, offset);
+    position = writeInt(key.getRollingStartIntervalNumber(), target, position);
+    position = writeInt(key.getRollingPeriod(), target, position);
+    position = writeInt(key.getTransmissionRiskLevel(), target, position);
+    position = writeField(visitedCountries, target, position);
+    position = writeField(origin, target, position);
+    position = writeInt(key.getReportType().getNumber(), target, position);
+    writeInt(key.getDaysSinceOnsetOfSymptoms(), target, position);
+  }
+
+  private int writeKeyData(ByteString keyData, byte[] target, int position) {
+    if (keyDataBytes.length != keyData.size()) {
+      keyDataBytes = new byte[keyData.size()];
+    }
+    keyData.copyTo(keyDataBytes, 0);
+    position = writeBase64(keyDataBytes, 0, keyDataBytes.length, target, position);
+    target[position] = SEPARATOR;
+    return position + 1;
+  }
+
+  private int writeInt(int value, byte[] target, int position) {
+    intBytes[0] = (byte) (value >>> 24);
+    intBytes[1] = (byte) (value >>> 16);
+    intBytes[2] = (byte) (value >>> 8);
+    intBytes[3] = (byte) value;
+    position = writeBase64(intBytes, 0, Integer.BYTES, target, position);
+    target[position] = SEPARATOR;
+    return position + 1;
+  }
+
+  private static int writeField(byte[] encodedField, byte[] target, int position) {
+    System.arraycopy(encodedField, 0, target, position, encodedField.length);
+    position += encodedField.length;
+    target[position] = SEPARATOR;
+    return position + 1;
+  }
+
+  private static byte[] encodeAscii(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+    byte[] encoded = new byte[encodedLength(bytes.length)];
+    writeBase64(bytes, 0, bytes.length, encoded, 0);
+    return encoded;
+  }
+
+  private static int encodedLength(int length) {
+    return 4 * ((length + 2) / 3);
+  }
+
+  /**
+   * Writes the Base64 encoding with padding, as created by {@link java.util.Base64#getEncoder()}, of the specified
+   * bytes into the target array.
+   *
+   * @return The position in the target array after the encoded bytes.
+   */
+  private static int writeBase64(byte[] source, int offset, int length, byte[] target, int position) {
+    int end = offset + length;
+    int index = offset;
+    for (; end - index >= 3; index += 3) {
+      int bits = (source[index] & 0xff) << 16 | (source[index + 1] & 0xff) << 8 | (source[index + 2] & 0xff);
+      target[position++] = BASE64_ALPHABET[bits >>> 18 & 0x3f];
+      target[position++] = BASE64_ALPHABET[bits >>> 12 & 0x3f];
+      target[position++] = BASE64_ALPHABET[bits >>> 6 & 0x3f];
+      target[position++] = BASE64_ALPHABET[bits & 0x3f];
+    }
+    int remaining = end - index;
+    if (remaining > 0) {
+      int bits = (source[index] & 0xff) << 16 | (remaining == 2 ? (source[index + 1] & 0xff) << 8 : 0);
+      target[position++] = BASE64_ALPHABET[bits >>> 18 & 0x3f];
+      target[position++] = BASE64_ALPHABET[bits >>> 12 & 0x3f];
+      target[position++] = remaining == 2 ? BASE64_ALPHABET[bits >>> 6 & 0x3f] : BASE64_PADDING;
+      target[position++] = BASE64_PADDING;
+    }
+    return position;
+  }
+}
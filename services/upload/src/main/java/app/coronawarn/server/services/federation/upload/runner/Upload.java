@@ -8,15 +8,24 @@ import app.coronawarn.server.common.protocols.external.exposurenotification.Diag
 import app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKeyBatch;
 import app.coronawarn.server.services.federation.upload.Application;
 import app.coronawarn.server.services.federation.upload.client.FederationUploadClient;
+import app.coronawarn.server.services.federation.upload.config.UploadServiceConfig;
+import app.coronawarn.server.services.federation.upload.config.UploadServiceConfig.Pipeline;
 import app.coronawarn.server.services.federation.upload.keys.DiagnosisKeyLoader;
+import app.coronawarn.server.services.federation.upload.keys.KeyDataIdentity;
 import app.coronawarn.server.services.federation.upload.payload.PayloadFactory;
 import app.coronawarn.server.services.federation.upload.payload.UploadPayload;
 import com.google.protobuf.ByteString;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
@@ -37,6 +46,7 @@ public class Upload implements ApplicationRunner {
   private final DiagnosisKeyLoader diagnosisKeyLoader;
   private final ApplicationContext applicationContext;
   private final FederationUploadKeyService uploadKeyService;
+  private final UploadServiceConfig uploadServiceConfig;
   private final Environment env;
 
   /**
@@ -48,32 +58,38 @@ public class Upload implements ApplicationRunner {
    * @param diagnosisKeyLoader     {@link DiagnosisKeyLoader} to load DiagnosisKeys from the Upload table.
    * @param applicationContext     {@link ApplicationContext} app context.
    * @param uploadKeyService       {@link FederationUploadKeyService} upload service.
+   * @param uploadServiceConfig    {@link UploadServiceConfig} to decide whether batches are uploaded pipelined.
    * @param env                    Spring Application Context
    */
   public Upload(FederationUploadClient federationUploadClient, PayloadFactory payloadFactory,
       DiagnosisKeyLoader diagnosisKeyLoader, ApplicationContext applicationContext,
-      FederationUploadKeyService uploadKeyService, Environment env) {
+      FederationUploadKeyService uploadKeyService, UploadServiceConfig uploadServiceConfig, Environment env) {
     this.federationUploadClient = federationUploadClient;
     this.payloadFactory = payloadFactory;
     this.diagnosisKeyLoader = diagnosisKeyLoader;
     this.applicationContext = applicationContext;
     this.uploadKeyService = uploadKeyService;
+    this.uploadServiceConfig = uploadServiceConfig;
     this.env = env;
   }
 
-  private List<FederationUploadKey> getRetryKeysFromResponseBody(BatchUploadResponse body, UploadPayload payload) {
-    List<FederationUploadKey> sortedOriginalList = sortByKeyData(payload.getOriginalKeys());
-    return body.getStatus500()
-        .stream()
-        .map(Integer::parseInt)
-        .map(index -> sortedOriginalList.get(index))
-        .collect(Collectors.toList());
+  /**
+   * Returns the identities of the keys that the gateway responded with status 500 for. The indexes in the response
+   * refer to the keys of the uploaded batch, which has been assembled from the original keys in their order.
+   */
+  private Set<KeyDataIdentity> getRetryKeysFromResponseBody(BatchUploadResponse body, UploadPayload payload) {
+    List<FederationUploadKey> originalKeys = payload.getOriginalKeys();
+    Set<KeyDataIdentity> retryKeys = new HashSet<>();
+    for (String index : body.getStatus500()) {
+      retryKeys.add(KeyDataIdentity.of(originalKeys.get(Integer.parseInt(index)).getKeyData()));
+    }
+    return retryKeys;
   }
 
-  private List<FederationUploadKey> executeUploadAndCollectErrors(UploadPayload payload) {
+  private Set<KeyDataIdentity> executeUploadAndCollectErrors(UploadPayload payload) {
     logger.info("Executing {} batch request(s): {}", getGateway(), payload.getBatchTag());
     var result = this.federationUploadClient.postBatchUpload(payload);
-    List<FederationUploadKey> retryKeys = Collections.emptyList();
+    Set<KeyDataIdentity> retryKeys = Collections.emptySet();
     if (result.isPresent()) {
       var body = result.get();
       retryKeys = this.getRetryKeysFromResponseBody(body, payload);
@@ -94,11 +110,15 @@ public class Upload implements ApplicationRunner {
     try {
       List<FederationUploadKey> diagnosisKeys = this.diagnosisKeyLoader.loadDiagnosisKeys();
       logger.info("Generating {} Upload Payload for {} keys", getGateway(), diagnosisKeys.size());
+      if (uploadServiceConfig.getPipeline().isEnabled()) {
+        uploadPipelined(diagnosisKeys);
+        return;
+      }
 
       List<UploadPayload> requests = this.payloadFactory.makePayloadList(sortByKeyData(diagnosisKeys));
       logger.info("Executing {} {} batch upload requests", getGateway(), requests.size());
       requests.forEach(payload -> {
-        List<FederationUploadKey> retryKeys = this.executeUploadAndCollectErrors(payload);
+        Set<KeyDataIdentity> retryKeys = this.executeUploadAndCollectErrors(payload);
         this.markSuccessfullyUploadedKeys(payload, retryKeys);
       });
     } catch (Exception e) {
@@ -107,6 +127,27 @@ public class Upload implements ApplicationRunner {
     }
   }
 
+  /**
+   * Signs the payloads on a worker pool and uploads each payload as soon as it is signed, with a bounded number of
+   * concurrent uploads.
+   */
+  private void uploadPipelined(List<FederationUploadKey> diagnosisKeys) throws InterruptedException {
+    Pipeline pipeline = uploadServiceConfig.getPipeline();
+    ExecutorService signingExecutor = Executors.newFixedThreadPool(pipeline.getSigningThreads());
+    ExecutorService uploadExecutor = Executors.newFixedThreadPool(pipeline.getMaxConcurrentUploads());
+    try {
+      List<CompletableFuture<UploadPayload>> requests = this.payloadFactory
+          .makePayloadListAsync(sortByKeyData(diagnosisKeys), signingExecutor);
+      logger.info("Executing {} {} batch upload requests with {} signing thread(s) and up to {} concurrent upload(s)",
+          getGateway(), requests.size(), pipeline.getSigningThreads(), pipeline.getMaxConcurrentUploads());
+      new UploadPipeline(uploadExecutor, pipeline.getMaxConcurrentUploads(), this::executeUploadAndCollectErrors,
+          this::markSuccessfullyUploadedKeys).run(requests);
+    } finally {
+      signingExecutor.shutdownNow();
+      uploadExecutor.shutdownNow();
+    }
+  }
+
   FederationBatchSourceSystem getGateway() {
     if (Arrays.asList(env.getActiveProfiles()).contains("connect-chgs")) {
       return FederationBatchSourceSystem.CHGS;
@@ -115,11 +156,11 @@ public class Upload implements ApplicationRunner {
     }
   }
 
-  private void markSuccessfullyUploadedKeys(UploadPayload payload, List<FederationUploadKey> retryKeys) {
+  private void markSuccessfullyUploadedKeys(UploadPayload payload, Set<KeyDataIdentity> retryKeys) {
     try {
       if (!retryKeys.isEmpty()) {
-        payload.getOriginalKeys().removeIf(originalKey -> retryKeys.stream()
-            .anyMatch(retryKey -> Arrays.equals(retryKey.getKeyData(), originalKey.getKeyData())));
+        payload.getOriginalKeys()
+            .removeIf(originalKey -> retryKeys.contains(KeyDataIdentity.of(originalKey.getKeyData())));
       }
       uploadKeyService.updateBatchTagForKeys(payload.getOriginalKeys(), payload.getBatchTag());
     } catch (Exception ex) {
@@ -128,10 +169,16 @@ public class Upload implements ApplicationRunner {
     }
   }
 
+  /**
+   * Sorts the keys by their key data interpreted as UTF-8 string. The string is created once per key instead of twice
+   * per comparison.
+   */
   private List<FederationUploadKey> sortByKeyData(List<FederationUploadKey> diagnosisKeys) {
     return diagnosisKeys
         .stream()
-        .sorted(Comparator.comparing(key -> ByteString.copyFrom(key.getKeyData()).toStringUtf8()))
+        .map(key -> Pair.of(ByteString.copyFrom(key.getKeyData()).toStringUtf8(), key))
+        .sorted(Comparator.comparing(Pair::getLeft))
+        .map(Pair::getRight)
         .collect(Collectors.toList());
   }
 }
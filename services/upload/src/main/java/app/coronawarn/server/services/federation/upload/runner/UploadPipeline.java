@@ -0,0 +1,122 @@
+package app.coronawarn.server.services.federation.upload.runner;
+
+import app.coronawarn.server.services.federation.upload.keys.KeyDataIdentity;
+import app.coronawarn.server.services.federation.upload.payload.UploadPayload;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Uploads payloads while the remaining payloads are still being signed. The uploads are started in the order of the
+ * batch tags, with a bounded number of uploads in flight at the same time. Each payload is reconciled with the response
+ * to its own upload. After an upload has failed, no further upload is started.
+ */
+class UploadPipeline {
+
+  private static final Logger logger = LoggerFactory.getLogger(UploadPipeline.class);
+
+  private final Executor uploadExecutor;
+  private final Semaphore availableUploadSlots;
+  private final Function<UploadPayload, Set<KeyDataIdentity>> upload;
+  private final BiConsumer<UploadPayload, Set<KeyDataIdentity>> reconciliation;
+  private final AtomicInteger numberOfInFlightUploads = new AtomicInteger();
+  private final AtomicInteger maxNumberOfInFlightUploads = new AtomicInteger();
+  private final LongAdder uploadMillis = new LongAdder();
+  private final LongAdder reconciliationMillis = new LongAdder();
+  private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+  /**
+   * Creates an {@link UploadPipeline}.
+   *
+   * @param uploadExecutor       The executor that runs the uploads.
+   * @param maxConcurrentUploads The maximum number of uploads that are in flight at the same time.
+   * @param upload               Uploads a payload and returns the keys that shall be retried.
+   * @param reconciliation       Marks the keys of an uploaded payload, except for the keys that shall be retried.
+   */
+  UploadPipeline(Executor uploadExecutor, int maxConcurrentUploads,
+      Function<UploadPayload, Set<KeyDataIdentity>> upload,
+      BiConsumer<UploadPayload, Set<KeyDataIdentity>> reconciliation) {
+    this.uploadExecutor = uploadExecutor;
+    this.availableUploadSlots = new Semaphore(maxConcurrentUploads);
+    this.upload = upload;
+    this.reconciliation = reconciliation;
+  }
+
+  /**
+   * Uploads the specified payloads as soon as they are signed and waits until all started uploads have completed.
+   *
+   * @param payloads The futures of the signed payloads, in the order of their batch tags.
+   * @throws InterruptedException if the thread is interrupted while waiting for an upload slot.
+   * @throws java.util.concurrent.CompletionException if signing or an upload has failed.
+   */
+  void run(List<CompletableFuture<UploadPayload>> payloads) throws InterruptedException {
+    long startTime = System.currentTimeMillis();
+    long signingWaitMillis = 0;
+    List<CompletableFuture<Void>> uploads = new ArrayList<>(payloads.size());
+
+    for (CompletableFuture<UploadPayload> signedPayload : payloads) {
+      long waitStartTime = System.currentTimeMillis();
+      final UploadPayload payload = signedPayload.join();
+      signingWaitMillis += System.currentTimeMillis() - waitStartTime;
+
+      availableUploadSlots.acquire();
+      if (failure.get() != null) {
+        availableUploadSlots.release();
+        break;
+      }
+      uploads.add(submit(payload));
+    }
+    CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+
+    logger.info("Pipelined upload of {} batch(es) completed in {} ms: waited {} ms for signing, uploads took {} ms and "
+            + "marking took {} ms in total, at most {} upload(s) were in flight.", uploads.size(),
+        System.currentTimeMillis() - startTime, signingWaitMillis, uploadMillis.sum(), reconciliationMillis.sum(),
+        maxNumberOfInFlightUploads.get());
+  }
+
+  int getMaxNumberOfInFlightUploads() {
+    return maxNumberOfInFlightUploads.get();
+  }
+
+  private CompletableFuture<Void> submit(UploadPayload payload) {
+    try {
+      return CompletableFuture.runAsync(() -> uploadAndReconcile(payload), uploadExecutor);
+    } catch (RejectedExecutionException e) {
+      availableUploadSlots.release();
+      throw e;
+    }
+  }
+
+  private void uploadAndReconcile(UploadPayload payload) {
+    maxNumberOfInFlightUploads.accumulateAndGet(numberOfInFlightUploads.incrementAndGet(), Math::max);
+    try {
+      long startTime = System.currentTimeMillis();
+      Set<KeyDataIdentity> retryKeys = upload.apply(payload);
+      long uploadEndTime = System.currentTimeMillis();
+      reconciliation.accept(payload, retryKeys);
+      long reconciliationEndTime = System.currentTimeMillis();
+
+      uploadMillis.add(uploadEndTime - startTime);
+      reconciliationMillis.add(reconciliationEndTime - uploadEndTime);
+      logger.debug("Batch {} uploaded in {} ms and marked in {} ms.", payload.getBatchTag(),
+          uploadEndTime - startTime, reconciliationEndTime - uploadEndTime);
+    } catch (RuntimeException e) {
+      failure.compareAndSet(null, e);
+      throw e;
+    } finally {
+      numberOfInFlightUploads.decrementAndGet();
+      availableUploadSlots.release();
+    }
+  }
+}
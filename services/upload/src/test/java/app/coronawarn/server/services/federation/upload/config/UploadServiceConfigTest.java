@@ -0,0 +1,31 @@
+package app.coronawarn.server.services.federation.upload.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.server.services.federation.upload.config.UploadServiceConfig.Pipeline;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+class UploadServiceConfigTest {
+
+  private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+  @Test
+  void defaultPipelineConfigurationIsValid() {
+    assertThat(validator.validate(new UploadServiceConfig())).isEmpty();
+  }
+
+  @Test
+  void pipelineRequiresAtLeastOneSigningThreadAndUpload() {
+    Pipeline pipeline = new Pipeline();
+    pipeline.setSigningThreads(0);
+    pipeline.setMaxConcurrentUploads(0);
+    UploadServiceConfig uploadServiceConfig = new UploadServiceConfig();
+    uploadServiceConfig.setPipeline(pipeline);
+
+    assertThat(validator.validate(uploadServiceConfig))
+        .extracting(violation -> violation.getPropertyPath().toString())
+        .containsExactlyInAnyOrder("pipeline.signingThreads", "pipeline.maxConcurrentUploads");
+  }
+}
@@ -0,0 +1,39 @@
+package app.coronawarn.server.services.federation.upload.keys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class KeyDataIdentityTest {
+
+  @Test
+  void equalKeyDataHasEqualIdentity() {
+    byte[] keyData = "testKey111111111".getBytes();
+
+    assertThat(KeyDataIdentity.of(keyData))
+        .isEqualTo(KeyDataIdentity.of(Arrays.copyOf(keyData, keyData.length)))
+        .hasSameHashCodeAs(KeyDataIdentity.of(Arrays.copyOf(keyData, keyData.length)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 7, 8, 15})
+  void keyDataDifferingInOneByteHasDifferentIdentity(int index) {
+    byte[] keyData = "testKey111111111".getBytes();
+    byte[] otherKeyData = Arrays.copyOf(keyData, keyData.length);
+    otherKeyData[index]++;
+
+    assertThat(KeyDataIdentity.of(keyData)).isNotEqualTo(KeyDataIdentity.of(otherKeyData));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 15, 17})
+  void keyDataWithInvalidLengthIsRejected(int length) {
+    byte[] keyData = new byte[length];
+
+    assertThatThrownBy(() -> KeyDataIdentity.of(keyData)).isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -8,7 +8,19 @@ import app.coronawarn.server.services.federation.upload.utils.BatchMockData;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.bouncycastle.cms.CMSException;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,12 +39,14 @@ class BatchSignerTest {
 
   private BatchSigner batchSigner;
 
+  private CryptoProvider cryptoProvider;
+
   @Autowired
   private UploadServiceConfig uploadServiceConfig;
 
   @BeforeEach
   void setup() throws IOException, CertificateException {
-    var cryptoProvider = new CryptoProvider(makeFakeResourceLoader(), uploadServiceConfig);
+    cryptoProvider = new CryptoProvider(makeFakeResourceLoader(), uploadServiceConfig);
     batchSigner = new BatchSigner(cryptoProvider, uploadServiceConfig);
   }
 
@@ -54,4 +68,32 @@ class BatchSignerTest {
     Assertions.assertNotEquals(signature1, signature2);
   }
 
+  @Test
+  void shouldCreateVerifiableSignaturesConcurrently() throws Exception {
+    List<DiagnosisKeyBatch> batches = IntStream.range(0, 20)
+        .mapToObj(ignore -> BatchMockData.makeSingleKeyBatch())
+        .collect(Collectors.toList());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> signatures = new ArrayList<>();
+      for (DiagnosisKeyBatch batch : batches) {
+        signatures.add(executor.submit(() -> batchSigner.createSignatureBytes(batch)));
+      }
+      for (int i = 0; i < batches.size(); i++) {
+        Assertions.assertTrue(isValidSignature(batches.get(i), signatures.get(i).get()));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private boolean isValidSignature(DiagnosisKeyBatch batch, String signature)
+      throws CMSException, OperatorCreationException {
+    CMSSignedData signedData = new CMSSignedData(new CMSProcessableByteArray(batchSigner.createBytesToSign(batch)),
+        Base64.getDecoder().decode(signature));
+    SignerInformation signerInformation = signedData.getSignerInfos().getSigners().iterator().next();
+    return signerInformation.verify(
+        new JcaSimpleSignerInfoVerifierBuilder().build(cryptoProvider.getCertificate().getPublicKey()));
+  }
+
 }
@@ -0,0 +1,135 @@
+package app.coronawarn.server.services.federation.upload.payload.signing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKey;
+import app.coronawarn.server.common.protocols.external.exposurenotification.DiagnosisKeyBatch;
+import app.coronawarn.server.common.protocols.external.exposurenotification.ReportType;
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CanonicalBatchEncoderTest {
+
+  private static final List<String> COUNTRIES = List.of("DE", "FR", "IT", "NL", "CH", "AT", "DK");
+
+  @Test
+  void emptyBatchIsEncodedAsEmptyBytes() {
+    assertThat(CanonicalBatchEncoder.encode(DiagnosisKeyBatch.newBuilder().build())).isEmpty();
+  }
+
+  @Test
+  void singleKeyIsEncodedAsDotTerminatedBase64Fields() {
+    DiagnosisKey key = DiagnosisKey.newBuilder()
+        .setKeyData(ByteString.copyFromUtf8("testKey111111111"))
+        .setRollingStartIntervalNumber(1)
+        .setRollingPeriod(144)
+        .setTransmissionRiskLevel(8)
+        .addAllVisitedCountries(List.of("DE", "FR"))
+        .setOrigin("DE")
+        .setReportType(ReportType.CONFIRMED_TEST)
+        .setDaysSinceOnsetOfSymptoms(-1)
+        .build();
+
+    assertThat(new String(CanonicalBatchEncoder.encode(DiagnosisKeyBatch.newBuilder().addKeys(key).build()),
+        StandardCharsets.US_ASCII))
+        .isEqualTo("dGVzdEtleTExMTExMTExMQ==.AAAAAQ==.AAAAkA==.AAAACA==.REUsRlI=.REU=.AAAAAQ==./////w==.");
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 10, 5000})
+  void encodingIsIdenticalToReferenceEncoding(int numberOfKeys) {
+    DiagnosisKeyBatch batch = makeRandomBatch(new Random(numberOfKeys), numberOfKeys);
+
+    assertThat(CanonicalBatchEncoder.encode(batch)).isEqualTo(createReferenceBytesToSign(batch));
+  }
+
+  @Test
+  void encodingOfKeyDataWithPaddingIsIdenticalToReferenceEncoding() {
+    Random random = new Random(42);
+    List<DiagnosisKey> keys = new ArrayList<>();
+    for (int length = 0; length <= 17; length++) {
+      byte[] keyData = new byte[length];
+      random.nextBytes(keyData);
+      keys.add(makeRandomKey(random).toBuilder().setKeyData(ByteString.copyFrom(keyData)).build());
+    }
+    DiagnosisKeyBatch batch = DiagnosisKeyBatch.newBuilder().addAllKeys(keys).build();
+
+    assertThat(CanonicalBatchEncoder.encode(batch)).isEqualTo(createReferenceBytesToSign(batch));
+  }
+
+  @Test
+  void duplicateKeysAreEncodedRepeatedly() {
+    DiagnosisKey key = makeRandomKey(new Random(7));
+    DiagnosisKeyBatch batch = DiagnosisKeyBatch.newBuilder().addKeys(key).addKeys(key).build();
+
+    byte[] bytesToSign = CanonicalBatchEncoder.encode(batch);
+    byte[] singleKeyBytes = CanonicalBatchEncoder.encode(DiagnosisKeyBatch.newBuilder().addKeys(key).build());
+    assertThat(bytesToSign).hasSize(2 * singleKeyBytes.length).isEqualTo(createReferenceBytesToSign(batch));
+  }
+
+  private static DiagnosisKeyBatch makeRandomBatch(Random random, int numberOfKeys) {
+    return DiagnosisKeyBatch.newBuilder()
+        .addAllKeys(IntStream.range(0, numberOfKeys)
+            .mapToObj(ignore -> makeRandomKey(random))
+            .collect(Collectors.toList()))
+        .build();
+  }
+
+  private static DiagnosisKey makeRandomKey(Random random) {
+    byte[] keyData = new byte[16];
+    random.nextBytes(keyData);
+    return DiagnosisKey.newBuilder()
+        .setKeyData(ByteString.copyFrom(keyData))
+        .setRollingStartIntervalNumber(random.nextInt())
+        .setRollingPeriod(random.nextInt(145))
+        .setTransmissionRiskLevel(random.nextInt(9))
+        .addAllVisitedCountries(COUNTRIES.subList(0, random.nextInt(COUNTRIES.size() + 1)))
+        .setOrigin(COUNTRIES.get(random.nextInt(COUNTRIES.size())))
+        .setReportType(ReportType.forNumber(random.nextInt(6)))
+        .setDaysSinceOnsetOfSymptoms(random.nextInt(8001) - 4000)
+        .build();
+  }
+
+  /**
+   * The encoding of the bytes to sign before {@link CanonicalBatchEncoder} was introduced.
+   */
+  private static byte[] createReferenceBytesToSign(DiagnosisKeyBatch batch) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    batch.getKeysList().stream()
+        .sorted(Comparator.comparing(diagnosisKey -> diagnosisKey.getKeyData().toStringUtf8()))
+        .map(CanonicalBatchEncoderTest::createReferenceBytesForKey)
+        .sorted(Comparator.comparing(bytes -> Base64.getEncoder().encodeToString(bytes)))
+        .forEach(buffer::writeBytes);
+    return buffer.toByteArray();
+  }
+
+  private static byte[] createReferenceBytesForKey(DiagnosisKey diagnosisKey) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    writeBase64(diagnosisKey.getKeyData().toByteArray(), bytes);
+    writeBase64(ByteBuffer.allocate(4).putInt(diagnosisKey.getRollingStartIntervalNumber()).array(), bytes);
+    writeBase64(ByteBuffer.allocate(4).putInt(diagnosisKey.getRollingPeriod()).array(), bytes);
+    writeBase64(ByteBuffer.allocate(4).putInt(diagnosisKey.getTransmissionRiskLevel()).array(), bytes);
+    writeBase64(String.join(",", diagnosisKey.getVisitedCountriesList()).getBytes(StandardCharsets.US_ASCII), bytes);
+    writeBase64(diagnosisKey.getOrigin().getBytes(StandardCharsets.US_ASCII), bytes);
+    writeBase64(ByteBuffer.allocate(4).putInt(diagnosisKey.getReportType().getNumber()).array(), bytes);
+    writeBase64(ByteBuffer.allocate(4).putInt(diagnosisKey.getDaysSinceOnsetOfSymptoms()).array(), bytes);
+    return bytes.toByteArray();
+  }
+
+  private static void writeBase64(byte[] value, ByteArrayOutputStream bytes) {
+    bytes.writeBytes(Base64.getEncoder().encodeToString(value).getBytes(StandardCharsets.US_ASCII));
+    bytes.writeBytes(".".getBytes(StandardCharsets.US_ASCII));
+  }
+}
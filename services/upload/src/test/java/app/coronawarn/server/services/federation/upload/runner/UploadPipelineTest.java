@@ -0,0 +1,120 @@
+package app.coronawarn.server.services.federation.upload.runner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import app.coronawarn.server.services.federation.upload.keys.KeyDataIdentity;
+import app.coronawarn.server.services.federation.upload.payload.UploadPayload;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class UploadPipelineTest {
+
+  private final ExecutorService uploadExecutor = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  void tearDown() {
+    uploadExecutor.shutdownNow();
+  }
+
+  @Test
+  void uploadsAllPayloadsWithBoundedConcurrency() throws InterruptedException {
+    List<UploadPayload> payloads = makePayloads(10);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    Map<String, Set<KeyDataIdentity>> reconciledPayloads = new ConcurrentHashMap<>();
+
+    UploadPipeline pipeline = new UploadPipeline(uploadExecutor, 2, payload -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      sleep(20);
+      inFlight.decrementAndGet();
+      return Set.of(KeyDataIdentity.of(keyDataFor(payload.getBatchTag())));
+    }, (payload, retryKeys) -> reconciledPayloads.put(payload.getBatchTag(), retryKeys));
+    pipeline.run(completed(payloads));
+
+    assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+    assertThat(pipeline.getMaxNumberOfInFlightUploads()).isBetween(1, 2);
+    assertThat(reconciledPayloads).hasSize(payloads.size());
+    reconciledPayloads.forEach((batchTag, retryKeys) ->
+        assertThat(retryKeys).containsExactly(KeyDataIdentity.of(keyDataFor(batchTag))));
+  }
+
+  @Test
+  void startsUploadsInOrderOfBatchTags() throws InterruptedException {
+    List<UploadPayload> payloads = makePayloads(5);
+    List<CompletableFuture<UploadPayload>> signedPayloads = payloads.stream()
+        .map(ignore -> new CompletableFuture<UploadPayload>())
+        .collect(Collectors.toList());
+    for (int i = payloads.size() - 1; i > 0; i--) {
+      signedPayloads.get(i).complete(payloads.get(i));
+    }
+    List<String> uploadedBatchTags = Collections.synchronizedList(new ArrayList<>());
+
+    UploadPipeline pipeline = new UploadPipeline(uploadExecutor, 1, payload -> {
+      uploadedBatchTags.add(payload.getBatchTag());
+      return Set.of();
+    }, (payload, retryKeys) -> { });
+    CompletableFuture.runAsync(() -> {
+      sleep(50);
+      signedPayloads.get(0).complete(payloads.get(0));
+    });
+    pipeline.run(signedPayloads);
+
+    assertThat(uploadedBatchTags).containsExactlyElementsOf(
+        payloads.stream().map(UploadPayload::getBatchTag).collect(Collectors.toList()));
+  }
+
+  @Test
+  void stopsUploadingAfterFailedUpload() {
+    List<UploadPayload> payloads = makePayloads(5);
+    List<String> uploadedBatchTags = Collections.synchronizedList(new ArrayList<>());
+
+    UploadPipeline pipeline = new UploadPipeline(uploadExecutor, 1, payload -> {
+      uploadedBatchTags.add(payload.getBatchTag());
+      if (uploadedBatchTags.size() == 2) {
+        throw new IllegalStateException("upload failed");
+      }
+      return Set.of();
+    }, (payload, retryKeys) -> { });
+
+    assertThatThrownBy(() -> pipeline.run(completed(payloads)))
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+    assertThat(uploadedBatchTags).containsExactly(payloads.get(0).getBatchTag(), payloads.get(1).getBatchTag());
+  }
+
+  private static List<UploadPayload> makePayloads(int numberOfPayloads) {
+    return IntStream.range(0, numberOfPayloads)
+        .mapToObj(index -> new UploadPayload().setBatchTag("batch-" + index))
+        .collect(Collectors.toList());
+  }
+
+  private static List<CompletableFuture<UploadPayload>> completed(List<UploadPayload> payloads) {
+    return payloads.stream().map(CompletableFuture::completedFuture).collect(Collectors.toList());
+  }
+
+  private static byte[] keyDataFor(String batchTag) {
+    return String.format("%-16s", batchTag).getBytes();
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
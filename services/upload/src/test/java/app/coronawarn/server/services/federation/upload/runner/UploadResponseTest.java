@@ -1,9 +1,10 @@
 package app.coronawarn.server.services.federation.upload.runner;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.util.Lists.emptyList;
 import static org.assertj.core.util.Lists.list;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -18,6 +19,7 @@ import app.coronawarn.server.common.persistence.service.common.ValidDiagnosisKey
 import app.coronawarn.server.common.protocols.internal.SubmissionPayload.SubmissionType;
 import app.coronawarn.server.services.federation.upload.client.FederationUploadClient;
 import app.coronawarn.server.services.federation.upload.config.UploadServiceConfig;
+import app.coronawarn.server.services.federation.upload.config.UploadServiceConfig.Pipeline;
 import app.coronawarn.server.services.federation.upload.keys.DiagnosisKeyLoader;
 import app.coronawarn.server.services.federation.upload.payload.AllowedPropertiesMap;
 import app.coronawarn.server.services.federation.upload.payload.DiagnosisKeyBatchAssembler;
@@ -26,13 +28,19 @@ import app.coronawarn.server.services.federation.upload.payload.signing.BatchSig
 import app.coronawarn.server.services.federation.upload.payload.signing.CryptoProvider;
 import app.coronawarn.server.services.federation.upload.utils.MockData;
 import com.google.protobuf.ByteString;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.verification.VerificationMode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
@@ -66,6 +74,9 @@ class UploadResponseTest {
   @Autowired
   Upload upload;
 
+  @Captor
+  ArgumentCaptor<Collection<FederationUploadKey>> markedKeys;
+
   @BeforeEach
   void setup() {
     when(uploadServiceConfig.getMinBatchKeyCount()).thenReturn(2);
@@ -87,10 +98,8 @@ class UploadResponseTest {
     when(mockDiagnosisKeyLoader.loadDiagnosisKeys()).thenReturn(List.of(testKey1, testKey2));
     returnEmptyFromUpload();
     upload.run(null);
-    verify(mockUploadKeyRepository, times(1))
-        .updateBatchTag(eq(testKey1.getKeyData()), any());
-    verify(mockUploadKeyRepository, times(1))
-        .updateBatchTag(eq(testKey2.getKeyData()), any());
+    verifyBatchTagUpdate(testKey1, times(1));
+    verifyBatchTagUpdate(testKey2, times(1));
   }
 
   @Test
@@ -101,10 +110,8 @@ class UploadResponseTest {
     when(mockDiagnosisKeyLoader.loadDiagnosisKeys()).thenReturn(List.of(testKey1, testKey2));
     returnFromUpload(createFake409Response());
     upload.run(null);
-    verify(mockUploadKeyRepository, times(1))
-        .updateBatchTag(eq(testKey1.getKeyData()), any());
-    verify(mockUploadKeyRepository, times(1))
-        .updateBatchTag(eq(testKey2.getKeyData()), any());
+    verifyBatchTagUpdate(testKey1, times(1));
+    verifyBatchTagUpdate(testKey2, times(1));
   }
 
   @Test
@@ -116,10 +123,8 @@ class UploadResponseTest {
     when(mockDiagnosisKeyLoader.loadDiagnosisKeys()).thenReturn(List.of(testKey1, testKey2));
     returnFromUpload(createFake500Response());
     upload.run(null);
-    verify(mockUploadKeyRepository, never())
-        .updateBatchTag(eq(testKey1.getKeyData()), any());
-    verify(mockUploadKeyRepository, never())
-        .updateBatchTag(eq(testKey2.getKeyData()), any());
+    verifyBatchTagUpdate(testKey1, never());
+    verifyBatchTagUpdate(testKey2, never());
   }
 
   @Test
@@ -131,10 +136,8 @@ class UploadResponseTest {
     when(mockDiagnosisKeyLoader.loadDiagnosisKeys()).thenReturn(List.of(testKey1, testKey2));
     returnFromUpload(createFake409And201Response());
     upload.run(null);
-    verify(mockUploadKeyRepository, times(1))
-        .updateBatchTag(eq(testKey1.getKeyData()), any());
-    verify(mockUploadKeyRepository, times(1))
-        .updateBatchTag(eq(testKey2.getKeyData()), any());
+    verifyBatchTagUpdate(testKey1, times(1));
+    verifyBatchTagUpdate(testKey2, times(1));
   }
 
   @Test
@@ -148,10 +151,8 @@ class UploadResponseTest {
     when(mockDiagnosisKeyLoader.loadDiagnosisKeys()).thenReturn(orderedKeys);
     returnFromUpload(createFake500And201Response());
     upload.run(null);
-    verify(mockUploadKeyRepository, never())
-        .updateBatchTag(eq(orderedKeys.get(0).getKeyData()), any());
-      verify(mockUploadKeyRepository, times(1))
-          .updateBatchTag(eq(orderedKeys.get(1).getKeyData()), any());
+    verifyBatchTagUpdate(orderedKeys.get(0), never());
+    verifyBatchTagUpdate(orderedKeys.get(1), times(1));
   }
 
   @Test
@@ -166,10 +167,57 @@ class UploadResponseTest {
     when(mockDiagnosisKeyLoader.loadDiagnosisKeys()).thenReturn(orderedKeys);
     returnFromUpload(createFake409And500Response());
     upload.run(null);
-    verify(mockUploadKeyRepository, times(1))
-        .updateBatchTag(eq(orderedKeys.get(0).getKeyData()), any());
-    verify(mockUploadKeyRepository, never())
-        .updateBatchTag(eq(orderedKeys.get(1).getKeyData()), any());
+    verifyBatchTagUpdate(orderedKeys.get(0), times(1));
+    verifyBatchTagUpdate(orderedKeys.get(1), never());
+  }
+
+  @Test
+  void checkLargeBatchWithManyRetryKeys() throws Exception {
+    List<FederationUploadKey> orderedKeys = MockData.generateRandomUploadKeys(true, 4000,
+        SubmissionType.SUBMISSION_TYPE_PCR_TEST).stream()
+        .sorted(Comparator.comparing(diagnosisKey ->
+            ByteString.copyFrom(diagnosisKey.getKeyData()).toStringUtf8())).collect(Collectors.toList());
+    List<String> retryIndexes = IntStream.range(0, orderedKeys.size()).filter(index -> index % 2 == 0)
+        .mapToObj(String::valueOf).collect(Collectors.toList());
+    List<String> successIndexes = IntStream.range(0, orderedKeys.size()).filter(index -> index % 2 == 1)
+        .mapToObj(String::valueOf).collect(Collectors.toList());
+
+    when(mockDiagnosisKeyLoader.loadDiagnosisKeys()).thenReturn(orderedKeys);
+    returnFromUpload(new BatchUploadResponse(emptyList(), retryIndexes, successIndexes));
+    upload.run(null);
+
+    verify(mockUploadKeyRepository, times(1)).updateBatchTags(markedKeys.capture(), any());
+    assertThat(markedKeys.getValue()).containsExactlyElementsOf(successIndexes.stream()
+        .map(index -> orderedKeys.get(Integer.parseInt(index))).collect(Collectors.toList()));
+  }
+
+  @Test
+  void checkPipelinedUploadReconcilesEachBatch() throws Exception {
+    List<FederationUploadKey> orderedKeys = MockData.generateRandomUploadKeys(true, 6,
+        SubmissionType.SUBMISSION_TYPE_PCR_TEST).stream()
+        .sorted(Comparator.comparing(diagnosisKey ->
+            ByteString.copyFrom(diagnosisKey.getKeyData()).toStringUtf8())).collect(Collectors.toList());
+    Pipeline pipeline = new Pipeline();
+    pipeline.setEnabled(true);
+    pipeline.setSigningThreads(2);
+    pipeline.setMaxConcurrentUploads(2);
+    when(uploadServiceConfig.getPipeline()).thenReturn(pipeline);
+    when(uploadServiceConfig.getMaxBatchKeyCount()).thenReturn(2);
+    when(mockDiagnosisKeyLoader.loadDiagnosisKeys()).thenReturn(orderedKeys);
+    returnFromUpload(createFake500And201Response());
+    upload.run(null);
+
+    verify(mockUploadClient, times(3)).postBatchUpload(any());
+    for (int i = 0; i < orderedKeys.size(); i++) {
+      verifyBatchTagUpdate(orderedKeys.get(i), i % 2 == 0 ? never() : times(1));
+    }
+  }
+
+  private void verifyBatchTagUpdate(FederationUploadKey uploadKey, VerificationMode mode) {
+    verify(mockUploadKeyRepository, mode).updateBatchTags(
+        argThat(uploadKeys -> uploadKeys.stream()
+            .anyMatch(key -> Arrays.equals(key.getKeyData(), uploadKey.getKeyData()))),
+        any());
   }
 
   private BatchUploadResponse createFake409And500Response() {